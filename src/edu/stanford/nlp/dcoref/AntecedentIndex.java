@@ -0,0 +1,177 @@
+package edu.stanford.nlp.dcoref;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.stanford.nlp.util.Generics;
+
+/**
+ * The coref clusters of a document, indexed by what the sieves match
+ * clusters on, so that a sieve only has to compare a mention with the
+ * antecedents it could link it to, instead of with every mention before
+ * it.  The index is kept up to date as clusters merge.
+ * <br>
+ * Which key a sieve can use is given by
+ * {@link edu.stanford.nlp.dcoref.sievepasses.DeterministicCorefSieve#antecedentKey()}.
+ *
+ * @see SieveCoreferenceSystem
+ */
+public class AntecedentIndex {
+
+  /** What an antecedent's cluster has to share with a mention's cluster for a sieve to link them */
+  public enum Key {
+    /** Nothing: every antecedent is a candidate */
+    NONE,
+    /** A mention with the same span string, give or take a final "'s", as for exact string match */
+    SPAN,
+    /** A mention with the head word of the mention cluster's representative mention */
+    HEAD,
+    /** Number, gender, animacy and NER type which agree with those of the mention's cluster */
+    ATTRIBUTES
+  }
+
+  private final Map<Integer, CorefCluster> corefClusters;
+
+  private final Map<String, Set<Integer>> clustersBySpan = Generics.newHashMap();
+  private final Map<String, Set<Integer>> clustersByHead = Generics.newHashMap();
+  private final Map<List<Set<?>>, Set<Integer>> clustersByAttributes = Generics.newHashMap();
+
+  // the keys each cluster is indexed under, so that it can be taken out again
+  private final Map<Integer, List<String>> spansOf = Generics.newHashMap();
+  private final Map<Integer, List<String>> headsOf = Generics.newHashMap();
+  private final Map<Integer, List<Set<?>>> attributesOf = Generics.newHashMap();
+
+  /**
+   * @param corefClusters The clusters of a document, by ID, which the
+   *     index looks clusters up in as they change
+   */
+  public AntecedentIndex(Map<Integer, CorefCluster> corefClusters) {
+    this.corefClusters = corefClusters;
+    for (CorefCluster cluster : corefClusters.values()) {
+      add(cluster);
+    }
+  }
+
+  /** Updates the index after {@code CorefCluster.mergeClusters(to, from)} */
+  public void merged(CorefCluster to, CorefCluster from) {
+    remove(from.clusterID);
+    remove(to.clusterID);
+    add(to);
+  }
+
+  /**
+   * The IDs of the clusters which a sieve needing the given key could
+   * link to {@code mentionCluster}, or null if that could be any cluster.
+   */
+  public Set<Integer> candidateClusters(Key key, CorefCluster mentionCluster) {
+    switch (key) {
+      case SPAN: {
+        Set<Integer> candidates = Generics.newHashSet();
+        for (Mention m : mentionCluster.corefMentions) {
+          if ( ! m.isPronominal()) {
+            for (String span : spanKeys(m)) {
+              addAll(candidates, clustersBySpan.get(span));
+            }
+          }
+        }
+        return candidates;
+      }
+      case HEAD: {
+        Mention representative = mentionCluster.getRepresentativeMention();
+        if (representative.isPronominal()) {
+          return Collections.emptySet();
+        }
+        Set<Integer> candidates = Generics.newHashSet();
+        addAll(candidates, clustersByHead.get(representative.headString));
+        return candidates;
+      }
+      case ATTRIBUTES: {
+        Set<Integer> candidates = Generics.newHashSet();
+        for (Set<Integer> clusters : clustersByAttributes.values()) {
+          // all these clusters have the same attributes, so one of them can speak for the rest
+          CorefCluster cluster = corefClusters.get(clusters.iterator().next());
+          if (Rules.entityAttributesAgree(mentionCluster, cluster)) {
+            candidates.addAll(clusters);
+          }
+        }
+        return candidates;
+      }
+      default:
+        return null;
+    }
+  }
+
+  private void add(CorefCluster cluster) {
+    Integer id = cluster.clusterID;
+    List<String> spans = new ArrayList<>();
+    List<String> heads = new ArrayList<>();
+    for (Mention m : cluster.corefMentions) {
+      if ( ! m.isPronominal()) {
+        String span = m.lowercaseNormalizedSpanString();
+        spans.add(span);
+        // so that "x 's" is found from "x" as well as the other way around
+        if (span.endsWith(" 's")) {
+          spans.add(span.substring(0, span.length() - 3));
+        }
+      }
+      heads.add(m.headString);
+    }
+    List<Set<?>> attributes = Arrays.asList(Generics.newHashSet(cluster.numbers), Generics.newHashSet(cluster.genders),
+        Generics.newHashSet(cluster.animacies), Generics.newHashSet(cluster.nerStrings));
+
+    for (String span : spans) {
+      clustersBySpan.computeIfAbsent(span, k -> Generics.newHashSet()).add(id);
+    }
+    for (String head : heads) {
+      clustersByHead.computeIfAbsent(head, k -> Generics.newHashSet()).add(id);
+    }
+    clustersByAttributes.computeIfAbsent(attributes, k -> Generics.newHashSet()).add(id);
+    spansOf.put(id, spans);
+    headsOf.put(id, heads);
+    attributesOf.put(id, attributes);
+  }
+
+  private void remove(int id) {
+    List<String> spans = spansOf.remove(id);
+    if (spans == null) {
+      return;
+    }
+    for (String span : spans) {
+      removeFrom(clustersBySpan, span, id);
+    }
+    for (String head : headsOf.remove(id)) {
+      removeFrom(clustersByHead, head, id);
+    }
+    removeFrom(clustersByAttributes, attributesOf.remove(id), id);
+  }
+
+  private static <K> void removeFrom(Map<K, Set<Integer>> index, K key, Integer id) {
+    Set<Integer> clusters = index.get(key);
+    if (clusters != null) {
+      clusters.remove(id);
+      if (clusters.isEmpty()) {
+        index.remove(key);
+      }
+    }
+  }
+
+  /** The spans a mention's span matches exactly under exact string match: itself, and without a final 's */
+  private static List<String> spanKeys(Mention m) {
+    String span = m.lowercaseNormalizedSpanString();
+    if (span.endsWith(" 's")) {
+      return Arrays.asList(span, span.substring(0, span.length() - 3));
+    }
+    return Collections.singletonList(span);
+  }
+
+  private static void addAll(Set<Integer> candidates, Set<Integer> clusters) {
+    if (clusters != null) {
+      candidates.addAll(clusters);
+    }
+  }
+
+}
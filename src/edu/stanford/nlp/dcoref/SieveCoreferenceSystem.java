@@ -111,6 +111,20 @@ public class SieveCoreferenceSystem {
    */
   private final int maxSentDist;
 
+  /**
+   * If true, each sieve only compares a mention with the antecedents an
+   * {@link AntecedentIndex} finds for it, instead of with every mention
+   * before it.  This is much faster on long documents.  The links found
+   * can differ a little, as the incompatible mentions a sieve notes down
+   * while comparing are only noted for the pairs it compares.
+   */
+  private final boolean useCandidateIndex;
+
+  /** Total time spent in each sieve, in milliseconds, by sieve name */
+  private final Counter<String> sieveMillis = new DefaultCounter<>();
+  /** Total number of antecedents each sieve has compared mentions with, by sieve name */
+  private final Counter<String> sieveComparisons = new DefaultCounter<>();
+
   /** flag for replicating CoNLL result */
   private final boolean replicateCoNLL;
 
@@ -206,6 +220,11 @@ public class SieveCoreferenceSystem {
     //
     maxSentDist = Integer.parseInt(props.getProperty(Constants.MAXDIST_PROP, "-1"));
 
+    //
+    // setting whether sieves only see the antecedents they could link a mention to
+    //
+    useCandidateIndex = Boolean.parseBoolean(props.getProperty(Constants.CANDIDATE_INDEX_PROP, "false"));
+
     //
     // set useWordNet
     //
@@ -298,6 +317,8 @@ public class SieveCoreferenceSystem {
             "false"));
     os.append(Constants.MAXDIST_PROP + ':').append(props.getProperty(Constants.MAXDIST_PROP,
             "-1"));
+    os.append(Constants.CANDIDATE_INDEX_PROP + ':').append(props.getProperty(Constants.CANDIDATE_INDEX_PROP,
+            "false"));
     os.append(Constants.REPLICATECONLL_PROP + ':').append(props.getProperty(Constants.REPLICATECONLL_PROP,
             "false"));
     os.append(Constants.CONLL_SCORER + ':').append(props.getProperty(Constants.CONLL_SCORER,
@@ -817,12 +838,23 @@ public class SieveCoreferenceSystem {
    */
   public Map<Integer, CorefChain> coref(Document document) throws Exception {
 
+    AntecedentIndex index = useCandidateIndex ? new AntecedentIndex(document.corefClusters) : null;
+
     // Multi-pass sieve coreference resolution
     for (int i = 0; i < sieves.length ; i++){
       currentSieve = i;
       DeterministicCorefSieve sieve = sieves[i];
       // Do coreference resolution using this pass
-      coreference(document, sieve);
+      long start = System.nanoTime();
+      int comparisons = coreference(document, sieve, index);
+      double millis = (System.nanoTime() - start) / 1e6;
+      synchronized (sieveMillis) {
+        sieveMillis.incrementCount(sieveClassNames[i], millis);
+        sieveComparisons.incrementCount(sieveClassNames[i], comparisons);
+      }
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("Sieve " + sieveClassNames[i] + ": " + comparisons + " comparisons in " + millis + " ms");
+      }
     }
 
     // post processing (e.g., removing singletons, appositions for conll)
@@ -837,15 +869,39 @@ public class SieveCoreferenceSystem {
     return result;
   }
 
+  /**
+   * The total time each sieve has taken, in milliseconds, over all the
+   * documents so far, by sieve name.
+   */
+  public Counter<String> getSieveMillis() {
+    synchronized (sieveMillis) {
+      return new DefaultCounter<>(sieveMillis);
+    }
+  }
+
+  /**
+   * The total number of antecedents each sieve has compared a mention
+   * with, over all the documents so far, by sieve name.
+   */
+  public Counter<String> getSieveComparisons() {
+    synchronized (sieveMillis) {
+      return new DefaultCounter<>(sieveComparisons);
+    }
+  }
+
   /**
    * Do coreference resolution using one sieve pass.
    *
    * @param document An extracted document
+   * @param index The candidate antecedents of each mention, or null to compare each mention
+   *     with every mention before it
+   * @return How many antecedents the sieve compared mentions with
    * @throws Exception
    */
-  private void coreference(
+  private int coreference(
       Document document,
-      DeterministicCorefSieve sieve) throws Exception {
+      DeterministicCorefSieve sieve,
+      AntecedentIndex index) throws Exception {
 
     //Redwood.forceTrack("Coreference: sieve " + sieve.getClass().getSimpleName());
     if (logger.isLoggable(Level.FINER)) {
@@ -865,6 +921,8 @@ public class SieveCoreferenceSystem {
 
     additionalCorrectLinksCount = 0;
     additionalLinksCount = 0;
+    int comparisons = 0;
+    AntecedentIndex.Key key = (index == null) ? AntecedentIndex.Key.NONE : sieve.antecedentKey();
 
     for (int sentI = 0; sentI < orderedMentionsBySentence.size(); sentI++) {
       List<Mention> orderedMentions = orderedMentionsBySentence.get(sentI);
@@ -878,8 +936,30 @@ public class SieveCoreferenceSystem {
           continue;
         }
 
+        // the clusters this sieve could link m1's to, and the sentences they have mentions in
+        Set<Integer> candidates = null;
+        TreeSet<Integer> candidateSentences = null;
+        if (key != AntecedentIndex.Key.NONE) {
+          candidates = index.candidateClusters(key, corefClusters.get(m1.corefClusterID));
+          candidateSentences = new TreeSet<>();
+          for (int clusterID : candidates) {
+            for (Mention m : corefClusters.get(clusterID).getCorefMentions()) {
+              if (m.sentNum <= sentI) {
+                candidateSentences.add(m.sentNum);
+              }
+            }
+          }
+        }
+
         LOOP:
           for (int sentJ = sentI; sentJ >= 0; sentJ--) {
+            if (candidateSentences != null) {
+              Integer next = candidateSentences.floor(sentJ);
+              if (next == null) {
+                break;
+              }
+              sentJ = next;
+            }
             List<Mention> l = sieve.getOrderedAntecedents(sentJ, sentI, orderedMentions, orderedMentionsBySentence, m1, mentionI, corefClusters, dictionaries);
             if(maxSentDist != -1 && sentI - sentJ > maxSentDist) continue;
 
@@ -900,12 +980,14 @@ public class SieveCoreferenceSystem {
 
             for (Mention m2 : l) {
               // m2 - antecedent of m1                   l
+              if (candidates != null && ! candidates.contains(m2.corefClusterID)) continue;
 
               // Skip singletons according to the singleton predictor
               // (only for non-NE mentions)
               // Recasens, de Marneffe, and Potts (NAACL 2013)
               if (m1.isSingleton && m1.mentionType != MentionType.PROPER && m2.isSingleton && m2.mentionType != MentionType.PROPER) continue;
               if (m1.corefClusterID == m2.corefClusterID) continue;
+              comparisons++;
               CorefCluster c1 = corefClusters.get(m1.corefClusterID);
               CorefCluster c2 = corefClusters.get(m2.corefClusterID);
               if (c2 == null) {
@@ -932,6 +1014,9 @@ public class SieveCoreferenceSystem {
 
                 int removeID = c1.clusterID;
                 CorefCluster.mergeClusters(c2, c1);
+                if (index != null) {
+                  index.merged(c2, c1);
+                }
                 document.mergeIncompatibles(c2, c1);
                 document.mergeAcronymCache(c2, c1);
 //                logger.warning("Removing cluster " + removeID + ", merged with " + c2.getClusterID());
@@ -966,6 +1051,7 @@ public class SieveCoreferenceSystem {
       printSieveScore(document, sieve);
     }
     //Redwood.endTrack("Coreference: sieve " + sieve.getClass().getSimpleName());
+    return comparisons;
   }
 
   /** Remove singletons, appositive, predicate nominatives, relative pronouns */
@@ -36,6 +36,7 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.logging.Level;
 
+import edu.stanford.nlp.dcoref.AntecedentIndex;
 import edu.stanford.nlp.dcoref.Constants;
 import edu.stanford.nlp.dcoref.CorefCluster;
 import edu.stanford.nlp.dcoref.Dictionaries;
@@ -77,6 +78,36 @@ public abstract class DeterministicCorefSieve  {
 
   public boolean useRoleSkip() { return flags.USE_ROLE_SKIP; }
 
+  /**
+   * What an antecedent's cluster has to share with the mention's cluster
+   * for this sieve to ever link them, worked out from the flags.  With the
+   * candidate index on, the sieve is only given antecedents in such
+   * clusters.  A sieve which can link clusters in ways the index can't
+   * narrow down gets {@code NONE}, and sees every antecedent.
+   */
+  public AntecedentIndex.Key antecedentKey() {
+    // these can link clusters before the attributes are checked, and can't be looked up
+    if (flags.USE_ROLE_SKIP || flags.USE_DISCOURSEMATCH || flags.USE_NAME_MATCH || flags.USE_RELAXED_EXACTSTRINGMATCH
+        || flags.USE_APPOSITION || flags.USE_PREDICATENOMINATIVES || flags.USE_ACRONYM
+        || flags.USE_RELATIVEPRONOUN || flags.USE_DEMONYM || flags.USE_ROLEAPPOSITION) {
+      return AntecedentIndex.Key.NONE;
+    }
+    boolean otherMatches = flags.USE_RELAXED_HEADMATCH || flags.USE_WN_HYPERNYM || flags.USE_WN_SYNONYM
+        || flags.USE_ALIAS || flags.USE_COREF_DICT;
+    if (flags.USE_EXACTSTRINGMATCH) {
+      boolean onlyMatch = ! otherMatches && ! flags.USE_INCLUSION_HEADMATCH && ! flags.DO_PRONOUN;
+      return onlyMatch ? AntecedentIndex.Key.SPAN : AntecedentIndex.Key.NONE;
+    }
+    if (flags.USE_INCLUSION_HEADMATCH && ! otherMatches && ! flags.DO_PRONOUN) {
+      return AntecedentIndex.Key.HEAD;
+    }
+    // a pronoun is only linked to a cluster whose attributes agree
+    if (flags.USE_ATTRIBUTES_AGREE || (flags.DO_PRONOUN && ! otherMatches && ! flags.USE_INCLUSION_HEADMATCH)) {
+      return AntecedentIndex.Key.ATTRIBUTES;
+    }
+    return AntecedentIndex.Key.NONE;
+  }
+
   /** Skip this mention? (search pruning) */
   public boolean skipThisMention(Document document, Mention m1, CorefCluster c, Dictionaries dict) {
     boolean skip = false;
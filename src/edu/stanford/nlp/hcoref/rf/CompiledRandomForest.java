@@ -0,0 +1,114 @@
+package edu.stanford.nlp.hcoref.rf;
+
+import java.util.List;
+
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+
+/**
+ * A {@link RandomForest} flattened into arrays, for scoring many data
+ * quickly.  The nodes of each tree are laid out in preorder, so that the
+ * left child of a node is the node after it, and only the right child has
+ * to be stored.
+ * <br>
+ * Data are dense {@code double[]} vectors over just the features which
+ * some tree splits on, numbered by {@link #featureId(String)}.  Any other
+ * feature can't change the score, so it can be left out.  Scores are the
+ * same as those of the {@link RandomForest} for the same features.
+ */
+public class CompiledRandomForest {
+
+  private final Index<String> features = new HashIndex<>();
+
+  // for each node: the feature it splits on, or -1 for a leaf
+  private final int[] feature;
+  // for each node: its split point, or its probability of true for a leaf
+  private final float[] split;
+  // for each node: where its right child is
+  private final int[] right;
+  // where each tree starts
+  private final int[] roots;
+
+  public CompiledRandomForest(RandomForest rf) {
+    int numNodes = 0;
+    for (DecisionTree tree : rf.trees) {
+      numNodes += size(tree.root);
+    }
+    feature = new int[numNodes];
+    split = new float[numNodes];
+    right = new int[numNodes];
+    roots = new int[rf.trees.length];
+
+    int next = 0;
+    for (int i = 0; i < rf.trees.length; i++) {
+      roots[i] = next;
+      // each tree looks its features up in its own index, as DecisionTree does
+      next = add(rf.trees[i].root, next, rf.trees[i].featureIndex);
+    }
+  }
+
+  private static int size(DecisionTreeNode node) {
+    if (node.isLeaf()) {
+      return 1;
+    }
+    return 1 + size(node.children[0]) + size(node.children[1]);
+  }
+
+  /** Puts a node and its descendants at {@code pos} onwards, and returns where the next node goes */
+  private int add(DecisionTreeNode node, int pos, Index<String> featureIndex) {
+    split[pos] = node.split;
+    if (node.isLeaf()) {
+      feature[pos] = -1;
+      return pos + 1;
+    }
+    feature[pos] = features.addToIndex(featureIndex.get(node.idx));
+    int end = add(node.children[0], pos + 1, featureIndex);
+    right[pos] = end;
+    return add(node.children[1], end, featureIndex);
+  }
+
+  /** How long feature vectors are */
+  public int numFeatures() {
+    return features.size();
+  }
+
+  /** Where a feature goes in a feature vector, or -1 if no tree splits on it */
+  public int featureId(String feature) {
+    return features.indexOf(feature);
+  }
+
+  public double probabilityOfTrue(double[] features) {
+    double probTrue = 0;
+    for (int root : roots) {
+      probTrue += leaf(root, features);
+    }
+    return probTrue / roots.length;
+  }
+
+  /**
+   * The probabilities of true of many data.  This goes through the forest
+   * a tree at a time, rather than a datum at a time, so each tree is only
+   * brought into the cache once.
+   */
+  public double[] probabilitiesOfTrue(List<double[]> data) {
+    double[] probTrue = new double[data.size()];
+    for (int root : roots) {
+      for (int i = 0; i < probTrue.length; i++) {
+        probTrue[i] += leaf(root, data.get(i));
+      }
+    }
+    for (int i = 0; i < probTrue.length; i++) {
+      probTrue[i] /= roots.length;
+    }
+    return probTrue;
+  }
+
+  private double leaf(int node, double[] features) {
+    int f;
+    while ((f = feature[node]) >= 0) {
+      node = (features[f] < split[node]) ? node + 1 : right[node];
+    }
+    return split[node];
+  }
+
+}
@@ -23,6 +23,7 @@ import edu.stanford.nlp.hcoref.data.Document;
 import edu.stanford.nlp.hcoref.data.Document.DocType;
 import edu.stanford.nlp.hcoref.data.Mention;
 import edu.stanford.nlp.hcoref.md.RuleBasedCorefMentionFinder;
+import edu.stanford.nlp.hcoref.rf.CompiledRandomForest;
 import edu.stanford.nlp.hcoref.rf.RandomForest;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreAnnotations.SpeakerAnnotation;
@@ -42,6 +43,10 @@ public class RFSieve extends Sieve {
   // for RF sieve
   public RandomForest rf;
   
+  // rf as arrays, made when first needed
+  private transient CompiledRandomForest compiledRf;
+  private transient RandomForest compiledFrom;
+
   /** the probability threshold for merging two mentions */
   public double thresMerge;
   
@@ -53,10 +58,21 @@ public class RFSieve extends Sieve {
     this.classifierType = ClassifierType.RF;
   }
 
+  private synchronized CompiledRandomForest compiledForest() {
+    if (compiledRf == null || compiledFrom != rf) {
+      compiledRf = new CompiledRandomForest(rf);
+      compiledFrom = rf;
+    }
+    return compiledRf;
+  }
+
   public void findCoreferentAntecedent(Mention m, int mIdx, Document document, Dictionaries dict, Properties props, StringBuilder sbLog) throws Exception {
     int sentIdx = m.sentNum;
 
     Counter<Integer> probs = new DefaultCounter<>();
+    CompiledRandomForest forest = (this.classifierType == ClassifierType.RF) ? compiledForest() : null;
+    List<Mention> antecedents = new ArrayList<>();
+    List<double[]> data = new ArrayList<>();
     
     int mentionDist = 0;
     for(int sentDist=0 ; sentDist <= Math.min(this.maxSentDist, sentIdx) ; sentDist++) {
@@ -75,16 +91,18 @@ public class RFSieve extends Sieve {
         if(sentDist==0 && m.appearEarlierThan(candidate)) continue;   // ignore cataphora
         mentionDist++;
 
-        RVFDatum<Boolean, String> datum = extractDatum(m, candidate, document, mentionDist, dict, props, sievename);
-        
-        double probTrue = 0;
-        if(this.classifierType == ClassifierType.RF) {
-          probTrue = this.rf.probabilityOfTrue(datum);
+        antecedents.add(candidate);
+        if(forest != null) {
+          data.add(extractFeatureVector(forest, m, candidate, document, mentionDist, dict, props, sievename));
         }
-        
-        probs.setCount(candidate.mentionID, probTrue);
       }
     }
+
+    // score all the candidates together
+    double[] probTrue = (forest != null) ? forest.probabilitiesOfTrue(data) : new double[antecedents.size()];
+    for(int i = 0; i < antecedents.size(); i++) {
+      probs.setCount(antecedents.get(i).mentionID, probTrue[i]);
+    }
     
     if(CorefProperties.debug(props)) {
       sbLog.append(CorefPrinter.printErrorLog(m, document, probs, mIdx, dict, this));
@@ -97,12 +115,44 @@ public class RFSieve extends Sieve {
       Sieve.merge(document, m.mentionID, antID);
     }
   }
+
+  /** Where {@link #extractFeatures} adds up the features of a mention pair */
+  private interface FeatureSink {
+    void incrementCount(String feature, double value);
+
+    default void incrementCount(String feature) {
+      incrementCount(feature, 1.0);
+    }
+  }
+
   public static RVFDatum<Boolean, String> extractDatum(Mention m, Mention candidate, 
       Document document, int mentionDist, Dictionaries dict, Properties props, String sievename) {
+    boolean label = (document.goldMentions==null)? false : document.isCoref(m, candidate);
+    Counter<String> features = new DefaultCounter<>();
+    extractFeatures(features::incrementCount, m, candidate, document, mentionDist, dict, props, sievename);
+    return new RVFDatum<>(features, label);
+  }
+
+  /**
+   * The features of a mention pair as a dense vector for {@code forest},
+   * leaving out the features none of its trees split on.
+   */
+  public static double[] extractFeatureVector(CompiledRandomForest forest, Mention m, Mention candidate,
+      Document document, int mentionDist, Dictionaries dict, Properties props, String sievename) {
+    double[] vector = new double[forest.numFeatures()];
+    extractFeatures((feature, value) -> {
+      int id = forest.featureId(feature);
+      if (id >= 0) {
+        vector[id] += value;
+      }
+    }, m, candidate, document, mentionDist, dict, props, sievename);
+    return vector;
+  }
+
+  private static void extractFeatures(FeatureSink features, Mention m, Mention candidate,
+      Document document, int mentionDist, Dictionaries dict, Properties props, String sievename) {
     try {
       
-      boolean label = (document.goldMentions==null)? false : document.isCoref(m, candidate);
-      Counter<String> features = new DefaultCounter<>();
       CorefCluster mC = document.corefClusters.get(m.corefClusterID);
       CorefCluster aC = document.corefClusters.get(candidate.corefClusterID);
       
@@ -726,8 +776,6 @@ public class RFSieve extends Sieve {
         }
         features.incrementCount("WORDVECTOR-AVG-DIFF", dist/cnt);
       }
-      
-      return new RVFDatum<>(features, label);
     } catch (Exception e) {
       System.err.println("Datum Extraction failed in Sieve.java while processing document: "+document.docInfo.get("DOC_ID")+" part: "+document.docInfo.get("DOC_PART"));
       throw new RuntimeException(e);
@@ -37,6 +37,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -393,8 +394,19 @@ public class NERFeatureFactory<IN extends CoreLabel> extends FeatureFactory<IN>
   @Override
   public Collection<String> getCliqueFeatures(PaddedList<IN> cInfo, int loc, Clique clique) {
     Collection<String> features = Generics.newHashSet();
+    getCliqueFeatures(cInfo, loc, clique, (feature, suffix) -> features.add(feature.concat('|' + suffix)));
+
+    // System.err.println(StringUtils.join(features,"\n")+"\n");
+    return features;
+  }
+
+  /**
+   * Extracts all the features from the input data at a certain index,
+   * passing each one to features as its base name and clique suffix.
+   */
+  @Override
+  public void getCliqueFeatures(PaddedList<IN> cInfo, int loc, Clique clique, BiConsumer<String, String> features) {
     String domain = cInfo.get(0).get(CoreAnnotations.DomainAnnotation.class);
-    final boolean doFE = domain != null;
 
 //    System.err.println(doFE+"\t"+domain);
 
@@ -406,12 +418,7 @@ public class NERFeatureFactory<IN extends CoreLabel> extends FeatureFactory<IN>
       c = featuresC(cInfo, loc);
       suffix = "C";
     } else if (clique == cliqueCpC) {
-      c = featuresCpC(cInfo, loc);
-      suffix = "CpC";
-      addAllInterningAndSuffixing(features, c, suffix);
-      if (doFE) {
-        addAllInterningAndSuffixing(features, c, domain + '-' + suffix);
-      }
+      acceptAllSuffixed(features, featuresCpC(cInfo, loc), "CpC", domain);
       c = featuresCnC(cInfo, loc-1);
       suffix = "CnC";
     } else if (clique == cliqueCp2C) {
@@ -427,12 +434,7 @@ public class NERFeatureFactory<IN extends CoreLabel> extends FeatureFactory<IN>
       c = featuresCp5C(cInfo, loc);
       suffix = "Cp5C";
     } else if (clique == cliqueCpCp2C) {
-      c = featuresCpCp2C(cInfo, loc);
-      suffix = "CpCp2C";
-      addAllInterningAndSuffixing(features, c, suffix);
-      if (doFE) {
-        addAllInterningAndSuffixing(features, c, domain+ '-' + suffix);
-      }
+      acceptAllSuffixed(features, featuresCpCp2C(cInfo, loc), "CpCp2C", domain);
       c = featuresCpCnC(cInfo, loc-1);
       suffix = "CpCnC";
     } else if (clique == cliqueCpCp2Cp3C) {
@@ -445,13 +447,20 @@ public class NERFeatureFactory<IN extends CoreLabel> extends FeatureFactory<IN>
       throw new IllegalArgumentException("Unknown clique: " + clique);
     }
 
-    addAllInterningAndSuffixing(features, c, suffix);
-    if (doFE) {
-      addAllInterningAndSuffixing(features, c, domain + '-' + suffix);
-    }
+    acceptAllSuffixed(features, c, suffix, domain);
+  }
 
-    // System.err.println(StringUtils.join(features,"\n")+"\n");
-    return features;
+  /** Passes each feature with the suffix, and again with the domain-specific suffix if there is a domain. */
+  private static void acceptAllSuffixed(BiConsumer<String, String> features, Collection<String> c, String suffix, String domain) {
+    for (String feature : c) {
+      features.accept(feature, suffix);
+    }
+    if (domain != null) {
+      String domainSuffix = domain + '-' + suffix;
+      for (String feature : c) {
+        features.accept(feature, domainSuffix);
+      }
+    }
   }
 
 
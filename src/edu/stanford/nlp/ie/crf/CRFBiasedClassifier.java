@@ -56,6 +56,12 @@ public class CRFBiasedClassifier<IN extends CoreMap> extends CRFClassifier<IN> {
         super(flags);
     }
 
+    /** makeDatum adds the bias feature at test time. */
+    @Override
+    protected boolean makesDatumsFromFeatureFactories() {
+        return false;
+    }
+
     @Override
     public CRFDatum<List<String>, CRFLabel> makeDatum(List<IN> info, int loc, List<FeatureFactory<IN>> featureFactories) {
 
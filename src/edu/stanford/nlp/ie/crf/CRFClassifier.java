@@ -44,6 +44,9 @@ import edu.stanford.nlp.util.*;
 
 import java.io.*;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.*;
@@ -99,6 +102,16 @@ import java.util.zip.GZIPOutputStream;
  * -trainFileList file1,file2,... -testFile testFile -macro &gt; output</code>
  * </p>
  * <p>
+ * To write a trained model in a memory-mappable format, which loads
+ * near-instantly and whose weights and feature index are shared through the
+ * OS page cache by every JVM on a machine that uses it: </p>
+ * <p><code>java -mx1g edu.stanford.nlp.ie.crf.CRFClassifier
+ * -loadClassifier conll.ner.gz -serializeToMapped conll.ner.mapped [-mappedFloatWeights]</code>
+ * </p>
+ * <p>
+ * Such a file can then be used anywhere a regular serialized classifier file can.
+ * </p>
+ * <p>
  * To test on multiple files, use the -testFiles option and a comma
  * separated list.
  * </p>
@@ -146,6 +159,8 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
   Index<String> featureIndex;
   /** caches the featureIndex */
   int[] map;
+  /** Built lazily over featureIndex for flags.featureIdInference */
+  private volatile FeatureIdLookup featureIdLookup;
   Random random = new Random(2147483647L);
   Index<Integer> nodeFeatureIndicesMap;
   Index<Integer> edgeFeatureIndicesMap;
@@ -427,6 +442,9 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
    *         the third element is a double[][][] representing the feature values (optionally null)
    */
   public Triple<int[][][], int[], double[][][]> documentToDataAndLabels(List<IN> document) {
+    if (flags.featureIdInference && !flags.useEmbedding && flags.printFeatures == null && makesDatumsFromFeatureFactories()) {
+      return documentToFeatureIdsAndLabels(document);
+    }
     int docSize = document.size();
     // first index is position in the document also the index of the
     // clique/factor table
@@ -492,6 +510,70 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
     return new Triple<>(data, labels, featureVals);
   }
 
+  /**
+   * Whether {@link #makeDatum} just collects the features the featureFactories
+   * give for each clique, so that {@link #documentToFeatureIdsAndLabels} gives
+   * the same data.  Subclasses which add features of their own return false.
+   */
+  protected boolean makesDatumsFromFeatureFactories() {
+    return true;
+  }
+
+  /**
+   * Does the same as {@link #documentToDataAndLabels} (without feature values),
+   * but looks each feature the featureFactories produce up in featureIndex
+   * as it is produced, without building the clique-suffixed feature Strings
+   * or collecting them into lists first.
+   */
+  private Triple<int[][][], int[], double[][][]> documentToFeatureIdsAndLabels(List<IN> document) {
+    FeatureIdLookup lookup = featureIdLookup;
+    if (lookup == null || lookup.featureIndex() != featureIndex) {
+      lookup = new FeatureIdLookup(featureIndex);
+      featureIdLookup = lookup;
+    }
+    FeatureIdLookup.Collector collector = new FeatureIdLookup.Collector(lookup);
+
+    // the cliques each window position gets its features from, as in makeDatum
+    List<List<Clique>> cliques = new ArrayList<>(windowSize);
+    Collection<Clique> done = Generics.newHashSet();
+    for (int i = 0; i < windowSize; i++) {
+      List<Clique> windowCliques = new ArrayList<>();
+      FeatureFactory.getCliques(i, 0, windowCliques::add);
+      windowCliques.removeAll(done);
+      done.addAll(windowCliques);
+      cliques.add(windowCliques);
+    }
+
+    int docSize = document.size();
+    int[][][] data = new int[docSize][windowSize][];
+    double[][][] featureVals = new double[docSize][windowSize][];
+    int[] labels = new int[docSize];
+
+    if (flags.useReverse) {
+      Collections.reverse(document);
+    }
+
+    PaddedList<IN> pInfo = new PaddedList<>(document, pad);
+    for (int j = 0; j < docSize; j++) {
+      for (int k = 0; k < windowSize; k++) {
+        for (Clique c : cliques.get(k)) {
+          for (FeatureFactory<IN> featureFactory : featureFactories) {
+            featureFactory.getCliqueFeatures(pInfo, j, c, collector);
+            collector.endSet();
+          }
+        }
+        data[j][k] = collector.drain();
+      }
+      labels[j] = classIndex.indexOf(document.get(j).get(CoreAnnotations.AnswerAnnotation.class));
+    }
+
+    if (flags.useReverse) {
+      Collections.reverse(document);
+    }
+
+    return new Triple<>(data, labels, featureVals);
+  }
+
   private int[][][] transformDocData(int[][][] docData) {
     int[][][] transData = new int[docData.length][][];
     for (int i = 0; i < docData.length; i++) {
@@ -705,13 +787,13 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
   protected void makeAnswerArraysAndTagIndex(Collection<List<IN>> ob) {
     boolean useFeatureCountThresh = flags.featureCountThresh > 1;
 
-    Set<String>[] featureIndices = new HashSet[windowSize];
+    Set<String>[] featureIndices = new Set[windowSize];
     Map<String, Integer>[] featureCountIndices = null;
     for (int i = 0; i < windowSize; i++) {
       featureIndices[i] = Generics.newHashSet();
     }
     if (useFeatureCountThresh) {
-      featureCountIndices = new HashMap[windowSize];
+      featureCountIndices = new Map[windowSize];
       for (int i = 0; i < windowSize; i++) {
         featureCountIndices[i] = Generics.newHashMap();
       }
@@ -729,7 +811,7 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
     // classIndex.add("O");
     classIndex.add(flags.backgroundSymbol);
 
-    Set<String>[] seenBackgroundFeatures = new HashSet[2];
+    Set<String>[] seenBackgroundFeatures = new Set[2];
     seenBackgroundFeatures[0] = Generics.newHashSet();
     seenBackgroundFeatures[1] = Generics.newHashSet();
 
@@ -2661,6 +2743,282 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
     }
   }
 
+  /** Magic number at the start of a memory-mappable classifier file ("CRFm") */
+  private static final int MAPPED_MAGIC = 0x4352466d;
+  private static final int MAPPED_VERSION = 1;
+
+  /**
+   * Serialize the classifier in a format which can be memory-mapped by
+   * {@link #loadMappedClassifier(File, Properties)}.
+   * The feature index is written as a block of sorted UTF-8 Strings (see {@link MappedFeatureIndex})
+   * and the weights as one flat block of floats or doubles, so that loading doesn't
+   * deserialize millions of objects, and several JVMs on one machine can share one copy
+   * of the model through the OS page cache.  Everything else (flags, feature factories,
+   * label indices, etc.) is small and is still written with Java serialization.
+   * <br>
+   * Note that features are renumbered in the file, so the file is only useful for classification.
+   * The file must be smaller than 2GB.
+   *
+   * @param serializePath The file to write to (not compressed, since it is mapped)
+   * @param useFloats If true, store weights as floats, halving the size of the weight block
+   */
+  public void serializeMappedClassifier(String serializePath, boolean useFloats) {
+    if ( ! hasMappableWeights()) {
+      throw new UnsupportedOperationException(getClass().getSimpleName() + " can't be written in the memory-mappable format, " +
+          "which only holds the linear weights of a CRFClassifier");
+    }
+    if (weights == null) {
+      throw new IllegalStateException("No weights to serialize; is this classifier itself memory-mapped?");
+    }
+    System.err.print("Serializing memory-mappable classifier to " + serializePath + "...");
+    MappedOutputStream out = null;
+    try {
+      out = new MappedOutputStream(new BufferedOutputStream(new FileOutputStream(serializePath)), 0);
+      writeMappedClassifier(out, useFloats);
+      System.err.println("done.");
+    } catch (IOException e) {
+      throw new RuntimeIOException("Failed to save classifier", e);
+    } finally {
+      IOUtils.closeIgnoringExceptions(out);
+    }
+  }
+
+  /**
+   * Whether this classifier scores a document with just its linear {@code weights}
+   * over the features its featureFactories give, so that
+   * {@link #serializeMappedClassifier(String, boolean)} writes all it needs.
+   * A subclass has to say so itself, as the file is loaded as a plain CRFClassifier.
+   */
+  protected boolean hasMappableWeights() {
+    return getClass() == CRFClassifier.class;
+  }
+
+  /** Writes the contents of a file for {@link #serializeMappedClassifier(String, boolean)}. */
+  void writeMappedClassifier(MappedOutputStream stream, boolean useFloats) throws IOException {
+    int numFeatures = featureIndex.size();
+    // sort the features by their UTF-8 bytes, so lookups can binary search the mapped file
+    byte[][] featureBytes = new byte[numFeatures][];
+    Integer[] order = new Integer[numFeatures];
+    for (int i = 0; i < numFeatures; i++) {
+      featureBytes[i] = featureIndex.get(i).getBytes(java.nio.charset.StandardCharsets.UTF_8);
+      order[i] = i;
+    }
+    Arrays.sort(order, (x, y) -> MappedFeatureIndex.compareBytes(featureBytes[x], featureBytes[y]));
+
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    ObjectOutputStream oos = new ObjectOutputStream(header);
+    oos.writeObject(labelIndices);
+    oos.writeObject(classIndex);
+    oos.writeObject(flags);
+    if (flags.useEmbedding) {
+      oos.writeObject(embeddings);
+    }
+    oos.writeObject(featureFactories.size());
+    for (FeatureFactory<IN> ff : featureFactories) {
+      oos.writeObject(ff);
+    }
+    oos.writeInt(windowSize);
+    oos.writeObject(knownLCWords);
+    oos.writeObject(labelDictionary);
+    oos.close();
+
+    DataOutputStream out = new DataOutputStream(stream);
+    out.writeInt(MAPPED_MAGIC);
+    out.writeInt(MAPPED_VERSION);
+    out.writeInt(header.size());
+    header.writeTo(out);
+    out.writeInt(numFeatures);
+    out.writeInt(useFloats ? 1 : 0);
+    padTo(out, stream, 8);
+    long offset = 0;
+    for (Integer i : order) {
+      writeMappedOffset(out, offset);
+      offset += featureBytes[i].length;
+    }
+    writeMappedOffset(out, offset);
+    offset = 0;
+    for (Integer i : order) {
+      writeMappedOffset(out, offset);
+      offset += weights[i].length;
+    }
+    writeMappedOffset(out, offset);
+    stream.checkPosition();
+    for (Integer i : order) {
+      out.write(featureBytes[i]);
+    }
+    padTo(out, stream, 8);
+    stream.checkPosition();
+    for (Integer i : order) {
+      for (double w : weights[i]) {
+        if (useFloats) {
+          out.writeFloat((float) w);
+        } else {
+          out.writeDouble(w);
+        }
+      }
+      stream.checkPosition();
+    }
+    out.flush();
+  }
+
+  /** Writes an offset which the loader will read back as an int. */
+  private static void writeMappedOffset(DataOutputStream out, long offset) throws IOException {
+    if (offset > Integer.MAX_VALUE) {
+      throw new IOException("Memory-mappable classifier files must be smaller than 2GB");
+    }
+    out.writeInt((int) offset);
+  }
+
+  private static void padTo(DataOutputStream out, MappedOutputStream stream, int alignment) throws IOException {
+    while (stream.position() % alignment != 0) {
+      out.writeByte(0);
+    }
+  }
+
+  /**
+   * Counts the bytes of a memory-mappable classifier file as they are written.
+   * The count is a long, since {@link DataOutputStream#size()} stops at Integer.MAX_VALUE,
+   * while the loader needs every position in the file to fit in an int.
+   */
+  static class MappedOutputStream extends FilterOutputStream {
+
+    private long position;
+
+    /** @param position How many bytes count as written already */
+    MappedOutputStream(OutputStream out, long position) {
+      super(out);
+      this.position = position;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      position++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      position += len;
+    }
+
+    long position() {
+      return position;
+    }
+
+    /** Throws an IOException if the file has grown past what the loader can map */
+    void checkPosition() throws IOException {
+      if (position > Integer.MAX_VALUE) {
+        throw new IOException("Memory-mappable classifier files must be smaller than 2GB");
+      }
+    }
+
+  }
+
+  /** Returns true if the file was written by {@link #serializeMappedClassifier(String, boolean)}. */
+  public static boolean isMappedClassifier(File file) {
+    if ( ! file.isFile() || file.length() < 4) {
+      return false;
+    }
+    try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+      return in.readInt() == MAPPED_MAGIC;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Loads a classifier written by {@link #serializeMappedClassifier(String, boolean)}.
+   * The feature index and weights are not read into the heap, but are used directly
+   * from a read-only memory mapping of the file, so this is near-instant.
+   * After loading, {@code weights} is null: the classifier can classify, but not be trained further.
+   *
+   * @param file The file to map
+   * @param props If non-null, properties which override those in the serialized flags
+   */
+  @SuppressWarnings("unchecked")
+  public void loadMappedClassifier(File file, Properties props) throws IOException, ClassCastException, ClassNotFoundException {
+    ByteBuffer buffer;
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      FileChannel channel = raf.getChannel();
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Memory-mappable classifier files must be smaller than 2GB");
+      }
+      // the mapping remains valid after the channel is closed
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (buffer.getInt() != MAPPED_MAGIC) {
+      throw new IOException(file + " is not a memory-mappable CRF classifier");
+    }
+    int version = buffer.getInt();
+    if (version != MAPPED_VERSION) {
+      throw new IOException("Unsupported memory-mappable CRF classifier version " + version);
+    }
+    byte[] header = new byte[buffer.getInt()];
+    buffer.get(header);
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(header))) {
+      labelIndices = (List<Index<CRFLabel>>) ois.readObject();
+      classIndex = (Index<String>) ois.readObject();
+      flags = (SeqClassifierFlags) ois.readObject();
+      if (flags.useEmbedding) {
+        embeddings = (Map<String, double[]>) ois.readObject();
+      }
+      int numFactories = (Integer) ois.readObject();
+      featureFactories = Generics.newArrayList(numFactories);
+      for (int i = 0; i < numFactories; ++i) {
+        featureFactories.add((FeatureFactory<IN>) ois.readObject());
+      }
+      if (props != null) {
+        flags.setProperties(props, false);
+      }
+      reinit();
+      windowSize = ois.readInt();
+      knownLCWords = (Set<String>) ois.readObject();
+      labelDictionary = (LabelDictionary) ois.readObject();
+    }
+
+    int numFeatures = buffer.getInt();
+    boolean useFloats = buffer.getInt() != 0;
+    buffer.position(buffer.position() + (8 - buffer.position() % 8) % 8);
+    IntBuffer stringOffsets = slice(buffer, 4 * (numFeatures + 1)).asIntBuffer();
+    IntBuffer rowOffsets = slice(buffer, 4 * (numFeatures + 1)).asIntBuffer();
+    ByteBuffer strings = slice(buffer, stringOffsets.get(numFeatures));
+    buffer.position(buffer.position() + (8 - buffer.position() % 8) % 8);
+    int numWeights = rowOffsets.get(numFeatures);
+    ByteBuffer weightBlock = slice(buffer, numWeights * (useFloats ? 4 : 8));
+
+    featureIndex = new MappedFeatureIndex(strings, stringOffsets);
+    weights = null;
+    cliquePotentialFunction = new MappedCliquePotentialFunction(
+        useFloats ? weightBlock.asFloatBuffer() : weightBlock.asDoubleBuffer(), rowOffsets);
+  }
+
+  /** Returns the next length bytes of the buffer as their own buffer, and advances past them. */
+  private static ByteBuffer slice(ByteBuffer buffer, int length) {
+    ByteBuffer view = buffer.slice();
+    view.limit(length);
+    buffer.position(buffer.position() + length);
+    return view;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <br>
+   * Files written by {@link #serializeMappedClassifier(String, boolean)} are recognized
+   * and memory-mapped rather than deserialized.
+   */
+  @Override
+  public void loadClassifier(File file, Properties props) throws ClassCastException, IOException,
+      ClassNotFoundException {
+    if (isMappedClassifier(file)) {
+      Timing.startDoing("Mapping classifier from " + file.getAbsolutePath());
+      loadMappedClassifier(file, props);
+      Timing.endDoing();
+    } else {
+      super.loadClassifier(file, props);
+    }
+  }
+
   /**
    * This is used to load the default supplied classifier stored within the jar
    * file. THIS FUNCTION WILL ONLY WORK IF THE CODE WAS LOADED FROM A JAR FILE
@@ -3022,6 +3380,10 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
       crf.serializeTextClassifier(serializeToText);
     }
 
+    if (crf.flags.serializeToMapped != null) {
+      crf.serializeMappedClassifier(crf.flags.serializeToMapped, crf.flags.mappedFloatWeights);
+    }
+
     if (testFile != null) {
       // todo: Change testFile to call testFiles with a singleton list
       DocumentReaderAndWriter<CoreLabel> readerAndWriter = crf.defaultReaderAndWriter();
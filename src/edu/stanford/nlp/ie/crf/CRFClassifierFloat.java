@@ -91,4 +91,10 @@ public class CRFClassifierFloat<IN extends CoreMap> extends CRFClassifier<IN> {
     float[] weights = QNMinimizer.minimize(func, (float) flags.tolerance, initialWeights);
     return ArrayMath.floatArrayToDoubleArray(weights);
   }
+
+  /** The float weights are only used in training, and end up as the usual double weights. */
+  @Override
+  protected boolean hasMappableWeights() {
+    return true;
+  }
 } // end class CRFClassifierFloat
@@ -83,4 +83,10 @@ public class CRFClassifierNoisyLabel<IN extends CoreMap> extends CRFClassifier<I
     return new CRFLogConditionalObjectiveFunctionNoisyLabel(data, labels, windowSize, classIndex,
       labelIndices, map, flags.priorType, flags.backgroundSymbol, flags.sigma, null, flags.multiThreadGrad, errorMatrix);
   }
+
+  /** The error matrix only changes the training objective. */
+  @Override
+  protected boolean hasMappableWeights() {
+    return true;
+  }
 } // end class CRFClassifier
@@ -91,4 +91,10 @@ public class CRFClassifierWithDropout<IN extends CoreMap> extends CRFClassifier<
       labelIndices, map, flags.priorType, flags.backgroundSymbol, flags.sigma, null, flags.dropoutRate, flags.dropoutScale, flags.multiThreadGrad, flags.dropoutApprox, flags.unsupDropoutScale, unsupDropoutData);
   }
 
+  /** Dropout only changes the training objective. */
+  @Override
+  protected boolean hasMappableWeights() {
+    return true;
+  }
+
 } // end class CRFClassifierWithDropout
@@ -222,4 +222,10 @@ public class CRFClassifierWithLOP<IN extends CoreMap> extends CRFClassifier<IN>
     return CRFLogConditionalObjectiveFunctionForLOP.combineAndScaleLopWeights(numLopExpert, learnedLopExpertWeights, lopScales);
   }
 
+  /** The experts' weights are combined into one set of linear weights at the end of training. */
+  @Override
+  protected boolean hasMappableWeights() {
+    return true;
+  }
+
 } // end class CRFClassifierWithLOP
@@ -0,0 +1,144 @@
+package edu.stanford.nlp.ie.crf;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+import edu.stanford.nlp.util.Index;
+
+/**
+ * Finds the index of a feature {@code base + '|' + suffix} in a feature
+ * {@link Index} without building that String.  The table is keyed by the
+ * {@link String#hashCode()} of the full feature, which can be computed from
+ * the hash of the base and the characters of the (short) suffix, and a hash
+ * match is checked against the feature in the index before it is returned.
+ * <br>
+ * The table is built once per index and is read-only afterwards, so it can
+ * be shared by threads.  It costs two ints per table slot on top of the index.
+ *
+ * @see CRFClassifier#documentToDataAndLabels(java.util.List)
+ */
+final class FeatureIdLookup {
+
+  private final Index<String> featureIndex;
+  private final int[] hashes;
+  /** Feature index + 1 for each slot, or 0 for an empty slot */
+  private final int[] ids;
+  private final int mask;
+
+  FeatureIdLookup(Index<String> featureIndex) {
+    this.featureIndex = featureIndex;
+    int size = featureIndex.size();
+    int capacity = Integer.highestOneBit(Math.max(2, size) * 2 - 1) << 1;
+    hashes = new int[capacity];
+    ids = new int[capacity];
+    mask = capacity - 1;
+    for (int i = 0; i < size; i++) {
+      int hash = featureIndex.get(i).hashCode();
+      int slot = spread(hash) & mask;
+      while (ids[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      hashes[slot] = hash;
+      ids[slot] = i + 1;
+    }
+  }
+
+  /** The index this table was built over. */
+  Index<String> featureIndex() {
+    return featureIndex;
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Returns the index of {@code base + '|' + suffix} (or of {@code base},
+   * if suffix is null), or -1 if the feature is not in the index.
+   */
+  int indexOf(String base, String suffix) {
+    if (suffix == null) {
+      return featureIndex.indexOf(base);
+    }
+    // The same as (base + '|' + suffix).hashCode()
+    int hash = 31 * base.hashCode() + '|';
+    for (int i = 0, len = suffix.length(); i < len; i++) {
+      hash = 31 * hash + suffix.charAt(i);
+    }
+    for (int slot = spread(hash) & mask; ids[slot] != 0; slot = (slot + 1) & mask) {
+      if (hashes[slot] == hash && matches(ids[slot] - 1, base, suffix)) {
+        return ids[slot] - 1;
+      }
+    }
+    return -1;
+  }
+
+  private boolean matches(int id, String base, String suffix) {
+    if (featureIndex instanceof MappedFeatureIndex) {
+      return ((MappedFeatureIndex) featureIndex).matches(id, base, '|', suffix);
+    }
+    String feature = featureIndex.get(id);
+    int baseLength = base.length();
+    return feature.length() == baseLength + 1 + suffix.length() &&
+        feature.startsWith(base) && feature.charAt(baseLength) == '|' &&
+        feature.endsWith(suffix);
+  }
+
+  /**
+   * Collects the ids of the features passed to it, dropping those which are
+   * not in the index, for use as a feature factory's consumer.
+   * One collector is used by one thread at a time.
+   */
+  static final class Collector implements BiConsumer<String, String> {
+
+    private final FeatureIdLookup lookup;
+    private int[] buffer = new int[64];
+    private int size;
+    /** Where the ids collected since the last call to endSet start */
+    private int setStart;
+
+    Collector(FeatureIdLookup lookup) {
+      this.lookup = lookup;
+    }
+
+    @Override
+    public void accept(String base, String suffix) {
+      int id = lookup.indexOf(base, suffix);
+      if (id >= 0) {
+        if (size == buffer.length) {
+          buffer = Arrays.copyOf(buffer, size * 2);
+        }
+        buffer[size++] = id;
+      }
+    }
+
+    /**
+     * Drops the repeated ids among those collected since the last call,
+     * leaving them in increasing order.  A feature factory gives a set of
+     * features for each clique, but ids from different calls are all kept,
+     * as {@link CRFClassifier#makeDatum} keeps the features of each.
+     */
+    void endSet() {
+      Arrays.sort(buffer, setStart, size);
+      int distinct = setStart;
+      for (int i = setStart; i < size; i++) {
+        if (distinct == setStart || buffer[distinct - 1] != buffer[i]) {
+          buffer[distinct++] = buffer[i];
+        }
+      }
+      size = distinct;
+      setStart = distinct;
+    }
+
+    /** Returns the ids collected since the last call, and starts over. */
+    int[] drain() {
+      endSet();
+      int[] ids = Arrays.copyOf(buffer, size);
+      size = 0;
+      setStart = 0;
+      return ids;
+    }
+
+  }
+
+}
@@ -0,0 +1,53 @@
+package edu.stanford.nlp.ie.crf;
+
+import java.nio.Buffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * A linear clique potential function, like {@link LinearCliquePotentialFunction},
+ * over weights which live in one flat (usually memory-mapped) float or double block
+ * rather than in a {@code double[][]}.  The weights of feature {@code f} start at
+ * {@code rowOffsets[f]}, and there is one weight per label of that feature's clique type.
+ *
+ * @see CRFClassifier#serializeMappedClassifier(String, boolean)
+ */
+public class MappedCliquePotentialFunction implements CliquePotentialFunction {
+
+  private final FloatBuffer floatWeights;
+  private final DoubleBuffer doubleWeights;
+  private final IntBuffer rowOffsets;
+
+  MappedCliquePotentialFunction(Buffer weights, IntBuffer rowOffsets) {
+    if (weights instanceof FloatBuffer) {
+      this.floatWeights = (FloatBuffer) weights;
+      this.doubleWeights = null;
+    } else {
+      this.floatWeights = null;
+      this.doubleWeights = (DoubleBuffer) weights;
+    }
+    this.rowOffsets = rowOffsets;
+  }
+
+  /** Returns the weight of the given feature for the given label of its clique. */
+  public double weight(int feature, int labelIndex) {
+    int offset = rowOffsets.get(feature) + labelIndex;
+    return (floatWeights != null) ? floatWeights.get(offset) : doubleWeights.get(offset);
+  }
+
+  @Override
+  public double computeCliquePotential(int cliqueSize, int labelIndex,
+      int[] cliqueFeatures, double[] featureVal, int posInSent) {
+    double output = 0.0;
+    for (int m = 0; m < cliqueFeatures.length; m++) {
+      double dotProd = weight(cliqueFeatures[m], labelIndex);
+      if (featureVal != null) {
+        dotProd *= featureVal[m];
+      }
+      output += dotProd;
+    }
+    return output;
+  }
+
+}
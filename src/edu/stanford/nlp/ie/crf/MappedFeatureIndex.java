@@ -0,0 +1,272 @@
+package edu.stanford.nlp.ie.crf;
+
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import edu.stanford.nlp.io.IOUtils;
+import edu.stanford.nlp.io.RuntimeIOException;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+
+/**
+ * A read-only {@link Index} of feature Strings which lives in a (usually memory-mapped)
+ * ByteBuffer rather than on the heap.  The Strings are stored UTF-8 encoded, sorted by
+ * their unsigned byte values, one after another, and an index is just a position in that
+ * order, so {@link #indexOf} is a binary search which never creates a String.
+ * Several JVMs which map the same file share the pages through the OS page cache.
+ * <br>
+ * The index is always locked.  Serializing it writes out a regular {@link HashIndex}.
+ *
+ * @see CRFClassifier#serializeMappedClassifier(String, boolean)
+ */
+public class MappedFeatureIndex implements Index<String> {
+
+  private static final long serialVersionUID = 1L;
+
+  /** The UTF-8 bytes of all the features, in sorted order */
+  private final transient ByteBuffer strings;
+  /** Feature i occupies bytes [offsets[i], offsets[i+1]) of strings; size() + 1 entries */
+  private final transient IntBuffer offsets;
+  private final transient int size;
+
+  MappedFeatureIndex(ByteBuffer strings, IntBuffer offsets) {
+    this.strings = strings;
+    this.offsets = offsets;
+    this.size = offsets.limit() - 1;
+  }
+
+  /** The first byte of a UTF-8 sequence of 2, 3 or 4 bytes, before the code point bits */
+  private static final int[] LEADING_BITS = { 0, 0, 0xc0, 0xe0, 0xf0 };
+
+  /**
+   * Compares the bytes in [start, end) of the buffer with the UTF-8 encoding of s,
+   * without actually encoding s.
+   */
+  private static int compareUtf8(ByteBuffer buffer, int start, int end, String s) {
+    int pos = start;
+    int len = s.length();
+    for (int i = 0; i < len; i++) {
+      int c = s.charAt(i);
+      if (c < 0x80) {
+        // The common (ASCII) case
+        if (pos == end) return -1;
+        int b = buffer.get(pos++) & 0xff;
+        if (b != c) return b - c;
+        continue;
+      }
+      int cp;
+      int n;  // the number of bytes cp takes
+      if (c < 0x800) {
+        cp = c;
+        n = 2;
+      } else if (Character.isHighSurrogate((char) c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+        cp = Character.toCodePoint((char) c, s.charAt(++i));
+        n = 4;
+      } else if (Character.isSurrogate((char) c)) {
+        cp = '?';  // what String.getBytes() does with an unpaired surrogate
+        n = 1;
+      } else {
+        cp = c;
+        n = 3;
+      }
+      for (int j = 0; j < n; j++) {
+        int shift = 6 * (n - 1 - j);
+        int e = (j > 0) ? 0x80 | ((cp >> shift) & 0x3f) : LEADING_BITS[n] | (cp >> shift);
+        if (pos == end) return -1;
+        int b = buffer.get(pos++) & 0xff;
+        if (b != e) return b - e;
+      }
+    }
+    return (pos == end) ? 0 : 1;
+  }
+
+  /** The order the features must be written in for {@link #indexOf} to work. */
+  static int compareBytes(byte[] a, byte[] b) {
+    int n = Math.min(a.length, b.length);
+    for (int i = 0; i < n; i++) {
+      int diff = (a[i] & 0xff) - (b[i] & 0xff);
+      if (diff != 0) return diff;
+    }
+    return a.length - b.length;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String get(int i) {
+    if (i < 0 || i >= size) {
+      throw new ArrayIndexOutOfBoundsException("Index " + i + " outside the bounds [0," + size + ')');
+    }
+    int start = offsets.get(i);
+    byte[] bytes = new byte[offsets.get(i + 1) - start];
+    ByteBuffer view = strings.duplicate();
+    view.position(start);
+    view.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public int indexOf(String o) {
+    if (o == null) {
+      return -1;
+    }
+    int lo = 0;
+    int hi = size - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int cmp = compareUtf8(strings, offsets.get(mid), offsets.get(mid + 1), o);
+      if (cmp < 0) {
+        lo = mid + 1;
+      } else if (cmp > 0) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /** The number of bytes in the UTF-8 encoding of s. */
+  private static int utf8Length(String s) {
+    int length = 0;
+    for (int i = 0, len = s.length(); i < len; i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        length++;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+        length += 4;
+        i++;
+      } else if (Character.isSurrogate(c)) {
+        length++;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Whether feature i is {@code prefix + separator + suffix}, where separator
+   * is an ASCII character, without building either String.
+   */
+  boolean matches(int i, String prefix, char separator, String suffix) {
+    int start = offsets.get(i);
+    int end = offsets.get(i + 1);
+    int split = end - utf8Length(suffix) - 1;
+    return split >= start && strings.get(split) == separator &&
+        compareUtf8(strings, split + 1, end, suffix) == 0 &&
+        compareUtf8(strings, start, split, prefix) == 0;
+  }
+
+  /** The index is locked, so this is just {@link #indexOf}. */
+  @Override
+  public int addToIndex(String o) {
+    return indexOf(o);
+  }
+
+  @Override
+  @Deprecated
+  public int indexOf(String o, boolean add) {
+    return indexOf(o);
+  }
+
+  @Override
+  public List<String> objectsList() {
+    return new AbstractList<String>() {
+      @Override
+      public String get(int index) {
+        return MappedFeatureIndex.this.get(index);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  @Override
+  public Collection<String> objects(int[] indices) {
+    List<String> objects = new ArrayList<>(indices.length);
+    for (int i : indices) {
+      objects.add(get(i));
+    }
+    return objects;
+  }
+
+  @Override
+  public boolean isLocked() {
+    return true;
+  }
+
+  @Override
+  public void lock() {
+    // always locked
+  }
+
+  @Override
+  public void unlock() {
+    throw new UnsupportedOperationException("A MappedFeatureIndex is read-only");
+  }
+
+  @Override
+  public void saveToWriter(Writer out) throws IOException {
+    for (int i = 0; i < size; i++) {
+      out.write(i + "=" + get(i) + '\n');
+    }
+  }
+
+  @Override
+  public void saveToFilename(String s) {
+    Writer bw = null;
+    try {
+      bw = IOUtils.getPrintWriter(s);
+      saveToWriter(bw);
+    } catch (IOException e) {
+      throw new RuntimeIOException(e);
+    } finally {
+      IOUtils.closeIgnoringExceptions(bw);
+    }
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return (o instanceof String) && indexOf((String) o) >= 0;
+  }
+
+  @Override
+  public boolean add(String e) {
+    return false;
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends String> c) {
+    return false;
+  }
+
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException("A MappedFeatureIndex is read-only");
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    return objectsList().iterator();
+  }
+
+  /** A mapped buffer can't be serialized, so write out a regular index instead. */
+  private Object writeReplace() throws ObjectStreamException {
+    return new HashIndex<>(objectsList());
+  }
+
+}
@@ -10,6 +10,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Properties;
 
@@ -54,8 +55,14 @@ import edu.stanford.nlp.util.Generics;
  * already been tokenized.  So, for example, with our usual English tokenization, things like genitives
  * and commas at the end of words will be separated in the input and matched as a separate token.
  *
- * This class isn't implemented very efficiently, since every regex is evaluated at every token position.
- * So it can and does get quite slow if you have a lot of patterns in your NER rules.
+ * Entries are not tried at every token position.  Entries which are just words (no regex
+ * metacharacters) are compiled into a trie over tokens, and the other entries are grouped by
+ * their first token: by its word if it is a plain word, by the plain characters its regex starts
+ * with if there are any, and otherwise by the regex itself, so that each distinct first regex
+ * is only matched once per token.  The time taken for a document therefore grows with its length
+ * and the number of matches rather than with the number of entries, unless there are many
+ * distinct first regexes without a plain prefix.  The matches are then applied by priority and
+ * position, just as if each entry in turn were tried over the whole document.
  * {@code TokensRegex} is a more general framework to provide the functionality of this class.
  * But at present we still use this class.
  *
@@ -66,9 +73,9 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
 
   private final List<Entry> entries;
 
-  private final Set<String> myLabels;
+  private final EntryIndex index;
 
-  private final boolean ignoreCase;
+  private final Set<String> myLabels;
 
   // Make this a property?  (But already done as a property at CoreNLP level.)
   // ms: but really this should be rewritten from scratch
@@ -114,8 +121,8 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
     } finally {
       IOUtils.closeIgnoringExceptions(rd);
     }
+    index = new EntryIndex(entries, ignoreCase);
 
-    this.ignoreCase = ignoreCase;
     myLabels = Generics.newHashSet();
     // Can always override background or none.
     myLabels.add(flags.backgroundSymbol);
@@ -156,8 +163,8 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
     } catch (IOException e) {
       throw new RuntimeIOException("Couldn't read RegexNER from reader", e);
     }
+    index = new EntryIndex(entries, ignoreCase);
 
-    this.ignoreCase = ignoreCase;
     myLabels = Generics.newHashSet();
     // Can always override background or none.
     myLabels.add(flags.backgroundSymbol);
@@ -170,24 +177,16 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
 
   private static class Entry implements Comparable<Entry> {
     public List<Pattern> regex; // the regex, tokenized by splitting on white space
-    public List<String> exact = new ArrayList<>();
     public String type; // the associated type
     public Set<String> overwritableTypes;
     public double priority;
+    public int rank; // the position of this entry once they are sorted
 
     public Entry(List<Pattern> regex, String type, Set<String> overwritableTypes, double priority) {
       this.regex = regex;
       this.type = type.intern();
       this.overwritableTypes = overwritableTypes;
       this.priority = priority;
-      // Efficiency shortcut
-      for (Pattern p : regex) {
-        if (p.toString().matches("[a-zA-Z0-9]+")) {
-          exact.add(p.toString());
-        } else {
-          exact.add(null);
-        }
-      }
     }
 
     /** If the given priorities are equal, an entry whose regex has more tokens is assigned
@@ -202,11 +201,230 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
       return other.regex.size() - this.regex.size();
     }
 
+    /** Whether the regex matches the words of the document from start on */
+    boolean matchesAt(List<CoreLabel> document, int start) {
+      if (start + regex.size() > document.size()) {
+        return false;
+      }
+      for (int i = 0; i < regex.size(); i++) {
+        String word = document.get(start + i).word();
+        if (word == null || ! regex.get(i).matcher(word).matches()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
     public String toString() {
       return "Entry{" + regex + ' ' + type + ' ' + overwritableTypes + ' ' + priority + '}';
     }
   }
 
+  /** The characters which make a regex more than a plain word */
+  private static final String REGEX_METACHARACTERS = "\\[](){}.*+?^$|";
+
+  private static boolean isPlainWord(String regex) {
+    for (int i = 0; i < regex.length(); i++) {
+      if (REGEX_METACHARACTERS.indexOf(regex.charAt(i)) >= 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The plain characters which any word matched by the regex starts with,
+   * or an empty String if we can't tell.
+   */
+  private static String plainPrefix(String regex) {
+    if (regex.indexOf('|') >= 0) {
+      return "";
+    }
+    int end = 0;
+    while (end < regex.length() && REGEX_METACHARACTERS.indexOf(regex.charAt(end)) < 0) {
+      end++;
+    }
+    if (end < regex.length() && end > 0 && "*?{".indexOf(regex.charAt(end)) >= 0) {
+      // the last character is optional or repeated some number of times
+      end--;
+      if (end > 0 && Character.isHighSurrogate(regex.charAt(end - 1))) {
+        end--;
+      }
+    }
+    return regex.substring(0, end);
+  }
+
+  /**
+   * Pattern.CASE_INSENSITIVE on its own only ignores the case of US-ASCII
+   * letters, so words are compared after lowercasing just those.
+   */
+  private static String asciiLowerCase(String word) {
+    char[] chars = null;
+    for (int i = 0; i < word.length(); i++) {
+      char ch = word.charAt(i);
+      if (ch >= 'A' && ch <= 'Z') {
+        if (chars == null) {
+          chars = word.toCharArray();
+        }
+        chars[i] = (char) (ch + ('a' - 'A'));
+      }
+    }
+    return (chars == null) ? word : new String(chars);
+  }
+
+  /** A node of a trie over the words of entries */
+  private static class TrieNode {
+    Map<String, TrieNode> children; // null until it has some
+    List<Entry> entries; // the entries whose words end here, or null
+
+    TrieNode child(String word) {
+      return (children == null) ? null : children.get(word);
+    }
+
+    TrieNode addChild(String word) {
+      if (children == null) {
+        children = Generics.newHashMap(4);
+      }
+      TrieNode child = children.get(word);
+      if (child == null) {
+        child = new TrieNode();
+        children.put(word, child);
+      }
+      return child;
+    }
+  }
+
+  private static class Matches {
+    long[] matches = new long[16];
+    int size; // = 0
+
+    void add(Entry entry, int start) {
+      if (size == matches.length) {
+        matches = Arrays.copyOf(matches, size * 2);
+      }
+      matches[size++] = ((long) entry.rank << 32) | start;
+    }
+
+    void addIfMatching(List<Entry> entries, List<CoreLabel> document, int start) {
+      if (entries != null) {
+        for (Entry entry : entries) {
+          if (entry.matchesAt(document, start)) {
+            add(entry, start);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds where entries match in a document, only trying the entries that
+   * could match at each token.
+   */
+  private static class EntryIndex {
+
+    private final boolean ignoreCase;
+    /** The entries which are all plain words */
+    private final TrieNode words = new TrieNode();
+    /** The other entries whose first token is a plain word, by that word */
+    private final Map<String, List<Entry>> byFirstWord = Generics.newHashMap();
+    /** The remaining entries whose first regex starts with plain characters, by those characters */
+    private final Map<String, List<Entry>> byFirstPrefix = Generics.newHashMap();
+    private int maxPrefixLength; // = 0
+    /** The remaining entries, grouped by their first regex */
+    private final List<List<Entry>> byFirstRegex = new ArrayList<>();
+
+    EntryIndex(List<Entry> entries, boolean ignoreCase) {
+      this.ignoreCase = ignoreCase;
+      Map<String, List<Entry>> firstRegexes = Generics.newHashMap();
+      for (Entry entry : entries) {
+        boolean allWords = true;
+        for (Pattern p : entry.regex) {
+          if (! isPlainWord(p.pattern())) {
+            allWords = false;
+            break;
+          }
+        }
+        String first = entry.regex.get(0).pattern();
+        if (allWords) {
+          TrieNode node = words;
+          for (Pattern p : entry.regex) {
+            node = node.addChild(key(p.pattern()));
+          }
+          if (node.entries == null) {
+            node.entries = new ArrayList<>(1);
+          }
+          node.entries.add(entry);
+        } else if (isPlainWord(first)) {
+          byFirstWord.computeIfAbsent(key(first), k -> new ArrayList<>()).add(entry);
+        } else if ( ! plainPrefix(first).isEmpty()) {
+          String prefix = key(plainPrefix(first));
+          byFirstPrefix.computeIfAbsent(prefix, k -> new ArrayList<>()).add(entry);
+          maxPrefixLength = Math.max(maxPrefixLength, prefix.length());
+        } else {
+          List<Entry> group = firstRegexes.get(first);
+          if (group == null) {
+            group = new ArrayList<>();
+            firstRegexes.put(first, group);
+            byFirstRegex.add(group);
+          }
+          group.add(entry);
+        }
+      }
+    }
+
+    private String key(String word) {
+      return ignoreCase ? asciiLowerCase(word) : word;
+    }
+
+    /**
+     * Returns the matches of entries in the document, each as the rank
+     * of the entry in the top 32 bits and the index of its first token in
+     * the bottom 32 bits, so that sorting them gives the order in which
+     * they should be applied.  These only take the words into account,
+     * not the labels of the tokens.
+     */
+    long[] findMatches(List<CoreLabel> document) {
+      int size = document.size();
+      String[] keys = new String[size];
+      for (int i = 0; i < size; i++) {
+        String word = document.get(i).word();
+        keys[i] = (word == null) ? null : key(word);
+      }
+
+      Matches matches = new Matches();
+      for (int start = 0; start < size; start++) {
+        String key = keys[start];
+        if (key == null) {
+          continue;
+        }
+        // entries of plain words
+        TrieNode node = words;
+        for (int i = start; i < size && keys[i] != null; i++) {
+          node = node.child(keys[i]);
+          if (node == null) {
+            break;
+          }
+          if (node.entries != null) {
+            for (Entry entry : node.entries) {
+              matches.add(entry, start);
+            }
+          }
+        }
+        // entries with regexes
+        matches.addIfMatching(byFirstWord.get(key), document, start);
+        for (int len = Math.min(maxPrefixLength, key.length()); len > 0; len--) {
+          matches.addIfMatching(byFirstPrefix.get(key.substring(0, len)), document, start);
+        }
+        for (List<Entry> group : byFirstRegex) {
+          if (group.get(0).regex.get(0).matcher(document.get(start).word()).matches()) {
+            matches.addIfMatching(group, document, start);
+          }
+        }
+      }
+      return Arrays.copyOf(matches.matches, matches.size);
+    }
+  }
+
   private boolean containsValidPos(List<CoreLabel> tokens, int start, int end) {
     if (validPosPattern == null) {
       return true;
@@ -225,25 +443,21 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
 
   @Override
   public List<CoreLabel> classify(List<CoreLabel> document) {
-    // This is pretty deathly slow. It loops over each entry, and then loops over each document token for it.
-    // We could gain by compiling into disjunctions patterns for the same class with the same priorities and restrictions?
-    for (Entry entry : entries) {
-      int start = 0; // the index of the token from which we begin our search each iteration
-      while (true) {
-        // only search the part of the document that we haven't yet considered
-        // System.err.println("REGEX FIND MATCH FOR " + entry.regex.toString());
-        start = findStartIndex(entry, document, start, myLabels, this.ignoreCase);
-        if (start < 0) break; // no match found
-
-        // make sure we annotate only valid POS tags
-        if (containsValidPos(document, start, start + entry.regex.size())) {
-          // annotate each matching token
-          for (int i = start; i < start + entry.regex.size(); i++) {
-            CoreLabel token = document.get(i);
-            token.set(CoreAnnotations.AnswerAnnotation.class, entry.type);
-          }
+    // Applying the matches by entry and then by position gives the same labels as
+    // trying each entry in turn over the whole document.
+    long[] matches = index.findMatches(document);
+    Arrays.sort(matches);
+    for (long match : matches) {
+      Entry entry = entries.get((int) (match >>> 32));
+      int start = (int) match;
+      int end = start + entry.regex.size();
+      // make sure we annotate only valid POS tags
+      if (isOverwritable(entry, document, start, end, myLabels) && containsValidPos(document, start, end)) {
+        // annotate each matching token
+        for (int i = start; i < end; i++) {
+          CoreLabel token = document.get(i);
+          token.set(CoreAnnotations.AnswerAnnotation.class, entry.type);
         }
-        start++;
       }
     }
     return document;
@@ -297,52 +511,29 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
     }
 
     Collections.sort(entries);
+    for (int i = 0; i < entries.size(); i++) {
+      entries.get(i).rank = i;
+    }
     // System.err.println("Read these entries:");
     // System.err.println(entries);
     return entries;
   }
 
   /**
-   * Checks if the entry's regex sequence is contained in the tokenized document, starting the search
-   * from index searchStart. Also requires that each token's current NER-type be overwritable,
-   * and that each token has not yet been Answer-annotated.
-   *
-   * @param entry
-   * @param document
-   * @return on success, the index of the first token in the matching sequence, otherwise -1
+   * Checks that each token in the range has a current NER-type which the entry may
+   * overwrite, and has not yet been Answer-annotated.
    */
-  private static int findStartIndex(Entry entry, List<CoreLabel> document, int searchStart, Set<String> myLabels, boolean ignoreCase) {
-    List<Pattern> regex = entry.regex;
-    int rSize = regex.size();
-    // System.err.println("REGEX FIND MATCH FOR " + regex.toString() + " length: " + rSize);
-
-    for (int start = searchStart, end = document.size() - regex.size(); start <= end; start++) {
-      boolean failed = false;
-      for (int i = 0; i < rSize; i++) {
-        Pattern pattern = regex.get(i);
-        String exact = entry.exact.get(i);
-        CoreLabel token = document.get(start + i);
-        String NERType = token.get(CoreAnnotations.NamedEntityTagAnnotation.class);
-        String currentType = token.get(CoreAnnotations.AnswerAnnotation.class);
-
-        if (
-            currentType != null ||
-            (exact != null && ! (ignoreCase ? exact.equalsIgnoreCase(token.word()) : exact.equals(token.word()))) ||
-            ! (entry.overwritableTypes.contains(NERType) || myLabels.contains(NERType))  ||
-            ! pattern.matcher(token.word()).matches()  // last, as this is likely the expensive operation
-            ) {
-          failed = true;
-          break;
-        }
-      }
-      if (! failed) {
-        // System.err.print("MATCHED REGEX:");
-        // for(int i = start; i < start + regex.size(); i ++) System.err.print(" " + document.get(i).word());
-        // System.err.println();
-        return start;
+  private static boolean isOverwritable(Entry entry, List<CoreLabel> document, int start, int end, Set<String> myLabels) {
+    for (int i = start; i < end; i++) {
+      CoreLabel token = document.get(i);
+      String NERType = token.get(CoreAnnotations.NamedEntityTagAnnotation.class);
+      String currentType = token.get(CoreAnnotations.AnswerAnnotation.class);
+      if (currentType != null ||
+          ! (entry.overwritableTypes.contains(NERType) || myLabels.contains(NERType))) {
+        return false;
       }
     }
-    return -1;
+    return true;
   }
 
 
@@ -2,14 +2,18 @@ package edu.stanford.nlp.ling;
 
 import com.gs.collections.impl.set.mutable.UnifiedSet;
 import edu.stanford.nlp.ling.AnnotationLookup.KeyLookup;
-import edu.stanford.nlp.util.ArrayCoreMap;
+import edu.stanford.nlp.pipeline.Annotation;
 import edu.stanford.nlp.util.CoreMap;
-import edu.stanford.nlp.util.DefaultCoreMap;
 import edu.stanford.nlp.util.Generics;
 import edu.stanford.nlp.util.logging.PrettyLogger;
 import edu.stanford.nlp.util.logging.Redwood;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -25,12 +29,15 @@ import java.util.*;
  * The CoreLabel class in particular bridges the gap between old-style JavaNLP
  * Labels and the new CoreMap infrastructure.  Instances of this class can be
  * used (almost) anywhere that the now-defunct FeatureLabel family could be
- * used.  This data structure is backed by an {@link ArrayCoreMap}.
+ * used.  The most common token annotations (word, value, original text,
+ * tag, lemma, NER, before, after, character offsets and indices) are kept
+ * in fields of the label, the ints unboxed, and any others in a hash map
+ * which is only made once one of them is set.
  *
  * @author dramage
  * @author rafferty
  */
-public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements AbstractCoreLabel, HasCategory, HasContext, CoreMap {
+public class CoreLabel extends AbstractMap<Class<?>, Object> implements AbstractCoreLabel, HasCategory, HasContext, CoreMap, Externalizable {
 
     private static final long serialVersionUID = 2L;
 
@@ -45,17 +52,16 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      * Default constructor, calls super()
      */
     public CoreLabel() {
-        super();
     }
 
     /**
-     * Initializes this CoreLabel, pre-allocating arrays to hold
-     * up to capacity key,value pairs.  This array will grow if necessary.
+     * Initializes this CoreLabel.  The common token annotations have their
+     * own fields, and the map for any others is made when it is first
+     * needed, so there is nothing to pre-allocate.
      *
      * @param capacity Initial capacity of object in key,value pairs
      */
     public CoreLabel(int capacity) {
-        super(capacity);
     }
 
     /**
@@ -79,7 +85,6 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      */
     @SuppressWarnings({"unchecked"})
     public CoreLabel(CoreMap label) {
-        super(label.size());
         for (Class key : label.keySet()) {
             set(key, label.get(key));
         }
@@ -99,7 +104,6 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      */
     @SuppressWarnings("unchecked")
     public CoreLabel(Label label) {
-        super(0);
         if (label instanceof CoreMap) {
             CoreMap cl = (CoreMap) label;
             //setCapacity(cl.size());
@@ -134,11 +138,595 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      * @param values Array of values (as String)
      */
     public CoreLabel(String[] keys, String[] values) {
-        super(keys.length);
         //this.map = new ArrayCoreMap();
         initFromStrings(keys, values);
     }
 
+    // The most common token annotations are kept in fields, with the
+    // offsets and indices unboxed, rather than as entries of the underlying
+    // map, which only holds the other keys.  All of the Map and CoreMap
+    // methods below see both.  The slot methods are package private so
+    // that TokenColumns can keep the slots of its rows in arrays instead.
+
+    static final int WORD = 0, VALUE = 1, ORIGINAL_TEXT = 2, TAG = 3,
+        LEMMA = 4, NER = 5, BEFORE = 6, AFTER = 7;
+    static final int BEGIN_POSITION = 8, END_POSITION = 9, INDEX = 10, SENT_INDEX = 11;
+    /** Slots from here on hold Integers, the ones before Strings */
+    static final int FIRST_INT_SLOT = BEGIN_POSITION;
+    static final int NUM_SLOTS = 12;
+
+    private static final Class<?>[] SLOT_KEYS = {
+        CoreAnnotations.TextAnnotation.class,
+        CoreAnnotations.ValueAnnotation.class,
+        CoreAnnotations.OriginalTextAnnotation.class,
+        CoreAnnotations.PartOfSpeechAnnotation.class,
+        CoreAnnotations.LemmaAnnotation.class,
+        CoreAnnotations.NamedEntityTagAnnotation.class,
+        CoreAnnotations.BeforeAnnotation.class,
+        CoreAnnotations.AfterAnnotation.class,
+        CoreAnnotations.CharacterOffsetBeginAnnotation.class,
+        CoreAnnotations.CharacterOffsetEndAnnotation.class,
+        CoreAnnotations.IndexAnnotation.class,
+        CoreAnnotations.SentenceIndexAnnotation.class,
+    };
+
+    /** Caches the String form of keys for speedier printing */
+    private static final Map<Class<?>, String> shortNames = new ConcurrentHashMap<>(12, 0.75f, 1);
+
+    /** Open addressing table from slot key (by identity) to its slot */
+    private static final Class<?>[] SLOT_TABLE = new Class<?>[32];
+    private static final byte[] SLOT_TABLE_SLOTS = new byte[SLOT_TABLE.length];
+
+    static {
+        for (int slot = 0; slot < NUM_SLOTS; slot++) {
+            int i = SLOT_KEYS[slot].hashCode() & (SLOT_TABLE.length - 1);
+            while (SLOT_TABLE[i] != null) {
+                i = (i + 1) & (SLOT_TABLE.length - 1);
+            }
+            SLOT_TABLE[i] = SLOT_KEYS[slot];
+            SLOT_TABLE_SLOTS[i] = (byte) slot;
+        }
+    }
+
+    /** Returns the slot of the given key, or -1 if it is kept in the map */
+    static int slotOf(Object key) {
+        if (!(key instanceof Class)) {
+            return -1;
+        }
+        for (int i = key.hashCode() & (SLOT_TABLE.length - 1); SLOT_TABLE[i] != null; i = (i + 1) & (SLOT_TABLE.length - 1)) {
+            if (SLOT_TABLE[i] == key) {
+                return SLOT_TABLE_SLOTS[i];
+            }
+        }
+        return -1;
+    }
+
+    private String word, value, originalText, tag, lemma, ner, before, after;
+    private int beginPosition, endPosition, index, sentIndex;
+    /** One bit per Integer slot, set if that slot has a value */
+    private byte intSlotsSet;
+
+    boolean hasSlot(int slot) {
+        if (slot >= FIRST_INT_SLOT) {
+            return (intSlotsSet & (1 << (slot - FIRST_INT_SLOT))) != 0;
+        }
+        return getSlot(slot) != null;
+    }
+
+    Object getSlot(int slot) {
+        switch (slot) {
+            case WORD: return word;
+            case VALUE: return value;
+            case ORIGINAL_TEXT: return originalText;
+            case TAG: return tag;
+            case LEMMA: return lemma;
+            case NER: return ner;
+            case BEFORE: return before;
+            case AFTER: return after;
+            default: return hasSlot(slot) ? Integer.valueOf(getIntSlot(slot)) : null;
+        }
+    }
+
+    int getIntSlot(int slot) {
+        switch (slot) {
+            case BEGIN_POSITION: return beginPosition;
+            case END_POSITION: return endPosition;
+            case INDEX: return index;
+            case SENT_INDEX: return sentIndex;
+            default: throw new IllegalArgumentException("Not an Integer slot: " + slot);
+        }
+    }
+
+    /**
+     * Puts the value in its slot, unless it is not of the slot's type
+     * (only possible through the raw Map methods), in which case nothing
+     * changes and false is returned.
+     */
+    boolean setSlot(int slot, Object v) {
+        if (slot >= FIRST_INT_SLOT) {
+            if (!(v instanceof Integer)) {
+                return false;
+            }
+            int i = (Integer) v;
+            switch (slot) {
+                case BEGIN_POSITION: beginPosition = i; break;
+                case END_POSITION: endPosition = i; break;
+                case INDEX: index = i; break;
+                default: sentIndex = i; break;
+            }
+            intSlotsSet |= 1 << (slot - FIRST_INT_SLOT);
+            return true;
+        }
+        if (!(v instanceof String)) {
+            return false;
+        }
+        String str = (String) v;
+        switch (slot) {
+            case WORD: word = str; break;
+            case VALUE: value = str; break;
+            case ORIGINAL_TEXT: originalText = str; break;
+            case TAG: tag = str; break;
+            case LEMMA: lemma = str; break;
+            case NER: ner = str; break;
+            case BEFORE: before = str; break;
+            default: after = str; break;
+        }
+        return true;
+    }
+
+    private void clearSlot(int slot) {
+        switch (slot) {
+            case WORD: word = null; break;
+            case VALUE: value = null; break;
+            case ORIGINAL_TEXT: originalText = null; break;
+            case TAG: tag = null; break;
+            case LEMMA: lemma = null; break;
+            case NER: ner = null; break;
+            case BEFORE: before = null; break;
+            case AFTER: after = null; break;
+            default: intSlotsSet &= ~(1 << (slot - FIRST_INT_SLOT)); break;
+        }
+    }
+
+    int slotsSet() {
+        int count = Integer.bitCount(intSlotsSet & 0xff);
+        for (int slot = 0; slot < FIRST_INT_SLOT; slot++) {
+            if (getSlot(slot) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** The annotations which don't have a field, or null until there is one */
+    private Map<Class<?>, Object> others;
+
+    /** Whether the map of other annotations has any entries */
+    private boolean hasMapEntries() {
+        return others != null && !others.isEmpty();
+    }
+
+    private Map<Class<?>, Object> others() {
+        if (others == null) {
+            others = Generics.newHashMap(4);
+        }
+        return others;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return (others == null) ? null : others.get(key);
+        }
+        Object v = getSlot(slot);
+        if (v == null && hasMapEntries()) {
+            return others.get(key);
+        }
+        return v;
+    }
+
+    @Override
+    public Object put(Class<?> key, Object v) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return others().put(key, v);
+        }
+        Object old = getSlot(slot);
+        if (setSlot(slot, v)) {
+            if (old == null && hasMapEntries()) {
+                old = others.remove(key);
+            }
+            return old;
+        }
+        clearSlot(slot);
+        Object previous = others().put(key, v);
+        return (old != null) ? old : previous;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return (others == null) ? null : others.remove(key);
+        }
+        Object old = getSlot(slot);
+        clearSlot(slot);
+        if (old == null && hasMapEntries()) {
+            old = others.remove(key);
+        }
+        return old;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int slot = slotOf(key);
+        if (slot >= 0 && hasSlot(slot)) {
+            return true;
+        }
+        return hasMapEntries() && others.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object v) {
+        for (int slot = 0; slot < NUM_SLOTS; slot++) {
+            if (hasSlot(slot) && getSlot(slot).equals(v)) {
+                return true;
+            }
+        }
+        return hasMapEntries() && others.containsValue(v);
+    }
+
+    @Override
+    public int size() {
+        return slotsSet() + ((others == null) ? 0 : others.size());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        for (int slot = 0; slot < NUM_SLOTS; slot++) {
+            clearSlot(slot);
+        }
+        others = null;
+    }
+
+    @Override
+    public void putAll(Map<? extends Class<?>, ?> map) {
+        for (Map.Entry<? extends Class<?>, ?> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<Class<?>, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<Class<?>, Object>>() {
+            @Override
+            public Iterator<Map.Entry<Class<?>, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return CoreLabel.this.size();
+            }
+
+            @Override
+            public void clear() {
+                CoreLabel.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Set<Class<?>> keySet() {
+        return new AbstractSet<Class<?>>() {
+            @Override
+            public Iterator<Class<?>> iterator() {
+                final Iterator<Map.Entry<Class<?>, Object>> entries = new EntryIterator();
+                return new Iterator<Class<?>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Class<?> next() {
+                        return entries.next().getKey();
+                    }
+
+                    @Override
+                    public void remove() {
+                        entries.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CoreLabel.this.size();
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return containsKey(key);
+            }
+
+            @Override
+            public boolean remove(Object key) {
+                if (!containsKey(key)) {
+                    return false;
+                }
+                CoreLabel.this.remove(key);
+                return true;
+            }
+
+            @Override
+            public void clear() {
+                CoreLabel.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Collection<Object> values() {
+        return new AbstractCollection<Object>() {
+            @Override
+            public Iterator<Object> iterator() {
+                final Iterator<Map.Entry<Class<?>, Object>> entries = new EntryIterator();
+                return new Iterator<Object>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Object next() {
+                        return entries.next().getValue();
+                    }
+
+                    @Override
+                    public void remove() {
+                        entries.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CoreLabel.this.size();
+            }
+        };
+    }
+
+    /** Iterates over the slots which are set, then over the other annotations */
+    private class EntryIterator implements Iterator<Map.Entry<Class<?>, Object>> {
+        private int nextSlot = -1;
+        private int lastSlot = -1;
+        private Iterator<Class<?>> mapKeys;
+        private Class<?> lastMapKey;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            do {
+                nextSlot++;
+            } while (nextSlot < NUM_SLOTS && !hasSlot(nextSlot));
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextSlot < NUM_SLOTS) {
+                return true;
+            }
+            if (mapKeys == null) {
+                if (others == null) {
+                    return false;
+                }
+                mapKeys = others.keySet().iterator();
+            }
+            return mapKeys.hasNext();
+        }
+
+        @Override
+        public Map.Entry<Class<?>, Object> next() {
+            if (nextSlot < NUM_SLOTS) {
+                lastSlot = nextSlot;
+                advance();
+                return new LabelEntry(SLOT_KEYS[lastSlot], getSlot(lastSlot));
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastSlot = -1;
+            lastMapKey = mapKeys.next();
+            return new LabelEntry(lastMapKey, others.get(lastMapKey));
+        }
+
+        @Override
+        public void remove() {
+            if (lastSlot >= 0) {
+                clearSlot(lastSlot);
+                lastSlot = -1;
+            } else if (lastMapKey != null) {
+                mapKeys.remove();
+                lastMapKey = null;
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    /** An entry which writes its value through to the label */
+    private class LabelEntry extends AbstractMap.SimpleEntry<Class<?>, Object> {
+        private static final long serialVersionUID = 1L;
+
+        LabelEntry(Class<?> key, Object v) {
+            super(key, v);
+        }
+
+        @Override
+        public Object setValue(Object v) {
+            super.setValue(v);
+            return put(getKey(), v);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Map)) {
+            return false;
+        }
+        Map<?, ?> other = (Map<?, ?>) o;
+        if (other.size() != size()) {
+            return false;
+        }
+        for (Map.Entry<Class<?>, Object> entry : entrySet()) {
+            Object v = entry.getValue();
+            if (v == null) {
+                if (other.get(entry.getKey()) != null || !other.containsKey(entry.getKey())) {
+                    return false;
+                }
+            } else if (!v.equals(other.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = (others == null) ? 0 : others.hashCode();
+        for (int slot = 0; slot < NUM_SLOTS; slot++) {
+            if (hasSlot(slot)) {
+                int valueHash = (slot >= FIRST_INT_SLOT) ? getIntSlot(slot) : getSlot(slot).hashCode();
+                hash += SLOT_KEYS[slot].hashCode() ^ valueHash;
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public CoreLabel clone() {
+        return new CoreLabel(this);
+    }
+
+    /**
+     * Writes all entries, slots included.  This is the format of the
+     * hash map CoreLabel used to extend, so labels serialized before the
+     * fields were added can still be read.
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(size());
+        out.writeFloat(0.75f);  // the load factor, which the old format had
+        for (Map.Entry<Class<?>, Object> entry : entrySet()) {
+            out.writeObject(entry.getKey());
+            out.writeObject(entry.getValue());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        int size = in.readInt();
+        in.readFloat();  // load factor, unused
+        for (int i = 0; i < size; i++) {
+            put((Class<?>) in.readObject(), in.readObject());
+        }
+    }
+
+    /**
+     * Copies the map, but not a deep copy.
+     *
+     * @return The copy
+     */
+    public Annotation copy() {
+        return new Annotation((Map) this);
+    }
+
+    @Override
+    public <VALUE> boolean has(Class<? extends Key<VALUE>> key) {
+        return containsKey((Object) key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <VALUE> VALUE get(Class<? extends Key<VALUE>> key) {
+        return (VALUE) get((Object) key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <VALUE> VALUE set(Class<? extends Key<VALUE>> key, VALUE value) {
+        if (value == null) {
+            return (VALUE) remove((Object) key);
+        } else {
+            return (VALUE) put(key, value);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <VALUE> VALUE remove(Class<? extends Key<VALUE>> key) {
+        return (VALUE) remove((Object) key);
+    }
+
+    @Override
+    public <VALUE> boolean containsKey(Class<? extends Key<VALUE>> key) {
+        return containsKey((Object) key);
+    }
+
+    public String toShorterString(final char sep, String... what) {
+        StringBuilder s = new StringBuilder();
+        s.append('[');
+        Set<String> whatSet = UnifiedSet.newSetWith(what);
+        for (Map.Entry<Class<?>, Object> entry : entrySet()) {
+            Class<?> klass = entry.getKey();
+            String name = shortNames.get(klass);
+            if (name == null) {
+                name = klass.getSimpleName();
+                int annoIdx = name.lastIndexOf("Annotation");
+                if (annoIdx >= 0) {
+                    name = name.substring(0, annoIdx);
+                }
+                shortNames.put(klass, name);
+            }
+            if (whatSet.contains(name)) {
+                if (s.length() > 1) {
+                    s.append(sep);
+                }
+                s.append(name);
+                s.append('=');
+                s.append(entry.getValue());
+            }
+        }
+        s.append(']');
+        return s.toString();
+    }
+
+    @Override
+    public String toShorterString(String... what) {
+        return toShorterString('/', what);
+    }
+
+    public String toShortString(String... s) {
+        return toShortString('/', s);
+    }
+
+    public String toShortString(char sep, String... s) {
+        return toShorterString(sep, s);
+    }
+
     @Override
     public void prettyLog(Redwood.RedwoodChannels channels, String description) {
         Redwood.startTrack(description);
@@ -315,7 +903,8 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      */
     @Override
     public <KEY extends Key<String>> String getString(Class<KEY> key) {
-        return (String)getIfAbsentValue(key, "");
+        String v = get(key);
+        return (v == null) ? "" : v;
     }
 
 
@@ -340,7 +929,7 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      */
     @Override
     public final String value() {
-        return get(CoreAnnotations.ValueAnnotation.class);
+        return value;
     }
 
     /**
@@ -349,7 +938,7 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      */
     @Override
     public void setWord(String word) {
-        String originalWord = get(CoreAnnotations.TextAnnotation.class);
+        String originalWord = this.word;
         set(CoreAnnotations.TextAnnotation.class, word);
         // Pado feb 09: if you change the word, delete the lemma.
         // Gabor dec 2012: check if there was a real change -- this remove is actually rather expensive if it gets called a lot
@@ -364,7 +953,7 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      */
     @Override
     public String word() {
-        return get(CoreAnnotations.TextAnnotation.class);
+        return word;
     }
 
     /**
@@ -380,7 +969,7 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      */
     @Override
     public String tag() {
-        return get(CoreAnnotations.PartOfSpeechAnnotation.class);
+        return tag;
     }
 
     /**
@@ -412,7 +1001,7 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      */
     @Override
     public String after() {
-        return getString(CoreAnnotations.AfterAnnotation.class);
+        return (after == null) ? "" : after;
     }
 
     /**
@@ -429,7 +1018,7 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      */
     @Override
     public String before() {
-        return getString(CoreAnnotations.BeforeAnnotation.class);
+        return (before == null) ? "" : before;
     }
 
     /**
@@ -445,7 +1034,7 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      */
     @Override
     public String originalText() {
-        return getString(CoreAnnotations.OriginalTextAnnotation.class);
+        return (originalText == null) ? "" : originalText;
     }
 
     /**
@@ -469,7 +1058,7 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      */
     @Override
     public String ner() {
-        return get(CoreAnnotations.NamedEntityTagAnnotation.class);
+        return ner;
     }
 
     /**
@@ -485,7 +1074,7 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      */
     @Override
     public String lemma() {
-        return get(CoreAnnotations.LemmaAnnotation.class);
+        return lemma;
     }
 
     /**
@@ -502,7 +1091,7 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      */
     @Override
     public int index() {
-        return (int)getIfAbsentValue(CoreAnnotations.IndexAnnotation.class, -1);
+        return hasSlot(INDEX) ? index : -1;
     }
 
     /**
@@ -518,7 +1107,7 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      */
     @Override
     public int sentIndex() {
-        return (int)getIfAbsentValue(CoreAnnotations.SentenceIndexAnnotation.class, -1);
+        return hasSlot(SENT_INDEX) ? sentIndex : -1;
     }
 
     /**
@@ -534,9 +1123,7 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      */
     @Override
     public int beginPosition() {
-        Integer i = get(CoreAnnotations.CharacterOffsetBeginAnnotation.class);
-        if (i != null) return i;
-        return -1;
+        return hasSlot(BEGIN_POSITION) ? beginPosition : -1;
     }
 
     /**
@@ -544,9 +1131,7 @@ public class CoreLabel extends DefaultCoreMap /* ArrayCoreMap*/ implements Abstr
      */
     @Override
     public int endPosition() {
-        Integer i = get(CoreAnnotations.CharacterOffsetEndAnnotation.class);
-        if (i != null) return i;
-        return -1;
+        return hasSlot(END_POSITION) ? endPosition : -1;
     }
 
     /**
@@ -0,0 +1,572 @@
+package edu.stanford.nlp.ling;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.logging.Redwood;
+
+/**
+ * The tokens of a document stored column by column: one array per common
+ * token annotation (word, value, original text, tag, lemma, NER, before,
+ * after, character offsets, index and sentence index) instead of one
+ * {@link CoreLabel} per token.  When the columns come straight from a
+ * tokenizer's offsets (see {@link #fromOffsets}), the original text of
+ * each token and the whitespace around it are not stored at all, but
+ * are taken from the text when asked for.
+ * <br>
+ * Code which knows about the columns reads and writes them directly,
+ * e.g. {@link #word(int)} and {@link #setTag(int, String)}, and sees a
+ * row as a {@link Row}, a small {@link CoreMap} view.  For everything
+ * else, {@link #tokens()} is a {@code List<CoreLabel>} which can be the
+ * {@link CoreAnnotations.TokensAnnotation} of the document, and its
+ * sublists those of the sentences.  Getting a token from it makes the
+ * CoreLabel of that row, once, from the columns; from then on that
+ * CoreLabel holds the row's annotations, and reading or writing the row
+ * through the columns reads or writes the CoreLabel.  Setting an
+ * annotation which has no column on a Row also makes its CoreLabel.
+ * <br>
+ * The number of tokens is fixed when the columns are made.  Each row's
+ * CoreLabel is only ever made once, even by several threads; otherwise,
+ * as with CoreLabels, a row should not be written by one thread while
+ * another reads it.  A serialized token list is read back as an
+ * ordinary list of CoreLabels.
+ *
+ * @see edu.stanford.nlp.pipeline.TokenizerAnnotator#COLUMNAR_PROPERTY
+ */
+public class TokenColumns {
+
+  private final int size;
+  /** strings[slot][row] for each of the CoreLabel String slots */
+  private final String[][] strings;
+  /** ints[slot - FIRST_INT_SLOT][row] for each of the CoreLabel Integer slots */
+  private final int[][] ints;
+  /** One bit per Integer slot and row, set if that slot has a value */
+  private final byte[] intSlotsSet;
+  /** If not null, the text the offsets are into, which gives the original text, before and after of rows without them */
+  private final String text;
+  /** The document ID of every token, if any */
+  private String docID;
+  /** The CoreLabel of each row, once it has been made */
+  private final AtomicReferenceArray<CoreLabel> labels;
+
+  private TokenColumns(int size, String text) {
+    this.size = size;
+    this.text = text;
+    strings = new String[CoreLabel.FIRST_INT_SLOT][size];
+    ints = new int[CoreLabel.NUM_SLOTS - CoreLabel.FIRST_INT_SLOT][size];
+    intSlotsSet = new byte[size];
+    labels = new AtomicReferenceArray<>(size);
+  }
+
+  /**
+   * Copies the given tokens into columns.  A token with annotations that
+   * have no column becomes the CoreLabel of its row.
+   */
+  public TokenColumns(List<? extends CoreLabel> tokens) {
+    this(tokens.size(), null);
+    for (int row = 0; row < size; row++) {
+      CoreLabel token = tokens.get(row);
+      for (int slot = 0; slot < CoreLabel.NUM_SLOTS; slot++) {
+        if (token.hasSlot(slot)) {
+          if (slot < CoreLabel.FIRST_INT_SLOT) {
+            strings[slot][row] = (String) token.getSlot(slot);
+          } else {
+            ints[slot - CoreLabel.FIRST_INT_SLOT][row] = token.getIntSlot(slot);
+            intSlotsSet[row] |= 1 << (slot - CoreLabel.FIRST_INT_SLOT);
+          }
+        }
+      }
+      if (token.size() > token.slotsSet()) {
+        labels.set(row, token);
+      }
+    }
+  }
+
+  /**
+   * Makes the columns of tokens given as offsets into a text, as an
+   * invertible tokenizer would make them: each token's value is its word,
+   * and its original text is the text between its offsets.  The arrays
+   * are copied.
+   *
+   * @param text The text the tokens are from
+   * @param size The number of tokens
+   * @param begins The offset of the first character of each token
+   * @param ends The offset just past the last character of each token
+   * @param words The word of each token, or null where it is the original text
+   */
+  public static TokenColumns fromOffsets(String text, int size, int[] begins, int[] ends, String[] words) {
+    TokenColumns columns = new TokenColumns(size, text);
+    String[] wordColumn = columns.strings[CoreLabel.WORD];
+    for (int row = 0; row < size; row++) {
+      String word = words[row];
+      wordColumn[row] = (word != null) ? word : text.substring(begins[row], ends[row]);
+      columns.intSlotsSet[row] = (byte) ((1 << (CoreLabel.BEGIN_POSITION - CoreLabel.FIRST_INT_SLOT))
+          | (1 << (CoreLabel.END_POSITION - CoreLabel.FIRST_INT_SLOT)));
+    }
+    System.arraycopy(wordColumn, 0, columns.strings[CoreLabel.VALUE], 0, size);
+    System.arraycopy(begins, 0, columns.ints[CoreLabel.BEGIN_POSITION - CoreLabel.FIRST_INT_SLOT], 0, size);
+    System.arraycopy(ends, 0, columns.ints[CoreLabel.END_POSITION - CoreLabel.FIRST_INT_SLOT], 0, size);
+    return columns;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** The tokens as CoreLabels, made from the columns as they are asked for */
+  public Tokens tokens() {
+    return new Tokens(0, size);
+  }
+
+  /** A view of one row */
+  public Row row(int row) {
+    checkRow(row);
+    return new Row(row);
+  }
+
+  /**
+   * The CoreLabel of a row, which is made the first time it is asked for
+   * and then holds the annotations of the row.
+   */
+  public CoreLabel label(int row) {
+    checkRow(row);
+    CoreLabel label = labels.get(row);
+    if (label == null) {
+      label = newLabel(row);
+      if ( ! labels.compareAndSet(row, null, label)) {
+        label = labels.get(row);
+      }
+    }
+    return label;
+  }
+
+  /** Whether the CoreLabel of a row has been made */
+  boolean hasLabel(int row) {
+    return labels.get(row) != null;
+  }
+
+  /** A new CoreLabel with the annotations of a row, which is not kept */
+  public CoreLabel copyLabel(int row) {
+    checkRow(row);
+    CoreLabel label = labels.get(row);
+    return (label != null) ? new CoreLabel(label) : newLabel(row);
+  }
+
+  private CoreLabel newLabel(int row) {
+    CoreLabel label = new CoreLabel(CoreLabel.NUM_SLOTS);
+    for (int slot = 0; slot < CoreLabel.NUM_SLOTS; slot++) {
+      if (slot < CoreLabel.FIRST_INT_SLOT) {
+        String s = string(slot, row);
+        if (s != null) {
+          label.setSlot(slot, s);
+        }
+      } else if (hasInt(slot, row)) {
+        label.setSlot(slot, ints[slot - CoreLabel.FIRST_INT_SLOT][row]);
+      }
+    }
+    if (docID != null) {
+      label.setDocID(docID);
+    }
+    return label;
+  }
+
+  private void checkRow(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+    }
+  }
+
+  /** The value of a String slot of a row without a CoreLabel */
+  private String string(int slot, int row) {
+    String s = strings[slot][row];
+    if (s != null || text == null) {
+      return s;
+    }
+    switch (slot) {
+      case CoreLabel.ORIGINAL_TEXT:
+        return text.substring(offset(CoreLabel.BEGIN_POSITION, row), offset(CoreLabel.END_POSITION, row));
+      case CoreLabel.BEFORE:
+        return text.substring((row == 0) ? 0 : offset(CoreLabel.END_POSITION, row - 1), offset(CoreLabel.BEGIN_POSITION, row));
+      case CoreLabel.AFTER:
+        return text.substring(offset(CoreLabel.END_POSITION, row), (row == size - 1) ? text.length() : offset(CoreLabel.BEGIN_POSITION, row + 1));
+      default:
+        return null;
+    }
+  }
+
+  private int offset(int slot, int row) {
+    return ints[slot - CoreLabel.FIRST_INT_SLOT][row];
+  }
+
+  private boolean hasInt(int slot, int row) {
+    return (intSlotsSet[row] & (1 << (slot - CoreLabel.FIRST_INT_SLOT))) != 0;
+  }
+
+  private int intOrMinusOne(int slot, int row) {
+    return hasInt(slot, row) ? ints[slot - CoreLabel.FIRST_INT_SLOT][row] : -1;
+  }
+
+  private void setString(int slot, int row, String value) {
+    strings[slot][row] = value;
+  }
+
+  private void setInt(int slot, int row, int value) {
+    ints[slot - CoreLabel.FIRST_INT_SLOT][row] = value;
+    intSlotsSet[row] |= 1 << (slot - CoreLabel.FIRST_INT_SLOT);
+  }
+
+  public String word(int row) {
+    CoreLabel label = labels.get(row);
+    return (label != null) ? label.word() : strings[CoreLabel.WORD][row];
+  }
+
+  public String value(int row) {
+    CoreLabel label = labels.get(row);
+    return (label != null) ? label.value() : strings[CoreLabel.VALUE][row];
+  }
+
+  /** The original text of the token, or "" if it is not set */
+  public String originalText(int row) {
+    CoreLabel label = labels.get(row);
+    if (label != null) {
+      return label.originalText();
+    }
+    String s = string(CoreLabel.ORIGINAL_TEXT, row);
+    return (s == null) ? "" : s;
+  }
+
+  public String tag(int row) {
+    CoreLabel label = labels.get(row);
+    return (label != null) ? label.tag() : strings[CoreLabel.TAG][row];
+  }
+
+  public void setTag(int row, String tag) {
+    CoreLabel label = labels.get(row);
+    if (label != null) {
+      label.setTag(tag);
+    } else {
+      setString(CoreLabel.TAG, row, tag);
+    }
+  }
+
+  public String lemma(int row) {
+    CoreLabel label = labels.get(row);
+    return (label != null) ? label.lemma() : strings[CoreLabel.LEMMA][row];
+  }
+
+  public void setLemma(int row, String lemma) {
+    CoreLabel label = labels.get(row);
+    if (label != null) {
+      label.setLemma(lemma);
+    } else {
+      setString(CoreLabel.LEMMA, row, lemma);
+    }
+  }
+
+  public String ner(int row) {
+    CoreLabel label = labels.get(row);
+    return (label != null) ? label.ner() : strings[CoreLabel.NER][row];
+  }
+
+  public void setNER(int row, String ner) {
+    CoreLabel label = labels.get(row);
+    if (label != null) {
+      label.setNER(ner);
+    } else {
+      setString(CoreLabel.NER, row, ner);
+    }
+  }
+
+  /** The character offset of the start of the token, or -1 if it is not set */
+  public int beginPosition(int row) {
+    CoreLabel label = labels.get(row);
+    return (label != null) ? label.beginPosition() : intOrMinusOne(CoreLabel.BEGIN_POSITION, row);
+  }
+
+  /** The character offset just past the end of the token, or -1 if it is not set */
+  public int endPosition(int row) {
+    CoreLabel label = labels.get(row);
+    return (label != null) ? label.endPosition() : intOrMinusOne(CoreLabel.END_POSITION, row);
+  }
+
+  /** The index of the token in its sentence, or -1 if it is not set */
+  public int index(int row) {
+    CoreLabel label = labels.get(row);
+    return (label != null) ? label.index() : intOrMinusOne(CoreLabel.INDEX, row);
+  }
+
+  public void setIndex(int row, int index) {
+    CoreLabel label = labels.get(row);
+    if (label != null) {
+      label.setIndex(index);
+    } else {
+      setInt(CoreLabel.INDEX, row, index);
+    }
+  }
+
+  /** The index of the sentence of the token, or -1 if it is not set */
+  public int sentIndex(int row) {
+    CoreLabel label = labels.get(row);
+    return (label != null) ? label.sentIndex() : intOrMinusOne(CoreLabel.SENT_INDEX, row);
+  }
+
+  public void setSentIndex(int row, int sentIndex) {
+    CoreLabel label = labels.get(row);
+    if (label != null) {
+      label.setSentIndex(sentIndex);
+    } else {
+      setInt(CoreLabel.SENT_INDEX, row, sentIndex);
+    }
+  }
+
+  /** Sets the {@link CoreAnnotations.DocIDAnnotation} of every token */
+  public void setDocID(String docID) {
+    this.docID = docID;
+    for (int row = 0; row < size; row++) {
+      CoreLabel label = labels.get(row);
+      if (label != null) {
+        label.setDocID(docID);
+      }
+    }
+  }
+
+
+  /**
+   * Some of the tokens as CoreLabels, made from the columns as they are
+   * asked for.  Code which knows about the columns can get them back
+   * with {@link #columns()} and {@link #begin()}.
+   */
+  public final class Tokens extends AbstractList<CoreLabel> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int begin;
+    private final int size;
+
+    private Tokens(int begin, int size) {
+      this.begin = begin;
+      this.size = size;
+    }
+
+    /** The columns of the tokens */
+    public TokenColumns columns() {
+      return TokenColumns.this;
+    }
+
+    /** The row of the first token */
+    public int begin() {
+      return begin;
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public CoreLabel get(int i) {
+      if (i < 0 || i >= size) {
+        throw new IndexOutOfBoundsException("Token " + i + " of " + size);
+      }
+      return label(begin + i);
+    }
+
+    @Override
+    public Tokens subList(int fromIndex, int toIndex) {
+      if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+        throw new IndexOutOfBoundsException("Tokens " + fromIndex + " to " + toIndex + " of " + size);
+      }
+      return new Tokens(begin + fromIndex, toIndex - fromIndex);
+    }
+
+    /** Views of the rows of the tokens; these don't make CoreLabels */
+    public List<Row> rows() {
+      return new AbstractList<Row>() {
+        @Override
+        public Row get(int i) {
+          if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Token " + i + " of " + size);
+          }
+          return new Row(begin + i);
+        }
+
+        @Override
+        public int size() {
+          return size;
+        }
+      };
+    }
+
+    /** New CoreLabels with the annotations of the tokens, which are not kept */
+    public List<CoreLabel> copyLabels() {
+      List<CoreLabel> copies = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        copies.add(copyLabel(begin + i));
+      }
+      return copies;
+    }
+
+    private Object writeReplace() {
+      return new ArrayList<>(this);
+    }
+  }
+
+
+  /**
+   * A view of one row as a CoreMap.  Reading it doesn't make the
+   * CoreLabel of the row, and nor does setting an annotation which has a
+   * column; other annotations are set on the CoreLabel.
+   */
+  public final class Row implements CoreMap, HasWord, HasTag {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int row;
+
+    private Row(int row) {
+      this.row = row;
+    }
+
+    /** The row this is a view of */
+    public int row() {
+      return row;
+    }
+
+    /** The columns of the row */
+    public TokenColumns columns() {
+      return TokenColumns.this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <VALUE> VALUE get(Class<? extends Key<VALUE>> key) {
+      CoreLabel label = labels.get(row);
+      if (label != null) {
+        return label.get(key);
+      }
+      int slot = CoreLabel.slotOf(key);
+      if (slot >= CoreLabel.FIRST_INT_SLOT) {
+        return hasInt(slot, row) ? (VALUE) Integer.valueOf(ints[slot - CoreLabel.FIRST_INT_SLOT][row]) : null;
+      } else if (slot >= 0) {
+        return (VALUE) string(slot, row);
+      } else if (CoreAnnotations.DocIDAnnotation.class.equals(key)) {
+        return (VALUE) docID;
+      }
+      return null;
+    }
+
+    @Override
+    public <VALUE> boolean has(Class<? extends Key<VALUE>> key) {
+      return containsKey(key);
+    }
+
+    @Override
+    public <VALUE> boolean containsKey(Class<? extends Key<VALUE>> key) {
+      CoreLabel label = labels.get(row);
+      return (label != null) ? label.containsKey(key) : get(key) != null;
+    }
+
+    @Override
+    public <VALUE> VALUE set(Class<? extends Key<VALUE>> key, VALUE value) {
+      if (labels.get(row) == null) {
+        int slot = CoreLabel.slotOf(key);
+        if (slot >= CoreLabel.FIRST_INT_SLOT && value instanceof Integer) {
+          VALUE old = get(key);
+          setInt(slot, row, (Integer) value);
+          return old;
+        } else if (slot >= 0 && slot < CoreLabel.FIRST_INT_SLOT && value instanceof String) {
+          VALUE old = get(key);
+          setString(slot, row, (String) value);
+          return old;
+        }
+      }
+      return label(row).set(key, value);
+    }
+
+    @Override
+    public <VALUE> VALUE remove(Class<? extends Key<VALUE>> key) {
+      return label(row).remove(key);
+    }
+
+    @Override
+    public Set<Class<?>> keySet() {
+      CoreLabel label = labels.get(row);
+      if (label != null) {
+        return label.keySet();
+      }
+      Set<Class<?>> keys = Generics.newHashSet();
+      for (Map.Entry<Class<?>, Object> entry : newLabel(row).entrySet()) {
+        keys.add(entry.getKey());
+      }
+      return keys;
+    }
+
+    @Override
+    public int size() {
+      return keySet().size();
+    }
+
+    @Override
+    public String word() {
+      return TokenColumns.this.word(row);
+    }
+
+    @Override
+    public void setWord(String word) {
+      set(CoreAnnotations.TextAnnotation.class, word);
+    }
+
+    @Override
+    public String tag() {
+      return TokenColumns.this.tag(row);
+    }
+
+    @Override
+    public void setTag(String tag) {
+      TokenColumns.this.setTag(row, tag);
+    }
+
+    @Override
+    public String toShorterString(String... what) {
+      return copyLabel(row).toShorterString(what);
+    }
+
+    @Override
+    public void prettyLog(Redwood.RedwoodChannels channels, String description) {
+      copyLabel(row).prettyLog(channels, description);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if ( ! (o instanceof Row)) {
+        return false;
+      }
+      Row other = (Row) o;
+      return other.row == row && other.columns() == columns();
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(columns()) * 31 + row;
+    }
+
+    @Override
+    public String toString() {
+      return copyLabel(row).toString();
+    }
+
+    /** Written out as a plain CoreLabel, as the columns can't come with it */
+    private Object writeReplace() {
+      return copyLabel(row);
+    }
+  }
+
+}
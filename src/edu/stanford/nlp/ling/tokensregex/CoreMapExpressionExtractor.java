@@ -74,6 +74,10 @@ public class CoreMapExpressionExtractor<T extends MatchedExpression> {
     SequenceMatchRules.ExtractRule<List<? extends CoreMap>, T> compositeExtractRule;
     /** Filtering rule */
     Predicate<T> filterRule;
+    /** The rules making up the basic extract rule, in order (null if it was set as a whole) */
+    List<SequenceMatchRules.ExtractRule<CoreMap, T>> basicRules;
+    /** Index of the basic rules by the tokens their patterns need, made when the stage is first applied */
+    private volatile CoreMapRuleIndex<SequenceMatchRules.ExtractRule<CoreMap, T>> basicRuleIndex;
 
     private static <I,O> SequenceMatchRules.ExtractRule<I,O> addRule(SequenceMatchRules.ExtractRule<I, O> origRule,
                                                                      SequenceMatchRules.ExtractRule<I, O> rule)
@@ -98,6 +102,63 @@ public class CoreMapExpressionExtractor<T extends MatchedExpression> {
     private void addBasicRule(SequenceMatchRules.ExtractRule<CoreMap, T> rule)
     {
       basicExtractRule = addRule(basicExtractRule, rule);
+      if (basicRules == null) {
+        basicRules = new ArrayList<>();
+      }
+      basicRules.add(rule);
+      basicRuleIndex = null;
+    }
+
+    /**
+     * Returns the index of the basic rules, in which the TokensRegex rules
+     * over the given tokens annotation are indexed by the tokens they need.
+     * The index is made once, the first time it is needed; after that this
+     * doesn't lock, as it is called for every sentence.
+     */
+    private CoreMapRuleIndex<SequenceMatchRules.ExtractRule<CoreMap, T>> getBasicRuleIndex(Class<?> tokensAnnotationKey)
+    {
+      CoreMapRuleIndex<SequenceMatchRules.ExtractRule<CoreMap, T>> index = basicRuleIndex;
+      if (index == null) {
+        synchronized (this) {
+          index = basicRuleIndex;
+          if (index == null) {
+            index = new CoreMapRuleIndex<>(basicRules, rule -> {
+              if (rule instanceof SequenceMatchRules.AnnotationExtractRule) {
+                SequenceMatchRules.AnnotationExtractRule<?, ?> aer = (SequenceMatchRules.AnnotationExtractRule<?, ?>) rule;
+                if (aer.hasTokensRegexPattern() && tokensAnnotationKey.equals(aer.annotationField)) {
+                  return (TokenSequencePattern) aer.pattern;
+                }
+              }
+              return null;
+            });
+            basicRuleIndex = index;
+          }
+        }
+      }
+      return index;
+    }
+
+    /**
+     * Applies the basic rules to the annotation, skipping the TokensRegex
+     * rules which need tokens the annotation doesn't have.
+     */
+    private void extractBasic(CoreMap annotation, Class<?> tokensAnnotationKey, List<T> out)
+    {
+      List<? extends CoreMap> tokens = getTokens(annotation, tokensAnnotationKey);
+      if (basicRules == null || tokens == null) {
+        basicExtractRule.extract(annotation, out);
+      } else {
+        for (SequenceMatchRules.ExtractRule<CoreMap, T> rule : getBasicRuleIndex(tokensAnnotationKey).getTriggered(tokens)) {
+          rule.extract(annotation, out);
+        }
+      }
+    }
+
+    // the tokens annotation key comes from the Env, which doesn't type it
+    @SuppressWarnings("unchecked")
+    private static List<? extends CoreMap> getTokens(CoreMap annotation, Class<?> tokensAnnotationKey)
+    {
+      return annotation.get((Class<? extends TypesafeMap.Key<List<? extends CoreMap>>>) tokensAnnotationKey);
     }
 
     private void addFilterRule(Predicate<T> rule)
@@ -488,7 +549,10 @@ public class CoreMapExpressionExtractor<T extends MatchedExpression> {
         matchedExpressions.clear();
       }
       if (basicExtractRule != null) {
-        basicExtractRule.extract(annotation, matchedExpressions);
+        stage.extractBasic(annotation, tokensAnnotationKey, matchedExpressions);
+        if (logger.isLoggable(Level.FINEST) && stage.basicRules != null) {
+          logger.finest("Stage " + stageId + ": " + stage.getBasicRuleIndex(tokensAnnotationKey));
+        }
         annotateExpressions(annotation, matchedExpressions);
         matchedExpressions = MatchedExpression.removeNullValues(matchedExpressions);
         matchedExpressions = MatchedExpression.removeNested(matchedExpressions);
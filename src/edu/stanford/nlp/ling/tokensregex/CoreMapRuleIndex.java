@@ -0,0 +1,402 @@
+package edu.stanford.nlp.ling.tokensregex;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.Pair;
+import edu.stanford.nlp.util.TypesafeMap;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Index of rules over token sequences by the literal annotation values
+ * (words, lemmas, tags, ...) which their {@link SequencePattern}s require.
+ * Given a sequence, only the rules for which one of their required values
+ * occurs in the sequence are returned, so that rules which could never
+ * match it are not tried.
+ *
+ * <p>The required values of a pattern are worked out from its pattern
+ * expression: a string match ({@code {word:apple}}, or a set of them) on an
+ * annotation of a node which every match of the pattern must contain,
+ * i.e., not inside an optional or {@code *} repetition.  For an
+ * alternation, one required value of each alternative is taken.  Of the
+ * possible choices, values of the text and lemma are preferred, then
+ * fewer and longer values.  Patterns without any required value (or which
+ * are not {@link SequencePattern}s at all) are always returned.
+ * Normalized string matches and regular expressions are not used.</p>
+ *
+ * <p>The index counts how many rules it returned and how many it pruned,
+ * see {@link #getNumRulesTried()} and {@link #getNumRulesPruned()}.
+ * It is safe to use from several threads at once.</p>
+ *
+ * @param <R> the type of the rules, which may just be the patterns
+ */
+public class CoreMapRuleIndex<R> {
+
+  /** Ways in which the value of an annotation is compared to the required value */
+  private static final int EXACT = 0;
+  /** Compared with String.equalsIgnoreCase */
+  private static final int IGNORE_CASE = 1;
+  /** Compared after String.toLowerCase */
+  private static final int LOWERCASE = 2;
+
+  private final List<R> rules;
+  private final BitSet alwaysTried;
+  private final List<AnchorTable> tables;
+
+  private final LongAdder numSequences = new LongAdder();
+  private final LongAdder numRulesTried = new LongAdder();
+  private final LongAdder numRulesPruned = new LongAdder();
+
+  /**
+   * Indexes the given rules.
+   *
+   * @param rules The rules, in the order in which they should be returned
+   * @param patternOf The pattern of a rule over the sequences which will be
+   *                  given to {@link #getTriggered(List)}, or null if the rule
+   *                  should always be tried
+   */
+  public CoreMapRuleIndex(Collection<? extends R> rules,
+                          Function<? super R, ? extends SequencePattern<CoreMap>> patternOf) {
+    this.rules = new ArrayList<>(rules);
+    this.alwaysTried = new BitSet(this.rules.size());
+    Map<Pair<Class<?>, Integer>, AnchorTable> tableMap = new LinkedHashMap<>();
+    for (int i = 0; i < this.rules.size(); i++) {
+      SequencePattern<CoreMap> pattern = patternOf.apply(this.rules.get(i));
+      List<Anchor> anchors = (pattern == null) ? null : requiredAnchors(pattern);
+      if (anchors == null) {
+        alwaysTried.set(i);
+      } else {
+        for (Anchor anchor : anchors) {
+          AnchorTable table = tableMap.get(Pair.makePair(anchor.key, anchor.compare));
+          if (table == null) {
+            table = new AnchorTable(anchor.key, anchor.compare);
+            tableMap.put(Pair.makePair(anchor.key, anchor.compare), table);
+          }
+          table.add(anchor.value, i);
+        }
+      }
+    }
+    this.tables = new ArrayList<>(tableMap.values());
+    for (AnchorTable table : tables) {
+      table.freeze();
+    }
+  }
+
+  /**
+   * Returns the rules which may match somewhere in the given sequence, in
+   * their original order.  If the sequence is null, all rules are returned.
+   */
+  public List<R> getTriggered(List<? extends CoreMap> elements) {
+    if (elements == null || tables.isEmpty()) {
+      return rules;
+    }
+    BitSet triggered = (BitSet) alwaysTried.clone();
+    for (CoreMap element : elements) {
+      for (AnchorTable table : tables) {
+        Object value = element.get(table.key);
+        if (value instanceof String) {
+          int[] ids = table.rulesWith((String) value);
+          if (ids != null) {
+            for (int id : ids) {
+              triggered.set(id);
+            }
+          }
+        }
+      }
+    }
+    List<R> result = new ArrayList<>(triggered.cardinality());
+    for (int i = triggered.nextSetBit(0); i >= 0; i = triggered.nextSetBit(i + 1)) {
+      result.add(rules.get(i));
+    }
+    numSequences.increment();
+    numRulesTried.add(result.size());
+    numRulesPruned.add(rules.size() - result.size());
+    return result;
+  }
+
+  /** The number of rules in the index */
+  public int size() {
+    return rules.size();
+  }
+
+  /** The number of rules without any required value, which are always tried */
+  public int getNumAlwaysTried() {
+    return alwaysTried.cardinality();
+  }
+
+  /** The number of sequences rules were looked up for */
+  public long getNumSequences() {
+    return numSequences.sum();
+  }
+
+  /** The total number of rules returned for the sequences */
+  public long getNumRulesTried() {
+    return numRulesTried.sum();
+  }
+
+  /** The total number of rules not returned for the sequences, as they can't match */
+  public long getNumRulesPruned() {
+    return numRulesPruned.sum();
+  }
+
+  public String toString() {
+    return "CoreMapRuleIndex[" + size() + " rules, " + getNumAlwaysTried() + " always tried, " +
+        getNumSequences() + " sequences, " + getNumRulesTried() + " rules tried, " +
+        getNumRulesPruned() + " pruned]";
+  }
+
+
+  /**
+   * Triggers the patterns of a {@link MultiPatternMatcher} which may match
+   * a sequence, using an index of the patterns.
+   */
+  public static class PatternTrigger implements MultiPatternMatcher.SequencePatternTrigger<CoreMap> {
+    private final CoreMapRuleIndex<SequencePattern<CoreMap>> index;
+
+    public PatternTrigger(Collection<? extends SequencePattern<CoreMap>> patterns) {
+      this.index = new CoreMapRuleIndex<>(patterns, p -> p);
+    }
+
+    @Override
+    public Collection<SequencePattern<CoreMap>> apply(List<? extends CoreMap> elements) {
+      return index.getTriggered(elements);
+    }
+
+    public CoreMapRuleIndex<SequencePattern<CoreMap>> getIndex() {
+      return index;
+    }
+
+    public String toString() {
+      return index.toString();
+    }
+  }
+
+  /** An annotation value which must occur for a pattern to match */
+  private static class Anchor {
+    final Class<?> key;
+    final int compare;
+    final String value;
+
+    Anchor(Class<?> key, int compare, String value) {
+      this.key = key;
+      this.compare = compare;
+      this.value = normalize(compare, value);
+    }
+  }
+
+  private static String normalize(int compare, String value) {
+    switch (compare) {
+      case IGNORE_CASE:
+        // equalsIgnoreCase compares characters after toUpperCase and then
+        // toLowerCase, so strings it finds equal are equal after this
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+          chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+      case LOWERCASE:
+        return value.toLowerCase();
+      default:
+        return value;
+    }
+  }
+
+  /** The rules requiring each value of one annotation, compared in one way */
+  private static class AnchorTable {
+    final Class<? extends TypesafeMap.Key<Object>> key;
+    final int compare;
+    private Map<String, List<Integer>> building = Generics.newHashMap();
+    private Map<String, int[]> ruleIds;
+
+    // the annotation keys of patterns aren't typed, and getTriggered
+    // checks that the value is a String before using it
+    @SuppressWarnings("unchecked")
+    AnchorTable(Class<?> key, int compare) {
+      this.key = (Class<? extends TypesafeMap.Key<Object>>) key;
+      this.compare = compare;
+    }
+
+    void add(String value, int ruleId) {
+      List<Integer> ids = building.get(value);
+      if (ids == null) {
+        ids = new ArrayList<>(1);
+        building.put(value, ids);
+      }
+      if (ids.isEmpty() || ids.get(ids.size() - 1) != ruleId) {
+        ids.add(ruleId);
+      }
+    }
+
+    void freeze() {
+      ruleIds = Generics.newHashMap(building.size());
+      for (Map.Entry<String, List<Integer>> entry : building.entrySet()) {
+        List<Integer> ids = entry.getValue();
+        int[] array = new int[ids.size()];
+        for (int i = 0; i < array.length; i++) {
+          array[i] = ids.get(i);
+        }
+        ruleIds.put(entry.getKey(), array);
+      }
+      building = null;
+    }
+
+    int[] rulesWith(String value) {
+      return ruleIds.get(normalize(compare, value));
+    }
+  }
+
+  /**
+   * Returns a list of values at least one of which occurs in any sequence
+   * matched by the pattern, or null if there isn't one.
+   */
+  private static List<Anchor> requiredAnchors(SequencePattern<CoreMap> pattern) {
+    return best(required(pattern.getPatternExpr()));
+  }
+
+  /**
+   * Returns alternative requirements of the pattern expression, all of
+   * which hold for any match: each is a list of values, at least one of
+   * which must occur.
+   */
+  private static List<List<Anchor>> required(SequencePattern.PatternExpr expr) {
+    if (expr instanceof SequencePattern.NodePatternExpr) {
+      return required(((SequencePattern.NodePatternExpr) expr).nodePattern);
+    } else if (expr instanceof SequencePattern.SequencePatternExpr) {
+      return requiredByAll(((SequencePattern.SequencePatternExpr) expr).patterns);
+    } else if (expr instanceof SequencePattern.AndPatternExpr) {
+      return requiredByAll(((SequencePattern.AndPatternExpr) expr).patterns);
+    } else if (expr instanceof SequencePattern.OrPatternExpr) {
+      List<List<Anchor>> alternatives = new ArrayList<>();
+      for (SequencePattern.PatternExpr p : ((SequencePattern.OrPatternExpr) expr).patterns) {
+        alternatives.add(best(required(p)));
+      }
+      return requiredByOne(alternatives);
+    } else if (expr instanceof SequencePattern.GroupPatternExpr) {
+      return required(((SequencePattern.GroupPatternExpr) expr).pattern);
+    } else if (expr instanceof SequencePattern.ValuePatternExpr) {
+      return required(((SequencePattern.ValuePatternExpr) expr).expr);
+    } else if (expr instanceof SequencePattern.RepeatPatternExpr) {
+      SequencePattern.RepeatPatternExpr repeat = (SequencePattern.RepeatPatternExpr) expr;
+      if (repeat.minMatch > 0) {
+        return required(repeat.pattern);
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  private static List<List<Anchor>> requiredByAll(List<SequencePattern.PatternExpr> exprs) {
+    List<List<Anchor>> requirements = new ArrayList<>();
+    for (SequencePattern.PatternExpr p : exprs) {
+      requirements.addAll(required(p));
+    }
+    return requirements;
+  }
+
+  private static List<List<Anchor>> required(NodePattern<?> nodePattern) {
+    List<List<Anchor>> requirements = new ArrayList<>();
+    if (nodePattern instanceof CoreMapNodePattern) {
+      for (Pair<?, ?> p : ((CoreMapNodePattern) nodePattern).getAnnotationPatterns()) {
+        List<Anchor> anchors = anchors((Class<?>) p.first(), (NodePattern<?>) p.second());
+        if (anchors != null) {
+          requirements.add(anchors);
+        }
+      }
+    } else if (nodePattern instanceof NodePattern.ConjNodePattern) {
+      for (Object p : ((NodePattern.ConjNodePattern) nodePattern).nodePatterns) {
+        requirements.addAll(required((NodePattern<?>) p));
+      }
+    } else if (nodePattern instanceof NodePattern.DisjNodePattern) {
+      List<List<Anchor>> alternatives = new ArrayList<>();
+      for (Object p : ((NodePattern.DisjNodePattern) nodePattern).nodePatterns) {
+        alternatives.add(best(required((NodePattern<?>) p)));
+      }
+      return requiredByOne(alternatives);
+    }
+    return requirements;
+  }
+
+  /** The values which the annotation has to have one of to match the pattern, or null */
+  private static List<Anchor> anchors(Class<?> key, NodePattern<?> pattern) {
+    if (pattern instanceof CoreMapNodePattern.StringAnnotationPattern) {
+      CoreMapNodePattern.StringAnnotationPattern p = (CoreMapNodePattern.StringAnnotationPattern) pattern;
+      if (p.normalize() || p.target == null) {
+        return null;
+      }
+      return Collections.singletonList(new Anchor(key, p.ignoreCase() ? IGNORE_CASE : EXACT, p.target));
+    } else if (pattern instanceof CoreMapNodePattern.StringInSetAnnotationPattern) {
+      CoreMapNodePattern.StringInSetAnnotationPattern p = (CoreMapNodePattern.StringInSetAnnotationPattern) pattern;
+      if (p.normalize() || p.getTargets().isEmpty()) {
+        return null;
+      }
+      List<Anchor> anchors = new ArrayList<>(p.getTargets().size());
+      for (String target : p.getTargets()) {
+        anchors.add(new Anchor(key, p.ignoreCase() ? LOWERCASE : EXACT, target));
+      }
+      return anchors;
+    }
+    return null;
+  }
+
+  /** Combines one requirement of each alternative, of which one must hold */
+  private static List<List<Anchor>> requiredByOne(List<List<Anchor>> alternatives) {
+    if (alternatives.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<Anchor> anchors = new ArrayList<>();
+    for (List<Anchor> alternative : alternatives) {
+      if (alternative == null) {
+        return Collections.emptyList();
+      }
+      anchors.addAll(alternative);
+    }
+    return Collections.singletonList(anchors);
+  }
+
+  /** Picks the requirement most likely to rule the pattern out, or null if there are none */
+  private static List<Anchor> best(List<List<Anchor>> requirements) {
+    List<Anchor> best = null;
+    for (List<Anchor> requirement : requirements) {
+      if (best == null || REQUIREMENT_COMPARATOR.compare(requirement, best) < 0) {
+        best = requirement;
+      }
+    }
+    return best;
+  }
+
+  private static boolean isTextOrLemma(Class<?> key) {
+    return CoreAnnotations.TextAnnotation.class.equals(key) || CoreAnnotations.LemmaAnnotation.class.equals(key);
+  }
+
+  private static int rank(List<Anchor> requirement) {
+    for (Anchor anchor : requirement) {
+      if ( ! isTextOrLemma(anchor.key)) {
+        return 1;
+      }
+    }
+    return 0;
+  }
+
+  private static int minLength(List<Anchor> requirement) {
+    int min = Integer.MAX_VALUE;
+    for (Anchor anchor : requirement) {
+      min = Math.min(min, anchor.value.length());
+    }
+    return min;
+  }
+
+  // Values of the text or lemma are less common than tags and such, as are fewer and longer values
+  private static final Comparator<List<Anchor>> REQUIREMENT_COMPARATOR = (r1, r2) -> {
+    int cmp = Integer.compare(rank(r1), rank(r2));
+    if (cmp == 0) {
+      cmp = Integer.compare(r1.size(), r2.size());
+    }
+    if (cmp == 0) {
+      cmp = Integer.compare(minLength(r2), minLength(r1));
+    }
+    return cmp;
+  };
+
+}
@@ -192,6 +192,10 @@ public class MultiPatternMatcher<T> {
     }
   }
 
+  public SequencePatternTrigger<T> getPatternTrigger() {
+    return patternTrigger;
+  }
+
   public boolean isMatchWithResult() {
     return matchWithResult;
   }
@@ -592,7 +592,7 @@ public class SequencePattern<T> implements Serializable {
 
   public static class ValuePatternExpr extends PatternExpr {
 
-    private final PatternExpr expr;
+    final PatternExpr expr;
     private final Object value;
 
     public ValuePatternExpr(PatternExpr expr, Object value) {
@@ -636,7 +636,7 @@ public class SequencePattern<T> implements Serializable {
   /** Expression that represents a group. */
   public static class GroupPatternExpr extends PatternExpr {
 
-    private final PatternExpr pattern;
+    final PatternExpr pattern;
     private final boolean capture; // Do capture or not?  If do capture, an capture group id will be assigned
     private int captureGroupId; // -1 if this pattern is not part of a capture group or capture group not yet assigned,
                              // otherwise, capture group number
@@ -722,8 +722,8 @@ public class SequencePattern<T> implements Serializable {
   /**  Expression that represents a pattern that repeats for a number of times. */
   public static class RepeatPatternExpr extends PatternExpr {
 
-    private final PatternExpr pattern;
-    private final int minMatch;
+    final PatternExpr pattern;
+    final int minMatch;
     private final int maxMatch;
     private final boolean greedyMatch;
 
@@ -839,7 +839,7 @@ public class SequencePattern<T> implements Serializable {
   /**  Expression that represents a disjunction. */
   public static class OrPatternExpr extends PatternExpr {
 
-    private final List<PatternExpr> patterns;
+    final List<PatternExpr> patterns;
 
     public OrPatternExpr(List<PatternExpr> patterns) {
       this.patterns = patterns;
@@ -1072,7 +1072,7 @@ public class SequencePattern<T> implements Serializable {
   // Expression that represents a conjunction
   public static class AndPatternExpr extends PatternExpr {
 
-    private final List<PatternExpr> patterns;
+    final List<PatternExpr> patterns;
 
     public AndPatternExpr(List<PatternExpr> patterns) {
       this.patterns = patterns;
@@ -277,10 +277,7 @@ public class TokenSequencePattern extends SequencePattern<CoreMap> {
    * @return a MultiPatternMatcher
    */
   public static MultiPatternMatcher<CoreMap> getMultiPatternMatcher(Collection<TokenSequencePattern> patterns) {
-    return new MultiPatternMatcher<>(
-            new MultiPatternMatcher.BasicSequencePatternTrigger<>(
-                    new CoreMapNodePatternTrigger(patterns)
-            ), patterns);
+    return new MultiPatternMatcher<>(new CoreMapRuleIndex.PatternTrigger(patterns), patterns);
   }
 
   /**
@@ -289,10 +286,7 @@ public class TokenSequencePattern extends SequencePattern<CoreMap> {
    * @return a MultiPatternMatcher
    */
   public static MultiPatternMatcher<CoreMap> getMultiPatternMatcher(TokenSequencePattern... patterns) {
-    return new MultiPatternMatcher<>(
-            new MultiPatternMatcher.BasicSequencePatternTrigger<>(
-                    new CoreMapNodePatternTrigger(patterns)
-            ), patterns);
+    return getMultiPatternMatcher(Arrays.asList(patterns));
   }
 
 }
@@ -115,13 +115,12 @@ public abstract class ParserGrammar implements Function<List<? extends HasWord>,
       Tree tree = parse(tokens);
       tagged = tree.taggedYield();
     }
-    Morphology morpha = new Morphology();
     List<CoreLabel> lemmas = Generics.newArrayList();
     for (TaggedWord token : tagged) {
       CoreLabel label = new CoreLabel();
       label.setWord(token.word());
       label.setTag(token.tag());
-      morpha.stem(label);
+      label.setLemma(Morphology.lemmaStatic(token.word(), token.tag(), true));
       lemmas.add(label);
     }
     return lemmas;
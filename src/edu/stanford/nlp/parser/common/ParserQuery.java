@@ -69,4 +69,12 @@ public interface ParserQuery {
   boolean parseUnparsable();
 
   List<? extends HasWord> originalSentence();
+
+  /**
+   * Lets the parser use the memory of this query, such as its charts,
+   * for other queries.  The results of the last parse can't be used
+   * after this.
+   */
+  default void release() {
+  }
 }
@@ -0,0 +1,100 @@
+package edu.stanford.nlp.parser.lexparser;
+
+import java.util.Map;
+
+import edu.stanford.nlp.trees.TreebankLanguagePack;
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+
+/** Projects a split grammar onto the basic categories of its states, as
+ *  given by {@link TreebankLanguagePack#basicCategory(String)}, so
+ *  "NP^S" and "NP^VP" both become "NP", and "@NP^S" becomes "@NP".
+ *  Each rule of the target grammar gets the best score of the source
+ *  rules which project onto it, so that the score of a projected tree is
+ *  at least that of any source tree which projects onto it.
+ *
+ *  @see CoarseToFinePruner
+ */
+class BasicCategoryGrammarProjection implements GrammarProjection {
+
+  private final BinaryGrammar sourceBG;
+  private final UnaryGrammar sourceUG;
+  private final BinaryGrammar targetBG;
+  private final UnaryGrammar targetUG;
+  private final Index<String> targetIndex;
+  private final int[] projection;
+
+  BasicCategoryGrammarProjection(BinaryGrammar bg, UnaryGrammar ug, Index<String> stateIndex, TreebankLanguagePack tlp) {
+    this.sourceBG = bg;
+    this.sourceUG = ug;
+
+    targetIndex = new HashIndex<>();
+    projection = new int[stateIndex.size()];
+    for (int state = 0; state < projection.length; state++) {
+      projection[state] = targetIndex.addToIndex(tlp.basicCategory(stateIndex.get(state)));
+    }
+
+    Map<BinaryRule,BinaryRule> binaries = Generics.newHashMap();
+    for (BinaryRule rule : bg) {
+      BinaryRule projected = new BinaryRule(projection[rule.parent], projection[rule.leftChild], projection[rule.rightChild], rule.score);
+      BinaryRule best = binaries.get(projected);
+      if (best == null) {
+        binaries.put(projected, projected);
+      } else if (rule.score > best.score) {
+        best.score = rule.score;
+      }
+    }
+    targetBG = new BinaryGrammar(targetIndex);
+    for (BinaryRule rule : binaries.keySet()) {
+      targetBG.addRule(rule);
+    }
+    targetBG.splitRules();
+
+    Map<UnaryRule,UnaryRule> unaries = Generics.newHashMap();
+    for (UnaryRule rule : ug) {
+      UnaryRule projected = new UnaryRule(projection[rule.parent], projection[rule.child], rule.score);
+      if (projected.parent == projected.child) {
+        // the target grammar can already get from a state to itself for free
+        continue;
+      }
+      UnaryRule best = unaries.get(projected);
+      if (best == null) {
+        unaries.put(projected, projected);
+      } else if (rule.score > best.score) {
+        best.score = rule.score;
+      }
+    }
+    targetUG = new UnaryGrammar(targetIndex);
+    for (UnaryRule rule : unaries.keySet()) {
+      targetUG.addRule(rule);
+    }
+    targetUG.purgeRules();
+  }
+
+  public int project(int state) {
+    return projection[state];
+  }
+
+  /** The states of the target grammar */
+  public Index<String> targetIndex() {
+    return targetIndex;
+  }
+
+  public UnaryGrammar sourceUG() {
+    return sourceUG;
+  }
+
+  public BinaryGrammar sourceBG() {
+    return sourceBG;
+  }
+
+  public UnaryGrammar targetUG() {
+    return targetUG;
+  }
+
+  public BinaryGrammar targetBG() {
+    return targetBG;
+  }
+
+}
@@ -0,0 +1,278 @@
+package edu.stanford.nlp.parser.lexparser;
+
+import java.util.Arrays;
+import java.util.List;
+
+import edu.stanford.nlp.util.RuntimeInterruptedException;
+
+/**
+ * Decides which chart items an {@link ExhaustivePCFGParser} builds, from
+ * a quick parse of the sentence with a coarser grammar (coarse-to-fine
+ * parsing, as in Charniak et al. 2006 and Petrov and Klein 2007).
+ * <br>
+ * The coarse grammar is a {@link GrammarProjection} of the parser's
+ * grammar, whose rules have the best score of the rules which project onto
+ * them.  The coarse chart starts from the span 1 cells of the fine chart,
+ * and gets Viterbi inside and outside scores like the fine one does.  A
+ * coarse state over a span is then kept if the best coarse parse which
+ * uses it scores at least {@code threshold} times as well as the best
+ * coarse parse overall, and the fine parser only builds the states which
+ * project onto a kept coarse state.  The best coarse parse is never
+ * pruned, and a threshold of 1 keeps just it; smaller thresholds keep
+ * more, and are slower but more accurate.
+ * <br>
+ * This class keeps nothing between sentences, so one pruner can be used
+ * by many parsers at once.
+ */
+class CoarseToFinePruner {
+
+  private final int numCoarseStates;
+  private final int[] projection;
+
+  // the binary rules of the coarse grammar, by left child
+  private final int[][] binaryParents;
+  private final int[][] binaryRightChildren;
+  private final float[][] binaryScores;
+
+  // the closed unary rules of the coarse grammar, by child and by parent
+  private final int[][] unaryParents;
+  private final float[][] unaryScoresByChild;
+  private final int[][] unaryChildren;
+  private final float[][] unaryScoresByParent;
+
+  /**
+   * @param projection The projection of the fine grammar
+   * @param numFineStates How many states the fine grammar has
+   * @param numCoarseStates How many states the coarse grammar has
+   */
+  CoarseToFinePruner(GrammarProjection projection, int numFineStates, int numCoarseStates) {
+    this.numCoarseStates = numCoarseStates;
+    this.projection = new int[numFineStates];
+    for (int state = 0; state < numFineStates; state++) {
+      this.projection[state] = projection.project(state);
+    }
+
+    BinaryGrammar bg = projection.targetBG();
+    binaryParents = new int[numCoarseStates][];
+    binaryRightChildren = new int[numCoarseStates][];
+    binaryScores = new float[numCoarseStates][];
+    for (int state = 0; state < numCoarseStates; state++) {
+      List<BinaryRule> rules = bg.ruleListByLeftChild(state);
+      binaryParents[state] = new int[rules.size()];
+      binaryRightChildren[state] = new int[rules.size()];
+      binaryScores[state] = new float[rules.size()];
+      for (int i = 0; i < rules.size(); i++) {
+        BinaryRule rule = rules.get(i);
+        binaryParents[state][i] = rule.parent;
+        binaryRightChildren[state][i] = rule.rightChild;
+        binaryScores[state][i] = rule.score;
+      }
+    }
+
+    UnaryGrammar ug = projection.targetUG();
+    unaryParents = new int[numCoarseStates][];
+    unaryScoresByChild = new float[numCoarseStates][];
+    unaryChildren = new int[numCoarseStates][];
+    unaryScoresByParent = new float[numCoarseStates][];
+    for (int state = 0; state < numCoarseStates; state++) {
+      UnaryRule[] byChild = ug.closedRulesByChild(state);
+      unaryParents[state] = new int[byChild.length];
+      unaryScoresByChild[state] = new float[byChild.length];
+      for (int i = 0; i < byChild.length; i++) {
+        unaryParents[state][i] = byChild[i].parent;
+        unaryScoresByChild[state][i] = byChild[i].score;
+      }
+      UnaryRule[] byParent = ug.closedRulesByParent(state);
+      unaryChildren[state] = new int[byParent.length];
+      unaryScoresByParent[state] = new float[byParent.length];
+      for (int i = 0; i < byParent.length; i++) {
+        unaryChildren[state][i] = byParent[i].child;
+        unaryScoresByParent[state][i] = byParent[i].score;
+      }
+    }
+  }
+
+  /** The coarse state each fine state projects onto */
+  int project(int state) {
+    return projection[state];
+  }
+
+  /**
+   * Parses a sentence with the coarse grammar, and returns which coarse
+   * states the fine parser may build over each span of two or more words.
+   *
+   * @param iScore The fine chart, with its span 1 cells filled in
+   * @param length One more than the number of words, as in {@link ExhaustivePCFGParser}
+   * @param goal The fine goal state
+   * @param threshold How well, relative to the best coarse parse, the best
+   *     coarse parse with a state over a span has to score for the state to be kept
+   * @return The kept states, indexed by start, end, and coarse state.  A
+   *     span where nothing is kept has null instead of an array.  If the
+   *     coarse grammar can't parse the sentence at all, null is returned.
+   */
+  boolean[][][] prune(float[][][] iScore, int length, int goal, double threshold) {
+    float[][][] inside = newChart(length);
+    float[][][] outside = newChart(length);
+
+    for (int start = 0; start < length; start++) {
+      float[] fine = iScore[start][start + 1];
+      float[] coarse = inside[start][start + 1];
+      for (int state = 0; state < projection.length; state++) {
+        if (fine[state] > coarse[projection[state]]) {
+          coarse[projection[state]] = fine[state];
+        }
+      }
+    }
+
+    float[] binaryOnly = new float[numCoarseStates];
+    for (int diff = 2; diff <= length; diff++) {
+      if (Thread.interrupted()) {
+        throw new RuntimeInterruptedException();
+      }
+      // the boundary symbol only combines with the whole sentence, as in the fine parser
+      for (int start = 0; start < ((diff == length) ? 1 : length - diff); start++) {
+        int end = start + diff;
+        float[] cell = inside[start][end];
+        for (int split = start + 1; split < end; split++) {
+          float[] left = inside[start][split];
+          float[] right = inside[split][end];
+          for (int leftState = 0; leftState < numCoarseStates; leftState++) {
+            float lS = left[leftState];
+            if (lS == Float.NEGATIVE_INFINITY) {
+              continue;
+            }
+            int[] parents = binaryParents[leftState];
+            int[] rightChildren = binaryRightChildren[leftState];
+            float[] scores = binaryScores[leftState];
+            for (int i = 0; i < parents.length; i++) {
+              float rS = right[rightChildren[i]];
+              if (rS == Float.NEGATIVE_INFINITY) {
+                continue;
+              }
+              float tot = lS + rS + scores[i];
+              if (tot > cell[parents[i]]) {
+                cell[parents[i]] = tot;
+              }
+            }
+          }
+        }
+        System.arraycopy(cell, 0, binaryOnly, 0, numCoarseStates);
+        for (int state = 0; state < numCoarseStates; state++) {
+          float iS = binaryOnly[state];
+          if (iS == Float.NEGATIVE_INFINITY) {
+            continue;
+          }
+          int[] parents = unaryParents[state];
+          float[] scores = unaryScoresByChild[state];
+          for (int i = 0; i < parents.length; i++) {
+            float tot = iS + scores[i];
+            if (tot > cell[parents[i]]) {
+              cell[parents[i]] = tot;
+            }
+          }
+        }
+      }
+    }
+
+    int coarseGoal = projection[goal];
+    float bestScore = inside[0][length][coarseGoal];
+    if (bestScore == Float.NEGATIVE_INFINITY) {
+      return null;
+    }
+
+    outside[0][length][coarseGoal] = 0.0f;
+    for (int diff = length; diff >= 2; diff--) {
+      if (Thread.interrupted()) {
+        throw new RuntimeInterruptedException();
+      }
+      for (int start = 0; start < ((diff == length) ? 1 : length - diff); start++) {
+        int end = start + diff;
+        float[] insideCell = inside[start][end];
+        float[] cell = outside[start][end];
+        for (int state = 0; state < numCoarseStates; state++) {
+          float oS = cell[state];
+          if (oS == Float.NEGATIVE_INFINITY) {
+            continue;
+          }
+          int[] children = unaryChildren[state];
+          float[] scores = unaryScoresByParent[state];
+          for (int i = 0; i < children.length; i++) {
+            int child = children[i];
+            float tot = oS + scores[i];
+            if (tot > cell[child] && insideCell[child] > Float.NEGATIVE_INFINITY) {
+              cell[child] = tot;
+            }
+          }
+        }
+        for (int split = start + 1; split < end; split++) {
+          float[] left = inside[start][split];
+          float[] right = inside[split][end];
+          float[] leftOutside = outside[start][split];
+          float[] rightOutside = outside[split][end];
+          for (int leftState = 0; leftState < numCoarseStates; leftState++) {
+            float lS = left[leftState];
+            if (lS == Float.NEGATIVE_INFINITY) {
+              continue;
+            }
+            int[] parents = binaryParents[leftState];
+            int[] rightChildren = binaryRightChildren[leftState];
+            float[] scores = binaryScores[leftState];
+            for (int i = 0; i < parents.length; i++) {
+              float oS = cell[parents[i]];
+              if (oS == Float.NEGATIVE_INFINITY) {
+                continue;
+              }
+              int rightState = rightChildren[i];
+              float rS = right[rightState];
+              if (rS == Float.NEGATIVE_INFINITY) {
+                continue;
+              }
+              float totL = oS + scores[i] + rS;
+              if (totL > leftOutside[leftState]) {
+                leftOutside[leftState] = totL;
+              }
+              float totR = oS + scores[i] + lS;
+              if (totR > rightOutside[rightState]) {
+                rightOutside[rightState] = totR;
+              }
+            }
+          }
+        }
+      }
+    }
+
+    // a little slack, so that rounding doesn't prune the best parse itself
+    float minScore = bestScore + (float) Math.log(threshold) - 1e-3f;
+    boolean[][][] kept = new boolean[length][length + 1][];
+    for (int diff = 2; diff <= length; diff++) {
+      for (int start = 0; start < ((diff == length) ? 1 : length - diff); start++) {
+        int end = start + diff;
+        float[] insideCell = inside[start][end];
+        float[] outsideCell = outside[start][end];
+        boolean[] cell = null;
+        for (int state = 0; state < numCoarseStates; state++) {
+          if (insideCell[state] + outsideCell[state] >= minScore) {
+            if (cell == null) {
+              cell = new boolean[numCoarseStates];
+            }
+            cell[state] = true;
+          }
+        }
+        kept[start][end] = cell;
+      }
+    }
+    return kept;
+  }
+
+  private float[][][] newChart(int length) {
+    float[][][] chart = new float[length][length + 1][];
+    for (int start = 0; start < length; start++) {
+      for (int end = start + 1; end <= length; end++) {
+        chart[start][end] = new float[numCoarseStates];
+        Arrays.fill(chart[start][end], Float.NEGATIVE_INFINITY);
+      }
+    }
+    return chart;
+  }
+
+}
@@ -730,6 +730,43 @@ public class EvaluateTreebank {
     return f1;
   } // end testOnTreebank()
 
+  /**
+   * Tests the parser on a treebank once with each coarse-to-fine
+   * threshold, 0 being exhaustive parsing, and prints how long each
+   * took and its F<sub>1</sub>, to show how much accuracy the pruning
+   * gives up for how much speed.
+   *
+   * @return The labeled F<sub>1</sub> (EVALB measure) with each threshold
+   */
+  public static double[] testCoarseToFineThresholds(LexicalizedParser parser, Treebank testTreebank, double[] thresholds) {
+    TestOptions testOptions = parser.getOp().testOptions;
+    double oldThreshold = testOptions.coarseToFineThreshold;
+    double[] seconds = new double[thresholds.length];
+    double[] f1s = new double[thresholds.length];
+    try {
+      for (int i = 0; i < thresholds.length; i++) {
+        // the queries made for this run see the threshold
+        testOptions.coarseToFineThreshold = thresholds[i];
+        EvaluateTreebank evaluator = new EvaluateTreebank(parser);
+        long start = System.nanoTime();
+        evaluator.testOnTreebank(testTreebank);
+        seconds[i] = (System.nanoTime() - start) / 1e9;
+        f1s[i] = evaluator.getLBScore();
+      }
+    } finally {
+      testOptions.coarseToFineThreshold = oldThreshold;
+    }
+
+    PrintWriter pwErr = parser.getOp().tlpParams.pw(System.err);
+    NumberFormat nf = new DecimalFormat("0.00");
+    pwErr.println("threshold\tseconds\tF1");
+    for (int i = 0; i < thresholds.length; i++) {
+      pwErr.println(thresholds[i] + "\t" + nf.format(seconds[i]) + '\t' + nf.format(f1s[i]));
+    }
+    pwErr.flush();
+    return f1s;
+  }
+
 
 
 }
@@ -44,6 +44,8 @@ import edu.stanford.nlp.util.*;
 import edu.stanford.nlp.util.PriorityQueue;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.regex.Matcher;
 
 /** An exhaustive generalized CKY PCFG parser.
@@ -104,6 +106,18 @@ public class ExhaustivePCFGParser implements Scorer, KBestViterbiParser {
   protected final int numStates;
   protected int arraySize = 0;
 
+  /** Where the charts come from and go back to, if they are shared with other parsers */
+  private PCFGChartPool chartPool = null;
+  /** The chart this parser has from chartPool, if any */
+  private PCFGChartPool.Chart chart = null;
+
+  /** Decides which chart items to build, if coarse-to-fine parsing is on */
+  private CoarseToFinePruner coarseToFinePruner = null;
+  /** The coarse states kept over each span of this sentence, or null to build everything */
+  private boolean[][][] coarseKept = null;
+  /** Whether the pruned parse of this sentence failed, so it is parsed again without pruning */
+  private boolean coarseToFineFailed = false;
+
   /**
    * When you want to force the parser to parse a particular
    * subsequence into a particular state.  Parses will only be made
@@ -338,6 +352,7 @@ public class ExhaustivePCFGParser implements Scorer, KBestViterbiParser {
       if (sentence != this.sentence) {
         this.sentence = sentence;
         floodTags = false;
+        coarseToFineFailed = false;
       }
       if (op.testOptions.verbose) {
         Timing.tick("Starting pcfg parse.");
@@ -460,6 +475,10 @@ public class ExhaustivePCFGParser implements Scorer, KBestViterbiParser {
       initializeChart(sentence);
       //if (op.testOptions.outsideFilter)
       // buildOFilter();
+      coarseKept = null;
+      if (coarseToFinePruner != null && op.testOptions.coarseToFineThreshold > 0.0 && ! coarseToFineFailed) {
+        coarseKept = coarseToFinePruner.prune(iScore, length, goal, op.testOptions.coarseToFineThreshold);
+      }
       if (op.testOptions.verbose) {
         Timing.tick("done.");
         System.err.print("Starting insides...");
@@ -473,6 +492,11 @@ public class ExhaustivePCFGParser implements Scorer, KBestViterbiParser {
       }
       bestScore = iScore[0][length][goal];
       boolean succeeded = hasParse();
+      if (!succeeded && coarseKept != null) {
+        // the pruning took out every parse, so parse again without it
+        coarseToFineFailed = true;
+        continue;
+      }
       if (op.testOptions.doRecovery && !succeeded && !floodTags) {
         floodTags = true; // sentence will try to reparse
         // ms: disabled message. this is annoying and it doesn't really provide much information
@@ -602,6 +626,7 @@ public class ExhaustivePCFGParser implements Scorer, KBestViterbiParser {
 
     initializeChart(lr);
 
+    coarseKept = null;
     doInsideScores();
     bestScore = iScore[0][length][goal];
 
@@ -661,160 +686,192 @@ public class ExhaustivePCFGParser implements Scorer, KBestViterbiParser {
   }
 
   private void doOutsideScores() {
+    ForkJoinPool pool = cellThreadPool();
     for (int diff = length; diff >= 1; diff--) {
       if (Thread.interrupted()) {
         throw new RuntimeInterruptedException();
       }
 
-      for (int start = 0; start + diff <= length; start++) {
-        int end = start + diff;
-        // do unaries
-        for (int s = 0; s < numStates; s++) {
-          float oS = oScore[start][end][s];
-          if (oS == Float.NEGATIVE_INFINITY) {
+      int numCells = length - diff + 1;
+      if (pool != null && numCells > 1) {
+        // a span can be the left child of one cell of this width and the
+        // right child of another, so all the left children are done first.
+        // Each pass walks all the binary rule loops of each cell, so the
+        // outside pass does twice the looping it does in one thread.
+        pool.invoke(new ChartCellsTask(diff, 0, numCells, ChartCellsTask.OUTSIDE_LEFT));
+        pool.invoke(new ChartCellsTask(diff, 0, numCells, ChartCellsTask.OUTSIDE_RIGHT));
+      } else {
+        for (int start = 0; start + diff <= length; start++) {
+          doOutsideChartCell(diff, start, true, true);
+        }
+      }
+    }
+  }
+
+  /**
+   * Passes the outside scores of the cell over [start, start + diff) on to
+   * the cells inside it.  doLeft does the unary rules and the left
+   * children of the binary rules, and doRight the right children.
+   */
+  private void doOutsideChartCell(final int diff, final int start, final boolean doLeft, final boolean doRight) {
+    int end = start + diff;
+    if (doLeft) {
+      // do unaries
+      for (int s = 0; s < numStates; s++) {
+        float oS = oScore[start][end][s];
+        if (oS == Float.NEGATIVE_INFINITY) {
+          continue;
+        }
+        UnaryRule[] rules = ug.closedRulesByParent(s);
+        for (UnaryRule ur : rules) {
+          float pS = ur.score;
+          float tot = oS + pS;
+          if (tot > oScore[start][end][ur.child] && iScore[start][end][ur.child] > Float.NEGATIVE_INFINITY) {
+            oScore[start][end][ur.child] = tot;
+          }
+        }
+      }
+    }
+    // do binaries
+    for (int s = 0; s < numStates; s++) {
+      int min1 = narrowRExtent[start][s];
+      if (end < min1) {
+        continue;
+      }
+      BinaryRule[] rules = bg.splitRulesWithLC(s);
+      for (BinaryRule br  : rules) {
+        float oS = oScore[start][end][br.parent];
+        if (oS == Float.NEGATIVE_INFINITY) {
+          continue;
+        }
+        int max1 = narrowLExtent[end][br.rightChild];
+        if (max1 < min1) {
+          continue;
+        }
+        int min = min1;
+        int max = max1;
+        if (max - min > 2) {
+          int min2 = wideLExtent[end][br.rightChild];
+          min = (min1 > min2 ? min1 : min2);
+          if (max1 < min) {
             continue;
           }
-          UnaryRule[] rules = ug.closedRulesByParent(s);
-          for (UnaryRule ur : rules) {
-            float pS = ur.score;
-            float tot = oS + pS;
-            if (tot > oScore[start][end][ur.child] && iScore[start][end][ur.child] > Float.NEGATIVE_INFINITY) {
-              oScore[start][end][ur.child] = tot;
-            }
+          int max2 = wideRExtent[start][br.leftChild];
+          max = (max1 < max2 ? max1 : max2);
+          if (max < min) {
+            continue;
           }
         }
-        // do binaries
-        for (int s = 0; s < numStates; s++) {
-          int min1 = narrowRExtent[start][s];
-          if (end < min1) {
+        float pS = br.score;
+        for (int split = min; split <= max; split++) {
+          float lS = iScore[start][split][br.leftChild];
+          if (lS == Float.NEGATIVE_INFINITY) {
             continue;
           }
-          BinaryRule[] rules = bg.splitRulesWithLC(s);
-          for (BinaryRule br  : rules) {
-            float oS = oScore[start][end][br.parent];
-            if (oS == Float.NEGATIVE_INFINITY) {
-              continue;
-            }
-            int max1 = narrowLExtent[end][br.rightChild];
-            if (max1 < min1) {
-              continue;
-            }
-            int min = min1;
-            int max = max1;
-            if (max - min > 2) {
-              int min2 = wideLExtent[end][br.rightChild];
-              min = (min1 > min2 ? min1 : min2);
-              if (max1 < min) {
-                continue;
-              }
-              int max2 = wideRExtent[start][br.leftChild];
-              max = (max1 < max2 ? max1 : max2);
-              if (max < min) {
-                continue;
-              }
+          float rS = iScore[split][end][br.rightChild];
+          if (rS == Float.NEGATIVE_INFINITY) {
+            continue;
+          }
+          if (doLeft) {
+            float totL = pS + rS + oS;
+            if (totL > oScore[start][split][br.leftChild]) {
+              oScore[start][split][br.leftChild] = totL;
             }
-            float pS = br.score;
-            for (int split = min; split <= max; split++) {
-              float lS = iScore[start][split][br.leftChild];
-              if (lS == Float.NEGATIVE_INFINITY) {
-                continue;
-              }
-              float rS = iScore[split][end][br.rightChild];
-              if (rS == Float.NEGATIVE_INFINITY) {
-                continue;
-              }
-              float totL = pS + rS + oS;
-              if (totL > oScore[start][split][br.leftChild]) {
-                oScore[start][split][br.leftChild] = totL;
-              }
-              float totR = pS + lS + oS;
-              if (totR > oScore[split][end][br.rightChild]) {
-                oScore[split][end][br.rightChild] = totR;
-              }
+          }
+          if (doRight) {
+            float totR = pS + lS + oS;
+            if (totR > oScore[split][end][br.rightChild]) {
+              oScore[split][end][br.rightChild] = totR;
             }
           }
         }
-        for (int s = 0; s < numStates; s++) {
-          int max1 = narrowLExtent[end][s];
-          if (max1 < start) {
+      }
+    }
+    for (int s = 0; s < numStates; s++) {
+      int max1 = narrowLExtent[end][s];
+      if (max1 < start) {
+        continue;
+      }
+      BinaryRule[] rules = bg.splitRulesWithRC(s);
+      for (BinaryRule br : rules) {
+        float oS = oScore[start][end][br.parent];
+        if (oS == Float.NEGATIVE_INFINITY) {
+          continue;
+        }
+        int min1 = narrowRExtent[start][br.leftChild];
+        if (max1 < min1) {
+          continue;
+        }
+        int min = min1;
+        int max = max1;
+        if (max - min > 2) {
+          int min2 = wideLExtent[end][br.rightChild];
+          min = (min1 > min2 ? min1 : min2);
+          if (max1 < min) {
             continue;
           }
-          BinaryRule[] rules = bg.splitRulesWithRC(s);
-          for (BinaryRule br : rules) {
-            float oS = oScore[start][end][br.parent];
-            if (oS == Float.NEGATIVE_INFINITY) {
-              continue;
-            }
-            int min1 = narrowRExtent[start][br.leftChild];
-            if (max1 < min1) {
-              continue;
-            }
-            int min = min1;
-            int max = max1;
-            if (max - min > 2) {
-              int min2 = wideLExtent[end][br.rightChild];
-              min = (min1 > min2 ? min1 : min2);
-              if (max1 < min) {
-                continue;
-              }
-              int max2 = wideRExtent[start][br.leftChild];
-              max = (max1 < max2 ? max1 : max2);
-              if (max < min) {
-                continue;
-              }
+          int max2 = wideRExtent[start][br.leftChild];
+          max = (max1 < max2 ? max1 : max2);
+          if (max < min) {
+            continue;
+          }
+        }
+        float pS = br.score;
+        for (int split = min; split <= max; split++) {
+          float lS = iScore[start][split][br.leftChild];
+          if (lS == Float.NEGATIVE_INFINITY) {
+            continue;
+          }
+          float rS = iScore[split][end][br.rightChild];
+          if (rS == Float.NEGATIVE_INFINITY) {
+            continue;
+          }
+          if (doLeft) {
+            float totL = pS + rS + oS;
+            if (totL > oScore[start][split][br.leftChild]) {
+              oScore[start][split][br.leftChild] = totL;
             }
-            float pS = br.score;
-            for (int split = min; split <= max; split++) {
-              float lS = iScore[start][split][br.leftChild];
-              if (lS == Float.NEGATIVE_INFINITY) {
-                continue;
-              }
-              float rS = iScore[split][end][br.rightChild];
-              if (rS == Float.NEGATIVE_INFINITY) {
-                continue;
-              }
-              float totL = pS + rS + oS;
-              if (totL > oScore[start][split][br.leftChild]) {
-                oScore[start][split][br.leftChild] = totL;
-              }
-              float totR = pS + lS + oS;
-              if (totR > oScore[split][end][br.rightChild]) {
-                oScore[split][end][br.rightChild] = totR;
-              }
+          }
+          if (doRight) {
+            float totR = pS + lS + oS;
+            if (totR > oScore[split][end][br.rightChild]) {
+              oScore[split][end][br.rightChild] = totR;
             }
           }
         }
-        /*
-          for (int s = 0; s < numStates; s++) {
-          float oS = oScore[start][end][s];
-          //if (iScore[start][end][s] == Float.NEGATIVE_INFINITY ||
-          //             oS == Float.NEGATIVE_INFINITY)
-          if (oS == Float.NEGATIVE_INFINITY)
+      }
+    }
+    /*
+      for (int s = 0; s < numStates; s++) {
+      float oS = oScore[start][end][s];
+      //if (iScore[start][end][s] == Float.NEGATIVE_INFINITY ||
+      //             oS == Float.NEGATIVE_INFINITY)
+      if (oS == Float.NEGATIVE_INFINITY)
+      continue;
+      BinaryRule[] rules = bg.splitRulesWithParent(s);
+      for (int r=0; r<rules.length; r++) {
+        BinaryRule br = rules[r];
+        int min1 = narrowRExtent[start][br.leftChild];
+        if (end < min1)
+          continue;
+        int max1 = narrowLExtent[end][br.rightChild];
+        if (max1 < min1)
+          continue;
+        int min2 = wideLExtent[end][br.rightChild];
+        int min = (min1 > min2 ? min1 : min2);
+        if (max1 < min)
+          continue;
+        int max2 = wideRExtent[start][br.leftChild];
+        int max = (max1 < max2 ? max1 : max2);
+        if (max < min)
           continue;
-          BinaryRule[] rules = bg.splitRulesWithParent(s);
-          for (int r=0; r<rules.length; r++) {
-            BinaryRule br = rules[r];
-            int min1 = narrowRExtent[start][br.leftChild];
-            if (end < min1)
-              continue;
-            int max1 = narrowLExtent[end][br.rightChild];
-            if (max1 < min1)
-              continue;
-            int min2 = wideLExtent[end][br.rightChild];
-            int min = (min1 > min2 ? min1 : min2);
-            if (max1 < min)
-              continue;
-            int max2 = wideRExtent[start][br.leftChild];
-            int max = (max1 < max2 ? max1 : max2);
-            if (max < min)
-              continue;
 float pS = (float) br.score;
 for (int split = min; split <= max; split++) {
 float lS = iScore[start][split][br.leftChild];
 if (lS == Float.NEGATIVE_INFINITY)
-          continue;
+      continue;
 float rS = iScore[split][end][br.rightChild];
-              if (rS == Float.NEGATIVE_INFINITY)
+          if (rS == Float.NEGATIVE_INFINITY)
 continue;
 float totL = pS+rS+oS;
 if (totL > oScore[start][split][br.leftChild]) {
@@ -827,15 +884,14 @@ oScore[split][end][br.rightChild] = totR;
 }
 }
 }
-        */
-      }
-    }
+    */
   }
 
   /** Fills in the iScore array of each category over each span
    *  of length 2 or more.
    */
   void doInsideScores() {
+    ForkJoinPool pool = cellThreadPool();
     for (int diff = 2; diff <= length; diff++) {
       if (Thread.interrupted()) {
         throw new RuntimeInterruptedException();
@@ -844,12 +900,74 @@ oScore[split][end][br.rightChild] = totR;
       // usually stop one short because boundary symbol only combines
       // with whole sentence span. So for 3 word sentence + boundary = 4,
       // length == 4, and do [0,2], [1,3]; [0,3]; [0,4]
-      for (int start = 0; start < ((diff == length) ? 1: length - diff); start++) {
-        doInsideChartCell(diff, start);
-      } // for start
+      int numCells = (diff == length) ? 1: length - diff;
+      if (pool != null && numCells > 1) {
+        // the cells of one span width only read narrower cells, and each
+        // writes the extents of its own start and end, so they can be
+        // done at the same time
+        pool.invoke(new ChartCellsTask(diff, 0, numCells, ChartCellsTask.INSIDE));
+      } else {
+        for (int start = 0; start < numCells; start++) {
+          doInsideChartCell(diff, start);
+        } // for start
+      }
     } // for diff (i.e., span)
   } // end doInsideScores()
 
+  /** One pool for each number of threads, shared by all the parsers */
+  private static final Map<Integer, ForkJoinPool> cellThreadPools = Generics.newHashMap();
+
+  /**
+   * The pool to fill in the cells of one span width in parallel with,
+   * or null if this sentence should be done in this thread.
+   */
+  protected ForkJoinPool cellThreadPool() {
+    int threads = op.testOptions.pcfgThreads;
+    if (threads <= 1 || length < op.testOptions.pcfgThreadsMinLength) {
+      return null;
+    }
+    synchronized (cellThreadPools) {
+      return cellThreadPools.computeIfAbsent(threads, ForkJoinPool::new);
+    }
+  }
+
+  /**
+   * Fills in the cells of one span width which start from {@code from}
+   * to {@code to - 1}, splitting them in half until there is one cell
+   * per task.
+   */
+  private class ChartCellsTask extends RecursiveAction {
+    static final int INSIDE = 0;
+    static final int OUTSIDE_LEFT = 1;
+    static final int OUTSIDE_RIGHT = 2;
+
+    private final int diff;
+    private final int from;
+    private final int to;
+    private final int pass;
+
+    ChartCellsTask(int diff, int from, int to, int pass) {
+      this.diff = diff;
+      this.from = from;
+      this.to = to;
+      this.pass = pass;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > 1) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new ChartCellsTask(diff, from, middle, pass), new ChartCellsTask(diff, middle, to, pass));
+      } else if (pass == INSIDE) {
+        doInsideChartCell(diff, from);
+      } else {
+        doOutsideChartCell(diff, from, pass == OUTSIDE_LEFT, pass == OUTSIDE_RIGHT);
+      }
+    }
+
+    private static final long serialVersionUID = 1L;
+  }
+
 
   private void doInsideChartCell(final int diff, final int start) {
     final boolean lengthNormalization = op.testOptions.lengthNormalization;
@@ -867,6 +985,18 @@ oScore[split][end][br.rightChild] = totR;
       }
     }
 
+    // the coarse states worth building here, or null to build everything
+    final boolean[] kept;
+    if (coarseKept != null) {
+      kept = coarseKept[start][end];
+      if (kept == null) {
+        return;
+      }
+    } else {
+      kept = null;
+    }
+    final CoarseToFinePruner pruner = coarseToFinePruner;
+
     // 2011-11-26 jdk1.6: caching/hoisting a bunch of variables gives you about 15% speed up!
     // caching this saves a bit of time in the inner loop, maybe 1.8%
     int[] narrowRExtent_start = narrowRExtent[start];
@@ -885,6 +1015,9 @@ oScore[split][end][br.rightChild] = totR;
       BinaryRule[] leftRules = bg.splitRulesWithLC(leftState);
       //      if (spillGuts) System.out.println("Found " + leftRules.length + " left rules for state " + stateIndex.get(leftState));
       for (BinaryRule rule : leftRules) {
+        if (kept != null && ! kept[pruner.project(rule.parent)]) {
+          continue;
+        }
         int rightChild = rule.rightChild;
         int narrowL = narrowLExtent_end[rightChild];
         if (narrowL < narrowR) { // can this right constituent fit next to the left constituent?
@@ -1014,6 +1147,9 @@ oScore[split][end][br.rightChild] = totR;
       //      if (spillGuts) System.out.println("Found " + rightRules.length + " right rules for state " + stateIndex.get(rightState));
       for (BinaryRule rule : rightRules) {
         //      if (spillGuts) System.out.println("Considering rule for " + start + " to " + end + ": " + rightRules[i]);
+        if (kept != null && ! kept[pruner.project(rule.parent)]) {
+          continue;
+        }
 
         int leftChild = rule.leftChild;
         int narrowR = narrowRExtent_start[leftChild];
@@ -1146,6 +1282,9 @@ oScore[split][end][br.rightChild] = totR;
 
       UnaryRule[] unaries = ug.closedRulesByChild(state);
       for (UnaryRule ur : unaries) {
+        if (kept != null && ! kept[pruner.project(ur.parent)]) {
+          continue;
+        }
 
         if (constraints != null) {
           boolean skip = false;
@@ -2171,8 +2310,44 @@ oScore[split][end][br.rightChild] = totR;
   }
 
 
+  /**
+   * Has this parser take its charts from the given pool, and give them
+   * back to it in {@link #releaseChart()}, instead of allocating its own.
+   */
+  public void setChartPool(PCFGChartPool chartPool) {
+    this.chartPool = chartPool;
+  }
+
+  /**
+   * Has this parser parse each sentence with a coarser grammar first, and
+   * only build the chart items the pruner keeps, when
+   * {@code op.testOptions.coarseToFineThreshold} is positive.  If nothing
+   * the pruner keeps makes a parse, the sentence is parsed again without
+   * pruning.
+   */
+  void setCoarseToFinePruner(CoarseToFinePruner coarseToFinePruner) {
+    this.coarseToFinePruner = coarseToFinePruner;
+  }
+
+  /**
+   * Gives the chart back to the pool, if there is one, so that another
+   * parser can use it.  The results of the last parse can't be used
+   * after this, but the parser can still parse another sentence.
+   */
+  public void releaseChart() {
+    if (chartPool != null && chart != null) {
+      clearArrays();
+      arraySize = 0;
+      chartPool.release(chart);
+      chart = null;
+    }
+  }
+
   public void nudgeDownArraySize() {
     try {
+      if (chartPool != null) {
+        chartPool.clear();
+      }
       if (arraySize > 2) {
         considerCreatingArrays(arraySize - 2);
       }
@@ -2184,6 +2359,17 @@ oScore[split][end][br.rightChild] = totR;
   private void considerCreatingArrays(int length) {
     if (length > op.testOptions.maxLength + 1 || length >= myMaxLength) {
       throw new OutOfMemoryError("Refusal to create such large arrays.");
+    } else if (op.testOptions.maxChartMegabytes > 0) {
+      // with a budget, sentences whose chart would be too big are refused
+      // up front rather than finding out by running out of memory
+      long bytes = PCFGChartPool.chartBytes(length + 1, numStates, tagIndex.size(), op.doDep && !op.testOptions.useFastFactored, op.testOptions.lengthNormalization);
+      if (bytes > op.testOptions.maxChartMegabytes * 1024L * 1024L) {
+        throw new OutOfMemoryError("Refusal to create arrays of " + (bytes >> 20) + " MB, over the budget of " + op.testOptions.maxChartMegabytes + " MB.");
+      }
+      // createArrays drops the old arrays first, so if it runs out of
+      // memory, the next sentence has to allocate, however short it is
+      arraySize = 0;
+      createArrays(length + 1);
     } else {
       try {
         createArrays(length + 1);
@@ -2198,59 +2384,43 @@ oScore[split][end][br.rightChild] = totR;
         }
         throw e;
       }
-      arraySize = length + 1;
-      if (op.testOptions.verbose) {
-        System.err.println("Created PCFG parser arrays of size " + arraySize);
-      }
+    }
+    arraySize = (chart != null) ? chart.length : length + 1;
+    if (op.testOptions.verbose) {
+      System.err.println("Created PCFG parser arrays of size " + arraySize);
     }
   }
 
   protected void createArrays(int length) {
     // zero out some stuff first in case we recently ran out of memory and are reallocating
     clearArrays();
-
-    int numTags = tagIndex.size();
-    // allocate just the parts of iScore and oScore used (end > start, etc.)
-    // todo: with some modifications to doInsideScores, we wouldn't need to allocate iScore[i,length] for i != 0 and i != length
-    //    System.out.println("initializing iScore arrays with length " + length + " and numStates " + numStates);
-    iScore = new float[length][length + 1][];
-    for (int start = 0; start < length; start++) {
-      for (int end = start + 1; end <= length; end++) {
-        iScore[start][end] = new float[numStates];
-      }
-    }
-    //    System.out.println("finished initializing iScore arrays");
-    if (op.doDep && !op.testOptions.useFastFactored) {
-      //      System.out.println("initializing oScore arrays with length " + length + " and numStates " + numStates);
-      oScore = new float[length][length + 1][];
-      for (int start = 0; start < length; start++) {
-        for (int end = start + 1; end <= length; end++) {
-          oScore[start][end] = new float[numStates];
-        }
-      }
-      // System.out.println("finished initializing oScore arrays");
+    if (chart != null) {
+      chartPool.release(chart);
+      chart = null;
     }
-    narrowRExtent = new int[length][numStates];
-    wideRExtent = new int[length][numStates];
-    narrowLExtent = new int[length + 1][numStates];
-    wideLExtent = new int[length + 1][numStates];
-    if (op.doDep && !op.testOptions.useFastFactored) {
-      iPossibleByL = new boolean[length][numStates];
-      iPossibleByR = new boolean[length + 1][numStates];
-      oPossibleByL = new boolean[length][numStates];
-      oPossibleByR = new boolean[length + 1][numStates];
-    }
-    tags = new boolean[length][numTags];
 
-    if (op.testOptions.lengthNormalization) {
-      wordsInSpan = new int[length][length + 1][];
-      for (int start = 0; start < length; start++) {
-        for (int end = start + 1; end <= length; end++) {
-          wordsInSpan[start][end] = new int[numStates];
-        }
-      }
+    boolean outside = op.doDep && !op.testOptions.useFastFactored;
+    if (chartPool != null) {
+      chart = chartPool.acquire(length, numStates, tagIndex.size(), outside, op.testOptions.lengthNormalization);
+    } else {
+      chart = new PCFGChartPool.Chart(length, numStates, tagIndex.size(), outside, op.testOptions.lengthNormalization);
+    }
+    iScore = chart.iScore;
+    oScore = chart.oScore;
+    narrowRExtent = chart.narrowRExtent;
+    wideRExtent = chart.wideRExtent;
+    narrowLExtent = chart.narrowLExtent;
+    wideLExtent = chart.wideLExtent;
+    iPossibleByL = chart.iPossibleByL;
+    iPossibleByR = chart.iPossibleByR;
+    oPossibleByL = chart.oPossibleByL;
+    oPossibleByR = chart.oPossibleByR;
+    tags = chart.tags;
+    wordsInSpan = chart.wordsInSpan;
+    if (chartPool == null) {
+      // without a pool, the arrays are all this parser keeps of the chart
+      chart = null;
     }
-    //    System.out.println("ExhaustivePCFGParser constructor finished.");
   }
 
   private void clearArrays() {
@@ -2259,6 +2429,7 @@ oScore[split][end][br.rightChild] = totR;
     oFilteredEnd = oFilteredStart = null;
     tags = null;
     narrowRExtent = wideRExtent = narrowLExtent = wideLExtent = null;
+    wordsInSpan = null;
   }
 
 } // end class ExhaustivePCFGParser
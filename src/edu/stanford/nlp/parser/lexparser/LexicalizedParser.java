@@ -102,6 +102,36 @@ public class LexicalizedParser extends ParserGrammar implements Serializable {
 
   public Reranker reranker; // = null;
 
+  /** The PCFG charts of queries which have been released, for other queries to use */
+  private transient PCFGChartPool chartPool; // = null;
+
+  /** Prunes the PCFG charts of queries from a basic category parse, if coarseToFineThreshold is on */
+  private transient CoarseToFinePruner coarseToFinePruner; // = null;
+
+  /**
+   * The pool the PCFG parsers of this parser's queries share their charts
+   * in.  It keeps up to an eighth of the maximum heap size of charts.
+   */
+  public synchronized PCFGChartPool chartPool() {
+    if (chartPool == null) {
+      chartPool = new PCFGChartPool(Runtime.getRuntime().maxMemory() / 8);
+    }
+    return chartPool;
+  }
+
+  /**
+   * The pruner the PCFG parsers of this parser's queries use for
+   * coarse-to-fine parsing, with the grammar projected onto basic
+   * categories.  It is made the first time it is asked for.
+   */
+  synchronized CoarseToFinePruner coarseToFinePruner() {
+    if (coarseToFinePruner == null) {
+      BasicCategoryGrammarProjection projection = new BasicCategoryGrammarProjection(bg, ug, stateIndex, treebankLanguagePack());
+      coarseToFinePruner = new CoarseToFinePruner(projection, stateIndex.size(), projection.targetIndex().size());
+    }
+    return coarseToFinePruner;
+  }
+
   @Override
   public TreebankLangParserParams getTLPParams() { return op.tlpParams; }
 
@@ -291,8 +321,9 @@ public class LexicalizedParser extends ParserGrammar implements Serializable {
    * an X tree is returned instead of barfing.
    */
   public Tree parse(List<? extends HasWord> lst) {
+    ParserQuery pq = null;
     try {
-      ParserQuery pq = parserQuery();
+      pq = parserQuery();
       if (pq.parse(lst)) {
         Tree bestparse = pq.getBestParse();
         // -10000 denotes unknown words
@@ -303,6 +334,10 @@ public class LexicalizedParser extends ParserGrammar implements Serializable {
       System.err.println("Following exception caught during parsing:");
       e.printStackTrace();
       System.err.println("Recovering using fall through strategy: will construct an (X ...) tree.");
+    } finally {
+      if (pq != null) {
+        pq.release();
+      }
     }
     // if can't parse or exception, fall through
     return ParserUtils.xTree(lst);
@@ -359,10 +394,14 @@ public class LexicalizedParser extends ParserGrammar implements Serializable {
    */
   public Tree parseTree(List<? extends HasWord> sentence) {
     ParserQuery pq = parserQuery();
-    if (pq.parse(sentence)) {
-      return pq.getBestParse();
-    } else {
-      return null;
+    try {
+      if (pq.parse(sentence)) {
+        return pq.getBestParse();
+      } else {
+        return null;
+      }
+    } finally {
+      pq.release();
     }
   }
 
@@ -1506,8 +1545,12 @@ public class LexicalizedParser extends ParserGrammar implements Serializable {
 
     if (testTreebank != null) {
       // test parser on treebank
-      EvaluateTreebank evaluator = new EvaluateTreebank(lp);
-      evaluator.testOnTreebank(testTreebank);
+      if (op.testOptions.coarseToFineThresholds != null) {
+        EvaluateTreebank.testCoarseToFineThresholds(lp, testTreebank, op.testOptions.coarseToFineThresholds);
+      } else {
+        EvaluateTreebank evaluator = new EvaluateTreebank(lp);
+        evaluator.testOnTreebank(testTreebank);
+      }
     } else if (argIndex >= args.length) {
       // no more arguments, so we just parse our own test sentence
       PrintWriter pwOut = op.tlpParams.pw();
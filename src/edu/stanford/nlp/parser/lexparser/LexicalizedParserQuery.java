@@ -127,7 +127,11 @@ public class LexicalizedParserQuery implements ParserQuery {
         pparser = new IterativeCKYPCFGParser(bg, ug, lex, op, stateIndex, wordIndex, tagIndex);
       } else {
         pparser = new ExhaustivePCFGParser(bg, ug, lex, op, stateIndex, wordIndex, tagIndex);
+        if (op.testOptions.coarseToFineThreshold > 0.0) {
+          pparser.setCoarseToFinePruner(parser.coarseToFinePruner());
+        }
       }
+      pparser.setChartPool(parser.chartPool());
     } else {
       pparser = null;
     }
@@ -642,6 +646,17 @@ public class LexicalizedParserQuery implements ParserQuery {
     return pparser;
   }
 
+  /**
+   * Gives the chart of the PCFG parser back to the LexicalizedParser's
+   * pool, so that other queries can use it.
+   */
+  @Override
+  public void release() {
+    if (pparser != null) {
+      pparser.releaseChart();
+    }
+  }
+
   @Override
   public KBestViterbiParser getDependencyParser() {
     return dparser;
@@ -118,6 +118,8 @@ public class Options implements Serializable {
    * Some options (there are many others; see the source code):
    * <ul>
    * <li> <code>-maxLength n</code> set the maximum length sentence to parse (inclusively)
+   * <li> <code>-maxChartMegabytes n</code> refuse sentences whose PCFG chart would take more than n MB
+   * <li> <code>-coarseToFineThreshold t</code> prune the PCFG chart with a coarse parse, keeping items within a factor t of the best coarse parse
    * <li> <code>-printTT</code> print the training trees in raw, annotated, and annotated+binarized form.  Useful for debugging and other miscellany.
    * <li> <code>-printAnnotated filename</code> use only in conjunction with -printTT.  Redirects printing of annotated training trees to <code>filename</code>.
    * <li> <code>-forceTags</code> when the parser is tested against a set of gold standard trees, use the tagged yield, instead of just the yield, as input.
@@ -154,6 +156,8 @@ public class Options implements Serializable {
    * Some options (there are many others; see the source code):
    * <ul>
    * <li> <code>-maxLength n</code> set the maximum length sentence to parse (inclusively)
+   * <li> <code>-maxChartMegabytes n</code> refuse sentences whose PCFG chart would take more than n MB
+   * <li> <code>-coarseToFineThreshold t</code> prune the PCFG chart with a coarse parse, keeping items within a factor t of the best coarse parse
    * <li> <code>-printTT</code> print the training trees in raw, annotated, and annotated+binarized form.  Useful for debugging and other miscellany.
    * <li> <code>-printAnnotated filename</code> use only in conjunction with -printTT.  Redirects printing of annotated training trees to <code>filename</code>.
    * <li> <code>-forceTags</code> when the parser is tested against a set of gold standard trees, use the tagged yield, instead of just the yield, as input.
@@ -184,6 +188,8 @@ public class Options implements Serializable {
    * Some options (there are many others; see the source code):
    * <ul>
    * <li> <code>-maxLength n</code> set the maximum length sentence to parse (inclusively)
+   * <li> <code>-maxChartMegabytes n</code> refuse sentences whose PCFG chart would take more than n MB
+   * <li> <code>-coarseToFineThreshold t</code> prune the PCFG chart with a coarse parse, keeping items within a factor t of the best coarse parse
    * <li> <code>-printTT</code> print the training trees in raw, annotated, and annotated+binarized form.  Useful for debugging and other miscellany.
    * <li> <code>-printAnnotated filename</code> use only in conjunction with -printTT.  Redirects printing of annotated training trees to <code>filename</code>.
    * <li> <code>-forceTags</code> when the parser is tested against a set of gold standard trees, use the tagged yield, instead of just the yield, as input.
@@ -232,6 +238,9 @@ public class Options implements Serializable {
     } else if (args[i].equalsIgnoreCase("-maxLength") && (i + 1 < args.length)) {
       testOptions.maxLength = Integer.parseInt(args[i + 1]);
       i += 2;
+    } else if (args[i].equalsIgnoreCase("-maxChartMegabytes") && (i + 1 < args.length)) {
+      testOptions.maxChartMegabytes = Integer.parseInt(args[i + 1]);
+      i += 2;
     } else if (args[i].equalsIgnoreCase("-MAX_ITEMS") && (i + 1 < args.length)) {
       testOptions.MAX_ITEMS = Integer.parseInt(args[i + 1]);
       i += 2;
@@ -740,6 +749,22 @@ public class Options implements Serializable {
     } else if (args[i].equalsIgnoreCase("-testingThreads")) {
       testOptions.testingThreads = Integer.parseInt(args[i + 1]);
       i += 2;
+    } else if (args[i].equalsIgnoreCase("-pcfgThreads") && (i + 1 < args.length)) {
+      testOptions.pcfgThreads = Integer.parseInt(args[i + 1]);
+      i += 2;
+    } else if (args[i].equalsIgnoreCase("-pcfgThreadsMinLength") && (i + 1 < args.length)) {
+      testOptions.pcfgThreadsMinLength = Integer.parseInt(args[i + 1]);
+      i += 2;
+    } else if (args[i].equalsIgnoreCase("-coarseToFineThreshold") && (i + 1 < args.length)) {
+      testOptions.coarseToFineThreshold = Double.parseDouble(args[i + 1]);
+      i += 2;
+    } else if (args[i].equalsIgnoreCase("-coarseToFineThresholds") && (i + 1 < args.length)) {
+      String[] thresholds = args[i + 1].split(",");
+      testOptions.coarseToFineThresholds = new double[thresholds.length];
+      for (int j = 0; j < thresholds.length; j++) {
+        testOptions.coarseToFineThresholds[j] = Double.parseDouble(thresholds[j]);
+      }
+      i += 2;
     } else if (args[i].equalsIgnoreCase("-evals")) {
       testOptions.evals = StringUtils.stringToProperties(args[i+1], testOptions.evals);
       i += 2;
@@ -0,0 +1,194 @@
+package edu.stanford.nlp.parser.lexparser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the chart arrays of {@link ExhaustivePCFGParser}s once their
+ * parses are done, so that later parses with the same grammar, in the
+ * same thread or another one, can use them again instead of allocating
+ * new ones.  With a large grammar, the chart for a long sentence is
+ * hundreds of megabytes, and allocating one for every
+ * {@link LexicalizedParserQuery} makes the garbage collector do a lot
+ * of work.
+ * <br>
+ * A parser takes a chart when it needs bigger arrays than it has, and
+ * gives it back when its query is released.  A chart is only ever
+ * used by one parser at a time.  At most {@code maxPooledBytes} of
+ * charts are kept while no parser is using them; the smallest charts
+ * are dropped first.
+ * <br>
+ * This class is threadsafe.
+ *
+ * @see edu.stanford.nlp.parser.common.ParserQuery#release()
+ */
+public class PCFGChartPool {
+
+  /** The arrays of one chart, for sentences of up to {@code length - 1} words */
+  static class Chart {
+    final int length;
+    final int numStates;
+    final int numTags;
+    final boolean outside;
+    final boolean lengthNormalization;
+    final long bytes;
+
+    final float[][][] iScore;
+    final float[][][] oScore;
+    final int[][] narrowRExtent;
+    final int[][] wideRExtent;
+    final int[][] narrowLExtent;
+    final int[][] wideLExtent;
+    final boolean[][] iPossibleByL;
+    final boolean[][] iPossibleByR;
+    final boolean[][] oPossibleByL;
+    final boolean[][] oPossibleByR;
+    final boolean[][] tags;
+    final int[][][] wordsInSpan;
+
+    Chart(int length, int numStates, int numTags, boolean outside, boolean lengthNormalization) {
+      this.length = length;
+      this.numStates = numStates;
+      this.numTags = numTags;
+      this.outside = outside;
+      this.lengthNormalization = lengthNormalization;
+      this.bytes = chartBytes(length, numStates, numTags, outside, lengthNormalization);
+
+      // allocate just the parts of iScore and oScore used (end > start, etc.)
+      iScore = new float[length][length + 1][];
+      for (int start = 0; start < length; start++) {
+        for (int end = start + 1; end <= length; end++) {
+          iScore[start][end] = new float[numStates];
+        }
+      }
+      if (outside) {
+        oScore = new float[length][length + 1][];
+        for (int start = 0; start < length; start++) {
+          for (int end = start + 1; end <= length; end++) {
+            oScore[start][end] = new float[numStates];
+          }
+        }
+        iPossibleByL = new boolean[length][numStates];
+        iPossibleByR = new boolean[length + 1][numStates];
+        oPossibleByL = new boolean[length][numStates];
+        oPossibleByR = new boolean[length + 1][numStates];
+      } else {
+        oScore = null;
+        iPossibleByL = iPossibleByR = oPossibleByL = oPossibleByR = null;
+      }
+      narrowRExtent = new int[length][numStates];
+      wideRExtent = new int[length][numStates];
+      narrowLExtent = new int[length + 1][numStates];
+      wideLExtent = new int[length + 1][numStates];
+      tags = new boolean[length][numTags];
+      if (lengthNormalization) {
+        wordsInSpan = new int[length][length + 1][];
+        for (int start = 0; start < length; start++) {
+          for (int end = start + 1; end <= length; end++) {
+            wordsInSpan[start][end] = new int[numStates];
+          }
+        }
+      } else {
+        wordsInSpan = null;
+      }
+    }
+
+    boolean fits(int length, int numStates, int numTags, boolean outside, boolean lengthNormalization) {
+      return this.length >= length && this.numStates == numStates && this.numTags == numTags &&
+          this.outside == outside && this.lengthNormalization == lengthNormalization;
+    }
+  }
+
+  private final long maxPooledBytes;
+  private final List<Chart> charts = new ArrayList<>();
+  private long pooledBytes = 0;
+
+  /**
+   * @param maxPooledBytes How many bytes of charts to keep while no parser is using them
+   */
+  public PCFGChartPool(long maxPooledBytes) {
+    this.maxPooledBytes = maxPooledBytes;
+  }
+
+  /**
+   * About how many bytes a chart for the given length takes, counting
+   * the contents of its arrays but not the array headers.
+   *
+   * @param length One more than the number of words, as in {@link ExhaustivePCFGParser}
+   */
+  public static long chartBytes(int length, int numStates, int numTags, boolean outside, boolean lengthNormalization) {
+    long cells = (long) length * (length + 1) / 2;
+    long scores = cells * numStates * 4L;
+    long bytes = scores + (4L * length + 2) * numStates * 4L + (long) length * numTags;
+    if (outside) {
+      bytes += scores + (4L * length + 2) * numStates;
+    }
+    if (lengthNormalization) {
+      bytes += scores;
+    }
+    return bytes;
+  }
+
+  /**
+   * Returns the smallest pooled chart which is big enough, or a new
+   * chart if there isn't one.  The chart may have been used before, so
+   * the parser has to fill in its arrays before using them.
+   */
+  Chart acquire(int length, int numStates, int numTags, boolean outside, boolean lengthNormalization) {
+    synchronized (this) {
+      Chart best = null;
+      for (Chart chart : charts) {
+        if (chart.fits(length, numStates, numTags, outside, lengthNormalization) &&
+            (best == null || chart.length < best.length)) {
+          best = chart;
+        }
+      }
+      if (best != null) {
+        charts.remove(best);
+        pooledBytes -= best.bytes;
+        return best;
+      }
+    }
+    // allocated outside the lock, as this can take a while
+    try {
+      return new Chart(length, numStates, numTags, outside, lengthNormalization);
+    } catch (OutOfMemoryError e) {
+      // charts nobody is using shouldn't be why a parse runs out of memory
+      clear();
+      return new Chart(length, numStates, numTags, outside, lengthNormalization);
+    }
+  }
+
+  /** Gives back a chart, which the parser which had it must no longer use */
+  synchronized void release(Chart chart) {
+    charts.add(chart);
+    pooledBytes += chart.bytes;
+    while (pooledBytes > maxPooledBytes && ! charts.isEmpty()) {
+      Chart smallest = charts.get(0);
+      for (Chart c : charts) {
+        if (c.bytes < smallest.bytes) {
+          smallest = c;
+        }
+      }
+      charts.remove(smallest);
+      pooledBytes -= smallest.bytes;
+    }
+  }
+
+  /** Drops all the charts no parser is using, such as when memory runs low */
+  public synchronized void clear() {
+    charts.clear();
+    pooledBytes = 0;
+  }
+
+  /** How many charts are waiting to be used again */
+  public synchronized int size() {
+    return charts.size();
+  }
+
+  /** About how many bytes the charts waiting to be used again take */
+  public synchronized long pooledBytes() {
+    return pooledBytes;
+  }
+
+}
@@ -187,6 +187,11 @@ public class RerankingParserQuery implements ParserQuery {
     return null;
   }
 
+  @Override
+  public void release() {
+    parserQuery.release();
+  }
+
 
   /**
    * Parsing succeeded without any horrible errors or fallback
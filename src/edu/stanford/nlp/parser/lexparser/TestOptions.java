@@ -71,6 +71,45 @@ public class TestOptions implements Serializable {
   public int maxLength = -0xDEADBEEF;
   // initial value is -0xDEADBEEF (actually positive because of 2s complement)
 
+  /**
+   * How many threads the PCFG parser uses to fill in the chart of one
+   * sentence.  The cells with the same span width are done in parallel,
+   * in a pool shared by all the parsers.  This is for getting long
+   * sentences back sooner; testingThreads is better for throughput.
+   */
+  public int pcfgThreads = 1;
+
+  /**
+   * Sentences shorter than this are parsed in one thread even if
+   * pcfgThreads is more than one, as their chart cells are too quick to
+   * be worth handing out.
+   */
+  public int pcfgThreadsMinLength = 30;
+
+  /**
+   * If positive, the PCFG parser parses each sentence with a grammar of
+   * basic categories first, and then only builds the states whose basic
+   * category, over that span, is in a coarse parse scoring at least this
+   * fraction of the best coarse parse.  Between 0 and 1; bigger is faster
+   * and less accurate.
+   */
+  public double coarseToFineThreshold = 0.0;
+
+  /**
+   * If not null, testing on a treebank tests once with each of these
+   * coarseToFineThresholds, and prints the time and F1 of each.
+   */
+  public double[] coarseToFineThresholds = null;
+
+  /**
+   * If positive, the most memory (in megabytes) the PCFG chart for one
+   * sentence may take.  Sentences which would need a bigger chart are
+   * refused before anything is allocated, as if the parser had run out of
+   * memory.  If not positive, the parser instead tries to allocate the
+   * chart and backs off if it runs out of memory.
+   */
+  public int maxChartMegabytes = 0;
+
   /**
    * The maximum number of edges and hooks combined that the factored parser
    * will build before giving up.  This number should probably be relative to
@@ -301,11 +340,14 @@ public class TestOptions implements Serializable {
   public String toString() {
     return ("Test parameters" + 
             " maxLength=" + maxLength + 
+            " maxChartMegabytes=" + maxChartMegabytes + 
             " preTag=" + preTag + 
             " outputFormat=" + outputFormat + 
             " outputFormatOptions=" + outputFormatOptions + 
             " printAllBestParses=" + printAllBestParses + 
             " testingThreads=" + testingThreads +
+            " pcfgThreads=" + pcfgThreads +
+            " coarseToFineThreshold=" + coarseToFineThreshold +
             " quietEvaluation=" + quietEvaluation);
   }
 
@@ -41,8 +41,8 @@ public class Classifier {
     // W2: numLabels x hiddenSize
 
     // Weight matrices
-    private final double[][] W1, W2, E;
-    private final double[] b1;
+    private double[][] W1, W2, E;
+    private double[] b1;
 
     // Global gradSaved
     private double[][] gradSaved;
@@ -67,6 +67,15 @@ public class Classifier {
      */
     private final IntIntHashMap preMap;
 
+    /**
+     * Float copies of the weights for {@link #computeScores(int[][], int, float[][], float[])},
+     * made when first needed after the weights or the pre-computed
+     * activations change, or the only weights once the classifier is
+     * {@link #compact compacted}.
+     */
+    private volatile PredictionWeights predictionWeights;
+    private boolean compact = false;
+
     /**
      * Initial training state is dependent on how the classifier is
      * initialized. We use this flag to determine whether calls to
@@ -577,6 +586,7 @@ public class Classifier {
      */
     public void takeAdaGradientStep(Cost cost, double adaAlpha, double adaEps) {
         validateTraining();
+        predictionWeights = null;
 
         double[][] gradW1 = cost.getGradW1(), gradW2 = cost.getGradW2(),
                 gradE = cost.getGradE();
@@ -658,6 +668,8 @@ public class Classifier {
      *                     activations should be precomputed
      */
     public void preCompute(MutableIntSet toPreCompute) {
+        if (compact)
+            throw new IllegalStateException("The weights needed to pre-compute were discarded by compact()");
         long startTime = System.currentTimeMillis();
 
         // NB: It'd make sense to just make the first dimension of this
@@ -665,7 +677,7 @@ public class Classifier {
         // `preMap` indices to map into this denser array. But this
         // actually hurt training performance! (See experiments with
         // "smallMap.")
-        saved = new double[preMap.size()][config.hiddenSize];
+        double[][] saved = new double[preMap.size()][config.hiddenSize];
 
         toPreCompute.forEach(x -> {
             int mapX = preMap.get(x);
@@ -684,11 +696,28 @@ public class Classifier {
                 }
             }
         });
+        this.saved = saved;
+        predictionWeights = null;
         System.err.println("PreComputed " + toPreCompute.size() + ", Elapsed Time: " + (System
                 .currentTimeMillis() - startTime) / 1000.0 + " (s)");
     }
 
+    /**
+     * Feed one feature vector forward through the network.  Once the
+     * classifier is {@link #compact compacted}, this makes new buffers for
+     * the batch method on every call, so code which scores many vectors
+     * should call {@link #computeScores(int[][], int, float[][], float[])}
+     * with buffers of its own instead.
+     */
     double[] computeScores(int[] feature, double[] scores, double[] hiddenTemp) {
+        if (compact) {
+            float[][] floatScores = new float[1][numLabels];
+            computeScores(new int[][] { feature }, 1, floatScores, new float[config.hiddenSize]);
+            for (int i = 0; i < numLabels; ++i) {
+                scores[i] = floatScores[0][i];
+            }
+            return scores;
+        }
         return computeScores(feature, preMap, scores, hiddenTemp);
     }
 
@@ -759,6 +788,65 @@ public class Classifier {
         return scores;
     }
 
+    private PredictionWeights predictionWeights() {
+        PredictionWeights weights = predictionWeights;
+        if (weights == null) {
+            weights = PredictionWeights.build(Config.WeightPrecision.FLOAT, E, W1, b1, W2, saved);
+            predictionWeights = weights;
+        }
+        return weights;
+    }
+
+    /**
+     * Whether the double weight matrices have been discarded by
+     * {@link #compact(Config.WeightPrecision)}.
+     */
+    public boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     * Replace the weight matrices and the pre-computed hidden layer
+     * activations with float or int8 copies, and discard the doubles.
+     * Afterwards the classifier can only score configurations: it can't be
+     * trained, pre-compute, or give out its weight matrices.
+     *
+     * @return The size in bytes of the weights now kept
+     */
+    public long compact(Config.WeightPrecision precision) {
+        if (isTraining)
+            throw new IllegalStateException("Can't compact a classifier which is being trained");
+        if (compact || precision == Config.WeightPrecision.DOUBLE)
+            throw new IllegalArgumentException("Can't compact " + (compact ? "twice" : "to doubles"));
+
+        PredictionWeights weights = PredictionWeights.build(precision, E, W1, b1, W2, saved);
+        predictionWeights = weights;
+        compact = true;
+        E = W1 = W2 = saved = null;
+        b1 = null;
+        return weights.sizeInBytes();
+    }
+
+    /**
+     * Feed a batch of feature vectors forward through the network
+     * together, using float (or after {@link #compact}, int8) copies of the
+     * weights. This gives the same scores as
+     * {@link #computeScores(int[], double[], double[])} on the double
+     * weights, up to the precision of the copies.
+     *
+     * @param features The feature vectors; only the first {@code count} are used
+     * @param count    Size of the batch
+     * @param scores   Receives the values of the output layer for each
+     *                 feature vector; each row must hold at least
+     *                 {@link #numLabels} values
+     * @param hidden   Scratch space for the hidden layer, which the caller
+     *                 can reuse from one call to the next; it must hold at
+     *                 least {@code count} times the hidden layer size
+     */
+    void computeScores(int[][] features, int count, float[][] scores, float[] hidden) {
+        predictionWeights().computeScores(features, count, scores, hidden, preMap, config.numTokens);
+    }
+
     public double[][] getW1() {
         return W1;
     }
@@ -196,6 +196,33 @@ public class Config
    */
   public Function<List<HasWord>, List<HasWord>> escaper = null;
 
+  /**
+   * If greater than zero, parse this many sentences at a time in
+   * lockstep, scoring all of their configurations together with a
+   * batched float forward pass (see
+   * {@link DependencyParser#predictAll(java.util.List)}). If zero,
+   * sentences are parsed one at a time.
+   */
+  public int predictionBatchSize = 0;
+
+  /** How a loaded model stores its weights for prediction. */
+  public enum WeightPrecision {
+    /** Keep the double matrices the model was loaded into */
+    DOUBLE,
+    /** 32-bit floats, half the size of the double matrices */
+    FLOAT,
+    /** 8-bit integers with one float scale per row, about a quarter of the size of the floats */
+    INT8
+  }
+
+  /**
+   * How a loaded model stores its weights and pre-computed hidden layer
+   * activations. Below {@code DOUBLE}, the double matrices are discarded
+   * once loaded, so the model can be used for prediction but not
+   * written out or trained further.
+   */
+  public WeightPrecision weightPrecision = WeightPrecision.DOUBLE;
+
   /**
    * Path to a tagger file compatible with
    * {@link edu.stanford.nlp.tagger.maxent.MaxentTagger}.
@@ -229,6 +256,8 @@ public class Config
     // Runtime parsing options
     sentenceDelimiter = PropertiesUtils.getString(props, "sentenceDelimiter", sentenceDelimiter);
     tagger = PropertiesUtils.getString(props, "tagger.model", tagger);
+    predictionBatchSize = PropertiesUtils.getInt(props, "predictionBatchSize", predictionBatchSize);
+    weightPrecision = WeightPrecision.valueOf(props.getProperty("weightPrecision", weightPrecision.name()).toUpperCase());
 
     String escaperClass = props.getProperty("escaper");
     escaper = escaperClass != null ? ReflectionLoading.loadByReflection(escaperClass) : null;
@@ -52,7 +52,8 @@ import static java.util.stream.Collectors.toList;
  * prepare the parser with a pre-trained model is to call
  * {@link #loadFromModelFile(String)}. Then call
  * {@link #predict(edu.stanford.nlp.util.CoreMap)} on the returned
- * parser instance in order to get new parses.
+ * parser instance in order to get new parses, or
+ * {@link #predictAll(java.util.List)} to parse many sentences together.
  *
  * @author Danqi Chen (danqi@cs.stanford.edu)
  * @author Jon Gauthier
@@ -75,7 +76,7 @@ public class DependencyParser {
    */
   private ObjectIntHashMap<String> wordIDs, posIDs, labelIDs;
 
-  private IntArrayList preComputed;
+  private IntArrayList preComputed = new IntArrayList();
 
   /**
    * Given a particular parser configuration, this classifier will
@@ -386,6 +387,10 @@ public class DependencyParser {
   }
 
   public void writeModelFile(String modelFile) {
+    if (classifier.isCompact()) {
+      throw new IllegalStateException("This model was loaded with weightPrecision " + config.weightPrecision +
+          ", so its double weights were discarded and it can't be written out");
+    }
     try {
       double[][] W1 = classifier.getW1();
       double[] b1 = classifier.getb1();
@@ -909,6 +914,11 @@ public class DependencyParser {
    * for general parsing purposes.
    */
   private DependencyTree predictInner(final CoreMap sentence) {
+    if (classifier.isCompact()) {
+      // the compacted weights only score batches; a batch of one keeps
+      // its buffers from one transition to the next
+      return predictAllInner(Collections.singletonList(sentence)).get(0);
+    }
 
     final ParsingSystem system = this.system;
     final int numTrans = system.numTransitions();
@@ -939,6 +949,78 @@ public class DependencyParser {
     return c.tree;
   }
 
+  /**
+   * Determine the dependency parses of several sentences at once. The
+   * sentences' transition systems are advanced in lockstep, and at each
+   * step the feature vectors of all unfinished sentences are scored
+   * together by one batched forward pass.
+   * <p>
+   * This "inner" method returns a structure unique to this package; use {@link #predictAll(java.util.List)}
+   * for general parsing purposes.
+   */
+  private List<DependencyTree> predictAllInner(final List<? extends CoreMap> sentences) {
+
+    final ParsingSystem system = this.system;
+    final int numTrans = system.numTransitions();
+    final int n = sentences.size();
+
+    final int[][] features = new int[n][config.numTokens];
+    final float[][] scores = new float[n][classifier.numLabels];
+    final float[] hidden = new float[n * config.hiddenSize];
+
+    final Configuration[] configurations = new Configuration[n];
+    for (int i = 0; i < n; ++i) {
+      configurations[i] = system.initialConfiguration(sentences.get(i));
+    }
+    // The unfinished configurations are kept at the front of this array
+    final Configuration[] unfinished = configurations.clone();
+    int active = n;
+
+    while (true) {
+      for (int b = 0; b < active; ) {
+        if (system.isTerminal(unfinished[b])) {
+          Configuration c = unfinished[b];
+          unfinished[b] = unfinished[--active];
+          unfinished[active] = c;
+        } else {
+          ++b;
+        }
+      }
+      if (active == 0) {
+        break;
+      }
+
+      for (int b = 0; b < active; ++b) {
+        getFeatureArray(unfinished[b], features[b]);
+      }
+      classifier.computeScores(features, active, scores, hidden);
+
+      for (int b = 0; b < active; ++b) {
+        final Configuration c = unfinished[b];
+        final float[] sb = scores[b];
+
+        float optScore = Float.NEGATIVE_INFINITY;
+        String optTrans = null;
+
+        for (int j = 0; j < numTrans; ++j) {
+          String transitionJ = system.transitions.get(j);
+
+          if (sb[j] > optScore && system.canApply(c, transitionJ)) {
+            optScore = sb[j];
+            optTrans = transitionJ;
+          }
+        }
+        system.apply(c, optTrans);
+      }
+    }
+
+    List<DependencyTree> results = new ArrayList<>(n);
+    for (Configuration c : configurations) {
+      results.add(c.tree);
+    }
+    return results;
+  }
+
   /**
    * Determine the dependency parse of the given sentence using the loaded model.
    * You must first load a parser before calling this method.
@@ -951,8 +1033,54 @@ public class DependencyParser {
       throw new IllegalStateException("Parser has not been  " +
           "loaded and initialized; first load a model.");
 
-    DependencyTree result = predictInner(sentence);
+    return makeGrammaticalStructure(sentence, predictInner(sentence));
+  }
+
+  /**
+   * Determine the dependency parses of the given sentences using the
+   * loaded model, parsing them in lockstep so that the classifier can
+   * score them in batches. The scores are computed in float rather than
+   * double precision, so on rare near-ties the parses can differ from
+   * those of {@link #predict(edu.stanford.nlp.util.CoreMap)}.
+   * You must first load a parser before calling this method.
+   *
+   * @throws java.lang.IllegalStateException If parser has not yet been loaded and initialized
+   *         (see {@link #initialize(boolean)}
+   */
+  public List<GrammaticalStructure> predictAll(List<? extends CoreMap> sentences) {
+    if (system == null)
+      throw new IllegalStateException("Parser has not been  " +
+          "loaded and initialized; first load a model.");
+
+    List<DependencyTree> results = predictAllInner(sentences);
+    List<GrammaticalStructure> structures = new ArrayList<>(sentences.size());
+    for (int i = 0; i < results.size(); i++) {
+      structures.add(makeGrammaticalStructure(sentences.get(i), results.get(i)));
+    }
+    return structures;
+  }
+
+  /**
+   * Parses sentences one at a time, or in batches of
+   * {@link Config#predictionBatchSize} if that is set.
+   */
+  private List<DependencyTree> predictInner(List<CoreMap> sentences) {
+    if (config.predictionBatchSize <= 0) {
+      return sentences.stream().map(this::predictInner).collect(toList());
+    }
+    List<DependencyTree> predicted = new ArrayList<>(sentences.size());
+    for (int start = 0; start < sentences.size(); start += config.predictionBatchSize) {
+      int end = Math.min(start + config.predictionBatchSize, sentences.size());
+      predicted.addAll(predictAllInner(sentences.subList(start, end)));
+    }
+    return predicted;
+  }
 
+  /**
+   * Convert the package-local representation of a parse into a
+   * CoreNLP-standard GrammaticalStructure.
+   */
+  private GrammaticalStructure makeGrammaticalStructure(CoreMap sentence, DependencyTree result) {
     // The rest of this method is just busy-work to convert the
     // package-local representation into a CoreNLP-standard
     // GrammaticalStructure.
@@ -1091,7 +1219,7 @@ public class DependencyParser {
     }
     System.err.printf("OOV Words: %d / %d = %.2f%%\n", numOOVWords, numWords, numOOVWords * 100.0 / numWords);
 
-    List<DependencyTree> predicted = testSents.stream().map(this::predictInner).collect(toList());
+    List<DependencyTree> predicted = predictInner(testSents);
     Map<String, Double> result = system.evaluate(testSents, predicted, testTrees);
 
     double uas = config.noPunc ? result.get("UASnoPunc") : result.get("UAS");
@@ -1166,6 +1294,13 @@ public class DependencyParser {
     if (config.numPreComputed > 0) {
       classifier.preCompute();
     }
+
+    if (config.weightPrecision != Config.WeightPrecision.DOUBLE) {
+      long bytes = classifier.compact(config.weightPrecision);
+      if (verbose) {
+        System.err.printf("Stored weights as %s: %.1f MB%n", config.weightPrecision, bytes / 1048576.0);
+      }
+    }
   }
 
   /**
@@ -1243,6 +1378,8 @@ public class DependencyParser {
    *   <tr><td><tt>&#8209;escaper</tt></td><td>N/A</td><td>Only applicable for testing with <tt>-textFile</tt>. If provided, use this word-escaper when parsing raw sentences. (Should be a fully-qualified class name like <tt>edu.stanford.nlp.trees.international.arabic.ATBEscaper</tt>.)</td></tr>
    *   <tr><td><tt>&#8209;numPreComputed</tt></td><td>100000</td><td>The parser pre-computes hidden-layer unit activations for particular inputs words at both training and testing time in order to speed up feedforward computation in the neural network. This parameter determines how many words for which we should compute hidden-layer activations.</td></tr>
    *   <tr><td><tt>&#8209;sentenceDelimiter</tt></td><td>N/A</td><td>Only applicable for testing with <tt>-textFile</tt>.  If provided, assume that the given <tt>textFile</tt> has already been sentence-split, and that sentences are separated by this delimiter.</td></tr>
+   *   <tr><td><tt>&#8209;predictionBatchSize</tt></td><td>0</td><td>If greater than zero, parse this many sentences at a time in lockstep, scoring their configurations together in batches.</td></tr>
+   *   <tr><td><tt>&#8209;weightPrecision</tt></td><td>double</td><td>Store the loaded model's weights as <tt>double</tt>, <tt>float</tt>, or <tt>int8</tt> (8-bit integers with a scale per row), for a model half or a quarter of the size of the float one. With <tt>&#8209;testFile</tt> and a precision below double, the accuracy is also measured with double weights and the difference reported.</td></tr>
    *   <tr><td><tt>&#8209;tagger.model</tt></td><td>edu/stanford/nlp/models/pos-tagger/english-left3words/english-left3words-distsim.tagger</td><td>Only applicable for testing with <tt>-textFile</tt>. Path to a part-of-speech tagger to use to pre-tag the raw sentences before parsing.</td></tr>
    * </table>
    */
@@ -1260,7 +1397,19 @@ public class DependencyParser {
     if (props.containsKey("testFile")) {
       parser.loadModelFile(props.getProperty("model"));
       loaded = true;
-      parser.testCoNLL(props.getProperty("testFile"), props.getProperty("outFile"));
+      double las = parser.testCoNLL(props.getProperty("testFile"), props.getProperty("outFile"));
+
+      // Report what storing the weights with less precision costs
+      if (parser.config.weightPrecision != Config.WeightPrecision.DOUBLE) {
+        Properties doubleProps = new Properties();
+        doubleProps.putAll(props);
+        doubleProps.setProperty("weightPrecision", Config.WeightPrecision.DOUBLE.name());
+        DependencyParser reference = new DependencyParser(doubleProps);
+        reference.loadModelFile(props.getProperty("model"));
+        double doubleLas = reference.testCoNLL(props.getProperty("testFile"), null);
+        System.err.printf("LAS with %s weights = %.4f, with DOUBLE weights = %.4f, delta = %+.4f%n",
+            parser.config.weightPrecision, las, doubleLas, las - doubleLas);
+      }
     }
 
     // Parse raw text data
@@ -0,0 +1,285 @@
+package edu.stanford.nlp.parser.nndep;
+
+import com.gs.collections.impl.map.mutable.primitive.IntIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Compact copies of the weights of a {@link Classifier}, used only to
+ * score configurations at prediction time.
+ * <p>
+ * The matrices are stored flat and laid out so that the inner loops of
+ * the forward pass run over consecutive memory: the hidden layer weights
+ * for one input unit are contiguous (W1 transposed), as are the output
+ * layer weights for one hidden unit (W2 transposed). Batches of feature
+ * vectors are scored together so that a block of the output layer
+ * weights is read once for the whole batch.
+ *
+ * @see Classifier#computeScores(int[][], int, float[][], float[])
+ */
+abstract class PredictionWeights {
+
+  /**
+   * Number of hidden units whose output layer weights are applied to the
+   * whole batch before moving on, so that they stay in cache.
+   */
+  private static final int HIDDEN_BLOCK = 64;
+
+  final int embeddingSize, hiddenSize, numLabels;
+  final float[] b1;
+  /** Whether there are pre-computed hidden layer activations */
+  final boolean hasSaved;
+
+  PredictionWeights(double[] b1, int embeddingSize, int numLabels, boolean hasSaved) {
+    this.hasSaved = hasSaved;
+    this.embeddingSize = embeddingSize;
+    this.hiddenSize = b1.length;
+    this.numLabels = numLabels;
+    this.b1 = toFloats(b1);
+  }
+
+  static PredictionWeights build(Config.WeightPrecision precision, double[][] E, double[][] W1, double[] b1, double[][] W2, double[][] saved) {
+    switch (precision) {
+      case INT8:
+        return new Int8(E, W1, b1, W2, saved);
+      default:
+        return new Floats(E, W1, b1, W2, saved);
+    }
+  }
+
+  /** Approximate size of the stored weights, in bytes. */
+  abstract long sizeInBytes();
+
+  /** Adds the pre-computed hidden layer activations of input {@code id} into {@code hidden} at {@code h}. */
+  abstract void addSaved(int id, float[] hidden, int h);
+
+  /** Adds the hidden layer activations of token {@code tok} at input position {@code pos} into {@code hidden} at {@code h}. */
+  abstract void addEmbedding(int tok, int pos, float[] hidden, int h);
+
+  /** Adds the output layer contributions of hidden units [start, end) of one row of {@code hidden} into {@code scores}. */
+  abstract void addOutput(float[] hidden, int h, int start, int end, float[] scores);
+
+  /**
+   * Feed a batch of feature vectors forward through the network.
+   *
+   * @param hidden Scratch space for the hidden layer, batch x hiddens with
+   *               one row per feature vector, so at least
+   *               {@code count * hiddenSize} long
+   * @param preMap Maps (token, position) inputs to their pre-computed
+   *               activations
+   */
+  void computeScores(int[][] features, int count, float[][] scores, float[] hidden, IntIntHashMap preMap, int numTokens) {
+    final int hiddens = hiddenSize;
+
+    for (int b = 0; b < count; ++b) {
+      final int[] feature = features[b];
+      final int h = b * hiddens;
+      Arrays.fill(hidden, h, h + hiddens, 0.0f);
+
+      for (int j = 0; j < numTokens; ++j) {
+        int tok = feature[j];
+        int id = hasSaved ? preMap.getIfAbsent(tok * numTokens + j, -1) : -1;
+        if (id >= 0) {
+          addSaved(id, hidden, h);
+        } else {
+          addEmbedding(tok, j, hidden, h);
+        }
+      }
+
+      for (int i = 0; i < hiddens; ++i) {
+        final float hi = hidden[h + i];
+        hidden[h + i] = (hi + b1[i]) * hi * hi;  // cube nonlinearity
+      }
+    }
+
+    for (int b = 0; b < count; ++b) {
+      Arrays.fill(scores[b], 0, numLabels, 0.0f);
+    }
+    for (int start = 0; start < hiddens; start += HIDDEN_BLOCK) {
+      final int end = Math.min(start + HIDDEN_BLOCK, hiddens);
+      for (int b = 0; b < count; ++b) {
+        addOutput(hidden, b * hiddens, start, end, scores[b]);
+      }
+    }
+  }
+
+  private static float[] toFloats(double[] values) {
+    float[] floats = new float[values.length];
+    for (int i = 0; i < values.length; ++i) {
+      floats[i] = (float) values[i];
+    }
+    return floats;
+  }
+
+  /** Flattens a matrix into floats, transposing it if asked. */
+  private static float[] toFloats(double[][] matrix, boolean transpose) {
+    int rows = matrix.length, cols = matrix[0].length;
+    float[] flat = new float[rows * cols];
+    for (int r = 0; r < rows; ++r) {
+      for (int c = 0; c < cols; ++c) {
+        flat[transpose ? c * rows + r : r * cols + c] = (float) matrix[r][c];
+      }
+    }
+    return flat;
+  }
+
+
+  /** The weights as 32-bit floats. */
+  private static final class Floats extends PredictionWeights {
+    /** E[tok * embeddingSize + k] */
+    private final float[] E;
+    /** W1[(pos * embeddingSize + k) * hiddenSize + i] */
+    private final float[] W1;
+    /** W2[j * numLabels + label] */
+    private final float[] W2;
+    /** saved[preMap id * hiddenSize + i] */
+    private final float[] saved;
+
+    Floats(double[][] E, double[][] W1, double[] b1, double[][] W2, double[][] saved) {
+      super(b1, E[0].length, W2.length, saved != null);
+      this.E = toFloats(E, false);
+      this.W1 = toFloats(W1, true);
+      this.W2 = toFloats(W2, true);
+      this.saved = (saved == null) ? null : toFloats(saved, false);
+    }
+
+    @Override
+    long sizeInBytes() {
+      return 4L * (E.length + W1.length + W2.length + b1.length + (saved == null ? 0 : saved.length));
+    }
+
+    @Override
+    void addSaved(int id, float[] hidden, int h) {
+      final float[] saved = this.saved;
+      final int s = id * hiddenSize;
+      for (int i = 0; i < hiddenSize; ++i) {
+        hidden[h + i] += saved[s + i];
+      }
+    }
+
+    @Override
+    void addEmbedding(int tok, int pos, float[] hidden, int h) {
+      final float[] W1 = this.W1;
+      final int hiddens = hiddenSize;
+      final int e = tok * embeddingSize;
+      int w = pos * embeddingSize * hiddens;
+      for (int k = 0; k < embeddingSize; ++k, w += hiddens) {
+        final float ek = E[e + k];
+        for (int i = 0; i < hiddens; ++i) {
+          hidden[h + i] += W1[w + i] * ek;
+        }
+      }
+    }
+
+    @Override
+    void addOutput(float[] hidden, int h, int start, int end, float[] scores) {
+      final float[] W2 = this.W2;
+      final int labels = numLabels;
+      for (int j = start; j < end; ++j) {
+        final float hj = hidden[h + j];
+        final int w = j * labels;
+        for (int label = 0; label < labels; ++label) {
+          scores[label] += W2[w + label] * hj;
+        }
+      }
+    }
+  }
+
+
+  /**
+   * The weights as signed bytes, each row with its own scale: the weight
+   * is {@code values[row * rowLength + i] * scales[row]}. The scale folds
+   * into the scalar operand of each inner loop, so dequantizing costs one
+   * int to float conversion per weight.
+   */
+  private static final class Int8 extends PredictionWeights {
+    private final byte[] E, W1, W2, saved;
+    private final float[] eScales, w1Scales, w2Scales, savedScales;
+
+    Int8(double[][] E, double[][] W1, double[] b1, double[][] W2, double[][] saved) {
+      super(b1, E[0].length, W2.length, saved != null);
+      this.eScales = new float[E.length];
+      this.E = quantize(E, false, eScales);
+      this.w1Scales = new float[W1[0].length];
+      this.W1 = quantize(W1, true, w1Scales);
+      this.w2Scales = new float[hiddenSize];
+      this.W2 = quantize(W2, true, w2Scales);
+      if (saved == null) {
+        this.savedScales = null;
+        this.saved = null;
+      } else {
+        this.savedScales = new float[saved.length];
+        this.saved = quantize(saved, false, savedScales);
+      }
+    }
+
+    /**
+     * Symmetric quantization of each row of a matrix (of its transpose, if
+     * asked) into [-127, 127], flattened.
+     */
+    private static byte[] quantize(double[][] matrix, boolean transpose, float[] scales) {
+      int rows = transpose ? matrix[0].length : matrix.length;
+      int rowLength = transpose ? matrix.length : matrix[0].length;
+      byte[] quantized = new byte[rows * rowLength];
+      for (int row = 0; row < rows; ++row) {
+        double max = 0.0;
+        for (int i = 0; i < rowLength; ++i) {
+          max = Math.max(max, Math.abs(transpose ? matrix[i][row] : matrix[row][i]));
+        }
+        double scale = (max == 0.0) ? 1.0 : max / 127.0;
+        scales[row] = (float) scale;
+        for (int i = 0; i < rowLength; ++i) {
+          double value = transpose ? matrix[i][row] : matrix[row][i];
+          quantized[row * rowLength + i] = (byte) Math.round(value / scale);
+        }
+      }
+      return quantized;
+    }
+
+    @Override
+    long sizeInBytes() {
+      return E.length + W1.length + W2.length + (saved == null ? 0 : saved.length) +
+          4L * (b1.length + eScales.length + w1Scales.length + w2Scales.length + (saved == null ? 0 : savedScales.length));
+    }
+
+    @Override
+    void addSaved(int id, float[] hidden, int h) {
+      final byte[] saved = this.saved;
+      final float scale = savedScales[id];
+      final int s = id * hiddenSize;
+      for (int i = 0; i < hiddenSize; ++i) {
+        hidden[h + i] += saved[s + i] * scale;
+      }
+    }
+
+    @Override
+    void addEmbedding(int tok, int pos, float[] hidden, int h) {
+      final byte[] W1 = this.W1;
+      final int hiddens = hiddenSize;
+      final int e = tok * embeddingSize;
+      final float eScale = eScales[tok];
+      int row = pos * embeddingSize;
+      for (int k = 0; k < embeddingSize; ++k, ++row) {
+        final float ek = E[e + k] * eScale * w1Scales[row];
+        final int w = row * hiddens;
+        for (int i = 0; i < hiddens; ++i) {
+          hidden[h + i] += W1[w + i] * ek;
+        }
+      }
+    }
+
+    @Override
+    void addOutput(float[] hidden, int h, int start, int end, float[] scores) {
+      final byte[] W2 = this.W2;
+      final int labels = numLabels;
+      for (int j = start; j < end; ++j) {
+        final float hj = hidden[h + j] * w2Scales[j];
+        final int w = j * labels;
+        for (int label = 0; label < labels; ++label) {
+          scores[label] += W2[w + label] * hj;
+        }
+      }
+    }
+  }
+
+}
@@ -8,75 +8,82 @@ import edu.stanford.nlp.trees.TreeCoreAnnotations;
 import edu.stanford.nlp.util.TreeShapedStack;
 
 public class BasicFeatureFactory extends FeatureFactory {
-  public static void addUnaryStackFeatures(List<String> features, CoreLabel label, String conFeature, String wordTagFeature, String tagFeature, String wordConFeature, String tagConFeature) {
+  public static void addUnaryStackFeatures(FeatureSink features, CoreLabel label, String conFeature, String wordTagFeature, String tagFeature, String wordConFeature, String tagConFeature) {
     if (label == null) {
-      features.add(conFeature + NULL);
+      features.start(conFeature).append(NULL).end();
       return;
     }
     String constituent = getFeatureFromCoreLabel(label, FeatureComponent.VALUE);
     String tag = getFeatureFromCoreLabel(label, FeatureComponent.HEADTAG);
     String word = getFeatureFromCoreLabel(label, FeatureComponent.HEADWORD);
 
-    features.add(conFeature + constituent);
-    features.add(wordTagFeature + word + '-' + tag);
-    features.add(tagFeature + tag);
-    features.add(wordConFeature + word + '-' + constituent);
-    features.add(tagConFeature + tag + '-' + constituent);
+    features.start(conFeature).append(constituent).end();
+    features.start(wordTagFeature).append(word).append('-').append(tag).end();
+    features.start(tagFeature).append(tag).end();
+    features.start(wordConFeature).append(word).append('-').append(constituent).end();
+    features.start(tagConFeature).append(tag).append('-').append(constituent).end();
   }
 
-  public static void addUnaryQueueFeatures(List<String> features, CoreLabel label, String wtFeature) {
+  public static void addUnaryQueueFeatures(FeatureSink features, CoreLabel label, String wtFeature) {
     if (label == null) {
-      features.add(wtFeature + NULL);
+      features.start(wtFeature).append(NULL).end();
       return;
     }
     String tag = label.get(TreeCoreAnnotations.HeadTagLabelAnnotation.class).value();
     String word = label.get(TreeCoreAnnotations.HeadWordLabelAnnotation.class).value();
 
-    // TODO: check to see if this is slow because of the string concat
-    features.add(wtFeature + tag + '-' + word);
+    features.start(wtFeature).append(tag).append('-').append(word).end();
   }
 
-  public static void addBinaryFeatures(List<String> features,
+  public static void addBinaryFeatures(FeatureSink features,
                                        String name1, CoreLabel label1, FeatureComponent feature11, FeatureComponent feature12,
                                        String name2, CoreLabel label2, FeatureComponent feature21, FeatureComponent feature22) {
     if (label1 == null) {
       if (label2 == null) {
-        features.add(name1 + 'n' + name2 + 'n');
+        features.start(name1).append('n').append(name2).append('n').end();
       } else {
-        addUnaryFeature(features, name1 + 'n' + name2 + feature21.shortName() + '-', label2, feature21);
-        addUnaryFeature(features, name1 + 'n' + name2 + feature22.shortName() + '-', label2, feature22);
+        features.start(name1).append('n').append(name2).append(feature21.shortName()).append('-').append(getFeatureFromCoreLabel(label2, feature21)).end();
+        features.start(name1).append('n').append(name2).append(feature22.shortName()).append('-').append(getFeatureFromCoreLabel(label2, feature22)).end();
       }
     } else if (label2 == null) {
-      addUnaryFeature(features, name1 + feature11.shortName() + name2 + "n-", label1, feature11);
-      addUnaryFeature(features, name1 + feature12.shortName() + name2 + "n-", label1, feature12);
+      features.start(name1).append(feature11.shortName()).append(name2).append("n-").append(getFeatureFromCoreLabel(label1, feature11)).end();
+      features.start(name1).append(feature12.shortName()).append(name2).append("n-").append(getFeatureFromCoreLabel(label1, feature12)).end();
     } else {
-      addBinaryFeature(features, name1 + feature11.shortName() + name2 + feature21.shortName() + '-', label1, feature11, label2, feature21);
-      addBinaryFeature(features, name1 + feature11.shortName() + name2 + feature22.shortName() + '-', label1, feature11, label2, feature22);
-      addBinaryFeature(features, name1 + feature12.shortName() + name2 + feature21.shortName() + '-', label1, feature12, label2, feature21);
-      addBinaryFeature(features, name1 + feature12.shortName() + name2 + feature22.shortName() + '-', label1, feature12, label2, feature22);
+      addBinaryFeature(features, name1, label1, feature11, name2, label2, feature21);
+      addBinaryFeature(features, name1, label1, feature11, name2, label2, feature22);
+      addBinaryFeature(features, name1, label1, feature12, name2, label2, feature21);
+      addBinaryFeature(features, name1, label1, feature12, name2, label2, feature22);
     }
   }
 
-  public static void addUnaryFeature(List<String> features, String featureType, CoreLabel label, FeatureComponent feature) {
+  /** Adds name1 + feature1 + name2 + feature2 + '-' + value1 + '-' + value2 */
+  private static void addBinaryFeature(FeatureSink features, String name1, CoreLabel label1, FeatureComponent feature1, String name2, CoreLabel label2, FeatureComponent feature2) {
+    String value1 = getFeatureFromCoreLabel(label1, feature1);
+    String value2 = getFeatureFromCoreLabel(label2, feature2);
+    features.start(name1).append(feature1.shortName()).append(name2).append(feature2.shortName()).append('-')
+      .append(value1).append('-').append(value2).end();
+  }
+
+  public static void addUnaryFeature(FeatureSink features, String featureType, CoreLabel label, FeatureComponent feature) {
     String value = getFeatureFromCoreLabel(label, feature);
-    features.add(featureType + value);
+    features.start(featureType).append(value).end();
   }
 
-  public static void addBinaryFeature(List<String> features, String featureType, CoreLabel label1, FeatureComponent feature1, CoreLabel label2, FeatureComponent feature2) {
+  public static void addBinaryFeature(FeatureSink features, String featureType, CoreLabel label1, FeatureComponent feature1, CoreLabel label2, FeatureComponent feature2) {
     String value1 = getFeatureFromCoreLabel(label1, feature1);
     String value2 = getFeatureFromCoreLabel(label2, feature2);
-    features.add(featureType + value1 + '-' + value2);
+    features.start(featureType).append(value1).append('-').append(value2).end();
   }
 
-  public static void addTrigramFeature(List<String> features, String featureType, CoreLabel label1, FeatureComponent feature1, CoreLabel label2, FeatureComponent feature2, CoreLabel label3, FeatureComponent feature3) {
+  public static void addTrigramFeature(FeatureSink features, String featureType, CoreLabel label1, FeatureComponent feature1, CoreLabel label2, FeatureComponent feature2, CoreLabel label3, FeatureComponent feature3) {
     String value1 = getFeatureFromCoreLabel(label1, feature1);
     String value2 = getFeatureFromCoreLabel(label2, feature2);
     String value3 = getFeatureFromCoreLabel(label3, feature3);
 
-    features.add(featureType + value1 + '-' + value2 + '-' + value3);
+    features.start(featureType).append(value1).append('-').append(value2).append('-').append(value3).end();
   }
 
-  public static void addPositionFeatures(List<String> features, State state) {
+  public static void addPositionFeatures(FeatureSink features, State state) {
     if (state.tokenPosition >= state.sentence.size()) {
       features.add("QUEUE_FINISHED");
     }
@@ -85,60 +92,82 @@ public class BasicFeatureFactory extends FeatureFactory {
     }
   }
 
-  public static void addSeparatorFeature(List<String> features, String featureType, State.HeadPosition separator) {
+  public static void addSeparatorFeature(FeatureSink features, String featureType, State.HeadPosition separator) {
     if (separator == null) {
       return;
     }
-    features.add(featureType + separator);
+    features.start(featureType).append(separator).end();
   }
 
-  public static void addSeparatorFeature(List<String> features, String featureType, CoreLabel label, FeatureComponent feature, State.HeadPosition separator) {
+  public static void addSeparatorFeature(FeatureSink features, String featureType, CoreLabel label, FeatureComponent feature, State.HeadPosition separator) {
     if (separator == null) {
       return;
     }
 
     String value = getFeatureFromCoreLabel(label, feature);
 
-    features.add(featureType + value + '-' + separator);
+    features.start(featureType).append(value).append('-').append(separator).end();
   }
 
-  public static void addSeparatorFeature(List<String> features, String featureType, CoreLabel label, FeatureComponent feature, boolean between) {
+  public static void addSeparatorFeature(FeatureSink features, String featureType, CoreLabel label, FeatureComponent feature, boolean between) {
     String value = getFeatureFromCoreLabel(label, feature);
 
-    features.add(featureType + value + '-' + between);
+    features.start(featureType).append(value).append('-').append(between).end();
   }
 
-  public static void addSeparatorFeature(List<String> features, String featureType, CoreLabel label1, FeatureComponent feature1, CoreLabel label2, FeatureComponent feature2, boolean between) {
+  public static void addSeparatorFeature(FeatureSink features, String featureType, CoreLabel label1, FeatureComponent feature1, CoreLabel label2, FeatureComponent feature2, boolean between) {
     String value1 = getFeatureFromCoreLabel(label1, feature1);
     String value2 = getFeatureFromCoreLabel(label2, feature2);
 
-    features.add(featureType + value1 + '-' + value2 + '-' + between);
+    features.start(featureType).append(value1).append('-').append(value2).append('-').append(between).end();
   }
 
-  public static void addSeparatorFeatures(List<String> features, String name1, CoreLabel label1, String name2, CoreLabel label2, String separatorBetween, int countBetween) {
+  public static void addSeparatorFeatures(FeatureSink features, String name1, CoreLabel label1, String name2, CoreLabel label2, String separatorBetween, int countBetween) {
     if (label1 == null || label2 == null) {
       return;
     }
 
     // 0 separators is captured by the countBetween features
     if (separatorBetween != null) {
-      String separatorBetweenName = "Sepb" + name1 + name2 + '-' + separatorBetween + '-';
-      addUnaryFeature(features, name1 + 'w' + separatorBetweenName, label1, FeatureComponent.HEADWORD);
-      addBinaryFeature(features, name1 + "wc" + separatorBetweenName, label1, FeatureComponent.HEADWORD, label1, FeatureComponent.VALUE);
-      addUnaryFeature(features, name2 + 'w' + separatorBetweenName, label2, FeatureComponent.HEADWORD);
-      addBinaryFeature(features, name2 + "wc" + separatorBetweenName, label2, FeatureComponent.HEADWORD, label2, FeatureComponent.VALUE);
-      addBinaryFeature(features, name1 + 'c' + name2 + 'c' + separatorBetweenName, label1, FeatureComponent.VALUE, label2, FeatureComponent.VALUE);
+      addSeparatorBetweenFeatures(features, name1, label1, name2, label2, separatorBetween, 0);
     }
+    addSeparatorBetweenFeatures(features, name1, label1, name2, label2, null, countBetween);
+  }
+
+  /**
+   * Adds the words and constituents of the two labels, each conjoined with
+   * "Sepb" + name1 + name2 + '-' + between + '-', where between is
+   * separatorBetween if it is not null and countBetween otherwise
+   */
+  private static void addSeparatorBetweenFeatures(FeatureSink features, String name1, CoreLabel label1, String name2, CoreLabel label2, String separatorBetween, int countBetween) {
+    String word1 = getFeatureFromCoreLabel(label1, FeatureComponent.HEADWORD);
+    String value1 = getFeatureFromCoreLabel(label1, FeatureComponent.VALUE);
+    String word2 = getFeatureFromCoreLabel(label2, FeatureComponent.HEADWORD);
+    String value2 = getFeatureFromCoreLabel(label2, FeatureComponent.VALUE);
+
+    appendSeparatorBetween(features.start(name1).append('w'), name1, name2, separatorBetween, countBetween)
+      .append(word1).end();
+    appendSeparatorBetween(features.start(name1).append("wc"), name1, name2, separatorBetween, countBetween)
+      .append(word1).append('-').append(value1).end();
+    appendSeparatorBetween(features.start(name2).append('w'), name1, name2, separatorBetween, countBetween)
+      .append(word2).end();
+    appendSeparatorBetween(features.start(name2).append("wc"), name1, name2, separatorBetween, countBetween)
+      .append(word2).append('-').append(value2).end();
+    appendSeparatorBetween(features.start(name1).append('c').append(name2).append('c'), name1, name2, separatorBetween, countBetween)
+      .append(value1).append('-').append(value2).end();
+  }
 
-    String countBetweenName = "Sepb" + name1 + name2 + '-' + countBetween + '-';
-    addUnaryFeature(features, name1 + 'w' + countBetweenName, label1, FeatureComponent.HEADWORD);
-    addBinaryFeature(features, name1 + "wc" + countBetweenName, label1, FeatureComponent.HEADWORD, label1, FeatureComponent.VALUE);
-    addUnaryFeature(features, name2 + 'w' + countBetweenName, label2, FeatureComponent.HEADWORD);
-    addBinaryFeature(features, name2 + "wc" + countBetweenName, label2, FeatureComponent.HEADWORD, label2, FeatureComponent.VALUE);
-    addBinaryFeature(features, name1 + 'c' + name2 + 'c' + countBetweenName, label1, FeatureComponent.VALUE, label2, FeatureComponent.VALUE);
+  private static FeatureSink appendSeparatorBetween(FeatureSink features, String name1, String name2, String separatorBetween, int countBetween) {
+    features.append("Sepb").append(name1).append(name2).append('-');
+    if (separatorBetween != null) {
+      features.append(separatorBetween);
+    } else {
+      features.append(countBetween);
+    }
+    return features.append('-');
   }
 
-  public static void addSeparatorFeatures(List<String> features, CoreLabel s0Label, CoreLabel s1Label, State.HeadPosition s0Separator, State.HeadPosition s1Separator) {
+  public static void addSeparatorFeatures(FeatureSink features, CoreLabel s0Label, CoreLabel s1Label, State.HeadPosition s0Separator, State.HeadPosition s1Separator) {
     boolean between = false;
     if ((s0Separator != null && (s0Separator == State.HeadPosition.BOTH || s0Separator == State.HeadPosition.LEFT)) ||
         (s1Separator != null && (s1Separator == State.HeadPosition.BOTH || s1Separator == State.HeadPosition.RIGHT))) {
@@ -182,7 +211,7 @@ public class BasicFeatureFactory extends FeatureFactory {
    * ends of the tree.  Also adds notes about the sizes of the given
    * tree.  However, it seems somewhat slow and doesn't help accuracy.
    */
-  public static void addEdgeFeatures(List<String> features, State state, String nodeName, String neighborName, Tree node, Tree neighbor) {
+  public static void addEdgeFeatures(FeatureSink features, State state, String nodeName, String neighborName, Tree node, Tree neighbor) {
     if (node == null) {
       return;
     }
@@ -192,7 +221,7 @@ public class BasicFeatureFactory extends FeatureFactory {
 
     // Trees of size one are already featurized
     if (right == left) {
-      features.add(nodeName + "SZ1");
+      features.start(nodeName).append("SZ1").end();
       return;
     }
 
@@ -204,23 +233,23 @@ public class BasicFeatureFactory extends FeatureFactory {
     }
 
     if (right - left == 1) {
-      features.add(nodeName + "SZ2");
+      features.start(nodeName).append("SZ2").end();
       return;
     }
 
     if (right - left == 2) {
-      features.add(nodeName + "SZ3");
+      features.start(nodeName).append("SZ3").end();
       addUnaryQueueFeatures(features, getCoreLabel(state.sentence.get(left + 1)), nodeName + "EM-");
       return;
     }
 
-    features.add(nodeName + "SZB");
+    features.start(nodeName).append("SZB").end();
     addUnaryQueueFeatures(features, getCoreLabel(state.sentence.get(left + 1)), nodeName + "El-");
     addUnaryQueueFeatures(features, getCoreLabel(state.sentence.get(right - 1)), nodeName + "Er-");
   }
 
   /** This option also does not seem to help */
-  public static void addEdgeFeatures2(List<String> features, State state, String nodeName, Tree node) {
+  public static void addEdgeFeatures2(FeatureSink features, State state, String nodeName, Tree node) {
     if (node == null) {
       return;
     }
@@ -246,7 +275,7 @@ public class BasicFeatureFactory extends FeatureFactory {
   /**
    * Also did not seem to help
    */
-  public static void addExtraTrigramFeatures(List<String> features, CoreLabel s0Label, CoreLabel s1Label, CoreLabel s2Label, CoreLabel q0Label, CoreLabel q1Label) {
+  public static void addExtraTrigramFeatures(FeatureSink features, CoreLabel s0Label, CoreLabel s1Label, CoreLabel s2Label, CoreLabel q0Label, CoreLabel q1Label) {
     addTrigramFeature(features, "S0wS1wS2c-", s0Label, FeatureComponent.HEADWORD, s1Label, FeatureComponent.HEADWORD, s2Label, FeatureComponent.VALUE);
     addTrigramFeature(features, "S0wS1cS2w-", s0Label, FeatureComponent.HEADWORD, s1Label, FeatureComponent.VALUE, s2Label, FeatureComponent.HEADWORD);
     addTrigramFeature(features, "S0cS1wS2w-", s0Label, FeatureComponent.VALUE, s1Label, FeatureComponent.HEADWORD, s2Label, FeatureComponent.HEADWORD);
@@ -266,6 +295,12 @@ public class BasicFeatureFactory extends FeatureFactory {
 
   @Override
   public List<String> featurize(State state, List<String> features) {
+    featurize(state, FeatureSink.of(features));
+    return features;
+  }
+
+  @Override
+  public void featurize(State state, FeatureSink features) {
     final TreeShapedStack<Tree> stack = state.stack;
     final List<Tree> sentence = state.sentence;
     final int tokenPosition = state.tokenPosition;
@@ -376,8 +411,6 @@ public class BasicFeatureFactory extends FeatureFactory {
     Tree q0Node = state.getQueueNode(0);
     addSeparatorFeatures(features, "S0", s0Label, "S1", s1Label, state.getSeparatorBetween(s0Node, s1Node), state.getSeparatorCount(s0Node, s1Node));
     addSeparatorFeatures(features, "S0", s0Label, "Q0", q0Label, state.getSeparatorBetween(q0Node, s0Node), state.getSeparatorCount(q0Node, s0Node));
-
-    return features;
   }
 
   private static final long serialVersionUID = 1;
@@ -16,6 +16,18 @@ public abstract class FeatureFactory implements Serializable {
 
   abstract public List<String> featurize(State state, List<String> features);
 
+  /**
+   * Gives the features of the state to {@code features} one part at a
+   * time.  Factories which build their features from parts should
+   * override this to skip building the feature Strings; by default, the
+   * features from {@link #featurize(State)} are passed on whole.
+   */
+  public void featurize(State state, FeatureSink features) {
+    for (String feature : featurize(state)) {
+      features.add(feature);
+    }
+  }
+
   enum Transition {
     LEFT, RIGHT, UNARY
   };
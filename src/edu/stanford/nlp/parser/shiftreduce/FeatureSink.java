@@ -0,0 +1,95 @@
+package edu.stanford.nlp.parser.shiftreduce;
+
+import java.util.List;
+
+/**
+ * Receives the features of a state from a {@link FeatureFactory}.
+ * Each feature is built up from a few parts, e.g.
+ * <code>features.start("S0WT-").append(word).append('-').append(tag).end()</code>,
+ * so that a model which only needs to look features up can hash the
+ * parts as they come rather than concatenating them into a String.
+ * <br>
+ * A feature built this way must be the same as the concatenation of
+ * its parts: {@link #of(List)} builds exactly those Strings.
+ *
+ * @see HashedFeatureWeights
+ */
+public abstract class FeatureSink {
+
+  /** Starts a new feature, beginning with {@code prefix} */
+  public abstract FeatureSink start(String prefix);
+
+  public abstract FeatureSink append(String part);
+
+  public abstract FeatureSink append(char c);
+
+  public FeatureSink append(int i) {
+    return append(Integer.toString(i));
+  }
+
+  public FeatureSink append(boolean b) {
+    return append(b ? "true" : "false");
+  }
+
+  public FeatureSink append(Enum<?> e) {
+    return append(e.toString());
+  }
+
+  /** Finishes the feature started by the last {@link #start(String)} */
+  public abstract void end();
+
+  /** Adds a feature in one piece */
+  public void add(String feature) {
+    start(feature).end();
+  }
+
+  /** A sink which concatenates each feature into a String and adds it to {@code features} */
+  public static FeatureSink of(List<String> features) {
+    return new StringFeatureSink(features);
+  }
+
+  private static class StringFeatureSink extends FeatureSink {
+    private final List<String> features;
+    private final StringBuilder builder = new StringBuilder();
+
+    StringFeatureSink(List<String> features) {
+      this.features = features;
+    }
+
+    @Override
+    public FeatureSink start(String prefix) {
+      builder.setLength(0);
+      builder.append(prefix);
+      return this;
+    }
+
+    @Override
+    public FeatureSink append(String part) {
+      builder.append(part);
+      return this;
+    }
+
+    @Override
+    public FeatureSink append(char c) {
+      builder.append(c);
+      return this;
+    }
+
+    @Override
+    public FeatureSink append(int i) {
+      builder.append(i);
+      return this;
+    }
+
+    @Override
+    public void end() {
+      features.add(builder.toString());
+    }
+
+    @Override
+    public void add(String feature) {
+      features.add(feature);
+    }
+  }
+
+}
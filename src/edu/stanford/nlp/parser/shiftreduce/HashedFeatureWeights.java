@@ -0,0 +1,175 @@
+package edu.stanford.nlp.parser.shiftreduce;
+
+import java.util.Map;
+
+/**
+ * A read-only copy of the feature weights of a {@link PerceptronModel},
+ * keyed by a 64 bit hash of each feature instead of the feature String.
+ * The hash can be computed from the parts of a feature as a
+ * {@link FeatureFactory} produces them, so scoring a state with
+ * {@link #scorer(float[])} does not build any feature Strings.
+ * <br>
+ * The weights of all the features are packed one after another, in the
+ * format of {@link Weight}, in one array.  The table is built once and
+ * is not changed afterwards, so it can be shared by threads.
+ * <br>
+ * Two different features with the same hash would get mixed up, so
+ * {@link #isExact()} reports whether that happened while building the
+ * table.  With 64 bit hashes this is not expected to happen for any
+ * realistic number of features.
+ *
+ * @see ShiftReduceTestOptions#hashedFeatures
+ */
+final class HashedFeatureWeights {
+
+  // FNV-1a, one char at a time
+  private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long PRIME = 0x100000001b3L;
+
+  /** Hash of the feature in each slot, or 0 for an empty slot */
+  private final long[] hashes;
+  /** The weights of the feature in slot i are packed[starts[i]] to packed[ends[i] - 1] */
+  private final int[] starts;
+  private final int[] ends;
+  private final long[] packed;
+  private final int mask;
+  private final boolean exact;
+
+  HashedFeatureWeights(Map<String, Weight> featureWeights) {
+    int size = featureWeights.size();
+    int capacity = Integer.highestOneBit(Math.max(2, size) * 2 - 1) << 1;
+    hashes = new long[capacity];
+    starts = new int[capacity];
+    ends = new int[capacity];
+    mask = capacity - 1;
+
+    int numWeights = 0;
+    for (Weight weight : featureWeights.values()) {
+      numWeights += weight.size();
+    }
+    packed = new long[numWeights];
+
+    boolean collision = false;
+    int next = 0;
+    for (Map.Entry<String, Weight> entry : featureWeights.entrySet()) {
+      long hash = hash(entry.getKey());
+      int slot = slot(hash);
+      while (hashes[slot] != 0) {
+        if (hashes[slot] == hash) {
+          collision = true;
+        }
+        slot = (slot + 1) & mask;
+      }
+      Weight weight = entry.getValue();
+      hashes[slot] = hash;
+      starts[slot] = next;
+      if (weight.size() > 0) {
+        System.arraycopy(weight.packed, 0, packed, next, weight.size());
+        next += weight.size();
+      }
+      ends[slot] = next;
+    }
+    exact = !collision;
+  }
+
+  /** Whether every feature has its own hash, i.e., the table scores states exactly as the feature map does */
+  boolean isExact() {
+    return exact;
+  }
+
+  static long hash(String feature) {
+    long hash = OFFSET_BASIS;
+    for (int i = 0, len = feature.length(); i < len; ++i) {
+      hash = (hash ^ feature.charAt(i)) * PRIME;
+    }
+    return nonZero(hash);
+  }
+
+  /** 0 marks an empty slot, so it is moved out of the way */
+  private static long nonZero(long hash) {
+    return (hash == 0) ? 1 : hash;
+  }
+
+  private int slot(long hash) {
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  /** Adds the weights of the feature with the given hash, if there is one, to {@code scores} */
+  private void score(long hash, float[] scores) {
+    for (int slot = slot(hash); hashes[slot] != 0; slot = (slot + 1) & mask) {
+      if (hashes[slot] == hash) {
+        for (int i = starts[slot], end = ends[slot]; i < end; ++i) {
+          final long pack = packed[i];
+          scores[(int) (pack >>> 32)] += Float.intBitsToFloat((int) pack);
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns a sink which adds the weights of each feature given to it to
+   * {@code scores}.  Features which are not in the table are ignored.
+   * One scorer is used by one thread at a time.
+   */
+  FeatureSink scorer(float[] scores) {
+    return new Scorer(scores);
+  }
+
+  private class Scorer extends FeatureSink {
+    private final float[] scores;
+    private long hash;
+
+    Scorer(float[] scores) {
+      this.scores = scores;
+    }
+
+    @Override
+    public FeatureSink start(String prefix) {
+      hash = OFFSET_BASIS;
+      return append(prefix);
+    }
+
+    @Override
+    public FeatureSink append(String part) {
+      if (part == null) {
+        part = "null";  // as String concatenation would have it
+      }
+      long h = hash;
+      for (int i = 0, len = part.length(); i < len; ++i) {
+        h = (h ^ part.charAt(i)) * PRIME;
+      }
+      hash = h;
+      return this;
+    }
+
+    @Override
+    public FeatureSink append(char c) {
+      hash = (hash ^ c) * PRIME;
+      return this;
+    }
+
+    @Override
+    public FeatureSink append(int i) {
+      long value = i;
+      if (value < 0) {
+        append('-');
+        value = -value;
+      }
+      long divisor = 1;
+      while (divisor * 10 <= value) {
+        divisor *= 10;
+      }
+      for (; divisor > 0; divisor /= 10) {
+        append((char) ('0' + (value / divisor) % 10));
+      }
+      return this;
+    }
+
+    @Override
+    public void end() {
+      score(nonZero(hash), scores);
+    }
+  }
+
+}
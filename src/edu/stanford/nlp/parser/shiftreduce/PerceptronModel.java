@@ -35,6 +35,12 @@ public class PerceptronModel extends BaseModel { // Serializable
   Map<String, Weight> featureWeights;
   final FeatureFactory featureFactory;
 
+  /**
+   * featureWeights keyed by feature hashes, built the first time it is
+   * needed.  Anything which changes featureWeights must reset this.
+   */
+  private transient volatile HashedFeatureWeights hashedWeights;
+
   public PerceptronModel(ShiftReduceOptions op, Index<Transition> transitionIndex,
                          Set<String> knownStates, Set<String> rootStates, Set<String> rootOnlyStates) {
     super(op, transitionIndex, knownStates, rootStates, rootOnlyStates);
@@ -99,6 +105,7 @@ public class PerceptronModel extends BaseModel { // Serializable
     }
 
     featureWeights = Generics.newHashMap();
+    hashedWeights = null;
     for (String feature : features) {
       featureWeights.put(feature, new Weight());
     }
@@ -120,6 +127,7 @@ public class PerceptronModel extends BaseModel { // Serializable
    * Any feature with no transitions left is then removed
    */
   void condenseFeatures() {
+    hashedWeights = null;
     Iterator<String> featureIt = featureWeights.keySet().iterator();
     while (featureIt.hasNext()) {
       String feature = featureIt.next();
@@ -132,6 +140,7 @@ public class PerceptronModel extends BaseModel { // Serializable
   }
 
   void filterFeatures(Set<String> keep) {
+    hashedWeights = null;
     Iterator<String> featureIt = featureWeights.keySet().iterator();
     while (featureIt.hasNext()) {
       if (!keep.contains(featureIt.next())) {
@@ -197,10 +206,35 @@ public class PerceptronModel extends BaseModel { // Serializable
 
   @Override
   public Collection<ScoredObject<Integer>> findHighestScoringTransitions(State state, boolean requireLegal, int numTransitions, List<ParserConstraint> constraints) {
+    if (op.testOptions().hashedFeatures) {
+      HashedFeatureWeights weights = hashedWeights();
+      if (weights.isExact()) {
+        float[] scores = new float[transitionIndex.size()];
+        featureFactory.featurize(state, weights.scorer(scores));
+        return findHighestScoringTransitions(state, scores, requireLegal, numTransitions, constraints);
+      }
+    }
     List<String> features = featureFactory.featurize(state);
     return findHighestScoringTransitions(state, features, requireLegal, numTransitions, constraints);
   }
 
+  private HashedFeatureWeights hashedWeights() {
+    HashedFeatureWeights weights = hashedWeights;
+    if (weights == null) {
+      synchronized (this) {
+        weights = hashedWeights;
+        if (weights == null) {
+          weights = new HashedFeatureWeights(featureWeights);
+          if (!weights.isExact()) {
+            System.err.println("Two features have the same hash; using the feature Strings instead");
+          }
+          hashedWeights = weights;
+        }
+      }
+    }
+    return weights;
+  }
+
   private Collection<ScoredObject<Integer>> findHighestScoringTransitions(State state, List<String> features, boolean requireLegal, int numTransitions, List<ParserConstraint> constraints) {
     float[] scores = new float[transitionIndex.size()];
     for (String feature : features) {
@@ -211,7 +245,10 @@ public class PerceptronModel extends BaseModel { // Serializable
       }
       weight.score(scores);
     }
+    return findHighestScoringTransitions(state, scores, requireLegal, numTransitions, constraints);
+  }
 
+  private Collection<ScoredObject<Integer>> findHighestScoringTransitions(State state, float[] scores, boolean requireLegal, int numTransitions, List<ParserConstraint> constraints) {
     PriorityQueue<ScoredObject<Integer>> queue = new PriorityQueue<>(numTransitions + 1, ScoredComparator.ASCENDING_COMPARATOR);
     for (int i = 0; i < scores.length; ++i) {
       if (!requireLegal || transitionIndex.get(i).isLegal(state, constraints)) {
@@ -546,6 +583,7 @@ public class PerceptronModel extends BaseModel { // Serializable
           }
         }
         updates.clear();
+        hashedWeights = null;
       }
       trainingTimer.done("Iteration " + iteration);
       System.err.println("While training, got " + numCorrect + " transitions correct and " + numWrong + " transitions wrong");
@@ -646,6 +684,7 @@ public class PerceptronModel extends BaseModel { // Serializable
       temp.saveModel(tempName);
       Set<String> features = featureWeights.keySet();
       featureWeights = Generics.newHashMap();
+      hashedWeights = null;
       trainModel(serializedPath, tagger, random, binarizedTrees, transitionLists, devTreebank, nThreads, features);
     } else {
       trainModel(serializedPath, tagger, random, binarizedTrees, transitionLists, devTreebank, nThreads, null);
@@ -96,6 +96,12 @@ public class ShiftReduceOptions extends Options {
     } else if (args[i].equalsIgnoreCase("-recordDebinarized")) {
       testOptions().recordDebinarized = args[i + 1];
       i += 2;
+    } else if (args[i].equalsIgnoreCase("-hashedFeatures")) {
+      testOptions().hashedFeatures = true;
+      i++;
+    } else if (args[i].equalsIgnoreCase("-nohashedFeatures")) {
+      testOptions().hashedFeatures = false;
+      i++;
     }
     return i;
   }
@@ -8,4 +8,13 @@ public class ShiftReduceTestOptions extends TestOptions {
   public String recordDebinarized = null;
 
   public int beamSize = 0;
+
+  /**
+   * Score states with a table keyed by hashes of the features rather
+   * than by the feature Strings, so that parsing does not build any
+   * feature Strings.  Only affects parsing, not training.
+   */
+  public boolean hashedFeatures = false;
+
+  private static final long serialVersionUID = 8510025869993799309L;
 }
@@ -7,6 +7,8 @@ import edu.stanford.nlp.util.logging.Redwood;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 
@@ -167,6 +169,107 @@ public class AnnotationPipeline implements Annotator {
     Redwood.Util.threadAndRun(this.getClass().getSimpleName(), threads, numThreads );
   }
 
+  /**
+   * Annotate a (possibly unbounded) stream of input annotations IN PARALLEL,
+   * with results returned in the order in which they were read.
+   * See {@link #annotateStream(Iterator, int, int, boolean, Consumer)}.
+   *
+   * @param annotations The input annotations to process
+   * @param callback Called on the calling thread with each finished annotation
+   */
+  public void annotateStream(Iterator<Annotation> annotations, Consumer<Annotation> callback) {
+    int numThreads = Runtime.getRuntime().availableProcessors();
+    annotateStream(annotations, numThreads, 2 * numThreads, true, callback);
+  }
+
+  /**
+   * Annotate a (possibly unbounded) stream of input annotations IN PARALLEL.
+   * Unlike {@link #annotate(Iterable, int, Function)}, at most
+   * {@code maxInFlight} documents are ever read but not yet handed to the callback,
+   * so a fast producer (e.g., a queue or a directory of files) can't
+   * run ahead of the pipeline and fill up the heap.
+   * The input iterator and the callback are both only ever called from the
+   * calling thread, so reading input and writing output overlaps with
+   * annotation on the worker threads, and neither needs to be threadsafe.
+   *
+   * @param annotations The input annotations to process.  It is only advanced
+   *                    when there is room in the in-flight window.
+   * @param numThreads The number of threads to annotate on
+   * @param maxInFlight The maximum number of documents read but not yet passed
+   *                    to the callback. Values smaller than numThreads are raised to numThreads.
+   * @param orderResults If true, the callback sees annotations in input order.
+   *                     Otherwise, it sees them as soon as they are finished.
+   * @param callback Called on the calling thread with each finished annotation
+   */
+  public void annotateStream(Iterator<Annotation> annotations, int numThreads, int maxInFlight,
+                             boolean orderResults, Consumer<Annotation> callback) {
+    if (numThreads <= 0) {
+      numThreads = Runtime.getRuntime().availableProcessors();
+    }
+    // case: single thread (no point in spawning threads)
+    if (numThreads == 1) {
+      while (annotations.hasNext()) {
+        Annotation ann = annotations.next();
+        annotate(ann);
+        callback.accept(ann);
+      }
+      return;
+    }
+    maxInFlight = Math.max(maxInFlight, numThreads);
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    // In order: a FIFO window of futures. Out of order: whatever completes first.
+    ArrayDeque<Future<Annotation>> window = new ArrayDeque<>(maxInFlight);
+    CompletionService<Annotation> completed = new ExecutorCompletionService<>(executor);
+    int inFlight = 0;
+    try {
+      while (annotations.hasNext()) {
+        if (inFlight == maxInFlight) {
+          // Window is full: block until the next result is ready
+          callback.accept(orderResults ? window.removeFirst().get() : completed.take().get());
+          inFlight--;
+        }
+        final Annotation input = annotations.next();
+        Callable<Annotation> job = () -> {
+          annotate(input);
+          return input;
+        };
+        if (orderResults) {
+          window.addLast(executor.submit(job));
+        } else {
+          completed.submit(job);
+        }
+        inFlight++;
+        // Hand over whatever is already finished, without blocking
+        for (Future<Annotation> done = nextDone(window, completed, orderResults); done != null;
+             done = nextDone(window, completed, orderResults)) {
+          callback.accept(done.get());
+          inFlight--;
+        }
+      }
+      for ( ; inFlight > 0; inFlight--) {
+        callback.accept(orderResults ? window.removeFirst().get() : completed.take().get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeInterruptedException(e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Returns (and removes) the next finished result, or null if the next result is not finished yet. */
+  private static Future<Annotation> nextDone(Deque<Future<Annotation>> window,
+                                             CompletionService<Annotation> completed,
+                                             boolean orderResults) {
+    if ( ! orderResults) {
+      return completed.poll();
+    }
+    Future<Annotation> head = window.peekFirst();
+    return (head != null && head.isDone()) ? window.removeFirst() : null;
+  }
+
   /** Return the total pipeline annotation time in milliseconds.
    *
    *  @return The total pipeline annotation time in milliseconds
@@ -1,8 +1,15 @@
 package edu.stanford.nlp.pipeline;
 
-import java.util.Map;
-
-import edu.stanford.nlp.util.Generics;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * An object for keeping track of Annotators. Typical use is to allow multiple
@@ -13,19 +20,32 @@ import edu.stanford.nlp.util.Generics;
  * Instead, an AnnotatorPool will only create one Annotator and allow both
  * pipelines to share it.
  *
+ * Annotators are kept by name and signature, so a pipeline which was
+ * built with an older signature for some name keeps sharing its
+ * annotator with any later pipeline built with that signature again, for
+ * as long as it is in use.  The pool holds on to the annotator of the
+ * signature currently registered for each name; the others are only
+ * weakly held, so they are freed once no pipeline uses them.
+ *
+ * Fetching annotators does not take a pool-wide lock: different
+ * annotators can be created at the same time (see
+ * {@link #preload(Collection, int)}), while each one is only created once.
+ *
  * @author bethard
  */
 public class AnnotatorPool {
 
-  private final Map<String, Annotator> annotators;
-  private final Map<String, AnnotatorFactory> factories;
+  /** The current factory of each name */
+  private final ConcurrentMap<String, Registration> registrations;
+  /** The annotator of each name and signature */
+  private final ConcurrentMap<String, Entry> entries;
 
   /**
    * Create an empty AnnotatorPool.
    */
   public AnnotatorPool() {
-    this.annotators = Generics.newHashMap();
-    this.factories = Generics.newHashMap();
+    this.registrations = new ConcurrentHashMap<>();
+    this.entries = new ConcurrentHashMap<>();
   }
 
   /**
@@ -39,32 +59,30 @@ public class AnnotatorPool {
    * @param factory A factory that creates an instance of the desired Annotator.
    * @return true if a new annotator was created; false if we reuse an existing one
    */
-  public boolean register(String name, AnnotatorFactory factory) {
-    boolean newAnnotator = false;
-    if (this.factories.containsKey(name)) {
-      AnnotatorFactory oldFactory = this.factories.get(name);
-      String oldSig = oldFactory.signature();
-      String newSig = factory.signature();
-      if(! oldSig.equals(newSig)) {
-        // the new annotator uses different properties so we need to update!
-        // TODO: this printout should be logged instead of going to stderr. we need to standardize logging
-        // System.err.println("Replacing old annotator \"" + name + "\" with signature ["
-        //         + oldSig + "] with new annotator with signature [" + newSig + "]");
-        this.factories.put(name, factory);
-        newAnnotator = true;
-
-        // delete the existing annotator; we'll create one with the new props on demand
-        // removing the annotator like this will not affect any
-        // existing pipelines which use the old annotator, but if
-        // those are all gone, then the old annotator will be garbage
-        // collected and memory will be freed up
-        annotators.remove(name);
-      }
+  public synchronized boolean register(String name, AnnotatorFactory factory) {
+    String key = name + '\n' + factory.signature();
+    Registration old = this.registrations.get(name);
+    if (old != null && old.key.equals(key)) {
       // nothing to do if an annotator with same name and signature already exists
-    } else {
-      this.factories.put(name, factory);
+      return false;
+    }
+    this.registrations.put(name, new Registration(name, factory, key));
+    if (old == null) {
+      return false;
     }
-    return newAnnotator;
+
+    // the new annotator uses different properties, so the pool lets go
+    // of the old one; it lives on while existing pipelines use it
+    Entry oldEntry = this.entries.get(old.key);
+    if (oldEntry != null) {
+      oldEntry.refresh();
+    }
+    Entry newEntry = this.entries.get(key);
+    if (newEntry != null) {
+      newEntry.refresh();
+    }
+    this.entries.values().removeIf(Entry::isUnused);
+    return newEntry == null || !newEntry.isLoaded();
   }
 
   /**
@@ -76,15 +94,117 @@ public class AnnotatorPool {
    * @return The annotator
    * @throws IllegalArgumentException If the annotator cannot be created
    */
-  public synchronized Annotator get(String name) {
-    if (!this.annotators.containsKey(name)) {
-      AnnotatorFactory factory = this.factories.get(name);
-      if (factory == null) {
-        throw new IllegalArgumentException("No annotator named " + name);
+  public Annotator get(String name) {
+    Registration registration = this.registrations.get(name);
+    if (registration == null) {
+      throw new IllegalArgumentException("No annotator named " + name);
+    }
+    Entry entry = this.entries.computeIfAbsent(registration.key, key -> new Entry(registration));
+    return entry.get();
+  }
+
+  /**
+   * Creates the named annotators which have not been created yet, using up
+   * to {@code threads} threads, so that models which take a while to load
+   * are loaded at the same time.  Names which are not registered are
+   * skipped, and an annotator which can't be created is left to throw its
+   * exception when it is fetched with {@link #get(String)}.
+   */
+  public void preload(Collection<String> names, int threads) {
+    List<String> toLoad = new ArrayList<>();
+    for (String name : names) {
+      Registration registration = this.registrations.get(name);
+      if (registration != null && !toLoad.contains(name)) {
+        Entry entry = this.entries.get(registration.key);
+        if (entry == null || !entry.isLoaded()) {
+          toLoad.add(name);
+        }
+      }
+    }
+    if (toLoad.size() < 2 || threads < 2) {
+      return;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, toLoad.size()));
+    try {
+      List<Future<Annotator>> futures = new ArrayList<>();
+      for (String name : toLoad) {
+        futures.add(executor.submit(() -> get(name)));
+      }
+      for (Future<Annotator> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          // reported by get(name) later
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+
+  private static class Registration {
+    final String name;
+    final AnnotatorFactory factory;
+    final String key;
+
+    Registration(String name, AnnotatorFactory factory, String key) {
+      this.name = name;
+      this.factory = factory;
+      this.key = key;
+    }
+  }
+
+  /**
+   * The annotator of one name and signature.  It is strongly held while
+   * the signature is the current one for the name, and weakly otherwise.
+   */
+  private class Entry {
+    private final Registration registration;
+    private Annotator annotator;
+    private volatile WeakReference<Annotator> weakAnnotator;
+    private volatile boolean loading;
+
+    Entry(Registration registration) {
+      this.registration = registration;
+    }
+
+    private boolean isCurrent() {
+      Registration current = registrations.get(registration.name);
+      return current != null && current.key.equals(registration.key);
+    }
+
+    synchronized Annotator get() {
+      Annotator result = (weakAnnotator == null) ? null : weakAnnotator.get();
+      if (result == null) {
+        loading = true;
+        try {
+          result = registration.factory.create();
+        } finally {
+          loading = false;
+        }
+        weakAnnotator = new WeakReference<>(result);
       }
-      this.annotators.put(name, factory.create());
+      annotator = isCurrent() ? result : null;
+      return result;
+    }
+
+    /** Holds on to the annotator, or lets go of it, after the current signature changed */
+    synchronized void refresh() {
+      annotator = (isCurrent() && weakAnnotator != null) ? weakAnnotator.get() : null;
+    }
+
+    boolean isLoaded() {
+      WeakReference<Annotator> ref = weakAnnotator;
+      return ref != null && ref.get() != null;
+    }
+
+    boolean isUnused() {
+      return !loading && !isCurrent() && !isLoaded();
     }
-    return this.annotators.get(name);
   }
 
 }
@@ -0,0 +1,715 @@
+package edu.stanford.nlp.pipeline;
+
+import java.io.*;
+import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import edu.stanford.nlp.dcoref.CorefChain;
+import edu.stanford.nlp.dcoref.Dictionaries;
+import edu.stanford.nlp.international.Language;
+import edu.stanford.nlp.io.RuntimeIOException;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.ling.IndexedWord;
+import edu.stanford.nlp.ling.Label;
+import edu.stanford.nlp.semgraph.SemanticGraph;
+import edu.stanford.nlp.semgraph.SemanticGraphEdge;
+import edu.stanford.nlp.trees.GrammaticalRelation;
+import edu.stanford.nlp.trees.LabeledScoredTreeNode;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.util.*;
+
+/**
+ * <p>
+ *   A compact, versioned binary serializer for Annotations.
+ *   Unlike {@link CustomAnnotationSerializer}, this serializer is lossless:
+ *   every key of every CoreMap is written, not just a fixed set of token fields.
+ *   Unlike {@link GenericAnnotationSerializer}, it does not go through Java serialization
+ *   for the common cases, so files are much smaller and much faster to read back.
+ * </p>
+ *
+ * <p>
+ *   The format is built around a few observations about annotated documents:
+ * </p>
+ * <ul>
+ *   <li>Strings (words, lemmas, tags, NER labels, annotation key names) are very repetitive,
+ *       so every String is written once per document and referred to by its index afterwards.</li>
+ *   <li>Ints (offsets, indices) are small, so they are written as zigzag varints.</li>
+ *   <li>The same CoreLabel is shared by the document token list, the sentence token list, and
+ *       the nodes of every dependency graph, so each CoreMap is written once and referred
+ *       to by id afterwards. Object identity is therefore preserved on reading.</li>
+ *   <li>Trees ({@link LabeledScoredTreeNode}), {@link SemanticGraph}s and {@link CorefChain}s
+ *       have dedicated encodings.</li>
+ * </ul>
+ *
+ * <p>
+ *   Any other value is written with Java serialization, so the round trip is lossless for
+ *   every Serializable value.  Note that CoreLabels inside such values are copies and do not
+ *   share identity with the document tokens.  A value which is not Serializable causes a
+ *   {@link LossySerializationException}, unless the serializer was created with
+ *   {@code enforceLosslessSerialization} set to false, in which case the key is silently skipped.
+ *   Lists are always read back as {@link ArrayList}s.
+ * </p>
+ *
+ * <p>
+ *   A stream starts with a magic number and a format version, followed by one length-prefixed
+ *   record per document. Each document carries its own string table, so a reader needs no
+ *   state from earlier documents.
+ *   Like the other serializers, this class can be selected with
+ *   {@code -serializer edu.stanford.nlp.pipeline.BinaryAnnotationSerializer}.
+ * </p>
+ */
+public class BinaryAnnotationSerializer extends AnnotationSerializer {
+
+  /** "CNLB" */
+  private static final int MAGIC = 0x434e4c42;
+
+  /** The version of the format written by this class. Bump when the encoding changes. */
+  public static final int FORMAT_VERSION = 1;
+
+  /** A global lock; necessary since dependency tree creation is not threadsafe */
+  private static final Object globalLock = new Object();
+
+  // Value tags
+  private static final byte NULL = 0;
+  private static final byte STRING = 1;
+  private static final byte INT = 2;
+  private static final byte LONG = 3;
+  private static final byte DOUBLE = 4;
+  private static final byte TRUE = 5;
+  private static final byte FALSE = 6;
+  private static final byte COREMAP = 7;
+  private static final byte COREMAP_REF = 8;
+  private static final byte LIST = 9;
+  private static final byte TREE = 10;
+  private static final byte SEMANTIC_GRAPH = 11;
+  private static final byte COREF_CHAIN = 12;
+  private static final byte HASH_MAP = 13;
+  private static final byte JAVA = 14;
+
+  private static final Dictionaries.MentionType[] MENTION_TYPES = Dictionaries.MentionType.values();
+  private static final Dictionaries.Number[] NUMBERS = Dictionaries.Number.values();
+  private static final Dictionaries.Gender[] GENDERS = Dictionaries.Gender.values();
+  private static final Dictionaries.Animacy[] ANIMACIES = Dictionaries.Animacy.values();
+
+  /** Class lookups are surprisingly expensive, and there are only a handful of distinct keys. */
+  private static final Map<String, Class<?>> classCache = new ConcurrentHashMap<>();
+
+  /**
+   * An exception to denote that the serialization would be lossy.
+   * This exception is thrown at serialization time.
+   *
+   * @see BinaryAnnotationSerializer#enforceLosslessSerialization
+   */
+  public static class LossySerializationException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private LossySerializationException(String msg) {
+      super(msg);
+    }
+  }
+
+  /** The output stream returned by {@link #write(Annotation, OutputStream)}; it has already written the stream header. */
+  public static class BinaryAnnotationOutputStream extends DataOutputStream {
+    public BinaryAnnotationOutputStream(OutputStream out) {
+      super(out);
+    }
+  }
+
+  /** The input stream returned by {@link #read(InputStream)}; its stream header has already been read. */
+  public static class BinaryAnnotationInputStream extends DataInputStream {
+    public BinaryAnnotationInputStream(InputStream in) {
+      super(in);
+    }
+  }
+
+  /** If true, gzip the output (and expect gzipped input) */
+  private final boolean compress;
+
+  /**
+   * If true, throw an exception on a value which cannot be written.
+   * Otherwise, such values are dropped.
+   */
+  public final boolean enforceLosslessSerialization;
+
+  public BinaryAnnotationSerializer() {
+    this(false, true);
+  }
+
+  public BinaryAnnotationSerializer(boolean compress, boolean enforceLosslessSerialization) {
+    this.compress = compress;
+    this.enforceLosslessSerialization = enforceLosslessSerialization;
+  }
+
+  /** The constructor used by {@link StanfordCoreNLP} when loading a serializer by reflection. */
+  public BinaryAnnotationSerializer(String name, Properties props) {
+    this(PropertiesUtils.getBool(props, name + ".compress", false),
+         PropertiesUtils.getBool(props, name + ".enforceLossless", true));
+  }
+
+  @Override
+  public OutputStream write(Annotation corpus, OutputStream os) throws IOException {
+    BinaryAnnotationOutputStream out;
+    if (os instanceof BinaryAnnotationOutputStream) {
+      out = (BinaryAnnotationOutputStream) os;
+    } else {
+      out = new BinaryAnnotationOutputStream(new BufferedOutputStream(compress ? new GZIPOutputStream(os) : os));
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+    }
+    Encoder encoder = new Encoder();
+    encoder.writeValue(corpus);
+    Encoder frame = new Encoder();
+    frame.writeVarInt(encoder.size);
+    out.write(frame.buffer, 0, frame.size);
+    out.write(encoder.buffer, 0, encoder.size);
+    out.flush();
+    return out;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @return The next document, or null if the stream is at its end.
+   */
+  @Override
+  public Pair<Annotation, InputStream> read(InputStream is) throws IOException, ClassNotFoundException, ClassCastException {
+    BinaryAnnotationInputStream in;
+    if (is instanceof BinaryAnnotationInputStream) {
+      in = (BinaryAnnotationInputStream) is;
+    } else {
+      in = new BinaryAnnotationInputStream(new BufferedInputStream(compress ? new GZIPInputStream(is) : is));
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Not a binary annotation stream");
+      }
+      int version = in.readInt();
+      if (version > FORMAT_VERSION) {
+        throw new IOException("Cannot read binary annotation format version " + version +
+            "; this reader only supports versions up to " + FORMAT_VERSION);
+      }
+    }
+    // frame: the varint length of the document
+    int length = 0;
+    for (int shift = 0; ; shift += 7) {
+      int b = in.read();
+      if (b < 0) {
+        if (shift == 0) {
+          return null;
+        }
+        throw new EOFException("Truncated binary annotation stream");
+      }
+      length |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        break;
+      }
+    }
+    byte[] buffer = new byte[length];
+    in.readFully(buffer);
+    Object annotation = new Decoder(buffer).readValue();
+    if ( ! (annotation instanceof Annotation)) {
+      throw new ClassCastException("ERROR: Serialized data does not contain an Annotation!");
+    }
+    return Pair.makePair((Annotation) annotation, (InputStream) in);
+  }
+
+
+  /** Writes a single document into a growable byte array, keeping track of the strings and CoreMaps seen so far. */
+  private class Encoder {
+    byte[] buffer = new byte[4096];
+    int size = 0;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final IdentityHashMap<CoreMap, Integer> coreMaps = new IdentityHashMap<>();
+
+    private void ensure(int extra) {
+      if (size + extra > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+      }
+    }
+
+    void writeByte(int b) {
+      ensure(1);
+      buffer[size++] = (byte) b;
+    }
+
+    void writeVarInt(int value) {
+      ensure(5);
+      while ((value & ~0x7f) != 0) {
+        buffer[size++] = (byte) ((value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+      buffer[size++] = (byte) value;
+    }
+
+    void writeVarLong(long value) {
+      ensure(10);
+      while ((value & ~0x7fL) != 0) {
+        buffer[size++] = (byte) ((value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+      buffer[size++] = (byte) value;
+    }
+
+    void writeSignedVarInt(int value) {
+      writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    void writeDouble(double value) {
+      long bits = Double.doubleToRawLongBits(value);
+      ensure(8);
+      for (int i = 0; i < 8; ++i) {
+        buffer[size++] = (byte) (bits >>> (8 * i));
+      }
+    }
+
+    void writeBytes(byte[] bytes) {
+      writeVarInt(bytes.length);
+      ensure(bytes.length);
+      System.arraycopy(bytes, 0, buffer, size, bytes.length);
+      size += bytes.length;
+    }
+
+    /** Strings are written inline the first time they are seen, and as (1 + their index) afterwards. */
+    void writeString(String s) {
+      Integer id = strings.get(s);
+      if (id != null) {
+        writeVarInt(id + 1);
+      } else {
+        strings.put(s, strings.size());
+        writeVarInt(0);
+        writeBytes(s.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+
+    /** Returns false if the value has no encoding (and lossless serialization is not enforced). */
+    boolean canWrite(Object value) {
+      if (value == null || value instanceof Serializable || value instanceof CoreMap ||
+          value instanceof List || value instanceof SemanticGraph) {
+        return true;
+      }
+      if (enforceLosslessSerialization) {
+        throw new LossySerializationException("Cannot serialize value of " + value.getClass());
+      }
+      return false;
+    }
+
+    void writeValue(Object value) {
+      if (value == null) {
+        writeByte(NULL);
+      } else if (value instanceof String) {
+        writeByte(STRING);
+        writeString((String) value);
+      } else if (value instanceof Integer) {
+        writeByte(INT);
+        writeSignedVarInt((Integer) value);
+      } else if (value instanceof Long) {
+        writeByte(LONG);
+        long l = (Long) value;
+        writeVarLong((l << 1) ^ (l >> 63));
+      } else if (value instanceof Double) {
+        writeByte(DOUBLE);
+        writeDouble((Double) value);
+      } else if (value instanceof Boolean) {
+        writeByte((Boolean) value ? TRUE : FALSE);
+      } else if (value instanceof CoreMap && ! (value instanceof IndexedWord)) {
+        writeCoreMap((CoreMap) value);
+      } else if (value instanceof List) {
+        List<?> list = (List<?>) value;
+        writeByte(LIST);
+        writeVarInt(list.size());
+        for (Object element : list) {
+          writeValue(element);
+        }
+      } else if (value.getClass() == LabeledScoredTreeNode.class) {
+        writeByte(TREE);
+        writeTree((Tree) value);
+      } else if (value instanceof SemanticGraph) {
+        writeByte(SEMANTIC_GRAPH);
+        writeGraph((SemanticGraph) value);
+      } else if (value instanceof CorefChain) {
+        writeByte(COREF_CHAIN);
+        writeCorefChain((CorefChain) value);
+      } else if (value.getClass() == HashMap.class) {
+        Map<?, ?> map = (Map<?, ?>) value;
+        writeByte(HASH_MAP);
+        writeVarInt(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+          writeValue(entry.getKey());
+          writeValue(entry.getValue());
+        }
+      } else if (value instanceof Serializable) {
+        writeByte(JAVA);
+        try {
+          ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+          ObjectOutputStream oos = new ObjectOutputStream(bytes);
+          oos.writeObject(value);
+          oos.close();
+          writeBytes(bytes.toByteArray());
+        } catch (IOException e) {
+          throw new RuntimeIOException(e);
+        }
+      } else {
+        throw new LossySerializationException("Cannot serialize value of " + value.getClass());
+      }
+    }
+
+    void writeCoreMap(CoreMap map) {
+      Integer id = coreMaps.get(map);
+      if (id != null) {
+        writeByte(COREMAP_REF);
+        writeVarInt(id);
+        return;
+      }
+      coreMaps.put(map, coreMaps.size());
+      writeByte(COREMAP);
+      writeString(map.getClass().getName());
+      Set<Class<?>> keys = map.keySet();
+      int numKeys = 0;
+      for (Class<?> key : keys) {
+        if (canWrite(map.get(asKey(key)))) {
+          numKeys++;
+        }
+      }
+      writeVarInt(numKeys);
+      for (Class<?> key : keys) {
+        Object value = map.get(asKey(key));
+        if (numKeys < keys.size() && ! canWrite(value)) {
+          continue;
+        }
+        writeString(key.getName());
+        writeValue(value);
+      }
+    }
+
+    /** A tree node is its label, its score if any, and its children. */
+    void writeTree(Tree tree) {
+      writeValue(tree.label());
+      Tree[] children = tree.children();
+      double score = tree.score();
+      if (Double.isNaN(score)) {
+        writeVarInt(children.length << 1);
+      } else {
+        writeVarInt((children.length << 1) | 1);
+        writeDouble(score);
+      }
+      for (Tree child : children) {
+        writeTree(child);
+      }
+    }
+
+    /** Vertices are written as their backing label plus copy count; edges and roots refer to vertices by position. */
+    void writeGraph(SemanticGraph graph) {
+      Map<IndexedWord, Integer> vertexIds = new HashMap<>();
+      writeVarInt(graph.vertexSet().size());
+      for (IndexedWord vertex : graph.vertexSet()) {
+        vertexIds.put(vertex, vertexIds.size());
+        writeCoreMap(vertex.backingLabel());
+        writeVarInt(vertex.copyCount());
+      }
+      Collection<IndexedWord> roots = graph.getRoots();
+      writeVarInt(roots.size());
+      for (IndexedWord root : roots) {
+        writeVarInt(vertexIds.get(root));
+      }
+      writeVarInt(graph.edgeCount());
+      for (SemanticGraphEdge edge : graph.edgeIterable()) {
+        writeVarInt(vertexIds.get(edge.getSource()));
+        writeVarInt(vertexIds.get(edge.getTarget()));
+        GrammaticalRelation relation = edge.getRelation();
+        writeString(relation.getLanguage().name());
+        writeString(relation.toString());
+        boolean defaultWeight = edge.getWeight() == 1.0;
+        writeByte((edge.isExtra() ? 1 : 0) | (defaultWeight ? 0 : 2));
+        if ( ! defaultWeight) {
+          writeDouble(edge.getWeight());
+        }
+      }
+    }
+
+    void writeCorefChain(CorefChain chain) {
+      writeSignedVarInt(chain.getChainID());
+      Map<IntPair, Set<CorefChain.CorefMention>> mentionMap = chain.getMentionMap();
+      writeVarInt(mentionMap.size());
+      int representative = -1;
+      int mentionIndex = 0;
+      for (Map.Entry<IntPair, Set<CorefChain.CorefMention>> entry : mentionMap.entrySet()) {
+        writeSignedVarInt(entry.getKey().getSource());
+        writeSignedVarInt(entry.getKey().getTarget());
+        writeVarInt(entry.getValue().size());
+        for (CorefChain.CorefMention mention : entry.getValue()) {
+          if (mention == chain.getRepresentativeMention()) {
+            representative = mentionIndex;
+          }
+          mentionIndex++;
+          writeVarInt(mention.mentionType.ordinal());
+          writeVarInt(mention.number.ordinal());
+          writeVarInt(mention.gender.ordinal());
+          writeVarInt(mention.animacy.ordinal());
+          writeSignedVarInt(mention.startIndex);
+          writeSignedVarInt(mention.endIndex);
+          writeSignedVarInt(mention.headIndex);
+          writeSignedVarInt(mention.corefClusterID);
+          writeSignedVarInt(mention.mentionID);
+          writeSignedVarInt(mention.sentNum);
+          writeVarInt(mention.position.length());
+          for (int i = 0; i < mention.position.length(); ++i) {
+            writeSignedVarInt(mention.position.get(i));
+          }
+          writeString(mention.mentionSpan);
+        }
+      }
+      writeSignedVarInt(representative);
+    }
+  }
+
+
+  /** The mirror image of {@link Encoder}. */
+  private static class Decoder {
+    private final byte[] buffer;
+    private int pos = 0;
+    private final List<String> strings = new ArrayList<>();
+    private final List<CoreMap> coreMaps = new ArrayList<>();
+
+    Decoder(byte[] buffer) {
+      this.buffer = buffer;
+    }
+
+    int readVarInt() {
+      int value = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = buffer[pos++];
+        value |= (b & 0x7f) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+    }
+
+    long readVarLong() {
+      long value = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = buffer[pos++];
+        value |= (long) (b & 0x7f) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+    }
+
+    int readSignedVarInt() {
+      int raw = readVarInt();
+      return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    double readDouble() {
+      long bits = 0;
+      for (int i = 0; i < 8; ++i) {
+        bits |= (buffer[pos++] & 0xffL) << (8 * i);
+      }
+      return Double.longBitsToDouble(bits);
+    }
+
+    byte[] readBytes() {
+      int length = readVarInt();
+      byte[] bytes = Arrays.copyOfRange(buffer, pos, pos + length);
+      pos += length;
+      return bytes;
+    }
+
+    String readString() {
+      int id = readVarInt();
+      if (id > 0) {
+        return strings.get(id - 1);
+      }
+      int length = readVarInt();
+      String s = new String(buffer, pos, length, StandardCharsets.UTF_8);
+      pos += length;
+      strings.add(s);
+      return s;
+    }
+
+    Object readValue() throws IOException, ClassNotFoundException {
+      byte tag = buffer[pos++];
+      switch (tag) {
+        case NULL:
+          return null;
+        case STRING:
+          return readString();
+        case INT:
+          return readSignedVarInt();
+        case LONG:
+          long raw = readVarLong();
+          return (raw >>> 1) ^ -(raw & 1);
+        case DOUBLE:
+          return readDouble();
+        case TRUE:
+          return Boolean.TRUE;
+        case FALSE:
+          return Boolean.FALSE;
+        case COREMAP:
+          return readCoreMap();
+        case COREMAP_REF:
+          return coreMaps.get(readVarInt());
+        case LIST: {
+          int size = readVarInt();
+          List<Object> list = new ArrayList<>(size);
+          for (int i = 0; i < size; ++i) {
+            list.add(readValue());
+          }
+          return list;
+        }
+        case TREE:
+          return readTree();
+        case SEMANTIC_GRAPH:
+          return readGraph();
+        case COREF_CHAIN:
+          return readCorefChain();
+        case HASH_MAP: {
+          int size = readVarInt();
+          Map<Object, Object> map = new HashMap<>(size * 2);
+          for (int i = 0; i < size; ++i) {
+            Object key = readValue();
+            map.put(key, readValue());
+          }
+          return map;
+        }
+        case JAVA:
+          try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(readBytes()))) {
+            return ois.readObject();
+          }
+        default:
+          throw new IOException("Corrupt binary annotation: unknown tag " + tag + " at byte " + (pos - 1));
+      }
+    }
+
+    CoreMap readCoreMap() throws IOException, ClassNotFoundException {
+      String className = readString();
+      CoreMap map;
+      int numKeys;
+      // fast paths for the common cases
+      if (className.equals(CoreLabel.class.getName())) {
+        numKeys = readVarInt();
+        map = new CoreLabel(numKeys);
+      } else if (className.equals(Annotation.class.getName())) {
+        numKeys = readVarInt();
+        map = new Annotation(Collections.emptyMap());
+      } else {
+        try {
+          Constructor<?> constructor = lookupClass(className).getDeclaredConstructor();
+          constructor.setAccessible(true);
+          map = (CoreMap) constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+          throw new IOException("Cannot instantiate CoreMap of type " + className, e);
+        }
+        numKeys = readVarInt();
+      }
+      coreMaps.add(map);
+      for (int i = 0; i < numKeys; ++i) {
+        map.set(asKey(lookupClass(readString())), readValue());
+      }
+      return map;
+    }
+
+    Tree readTree() throws IOException, ClassNotFoundException {
+      Label label = (Label) readValue();
+      int header = readVarInt();
+      double score = ((header & 1) != 0) ? readDouble() : Double.NaN;
+      int numChildren = header >>> 1;
+      List<Tree> children = new ArrayList<>(numChildren);
+      for (int i = 0; i < numChildren; ++i) {
+        children.add(readTree());
+      }
+      LabeledScoredTreeNode tree = new LabeledScoredTreeNode(label, children);
+      tree.setScore(score);
+      return tree;
+    }
+
+    SemanticGraph readGraph() throws IOException, ClassNotFoundException {
+      SemanticGraph graph = new SemanticGraph();
+      int numVertices = readVarInt();
+      IndexedWord[] vertices = new IndexedWord[numVertices];
+      for (int i = 0; i < numVertices; ++i) {
+        CoreLabel label = (CoreLabel) readValue();
+        IndexedWord vertex = new IndexedWord(label);
+        vertex.setCopyCount(readVarInt());
+        vertices[i] = vertex;
+        graph.addVertex(vertex);
+      }
+      int numRoots = readVarInt();
+      List<IndexedWord> roots = new ArrayList<>(numRoots);
+      for (int i = 0; i < numRoots; ++i) {
+        roots.add(vertices[readVarInt()]);
+      }
+      graph.setRoots(roots);
+      int numEdges = readVarInt();
+      for (int i = 0; i < numEdges; ++i) {
+        IndexedWord source = vertices[readVarInt()];
+        IndexedWord target = vertices[readVarInt()];
+        Language language = Language.valueOf(readString());
+        String relationName = readString();
+        int flags = buffer[pos++];
+        double weight = ((flags & 2) != 0) ? readDouble() : 1.0;
+        synchronized (globalLock) {
+          // this is not thread-safe: there are static fields in GrammaticalRelation
+          GrammaticalRelation relation = GrammaticalRelation.valueOf(language, relationName);
+          graph.addEdge(source, target, relation, weight, (flags & 1) != 0);
+        }
+      }
+      return graph;
+    }
+
+    CorefChain readCorefChain() {
+      int chainID = readSignedVarInt();
+      int numKeys = readVarInt();
+      Map<IntPair, Set<CorefChain.CorefMention>> mentionMap = Generics.newHashMap(numKeys);
+      List<CorefChain.CorefMention> mentions = new ArrayList<>();
+      for (int k = 0; k < numKeys; ++k) {
+        IntPair key = new IntPair(readSignedVarInt(), readSignedVarInt());
+        int numMentions = readVarInt();
+        Set<CorefChain.CorefMention> mentionsWithThisHead = Generics.newHashSet(numMentions);
+        for (int m = 0; m < numMentions; ++m) {
+          Dictionaries.MentionType mentionType = MENTION_TYPES[readVarInt()];
+          Dictionaries.Number number = NUMBERS[readVarInt()];
+          Dictionaries.Gender gender = GENDERS[readVarInt()];
+          Dictionaries.Animacy animacy = ANIMACIES[readVarInt()];
+          int startIndex = readSignedVarInt();
+          int endIndex = readSignedVarInt();
+          int headIndex = readSignedVarInt();
+          int clusterID = readSignedVarInt();
+          int mentionID = readSignedVarInt();
+          int sentNum = readSignedVarInt();
+          int[] position = new int[readVarInt()];
+          for (int i = 0; i < position.length; ++i) {
+            position[i] = readSignedVarInt();
+          }
+          String span = readString();
+          CorefChain.CorefMention mention = new CorefChain.CorefMention(mentionType, number, gender, animacy,
+              startIndex, endIndex, headIndex, clusterID, mentionID, sentNum, new IntTuple(position), span);
+          mentionsWithThisHead.add(mention);
+          mentions.add(mention);
+        }
+        mentionMap.put(key, mentionsWithThisHead);
+      }
+      int representative = readSignedVarInt();
+      return new CorefChain(chainID, mentionMap, representative >= 0 ? mentions.get(representative) : null);
+    }
+  }
+
+  private static Class<?> lookupClass(String name) throws ClassNotFoundException {
+    Class<?> clazz = classCache.get(name);
+    if (clazz == null) {
+      clazz = Class.forName(name);
+      classCache.put(name, clazz);
+    }
+    return clazz;
+  }
+
+  /** Keys are written by name, so the type of their values is only known from the stream. */
+  @SuppressWarnings("unchecked")
+  private static Class<? extends TypesafeMap.Key<Object>> asKey(Class<?> key) {
+    return (Class<? extends TypesafeMap.Key<Object>>) key;
+  }
+
+}
@@ -3,16 +3,15 @@ package edu.stanford.nlp.pipeline;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.ling.IndexedWord;
+import edu.stanford.nlp.ling.TokenColumns;
 import edu.stanford.nlp.semgraph.SemanticGraph;
 import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations;
 import edu.stanford.nlp.semgraph.SemanticGraphEdge;
 import edu.stanford.nlp.util.CoreMap;
-import edu.stanford.nlp.util.StringUtils;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -66,6 +65,9 @@ import java.util.stream.Collectors;
  *   </tr>
  * </table>
  *
+ * <p>If the document's tokens are {@link TokenColumns}, the word, lemma,
+ * tag and NER fields are read straight from the columns.</p>
+ *
  * @author Gabor Angeli
  */
 public class CoNLLOutputter extends AnnotationOutputter {
@@ -86,24 +88,24 @@ public class CoNLLOutputter extends AnnotationOutputter {
    * Produce a line of the CoNLL output.
    */
   private static String line(int index,
-                      CoreLabel token,
+                      String word, String lemma, String tag, String ner,
                       int head, String deprel) {
-    ArrayList<String> fields = new ArrayList<>(16);
+    StringBuilder line = new StringBuilder(64);
 
-    fields.add(Integer.toString(index)); // 1
-    fields.add(orNull(token.word()));    // 2
-    fields.add(orNull(token.lemma()));   // 3
-    fields.add(orNull(token.tag()));     // 4
-    fields.add(orNull(token.ner()));     // 5
+    line.append(index).append('\t');          // 1
+    line.append(orNull(word)).append('\t');   // 2
+    line.append(orNull(lemma)).append('\t');  // 3
+    line.append(orNull(tag)).append('\t');    // 4
+    line.append(orNull(ner)).append('\t');    // 5
     if (head >= 0) {
-      fields.add(Integer.toString(head));  // 6
-      fields.add(deprel);                  // 7
+      line.append(head).append('\t');         // 6
+      line.append(deprel);                    // 7
     } else {
-      fields.add(NULL_PLACEHOLDER);
-      fields.add(NULL_PLACEHOLDER);
+      line.append(NULL_PLACEHOLDER).append('\t');
+      line.append(NULL_PLACEHOLDER);
     }
 
-    return StringUtils.join(fields, "\t");
+    return line.toString();
   }
 
   @Override
@@ -116,6 +118,16 @@ public class CoNLLOutputter extends AnnotationOutputter {
         if (sentence.get(CoreAnnotations.TokensAnnotation.class) != null) {
           List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
           SemanticGraph depTree = sentence.get(SemanticGraphCoreAnnotations.BasicDependenciesAnnotation.class);
+          Set<Integer> rootSet = null;
+          if (depTree != null) {
+            rootSet = depTree.getRoots().stream().map(IndexedWord::index).collect(Collectors.toSet());
+          }
+          TokenColumns columns = null;
+          int row = -1;
+          if (tokens instanceof TokenColumns.Tokens) {
+            columns = ((TokenColumns.Tokens) tokens).columns();
+            row = ((TokenColumns.Tokens) tokens).begin();
+          }
           for (int i = 0; i < tokens.size(); ++i) {
             // ^^ end nonsense to get tokens ^^
 
@@ -128,7 +140,6 @@ public class CoNLLOutputter extends AnnotationOutputter {
             int head = -1;
             String deprel = null;
             if (depTree != null) {
-              Set<Integer> rootSet = depTree.getRoots().stream().map(IndexedWord::index).collect(Collectors.toSet());
               IndexedWord node = depTree.getNodeByIndexSafe(i + 1);
               if (node != null) {
                 List<SemanticGraphEdge> edgeList = depTree.getIncomingEdgesSorted(node);
@@ -144,7 +155,12 @@ public class CoNLLOutputter extends AnnotationOutputter {
             }
 
             // Write the token
-            writer.print(line(i + 1, tokens.get(i), head, deprel));
+            if (row >= 0) {
+              writer.print(line(i + 1, columns.word(row + i), columns.lemma(row + i), columns.tag(row + i), columns.ner(row + i), head, deprel));
+            } else {
+              CoreLabel token = tokens.get(i);
+              writer.print(line(i + 1, token.word(), token.lemma(), token.tag(), token.ner(), head, deprel));
+            }
           }
         }
         writer.println();
@@ -1,5 +1,6 @@
 package edu.stanford.nlp.pipeline;
 
+import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.parser.nndep.DependencyParser;
 import edu.stanford.nlp.semgraph.SemanticGraph;
 import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations;
@@ -40,6 +41,13 @@ public class DependencyParseAnnotator extends SentenceAnnotator {
    */
   private final GrammaticalStructure.Extras extraDependencies;
 
+  /**
+   * If greater than zero, and sentences are parsed on one thread without
+   * a timeout, parse this many sentences of a document at a time with
+   * {@link DependencyParser#predictAll(List)}.
+   */
+  private final int predictionBatchSize;
+
   public DependencyParseAnnotator() {
     this(new Properties());
   }
@@ -51,6 +59,24 @@ public class DependencyParseAnnotator extends SentenceAnnotator {
     nThreads = PropertiesUtils.getInt(properties, "testThreads", DEFAULT_NTHREADS);
     maxTime = PropertiesUtils.getLong(properties, "sentenceTimeout", DEFAULT_MAXTIME);
     extraDependencies = MetaClass.cast(properties.getProperty("extradependencies", "NONE"), GrammaticalStructure.Extras.class);
+    predictionBatchSize = PropertiesUtils.getInt(properties, "predictionBatchSize", 0);
+  }
+
+  @Override
+  public void annotate(Annotation annotation) {
+    if (predictionBatchSize <= 0 || nThreads != 1 || maxTime > 0 ||
+        ! annotation.containsKey(CoreAnnotations.SentencesAnnotation.class)) {
+      super.annotate(annotation);
+      return;
+    }
+    List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+    for (int start = 0; start < sentences.size(); start += predictionBatchSize) {
+      List<CoreMap> batch = sentences.subList(start, Math.min(start + predictionBatchSize, sentences.size()));
+      List<GrammaticalStructure> parses = parser.predictAll(batch);
+      for (int i = 0; i < batch.size(); i++) {
+        setDependencies(batch.get(i), parses.get(i));
+      }
+    }
   }
 
   @Override
@@ -65,8 +91,10 @@ public class DependencyParseAnnotator extends SentenceAnnotator {
 
   @Override
   protected void doOneSentence(Annotation annotation, CoreMap sentence) {
-    GrammaticalStructure gs = parser.predict(sentence);
+    setDependencies(sentence, parser.predict(sentence));
+  }
 
+  private void setDependencies(CoreMap sentence, GrammaticalStructure gs) {
     SemanticGraph deps = SemanticGraphFactory.makeFromTree(gs, SemanticGraphFactory.Mode.COLLAPSED, extraDependencies, true, null),
                   uncollapsedDeps = SemanticGraphFactory.makeFromTree(gs, SemanticGraphFactory.Mode.BASIC, extraDependencies, true, null),
                   ccDeps = SemanticGraphFactory.makeFromTree(gs, SemanticGraphFactory.Mode.CCPROCESSED, extraDependencies, true, null);
@@ -74,7 +102,6 @@ public class DependencyParseAnnotator extends SentenceAnnotator {
     sentence.set(SemanticGraphCoreAnnotations.CollapsedDependenciesAnnotation.class, deps);
     sentence.set(SemanticGraphCoreAnnotations.BasicDependenciesAnnotation.class, uncollapsedDeps);
     sentence.set(SemanticGraphCoreAnnotations.CollapsedCCProcessedDependenciesAnnotation.class, ccDeps);
-
   }
 
   @Override
@@ -3,6 +3,7 @@ package edu.stanford.nlp.pipeline;
 import edu.stanford.nlp.ling.CoreAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.ling.TokenColumns;
 import edu.stanford.nlp.process.Morphology;
 import edu.stanford.nlp.util.CoreMap;
 
@@ -18,7 +19,11 @@ import java.util.Set;
  * a {@code List<CoreLabel>} for a list of sentences under the
  * {@code SentencesAnnotation.class} key.
  * The Annotator adds lemma information to each CoreLabel,
- * in the LemmaAnnotation.class.
+ * in the LemmaAnnotation.class.  If the document's tokens are
+ * {@link TokenColumns}, the lemmas are written straight into them.
+ * Lemmas are looked up through the static methods of {@link Morphology},
+ * so the annotator can be used by many threads at once without them
+ * waiting on each other.
  *
  * @author Jenny Finkel
  */
@@ -42,15 +47,22 @@ public class MorphaAnnotator implements Annotator{
     if (VERBOSE) {
       System.err.print("Finding lemmas ...");
     }
-    Morphology morphology = new Morphology();
     if (annotation.has(CoreAnnotations.SentencesAnnotation.class)) {
       for (CoreMap sentence : (Iterable<CoreMap>)annotation.get(CoreAnnotations.SentencesAnnotation.class)) {
         List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
         //System.err.println("Lemmatizing sentence: " + tokens);
+        if (tokens instanceof TokenColumns.Tokens) {
+          TokenColumns.Tokens view = (TokenColumns.Tokens) tokens;
+          TokenColumns columns = view.columns();
+          for (int i = view.begin(), end = view.begin() + view.size(); i < end; i++) {
+            columns.setLemma(i, lemma(columns.word(i), columns.tag(i)));
+          }
+          continue;
+        }
         for (CoreLabel token : tokens) {
           String text = token.get(CoreAnnotations.TextAnnotation.class);
           String posTag = token.get(CoreAnnotations.PartOfSpeechAnnotation.class);
-          addLemma(morphology, CoreAnnotations.LemmaAnnotation.class, token, text, posTag);
+          addLemma(CoreAnnotations.LemmaAnnotation.class, token, text, posTag);
         }
       }
     } else {
@@ -60,18 +72,22 @@ public class MorphaAnnotator implements Annotator{
   }
 
 
-  private static void addLemma(Morphology morpha,
-                        Class<? extends CoreAnnotation<String>> ann,
+  private static void addLemma(Class<? extends CoreAnnotation<String>> ann,
                         CoreMap map, String word, String tag) {
+    map.set(ann, lemma(word, tag));
+  }
+
+
+  private static String lemma(String word, String tag) {
     if (tag.length() > 0) {
-      String phrasalVerb = phrasalVerb(morpha, word, tag);
+      String phrasalVerb = phrasalVerb(word, tag);
       if (phrasalVerb == null) {
-        map.set(ann, morpha.lemma(word, tag));
+        return Morphology.lemmaStatic(word, tag, true);
       } else {
-        map.set(ann, phrasalVerb);
+        return phrasalVerb;
       }
     } else {
-      map.set(ann, morpha.stem(word));
+      return Morphology.stemWordStatic(word);
     }
   }
 
@@ -79,7 +95,7 @@ public class MorphaAnnotator implements Annotator{
   /** If a token is a phrasal verb with an underscore between a verb and a
    *  particle, return the phrasal verb lemmatized. If not, return null
    */
-  private static String phrasalVerb(Morphology morpha, String word, String tag) {
+  private static String phrasalVerb(String word, String tag) {
 
     // must be a verb and contain an underscore
     assert(word != null);
@@ -92,7 +108,7 @@ public class MorphaAnnotator implements Annotator{
     String particle = verb[1];
     if(particles.contains(particle)) {
       String base = verb[0];
-      String lemma = morpha.lemma(base, tag);
+      String lemma = Morphology.lemmaStatic(base, tag, true);
       return lemma + '_' + particle;
     }
 
@@ -4,6 +4,8 @@ import edu.stanford.nlp.ie.NERClassifierCombiner;
 import edu.stanford.nlp.ie.regexp.NumberSequenceClassifier;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.ling.TokenColumns;
+import edu.stanford.nlp.time.TimeAnnotations;
 import edu.stanford.nlp.util.CoreMap;
 import edu.stanford.nlp.util.PropertiesUtils;
 import edu.stanford.nlp.util.RuntimeInterruptedException;
@@ -101,9 +103,11 @@ public class NERCombinerAnnotator extends SentenceAnnotator {
   @Override
   public void doOneSentence(Annotation annotation, CoreMap sentence) {
     List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+    // columns are classified from copies of their rows, and the tags written straight into them
+    TokenColumns.Tokens columnTokens = (tokens instanceof TokenColumns.Tokens) ? (TokenColumns.Tokens) tokens : null;
     List<CoreLabel> output; // only used if try assignment works.
     try {
-      output = this.ner.classifySentenceWithGlobalInformation(tokens, annotation, sentence);
+      output = this.ner.classifySentenceWithGlobalInformation((columnTokens != null) ? columnTokens.copyLabels() : tokens, annotation, sentence);
     } catch (RuntimeInterruptedException e) {
       // If we get interrupted, set the NER labels to the background
       // symbol if they are not already set, then exit.
@@ -137,6 +141,17 @@ public class NERCombinerAnnotator extends SentenceAnnotator {
         // add the named entity tag to each token
         String neTag = output.get(i).get(CoreAnnotations.NamedEntityTagAnnotation.class);
         String normNeTag = output.get(i).get(CoreAnnotations.NormalizedNamedEntityTagAnnotation.class);
+        if (columnTokens != null) {
+          int row = columnTokens.begin() + i;
+          columnTokens.columns().setNER(row, neTag);
+          // only a row with annotations that have no column needs its CoreLabel
+          if (normNeTag != null || hasNumericAnnotations(output.get(i))) {
+            CoreLabel token = columnTokens.columns().label(row);
+            if (normNeTag != null) token.set(CoreAnnotations.NormalizedNamedEntityTagAnnotation.class, normNeTag);
+            NumberSequenceClassifier.transferAnnotations(output.get(i), token);
+          }
+          continue;
+        }
         tokens.get(i).setNER(neTag);
         if (normNeTag != null) tokens.get(i).set(CoreAnnotations.NormalizedNamedEntityTagAnnotation.class, normNeTag);
         NumberSequenceClassifier.transferAnnotations(output.get(i), tokens.get(i));
@@ -155,6 +170,10 @@ public class NERCombinerAnnotator extends SentenceAnnotator {
         }
         System.err.println(']');
       }
+    } else if (columnTokens != null) {
+      for (int i = 0; i < tokens.size(); ++i) {
+        columnTokens.columns().setNER(columnTokens.begin() + i, this.ner.backgroundSymbol());
+      }
     } else {
       for (CoreLabel token : tokens) {
         // add the dummy named entity tag to each token
@@ -163,9 +182,26 @@ public class NERCombinerAnnotator extends SentenceAnnotator {
     }
   }
 
+  /** Whether {@link NumberSequenceClassifier#transferAnnotations} has anything to transfer */
+  private static boolean hasNumericAnnotations(CoreLabel token) {
+    return token.containsKey(CoreAnnotations.NumericCompositeValueAnnotation.class) ||
+        token.containsKey(CoreAnnotations.NumericCompositeTypeAnnotation.class) ||
+        token.containsKey(TimeAnnotations.TimexAnnotation.class);
+  }
+
   @Override
   public void doOneFailedSentence(Annotation annotation, CoreMap sentence) {
     List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+    if (tokens instanceof TokenColumns.Tokens) {
+      TokenColumns.Tokens columnTokens = (TokenColumns.Tokens) tokens;
+      TokenColumns columns = columnTokens.columns();
+      for (int row = columnTokens.begin(), end = row + columnTokens.size(); row < end; row++) {
+        if (columns.ner(row) == null) {
+          columns.setNER(row, this.ner.backgroundSymbol());
+        }
+      }
+      return;
+    }
     for (CoreLabel token : tokens) {
       if (token.ner() == null) {
         token.setNER(this.ner.backgroundSymbol());
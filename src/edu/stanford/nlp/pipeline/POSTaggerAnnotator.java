@@ -9,6 +9,7 @@ import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.ling.Sentence;
 import edu.stanford.nlp.ling.TaggedWord;
+import edu.stanford.nlp.ling.TokenColumns;
 import edu.stanford.nlp.tagger.maxent.MaxentTagger;
 import edu.stanford.nlp.util.CoreMap;
 import edu.stanford.nlp.util.PropertiesUtils;
@@ -141,10 +142,12 @@ public class POSTaggerAnnotator implements Annotator, ThreadsafeProcessor<CoreMa
 
   private CoreMap doOneSentence(CoreMap sentence) {
     List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+    // columns are tagged through views of their rows, and the tags written straight into them
+    TokenColumns.Tokens columnTokens = (tokens instanceof TokenColumns.Tokens) ? (TokenColumns.Tokens) tokens : null;
     List<TaggedWord> tagged = null;
     if (tokens.size() <= maxSentenceLength) {
       try {
-        tagged = pos.tagSentence(tokens, this.reuseTags);
+        tagged = pos.tagSentence((columnTokens != null) ? columnTokens.rows() : tokens, this.reuseTags);
       } catch (OutOfMemoryError e) {
         System.err.println("WARNING: Tagging of sentence ran out of memory. " +
                            "Will ignore and continue: " +
@@ -152,7 +155,12 @@ public class POSTaggerAnnotator implements Annotator, ThreadsafeProcessor<CoreMa
       }
     }
 
-    if (tagged != null) {
+    if (columnTokens != null) {
+      TokenColumns columns = columnTokens.columns();
+      for (int i = 0, sz = tokens.size(); i < sz; i++) {
+        columns.setTag(columnTokens.begin() + i, (tagged != null) ? tagged.get(i).tag() : "X");
+      }
+    } else if (tagged != null) {
       for (int i = 0, sz = tokens.size(); i < sz; i++) {
         tokens.get(i).set(CoreAnnotations.PartOfSpeechAnnotation.class, tagged.get(i).tag());
       }
@@ -286,6 +286,8 @@ public class ParserAnnotator extends SentenceAnnotator {
       System.err.println("WARNING: Parsing of sentence failed, possibly because of out of memory.  " +
                          "Will ignore and continue: " +
                          Sentence.listToString(words));
+    } finally {
+      pq.release();
     }
     return tree;
   }
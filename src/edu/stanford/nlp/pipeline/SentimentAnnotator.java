@@ -1,5 +1,6 @@
 package edu.stanford.nlp.pipeline;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -10,8 +11,8 @@ import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.neural.rnn.RNNCoreAnnotations;
 import edu.stanford.nlp.sentiment.CollapseUnaryTransformer;
+import edu.stanford.nlp.sentiment.SentimentBatchScorer;
 import edu.stanford.nlp.sentiment.SentimentCoreAnnotations;
-import edu.stanford.nlp.sentiment.SentimentCostAndGradient;
 import edu.stanford.nlp.sentiment.SentimentModel;
 import edu.stanford.nlp.sentiment.SentimentUtils;
 import edu.stanford.nlp.trees.Tree;
@@ -44,6 +45,8 @@ public class SentimentAnnotator implements Annotator {
 
   private final SentimentModel model;
   private final CollapseUnaryTransformer transformer = new CollapseUnaryTransformer();
+  /** One scorer per thread, so its arrays are reused from one document to the next */
+  private final ThreadLocal<SentimentBatchScorer> scorers;
 
   public SentimentAnnotator(String name, Properties props) {
     String modelPath = props.getProperty(name + ".model", DEFAULT_MODEL);
@@ -51,6 +54,7 @@ public class SentimentAnnotator implements Annotator {
       throw new IllegalArgumentException("No model specified for Sentiment annotator");
     }
     this.model = SentimentModel.loadSerialized(modelPath);
+    this.scorers = ThreadLocal.withInitial(() -> new SentimentBatchScorer(model));
   }
 
   @Override
@@ -68,14 +72,19 @@ public class SentimentAnnotator implements Annotator {
     if (annotation.containsKey(CoreAnnotations.SentencesAnnotation.class)) {
       // TODO: parallelize
       List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+      List<Tree> collapsedTrees = new ArrayList<>(sentences.size());
       for (CoreMap sentence : sentences) {
         Tree binarized = sentence.get(TreeCoreAnnotations.BinarizedTreeAnnotation.class);
         if (binarized == null) {
           throw new AssertionError("Binarized sentences not built by parser");
         }
-        Tree collapsedUnary = transformer.transformTree(binarized);
-        SentimentCostAndGradient scorer = new SentimentCostAndGradient(model, null);
-        scorer.forwardPropagateTree(collapsedUnary);
+        collapsedTrees.add(transformer.transformTree(binarized));
+      }
+      // all the sentences of the document are scored together
+      scorers.get().forwardPropagateTrees(collapsedTrees);
+      for (int i = 0; i < sentences.size(); i++) {
+        CoreMap sentence = sentences.get(i);
+        Tree collapsedUnary = collapsedTrees.get(i);
         sentence.set(SentimentCoreAnnotations.SentimentAnnotatedTree.class, collapsedUnary);
         int sentiment = RNNCoreAnnotations.getPredictedClass(collapsedUnary);
         sentence.set(SentimentCoreAnnotations.SentimentClass.class, SentimentUtils.sentimentString(model, sentiment));
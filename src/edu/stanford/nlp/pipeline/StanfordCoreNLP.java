@@ -109,7 +109,7 @@ public class StanfordCoreNLP extends AnnotationPipeline {
     /**
      * Maintains the shared pool of annotators
      */
-    protected static AnnotatorPool pool = null;
+    protected static volatile AnnotatorPool pool = null;
 
     private Properties properties;
 
@@ -296,6 +296,17 @@ public class StanfordCoreNLP extends AnnotationPipeline {
 
         // now construct the annotators from the given properties in the given order
         List<String> annoNames = Arrays.asList(getRequiredProperty(props, "annotators").split("[, \t]+"));
+        // load the models of several annotators at once, if asked to
+        int loadThreads = PropertiesUtils.getInt(props, "loadThreads", 1);
+        if (loadThreads > 1) {
+            List<String> trimmedNames = new ArrayList<>();
+            for (String name : annoNames) {
+                if ( ! name.trim().isEmpty()) {
+                    trimmedNames.add(name.trim());
+                }
+            }
+            pool.preload(trimmedNames, loadThreads);
+        }
         Set<String> alreadyAddedAnnoNames = Generics.newHashSet();
         Set<Requirement> requirementsSatisfied = Generics.newHashSet();
         for (String name : annoNames) {
@@ -347,9 +358,13 @@ public class StanfordCoreNLP extends AnnotationPipeline {
      */
     protected synchronized AnnotatorPool getDefaultAnnotatorPool(final Properties inputProps, final AnnotatorImplementations annotatorImplementation) {
         // if the pool already exists reuse!
-        if (pool == null) {
-            // first time we get here
-            pool = new AnnotatorPool();
+        AnnotatorPool pool;
+        synchronized (StanfordCoreNLP.class) {
+            if (StanfordCoreNLP.pool == null) {
+                // first time we get here
+                StanfordCoreNLP.pool = new AnnotatorPool();
+            }
+            pool = StanfordCoreNLP.pool;
         }
 
         pool.register(STANFORD_TOKENIZE, AnnotatorFactories.tokenize(properties, annotatorImplementation));
@@ -395,7 +410,8 @@ public class StanfordCoreNLP extends AnnotationPipeline {
         return pool;
     }
 
-    public static synchronized Annotator getExistingAnnotator(String name) {
+    public static Annotator getExistingAnnotator(String name) {
+        AnnotatorPool pool = StanfordCoreNLP.pool;
         if (pool == null) {
             System.err.println("ERROR: attempted to fetch annotator \"" + name + "\" before the annotator pool was created!");
             return null;
@@ -580,6 +596,7 @@ public class StanfordCoreNLP extends AnnotationPipeline {
         os.println("\tIf annotator \"tokenize\" is defined:");
         os.println("\t\"tokenize.options\" - PTBTokenizer options (see edu.stanford.nlp.process.PTBTokenizer for details)");
         os.println("\t\"tokenize.whitespace\" - If true, just use whitespace tokenization");
+        os.println("\t\"tokenize.columnar\" - If true, store the tokens of a document column by column (see edu.stanford.nlp.ling.TokenColumns)");
 
         os.println();
         os.println("\tIf annotator \"cleanxml\" is defined:");
@@ -633,10 +650,11 @@ public class StanfordCoreNLP extends AnnotationPipeline {
         os.println("\t\"outputDirectory\" - where to put output (defaults to the current directory)");
         os.println("\t\"outputExtension\" - extension to use for the output file (defaults to \".xml\" for XML, \".ser.gz\" for serialized).  Don't forget the dot!");
         os.println("\t\"outputFormat\" - \"xml\" to output XML (default), \"serialized\" to output serialized Java objects, \"text\" to output text");
-        os.println("\t\"serializer\" - Class of annotation serializer to use when outputFormat is \"serialized\".  By default, uses Java serialization.");
+        os.println("\t\"serializer\" - Class of annotation serializer to use when outputFormat is \"serialized\".  By default, uses Java serialization; edu.stanford.nlp.pipeline.BinaryAnnotationSerializer is a smaller, faster lossless alternative.");
         os.println("\t\"replaceExtension\" - flag to chop off the last extension before adding outputExtension to file");
         os.println("\t\"noClobber\" - don't automatically override (clobber) output files that already exist");
         os.println("\t\"threads\" - multithread on this number of threads");
+        os.println("\t\"loadThreads\" - load the annotators' models on up to this number of threads at startup (default 1)");
         os.println();
         os.println("If none of the above are present, run the pipeline in an interactive shell (default properties will be loaded from the classpath).");
         os.println("The shell accepts input from stdin and displays the output at stdout.");
@@ -10,6 +10,7 @@ import java.util.Properties;
 
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.ling.TokenColumns;
 import edu.stanford.nlp.process.TokenizerFactory;
 import edu.stanford.nlp.process.CoreLabelTokenFactory;
 import edu.stanford.nlp.process.PTBTokenizer;
@@ -119,8 +120,18 @@ public class TokenizerAnnotator implements Annotator {
 
   public static final String EOL_PROPERTY = "tokenize.keepeol";
 
+  /**
+   * If true, the tokens of a document are stored as {@link TokenColumns}
+   * rather than as a list of independent CoreLabels.  With a PTBTokenizer,
+   * the columns are made straight from the offsets of the tokens.
+   */
+  public static final String COLUMNAR_PROPERTY = "tokenize.columnar";
+
   private final boolean VERBOSE;
+  private final boolean columnar;
   private final TokenizerFactory<CoreLabel> factory;
+  /** If the tokens are made into columns straight from a PTBTokenizer, a tokenizer per thread; otherwise null */
+  private final ThreadLocal<PTBTokenizer.SpanTokenizer> spanTokenizers;
 
   // CONSTRUCTORS
 
@@ -146,6 +157,8 @@ public class TokenizerAnnotator implements Annotator {
 
   public TokenizerAnnotator(boolean verbose, String lang, String options) {
     VERBOSE = verbose;
+    columnar = false;
+    spanTokenizers = null;
     Properties props = new Properties();
     if (lang != null) {
       props.setProperty("tokenize.language", lang);
@@ -164,9 +177,16 @@ public class TokenizerAnnotator implements Annotator {
     if (props == null) {
       props = new Properties();
     }
+    columnar = Boolean.valueOf(props.getProperty(COLUMNAR_PROPERTY, "false"));
 
     TokenizerType type = TokenizerType.getTokenizerType(props);
     factory = initFactory(type, props, options);
+    if (columnar && (type == TokenizerType.English || type == TokenizerType.German || type == TokenizerType.Unspecified)) {
+      String spanOptions = tokenizerOptions(type, props, options);
+      spanTokenizers = ThreadLocal.withInitial(() -> new PTBTokenizer.SpanTokenizer(spanOptions));
+    } else {
+      spanTokenizers = null;
+    }
   }
 
   /**
@@ -181,23 +201,7 @@ public class TokenizerAnnotator implements Annotator {
    */
   private static TokenizerFactory<CoreLabel> initFactory(TokenizerType type, Properties props, String extraOptions) throws IllegalArgumentException{
     TokenizerFactory<CoreLabel> factory;
-    String options = props.getProperty("tokenize.options", null);
-
-    // set it to the equivalent of both extraOptions and options
-    // TODO: maybe we should always have getDefaultOptions() and
-    // expect the user to turn off default options.  That would
-    // require all options to have negated options, but
-    // currently there are some which don't have that
-    if (options == null) {
-      options = type.getDefaultOptions();
-    }
-    if (extraOptions != null) {
-      if (extraOptions.endsWith(",")) {
-        options = extraOptions + options;
-      } else {
-        options = extraOptions + ',' + options;
-      }
-    }
+    String options = tokenizerOptions(type, props, extraOptions);
 
     switch(type) {
     case Spanish:
@@ -233,6 +237,28 @@ public class TokenizerAnnotator implements Annotator {
     return factory;
   }
 
+  /** The options for the tokenizer: the tokenize.options property or the type's defaults, after extraOptions */
+  private static String tokenizerOptions(TokenizerType type, Properties props, String extraOptions) {
+    String options = props.getProperty("tokenize.options", null);
+
+    // set it to the equivalent of both extraOptions and options
+    // TODO: maybe we should always have getDefaultOptions() and
+    // expect the user to turn off default options.  That would
+    // require all options to have negated options, but
+    // currently there are some which don't have that
+    if (options == null) {
+      options = type.getDefaultOptions();
+    }
+    if (extraOptions != null) {
+      if (extraOptions.endsWith(",")) {
+        options = extraOptions + options;
+      } else {
+        options = extraOptions + ',' + options;
+      }
+    }
+    return options;
+  }
+
   /**
    * Returns a thread-safe tokenizer
    */
@@ -252,14 +278,22 @@ public class TokenizerAnnotator implements Annotator {
 
     if (annotation.has(CoreAnnotations.TextAnnotation.class)) {
       String text = annotation.get(CoreAnnotations.TextAnnotation.class);
-      Reader r = new StringReader(text);
-      // don't wrap in BufferedReader.  It gives you nothing for in-memory String unless you need the readLine() method!
-
-      List<CoreLabel> tokens = getTokenizer(r).tokenize();
-      // cdm 2010-05-15: This is now unnecessary, as it is done in CoreLabelTokenFactory
-      // for (CoreLabel token: tokens) {
-      // token.set(CoreAnnotations.TextAnnotation.class, token.get(CoreAnnotations.TextAnnotation.class));
-      // }
+      List<CoreLabel> tokens;
+      if (spanTokenizers != null) {
+        tokens = spanTokenizers.get().tokenize(text).toColumns().tokens();
+      } else {
+        Reader r = new StringReader(text);
+        // don't wrap in BufferedReader.  It gives you nothing for in-memory String unless you need the readLine() method!
+
+        tokens = getTokenizer(r).tokenize();
+        // cdm 2010-05-15: This is now unnecessary, as it is done in CoreLabelTokenFactory
+        // for (CoreLabel token: tokens) {
+        // token.set(CoreAnnotations.TextAnnotation.class, token.get(CoreAnnotations.TextAnnotation.class));
+        // }
+        if (columnar) {
+          tokens = new TokenColumns(tokens).tokens();
+        }
+      }
 
       annotation.set(CoreAnnotations.TokensAnnotation.class, tokens);
       if (VERBOSE) {
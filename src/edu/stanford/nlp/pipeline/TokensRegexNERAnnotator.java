@@ -232,8 +232,10 @@ public class TokensRegexNERAnnotator implements Annotator {
       }
     }
 
-    if (verbose)
+    if (verbose) {
       System.err.println("done.");
+      System.err.println(multiPatternMatcher.getPatternTrigger());
+    }
   }
 
   private MultiPatternMatcher<CoreMap> createPatternMatcher(Map<SequencePattern<CoreMap>, Entry> patternToEntry) {
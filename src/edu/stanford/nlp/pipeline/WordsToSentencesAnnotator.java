@@ -7,6 +7,7 @@ import java.util.Set;
 
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.ling.TokenColumns;
 import edu.stanford.nlp.ling.tokensregex.TokenSequencePattern;
 import edu.stanford.nlp.process.WordToSentenceProcessor;
 import edu.stanford.nlp.util.ArrayUtils;
@@ -126,22 +127,35 @@ public class WordsToSentencesAnnotator implements Annotator {
     // section annotations to mark sentences with
     CoreMap sectionAnnotations = null;
     List<CoreMap> sentences = new ArrayList<>();
-    for (List<CoreLabel> sentenceTokens: this.wts.process(tokens)) {
+    // columns are split as views of their rows, so that no CoreLabels are made
+    TokenColumns.Tokens columnTokens = (tokens instanceof TokenColumns.Tokens) ? (TokenColumns.Tokens) tokens : null;
+    TokenColumns columns = (columnTokens != null) ? columnTokens.columns() : null;
+    if (columns != null && docID != null) {
+      columns.setDocID(docID);
+    }
+    List<List<TokenColumns.Row>> rowSplit = (columnTokens != null) ? splitRows(columnTokens) : null;
+    List<List<CoreLabel>> labelSplit = (columnTokens != null) ? null : this.wts.process(tokens);
+    int numSplits = (rowSplit != null) ? rowSplit.size() : labelSplit.size();
+    for (int split = 0; split < numSplits; split++) {
+      List<TokenColumns.Row> rows = (rowSplit != null) ? rowSplit.get(split) : null;
+      List<? extends CoreMap> splitTokens = (rows != null) ? rows : labelSplit.get(split);
       if (countLineNumbers) {
         ++lineNumber;
       }
-      if (sentenceTokens.isEmpty()) {
+      if (splitTokens.isEmpty()) {
         if (!countLineNumbers) {
-          throw new IllegalStateException("unexpected empty sentence: " + sentenceTokens);
+          throw new IllegalStateException("unexpected empty sentence: " + splitTokens);
         } else {
           continue;
         }
       }
 
+      List<CoreLabel> sentenceTokens = (rows != null) ? sentenceTokens(columnTokens, rows) : labelSplit.get(split);
+
       // get the sentence text from the first and last character offsets
-      int begin = sentenceTokens.get(0).get(CoreAnnotations.CharacterOffsetBeginAnnotation.class);
-      int last = sentenceTokens.size() - 1;
-      int end = sentenceTokens.get(last).get(CoreAnnotations.CharacterOffsetEndAnnotation.class);
+      int begin = splitTokens.get(0).get(CoreAnnotations.CharacterOffsetBeginAnnotation.class);
+      int last = splitTokens.size() - 1;
+      int end = splitTokens.get(last).get(CoreAnnotations.CharacterOffsetEndAnnotation.class);
       String sentenceText = text.substring(begin, end);
 
       // create a sentence annotation with text and token offsets
@@ -160,8 +174,8 @@ public class WordsToSentencesAnnotator implements Annotator {
 
       // Annotate sentence with section information.
       // Assume section start and end appear as first and last tokens of sentence
-      CoreLabel sentenceStartToken = sentenceTokens.get(0);
-      CoreLabel sentenceEndToken = sentenceTokens.get(sentenceTokens.size()-1);
+      CoreMap sentenceStartToken = splitTokens.get(0);
+      CoreMap sentenceEndToken = splitTokens.get(splitTokens.size()-1);
 
       CoreMap sectionStart = sentenceStartToken.get(CoreAnnotations.SectionStartAnnotation.class);
       if (sectionStart != null) {
@@ -181,12 +195,20 @@ public class WordsToSentencesAnnotator implements Annotator {
         sentence.set(CoreAnnotations.DocIDAnnotation.class, docID);
       }
 
-      int index = 1;
-      for (CoreLabel token : sentenceTokens) {
-        token.setIndex(index++);
-        token.setSentIndex(sentences.size());
-        if (docID != null) {
-          token.setDocID(docID);
+      if (rows != null) {
+        int index = 1;
+        for (TokenColumns.Row row : rows) {
+          columns.setIndex(row.row(), index++);
+          columns.setSentIndex(row.row(), sentences.size());
+        }
+      } else {
+        int index = 1;
+        for (CoreLabel token : sentenceTokens) {
+          token.setIndex(index++);
+          token.setSentIndex(sentences.size());
+          if (docID != null) {
+            token.setDocID(docID);
+          }
         }
       }
 
@@ -206,6 +228,36 @@ public class WordsToSentencesAnnotator implements Annotator {
   }
 
 
+  /** Splits the rows of the tokens into sentences, with the same processor as CoreLabels */
+  private List<List<TokenColumns.Row>> splitRows(TokenColumns.Tokens tokens) {
+    // the processor only reads its tokens as CoreMaps, so the views can stand in for CoreLabels
+    @SuppressWarnings("unchecked")
+    WordToSentenceProcessor<TokenColumns.Row> rowWts = (WordToSentenceProcessor<TokenColumns.Row>) (WordToSentenceProcessor<?>) wts;
+    return rowWts.process(tokens.rows());
+  }
+
+  /**
+   * The tokens of a sentence of rows: a sublist of the document's tokens
+   * if the rows follow each other, as they do unless the splitter dropped
+   * a token within the sentence.
+   */
+  private static List<CoreLabel> sentenceTokens(TokenColumns.Tokens tokens, List<TokenColumns.Row> rows) {
+    int first = rows.get(0).row();
+    boolean contiguous = true;
+    for (int i = 1, size = rows.size(); i < size && contiguous; i++) {
+      contiguous = rows.get(i).row() == first + i;
+    }
+    if (contiguous) {
+      return tokens.subList(first - tokens.begin(), first - tokens.begin() + rows.size());
+    }
+    List<CoreLabel> labels = new ArrayList<>(rows.size());
+    for (TokenColumns.Row row : rows) {
+      labels.add(tokens.columns().label(row.row()));
+    }
+    return labels;
+  }
+
+
   @Override
   public Set<Requirement> requires() {
     return Collections.singleton(TOKENIZE_REQUIREMENT);
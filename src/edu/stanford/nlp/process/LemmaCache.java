@@ -0,0 +1,176 @@
+package edu.stanford.nlp.process;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of lemmas by word, tag and whether the lemma was
+ * lowercased, shared by all the threads lemmatizing through the static
+ * methods of {@link Morphology}.  Lemmatization is very repetitive, so
+ * most lookups are answered without running the lexer at all.
+ * <br>
+ * The cache is split into segments by the hash of the word and tag, each
+ * one locked on its own and evicting its least recently used entries once
+ * it is full, so that threads lemmatizing at the same time rarely wait on
+ * each other.
+ *
+ * @see Morphology#getLemmaCache()
+ */
+public class LemmaCache {
+
+  private static final int MAX_SEGMENTS = 64;
+
+  private final Segment[] segments;
+  private final int mask;
+  private final int maxSize;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Makes a cache which holds up to about {@code maxSize} lemmas.
+   */
+  LemmaCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+    }
+    int numSegments = 1;
+    while (numSegments < MAX_SEGMENTS && numSegments * 2 * 64 <= maxSize) {
+      numSegments *= 2;
+    }
+    segments = new Segment[numSegments];
+    int segmentSize = (maxSize + numSegments - 1) / numSegments;
+    for (int i = 0; i < numSegments; i++) {
+      segments[i] = new Segment(segmentSize);
+    }
+    mask = numSegments - 1;
+    this.maxSize = maxSize;
+  }
+
+  private Segment segmentFor(Key key) {
+    int h = key.hashCode();
+    return segments[(h ^ (h >>> 16)) & mask];
+  }
+
+  /** Returns the lemma of the word with the tag, or null if it is not cached */
+  String get(String word, String tag, boolean lowercase) {
+    Key key = new Key(word, tag, lowercase);
+    Segment segment = segmentFor(key);
+    String lemma;
+    synchronized (segment) {
+      lemma = segment.get(key);
+    }
+    if (lemma == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return lemma;
+  }
+
+  void put(String word, String tag, boolean lowercase, String lemma) {
+    Key key = new Key(word, tag, lowercase);
+    Segment segment = segmentFor(key);
+    synchronized (segment) {
+      segment.put(key, lemma);
+    }
+  }
+
+  /** The number of lemmas which are cached */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  /** The most lemmas the cache holds, roughly */
+  public int maxSize() {
+    return maxSize;
+  }
+
+  public void clear() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+    hits.reset();
+    misses.reset();
+  }
+
+  public long hits() {
+    return hits.sum();
+  }
+
+  public long misses() {
+    return misses.sum();
+  }
+
+  /** The fraction of lookups which found the lemma, or 0 before any lookup */
+  public double hitRate() {
+    long h = hits.sum();
+    long total = h + misses.sum();
+    return (total == 0) ? 0.0 : ((double) h) / total;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("LemmaCache[%d lemmas, %d hits, %d misses, hit rate %.3f]",
+                         size(), hits(), misses(), hitRate());
+  }
+
+
+  private static final class Key {
+    private final String word;
+    private final String tag;
+    private final boolean lowercase;
+    private final int hash;
+
+    Key(String word, String tag, boolean lowercase) {
+      this.word = word;
+      this.tag = tag;
+      this.lowercase = lowercase;
+      this.hash = (word.hashCode() * 31 + Objects.hashCode(tag)) * 2 + (lowercase ? 1 : 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if ( ! (o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return lowercase == key.lowercase && word.equals(key.word) && Objects.equals(tag, key.tag);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private static class Segment extends LinkedHashMap<Key, String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maxSize;
+
+    Segment(int maxSize) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+      return size() > maxSize;
+    }
+  }
+
+}
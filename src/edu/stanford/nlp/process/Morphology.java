@@ -41,12 +41,12 @@ import java.util.function.Function;
  * Note that a single instance of Morphology is not thread-safe, as
  * the underlying lexer object is not built to be re-entrant.  One thing that
  * you can do to get around this is build a new Morphology object for
- * each thread or each set of calls to the Morphology.  For example, the
- * MorphaAnnotator builds a Morphology for each document it annotates.
- * The other approach is to use the synchronized methods in this class.
- * The crucial lexer-accessing portion of all the static methods is synchronized
- * (otherwise, their use tended to be threading bugs waiting to happen).
- * If you want less synchronization, create your own Morphology objects.
+ * each thread or each set of calls to the Morphology.
+ * The other approach is to use the static methods in this class, which
+ * can be called from any number of threads at once: each thread gets its
+ * own lexer, and the lemmas found are kept in a {@link LemmaCache} shared
+ * by all threads, so that frequent words are only lemmatized once.
+ * The MorphaAnnotator and the parsers use the static methods.
  * <br>
  * @author Kristina Toutanova (kristina@cs.stanford.edu)
  * @author Christopher Manning
@@ -56,7 +56,15 @@ public class Morphology implements Function {
   private static final Logger LOGGER = Logger.getLogger(Morphology.class.getName());
 
   private static final boolean DEBUG = false;
-  private static Morpha staticLexer;
+
+  /** The default number of lemmas kept by the static methods */
+  public static final int DEFAULT_LEMMA_CACHE_SIZE = 100000;
+
+  /** The lexers of the static methods, one for each thread */
+  private static final ThreadLocal<Morpha> staticLexers = ThreadLocal.withInitial(() -> new Morpha(System.in));
+
+  /** The lemmas found by the static methods, or null if they are not kept */
+  private static volatile LemmaCache lemmaCache = new LemmaCache(DEFAULT_LEMMA_CACHE_SIZE);
 
   private final Morpha lexer;
 
@@ -168,32 +176,70 @@ public class Morphology implements Function {
     }
   }
 
-  private static synchronized void initStaticLexer() {
-    if (staticLexer == null) {
-      staticLexer = new Morpha(System.in);
+  /** Return a new WordTag which has the lemma as the value of word().
+   *  Words other than proper nouns are lowercased.
+   */
+  public static WordTag stemStatic(String word, String tag) {
+    return new WordTag(lemmaStatic(word, tag, true), tag);
+  }
+
+
+  /** Return the lemma of the word with the given tag.  This may be
+   *  called from any number of threads at once.
+   *
+   *  @param lowercase If this is true, words other than proper nouns will
+   *      be changed to all lowercase.
+   */
+  public static String lemmaStatic(String word, String tag,
+                                   boolean lowercase) {
+    LemmaCache cache = lemmaCache;
+    if (cache == null) {
+      return lemmatize(word, tag, staticLexers.get(), lowercase);
+    }
+    String lemma = cache.get(word, tag, lowercase);
+    if (lemma == null) {
+      lemma = lemmatize(word, tag, staticLexers.get(), lowercase);
+      cache.put(word, tag, lowercase, lemma);
     }
+    return lemma;
   }
 
-  /** Return a new WordTag which has the lemma as the value of word().
-   *  The default is to lowercase non-proper-nouns, unless options have
-   *  been set.
+
+  /** Return the stem of a word without a tag, as {@link #stem(String)} does,
+   *  lowercasing it.  This may be called from any number of threads at once.
    */
-  public static synchronized WordTag stemStatic(String word, String tag) {
-    initStaticLexer();
-    return new WordTag(lemmatize(word, tag, staticLexer, staticLexer.option(1)), tag);
+  public static String stemWordStatic(String word) {
+    Morpha lexer = staticLexers.get();
+    lexer.setOption(1, true);
+    try {
+      lexer.yyreset(new StringReader(word));
+      lexer.yybegin(Morpha.any);
+      return lexer.next();
+    } catch (IOException e) {
+      LOGGER.warning("Morphology.stem() had error on word " + word);
+      return word;
+    }
+  }
+
+
+  /** Returns the cache of lemmas of the static methods, or null if
+   *  lemmas are not cached.
+   */
+  public static LemmaCache getLemmaCache() {
+    return lemmaCache;
   }
 
 
-  public static synchronized String lemmaStatic(String word, String tag,
-                                                boolean lowercase) {
-    initStaticLexer();
-    return lemmatize(word, tag, staticLexer, lowercase);
+  /** Sets how many lemmas the static methods keep, dropping the ones
+   *  they kept so far.  If {@code maxSize} is 0, lemmas are not kept.
+   */
+  public static void setLemmaCacheSize(int maxSize) {
+    lemmaCache = (maxSize > 0) ? new LemmaCache(maxSize) : null;
   }
 
 
   /** Return a new WordTag which has the lemma as the value of word().
-   *  The default is to lowercase non-proper-nouns, unless options have
-   *  been set.
+   *  Words other than proper nouns are lowercased.
    */
   public static WordTag stemStatic(WordTag wT) {
     return stemStatic(wT.word(), wT.tag());
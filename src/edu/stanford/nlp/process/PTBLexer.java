@@ -27309,6 +27309,28 @@ class PTBLexer {
       prevWord = (CoreLabel) tf.makeToken("", 0, 0);
       prevWordAfter = new StringBuilder();
     }
+    if (tf instanceof TokenSpans) {
+      spans = (TokenSpans) tf;
+    }
+    if (strictTreebank3) {
+      yybegin(YyStrictlyTreebank3);
+    } else {
+      yybegin(YyTraditionalTreebank3);
+    }
+  }
+
+  /**
+   * Starts tokenizing the text of another Reader, with the same options.
+   * Character offsets start again from 0.
+   */
+  public void reset(Reader r) {
+    yyreset(r);
+    // so that the first untokenizable character of each text is reported
+    seenUntokenizableCharacter = false;
+    if (invertible) {
+      prevWord = (CoreLabel) tokenFactory.makeToken("", 0, 0);
+      prevWordAfter.setLength(0);
+    }
     if (strictTreebank3) {
       yybegin(YyStrictlyTreebank3);
     } else {
@@ -27320,6 +27342,8 @@ class PTBLexer {
   private static final Logger LOGGER = Logger.getLogger(PTBLexer.class.getName());
 
   private LexedTokenFactory<?> tokenFactory;
+  /** The tokenFactory, if it keeps tokens as offsets; then unnormalized tokens need no String */
+  private TokenSpans spans;
   private CoreLabel prevWord;
   private StringBuilder prevWordAfter;
   private boolean seenUntokenizableCharacter;
@@ -27571,6 +27595,9 @@ class PTBLexer {
   }
 
   private Object getNext() {
+    if (spans != null) {
+      return spans.add(yychar, yylength(), null);
+    }
     final String txt = yytext();
     return getNext(txt, txt);
   }
@@ -647,6 +647,69 @@ public class PTBTokenizer<T extends HasWord> extends AbstractTokenizer<T> {
     }
   } // end static class PTBTokenizerFactory
 
+
+  /**
+   * Tokenizes texts into {@link TokenSpans}, character offsets into the
+   * text, rather than into token objects.  Only the words the tokenizer
+   * normalizes are made into Strings while tokenizing, and the lexer and
+   * the offset arrays are reused from one text to the next, so this is
+   * the cheap way to tokenize many texts when mostly the token boundaries
+   * are wanted.  A token's word, original text and surrounding whitespace
+   * are as an invertible PTBTokenizer with the same options gives them,
+   * and {@link TokenSpans#coreLabel(int)} makes that CoreLabel on demand.
+   * The TokenizerAnnotator tokenizes this way when its tokens are stored
+   * as columns (the tokenize.columnar property).
+   * <br>
+   * A SpanTokenizer is not threadsafe; use one per thread.
+   */
+  public static class SpanTokenizer {
+
+    private final TokenSpans spans = new TokenSpans();
+    private final PTBLexer lexer;
+
+    /** Makes a SpanTokenizer with the default options */
+    public SpanTokenizer() {
+      this(null);
+    }
+
+    /**
+     * Makes a SpanTokenizer.
+     *
+     * @param options Options to the tokenizer (see the class documentation for details).
+     *                The invertible option is not needed, and is ignored.
+     */
+    public SpanTokenizer(String options) {
+      if (options == null || options.isEmpty()) {
+        options = "invertible=false";
+      } else {
+        options = options + ",invertible=false";
+      }
+      lexer = new PTBLexer(new StringReader(""), spans, options);
+    }
+
+    /**
+     * Tokenizes the text.  The TokenSpans returned are reused by the next
+     * call, so take what is needed from them before tokenizing another text.
+     *
+     * @param text The text to tokenize, which should not change while its
+     *             TokenSpans are in use
+     * @return The tokens of the text
+     */
+    public TokenSpans tokenize(CharSequence text) {
+      spans.reset(text);
+      lexer.reset(new StringReader(text.toString()));
+      try {
+        while (lexer.next() != null) {
+          // the lexer adds each token to spans
+        }
+      } catch (IOException e) {
+        throw new RuntimeIOException(e);
+      }
+      return spans;
+    }
+
+  } // end static class SpanTokenizer
+
   /**
    * Command-line option specification.
    */
@@ -0,0 +1,231 @@
+package edu.stanford.nlp.process;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.ling.TokenColumns;
+
+/**
+ * The tokens of a text kept as character offsets into the text, rather
+ * than as objects with Strings.  A token whose word was normalized by the
+ * tokenizer (e.g., "(" to "-LRB-") also keeps its normalized word; the
+ * other words, and the original text of each token and the whitespace
+ * around it, are only made into Strings when they are asked for.
+ * <br>
+ * The offsets are kept in arrays which are reused for the next text
+ * after {@link #reset(CharSequence)}, so tokenizing many short texts with
+ * one TokenSpans allocates little beyond the normalized words.  The
+ * whitespace before and after each token is the text between it and its
+ * neighbours, as with an invertible {@link PTBTokenizer}.
+ * <br>
+ * A TokenSpans is the {@link LexedTokenFactory} of the lexer filling it:
+ * each token made is added to it, and the factory returns itself.
+ * It is not synchronized.
+ *
+ * @see PTBTokenizer.SpanTokenizer
+ */
+public class TokenSpans implements LexedTokenFactory<TokenSpans> {
+
+  private CharSequence text;
+  private int size;
+  private int[] begins;
+  private int[] ends;
+  /** The normalized word of each token, or null if its word is its original text */
+  private String[] words;
+
+  public TokenSpans() {
+    this(64);
+  }
+
+  public TokenSpans(int capacity) {
+    begins = new int[capacity];
+    ends = new int[capacity];
+    words = new String[capacity];
+  }
+
+  /** Drops the tokens, to start on the tokens of the given text */
+  public void reset(CharSequence text) {
+    Arrays.fill(words, 0, size, null);
+    size = 0;
+    this.text = text;
+  }
+
+  /**
+   * Adds a token.
+   *
+   * @param begin The offset of the token in the text
+   * @param length The number of characters of the token in the text
+   * @param word The normalized word of the token, or null if it is the
+   *             text of the token
+   * @return This TokenSpans
+   */
+  public TokenSpans add(int begin, int length, String word) {
+    if (size == begins.length) {
+      int capacity = Math.max(16, size * 2);
+      begins = Arrays.copyOf(begins, capacity);
+      ends = Arrays.copyOf(ends, capacity);
+      words = Arrays.copyOf(words, capacity);
+    }
+    begins[size] = begin;
+    ends[size] = begin + length;
+    words[size] = word;
+    size++;
+    return this;
+  }
+
+  /**
+   * Adds a token, keeping {@code str} only if it differs from the text
+   * of the token.
+   */
+  @Override
+  public TokenSpans makeToken(String str, int begin, int length) {
+    return add(begin, length, isText(str, begin, length) ? null : str);
+  }
+
+  private boolean isText(String str, int begin, int length) {
+    if (text == null || str.length() != length || begin + length > text.length()) {
+      return false;
+    }
+    if (text instanceof String) {
+      return ((String) text).regionMatches(begin, str, 0, length);
+    }
+    for (int i = 0; i < length; i++) {
+      if (text.charAt(begin + i) != str.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** The text the tokens are from */
+  public CharSequence text() {
+    return text;
+  }
+
+  /** The number of tokens */
+  public int size() {
+    return size;
+  }
+
+  /** The offset of the first character of the token in the text */
+  public int begin(int i) {
+    checkIndex(i);
+    return begins[i];
+  }
+
+  /** The offset just past the last character of the token in the text */
+  public int end(int i) {
+    checkIndex(i);
+    return ends[i];
+  }
+
+  /** Whether the tokenizer changed the word of the token from its text */
+  public boolean isNormalized(int i) {
+    checkIndex(i);
+    return words[i] != null;
+  }
+
+  /** The word of the token, as the tokenizer normalized it */
+  public String word(int i) {
+    checkIndex(i);
+    String word = words[i];
+    return (word != null) ? word : substring(begins[i], ends[i]);
+  }
+
+  /** The text of the token */
+  public String originalText(int i) {
+    checkIndex(i);
+    return substring(begins[i], ends[i]);
+  }
+
+  /** The text between the token and the one before it, or the start of the text */
+  public String before(int i) {
+    checkIndex(i);
+    return substring((i == 0) ? 0 : ends[i - 1], begins[i]);
+  }
+
+  /** The text between the token and the one after it, or the end of the text */
+  public String after(int i) {
+    checkIndex(i);
+    return substring(ends[i], (i == size - 1) ? text.length() : begins[i + 1]);
+  }
+
+  private String substring(int begin, int end) {
+    if (text instanceof String) {
+      return ((String) text).substring(begin, end);
+    }
+    return text.subSequence(begin, end).toString();
+  }
+
+  private void checkIndex(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("Token " + i + " of " + size);
+    }
+  }
+
+  /**
+   * Makes a CoreLabel of the token, with the annotations an invertible
+   * PTBTokenizer with a {@link CoreLabelTokenFactory} gives it.
+   */
+  public CoreLabel coreLabel(int i) {
+    CoreLabel label = new CoreLabel(7);
+    String word = word(i);
+    label.setValue(word);
+    label.setWord(word);
+    label.setOriginalText(originalText(i));
+    label.setBeginPosition(begins[i]);
+    label.setEndPosition(ends[i]);
+    label.setBefore(before(i));
+    label.setAfter(after(i));
+    return label;
+  }
+
+  /** Makes CoreLabels of all the tokens, as {@link #coreLabel(int)} does */
+  public List<CoreLabel> toCoreLabels() {
+    List<CoreLabel> labels = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      labels.add(coreLabel(i));
+    }
+    return labels;
+  }
+
+  /**
+   * Makes {@link TokenColumns} of the tokens, which hold the same
+   * annotations as {@link #coreLabel(int)} without a CoreLabel per token.
+   * The columns don't change when this TokenSpans is reused.
+   */
+  public TokenColumns toColumns() {
+    return TokenColumns.fromOffsets(text.toString(), size, begins, ends, words);
+  }
+
+  /** The words of the tokens, made into Strings as they are asked for */
+  public List<String> words() {
+    return new AbstractList<String>() {
+      @Override
+      public String get(int index) {
+        return word(index);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      sb.append(word(i));
+    }
+    return sb.toString();
+  }
+
+}
@@ -30,6 +30,8 @@ public class CoordinationPattern extends SemgrexPattern {
 
   public boolean isNodeCoord() { return isNodeCoord; }
 
+  boolean isConj() { return isConj; }
+
   @Override
   public void setChild(SemgrexPattern child) {
     if (isNodeCoord) {
@@ -152,6 +154,14 @@ public class CoordinationPattern extends SemgrexPattern {
       considerAll = myNode.isConj ^ myNode.isNegated();
     }
 
+    @Override
+    void setNodeAttrCache(NodeAttrCache nodeAttrCache) {
+      super.setNodeAttrCache(nodeAttrCache);
+      for (SemgrexMatcher child : children) {
+        child.setNodeAttrCache(nodeAttrCache);
+      }
+    }
+
     @Override
     void resetChildIter() {
       currChild = 0;
@@ -0,0 +1,65 @@
+package edu.stanford.nlp.semgraph.semgrex;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import edu.stanford.nlp.ling.IndexedWord;
+import edu.stanford.nlp.semgraph.SemanticGraph;
+
+/**
+ * Remembers whether each node of a graph matches the attributes of each
+ * {@link NodePattern} of a {@link SemgrexPatternSet}, so that a node is
+ * only tested once against the same attributes, however many patterns
+ * (or parts of one pattern) ask for them.
+ * <br>
+ * NodePatterns with the same attributes share a number, given by the
+ * SemgrexPatternSet.  Nodes of other graphs, and NodePatterns without a
+ * number, are just matched as usual.
+ */
+class NodeAttrCache {
+
+  private static final byte UNKNOWN = 0;
+  private static final byte MATCH = 1;
+  private static final byte NO_MATCH = 2;
+
+  private final SemanticGraph sg;
+  private final Map<NodePattern, Integer> nodeAttrIds;
+  private final int numNodeAttrs;
+  private final boolean ignoreCase;
+  private final Map<IndexedWord, Integer> vertexIds;
+  private final byte[] results;
+
+  /**
+   * @param nodeAttrIds The number of the attributes of each NodePattern,
+   *                    from 0 to {@code numNodeAttrs - 1}
+   */
+  NodeAttrCache(SemanticGraph sg, Map<NodePattern, Integer> nodeAttrIds, int numNodeAttrs, boolean ignoreCase) {
+    this.sg = sg;
+    this.nodeAttrIds = nodeAttrIds;
+    this.numNodeAttrs = numNodeAttrs;
+    this.ignoreCase = ignoreCase;
+    // the nodes the graph's iterators give back are its own vertices
+    vertexIds = new IdentityHashMap<>();
+    for (IndexedWord vertex : sg.vertexSet()) {
+      vertexIds.put(vertex, vertexIds.size());
+    }
+    results = new byte[vertexIds.size() * numNodeAttrs];
+  }
+
+  /**
+   * The same as {@code pattern.nodeAttrMatch(node, graph, ignoreCase)}.
+   */
+  boolean nodeAttrMatch(NodePattern pattern, IndexedWord node, SemanticGraph graph) {
+    Integer nodeAttrId = nodeAttrIds.get(pattern);
+    Integer vertexId = (graph == sg) ? vertexIds.get(node) : null;
+    if (nodeAttrId == null || vertexId == null) {
+      return pattern.nodeAttrMatch(node, graph, ignoreCase);
+    }
+    int i = vertexId * numNodeAttrs + nodeAttrId;
+    if (results[i] == UNKNOWN) {
+      results[i] = pattern.nodeAttrMatch(node, graph, ignoreCase) ? MATCH : NO_MATCH;
+    }
+    return results[i] == MATCH;
+  }
+
+}
@@ -173,6 +173,41 @@ public class NodePattern extends SemgrexPattern {
     return !negDesc;
   }
 
+  /**
+   * A string which is the same for two NodePatterns exactly when
+   * {@link #nodeAttrMatch} gives the same answer for them on every node,
+   * at least as far as can be told from the attributes: the values are
+   * compared as written, after looking up which annotation each key means.
+   */
+  String nodeAttrKey() {
+    if (isRoot) {
+      return negDesc ? "!$" : "$";
+    }
+    if (isEmpty) {
+      return negDesc ? "!#" : "#";
+    }
+    List<String> attrKeys = new ArrayList<>(attributes.size());
+    for (Map.Entry<String, Pair<Object, Object>> attr : attributes.entrySet()) {
+      Class<?> c = Env.lookupAnnotationKey(env, attr.getKey());
+      Object value = attr.getValue().first;
+      String valueKey;
+      if (value instanceof Pattern) {
+        valueKey = "/" + ((Pattern) value).pattern() + '/';
+      } else if (value instanceof Boolean) {
+        valueKey = "__";
+      } else {
+        valueKey = "=" + value;
+      }
+      attrKeys.add((c == null ? attr.getKey() : c.getName()) + ':' + valueKey);
+    }
+    Collections.sort(attrKeys);
+    return (negDesc ? "!" : "") + attrKeys;
+  }
+
+  GraphRelation getRelation() {
+    return reln;
+  }
+
   public void makeLink() {
     isLink = true;
   }
@@ -331,6 +366,22 @@ public class NodePattern extends SemgrexPattern {
 
     }
 
+    @Override
+    void setNodeAttrCache(NodeAttrCache nodeAttrCache) {
+      super.setNodeAttrCache(nodeAttrCache);
+      if (childMatcher != null) {
+        childMatcher.setNodeAttrCache(nodeAttrCache);
+      }
+    }
+
+    private boolean nodeAttrMatch(IndexedWord candidate) {
+      SemanticGraph graph = hyp ? sg : sg_aligned;
+      if (nodeAttrCache != null) {
+        return nodeAttrCache.nodeAttrMatch(myNode, candidate, graph);
+      }
+      return myNode.nodeAttrMatch(candidate, graph, ignoreCase);
+    }
+
     private void resetChild() {
       if (childMatcher == null) {
         if (myNode.child == null) {
@@ -339,6 +390,9 @@ public class NodePattern extends SemgrexPattern {
           childMatcher = myNode.child.matcher(sg, alignment, sg_aligned,
               (myNode.reln instanceof GraphRelation.ALIGNMENT) ? !hyp : hyp, nextMatch, namesToNodes, namesToRelations,
               variableStrings, ignoreCase);
+          if (nodeAttrCache != null) {
+            childMatcher.setNodeAttrCache(nodeAttrCache);
+          }
         }
       } else {
         childMatcher.resetChildIter(nextMatch);
@@ -385,9 +439,7 @@ public class NodePattern extends SemgrexPattern {
               }
             }
           } else {
-            boolean found = myNode.nodeAttrMatch(nextMatch,
-                                                 hyp ? sg : sg_aligned,
-                                                 ignoreCase);
+            boolean found = nodeAttrMatch(nextMatch);
             if (found) {
               for (Pair<Integer, String> varGroup : myNode.variableGroups) {
                 // if variables have been captured from a regex, they
@@ -409,9 +461,7 @@ public class NodePattern extends SemgrexPattern {
             }
           }
         } else { // try to match the description pattern.
-          boolean found = myNode.nodeAttrMatch(nextMatch,
-                                               hyp ? sg : sg_aligned,
-                                               ignoreCase);
+          boolean found = nodeAttrMatch(nextMatch);
           if (found) {
             for (Pair<Integer, String> varGroup : myNode.variableGroups) {
               // if variables have been captured from a regex, they
@@ -32,6 +32,9 @@ public abstract class SemgrexMatcher {
   Iterator<IndexedWord> findIterator;
   IndexedWord findCurrent;
 
+  // shared node attribute results when matching a SemgrexPatternSet; null otherwise
+  NodeAttrCache nodeAttrCache;
+
   SemgrexMatcher(SemanticGraph sg, 
                  Alignment alignment,
                  SemanticGraph sg_aligned,
@@ -82,6 +85,14 @@ public abstract class SemgrexMatcher {
   void resetChildIter() {
   }
 
+  /**
+   * Makes this matcher and the matchers of its subpatterns look up node
+   * attribute matches in the given cache.
+   */
+  void setNodeAttrCache(NodeAttrCache nodeAttrCache) {
+    this.nodeAttrCache = nodeAttrCache;
+  }
+
   /**
    * Does the pattern match the graph?  It's actually closer to
    * java.util.regex's "lookingAt" in that the root of the graph has to match
@@ -0,0 +1,227 @@
+package edu.stanford.nlp.semgraph.semgrex;
+
+import java.util.*;
+
+import edu.stanford.nlp.ling.IndexedWord;
+import edu.stanford.nlp.semgraph.SemanticGraph;
+import edu.stanford.nlp.util.Generics;
+
+/**
+ * Matches many {@link SemgrexPattern}s against a graph at once, such as
+ * the patterns read by a {@link SemgrexBatchParser}.
+ * <br>
+ * Matching each pattern separately tests the attributes of its nodes,
+ * such as <code>{lemma:/be|have/;tag:/VB.*&#47;}</code>, against every
+ * node of the graph, although many patterns have node descriptions in
+ * common.  Here, node descriptions with the same attributes are numbered
+ * once when the set is made, and whether each node of a graph matches
+ * each of them is remembered while matching that graph, for all the
+ * patterns.  The graph is sorted only once, and a pattern is only tried
+ * at the nodes which match the description at its root, so patterns
+ * sharing a root description which a node doesn't match are all skipped
+ * after one lookup.
+ * <br>
+ * The matches of each pattern are the ones its own
+ * {@link SemgrexMatcher#find()} would find, in the same order.
+ * A SemgrexPatternSet can be used by several threads at once.
+ */
+public class SemgrexPatternSet {
+
+  private final List<SemgrexPattern> patterns;
+  private final boolean ignoreCase;
+
+  /** The number of the attributes of each node of each pattern */
+  private final Map<NodePattern, Integer> nodeAttrIds;
+  private final int numNodeAttrs;
+
+  /**
+   * The patterns, grouped by the node description their root has to match,
+   * with the ones which can be tried anywhere last.
+   */
+  private final List<RootGroup> rootGroups;
+
+  public SemgrexPatternSet(List<SemgrexPattern> patterns) {
+    this(patterns, false);
+  }
+
+  /**
+   * @param ignoreCase Whether to ignore case matching node attributes, as in
+   *                   {@link SemgrexPattern#matcher(SemanticGraph, boolean)}
+   */
+  public SemgrexPatternSet(List<SemgrexPattern> patterns, boolean ignoreCase) {
+    this.patterns = Collections.unmodifiableList(new ArrayList<>(patterns));
+    this.ignoreCase = ignoreCase;
+
+    nodeAttrIds = new IdentityHashMap<>();
+    Map<String, Integer> keyIds = Generics.newHashMap();
+    for (SemgrexPattern pattern : this.patterns) {
+      numberNodeAttrs(pattern, keyIds);
+    }
+    numNodeAttrs = keyIds.size();
+
+    Map<NodePattern, RootGroup> groups = new LinkedHashMap<>();
+    RootGroup anywhere = new RootGroup(null);
+    Map<Integer, NodePattern> firstWithId = Generics.newHashMap();
+    for (int i = 0; i < this.patterns.size(); i++) {
+      NodePattern root = rootNode(this.patterns.get(i));
+      if (root == null) {
+        anywhere.patternNumbers.add(i);
+      } else {
+        // NodePatterns with the same attributes share a group
+        NodePattern first = firstWithId.computeIfAbsent(nodeAttrIds.get(root), id -> root);
+        groups.computeIfAbsent(first, RootGroup::new).patternNumbers.add(i);
+      }
+    }
+    rootGroups = new ArrayList<>(groups.values());
+    if ( ! anywhere.patternNumbers.isEmpty()) {
+      rootGroups.add(anywhere);
+    }
+  }
+
+  private void numberNodeAttrs(SemgrexPattern pattern, Map<String, Integer> keyIds) {
+    if (pattern instanceof NodePattern && ! nodeAttrIds.containsKey(pattern)) {
+      NodePattern node = (NodePattern) pattern;
+      nodeAttrIds.put(node, keyIds.computeIfAbsent(node.nodeAttrKey(), key -> keyIds.size()));
+    }
+    for (SemgrexPattern child : pattern.getChildren()) {
+      numberNodeAttrs(child, keyIds);
+    }
+  }
+
+  /**
+   * The node description which the node a pattern is matched at has to
+   * match for the pattern to match there, or null if there isn't one.
+   */
+  private static NodePattern rootNode(SemgrexPattern pattern) {
+    if (pattern.isNegated() || pattern.isOptional()) {
+      return null;
+    }
+    if (pattern instanceof NodePattern) {
+      NodePattern node = (NodePattern) pattern;
+      return (node.getRelation() == GraphRelation.ROOT) ? node : null;
+    }
+    if (pattern instanceof CoordinationPattern) {
+      // the first child of a conjunction of nodes, as in "{} : {}", is matched at the same node
+      CoordinationPattern coordination = (CoordinationPattern) pattern;
+      if (coordination.isConj() && coordination.isNodeCoord()) {
+        return rootNode(coordination.getChildren().get(0));
+      }
+    }
+    return null;
+  }
+
+  public List<SemgrexPattern> getPatterns() {
+    return patterns;
+  }
+
+  public int size() {
+    return patterns.size();
+  }
+
+  /** How many different node descriptions there are in all the patterns */
+  public int numNodeAttrs() {
+    return numNodeAttrs;
+  }
+
+  /**
+   * Finds the matches of all the patterns in the graph.
+   *
+   * @return The matches of each pattern, in the order of the patterns
+   */
+  public List<List<Match>> matches(SemanticGraph sg) {
+    List<List<Match>> matches = new ArrayList<>(patterns.size());
+    for (int i = 0; i < patterns.size(); i++) {
+      matches.add(new ArrayList<>());
+    }
+    if (sg.isEmpty()) {
+      return matches;
+    }
+
+    List<IndexedWord> nodes;
+    try {
+      nodes = sg.topologicalSort();
+    } catch (Exception e) {
+      // the same order SemgrexMatcher.find() falls back on for graphs with cycles
+      nodes = new ArrayList<>(sg.vertexSet());
+    }
+
+    NodeAttrCache nodeAttrCache = new NodeAttrCache(sg, nodeAttrIds, numNodeAttrs, ignoreCase);
+    SemgrexMatcher[] matchers = new SemgrexMatcher[patterns.size()];
+    for (IndexedWord node : nodes) {
+      for (RootGroup group : rootGroups) {
+        if (group.root != null && ! nodeAttrCache.nodeAttrMatch(group.root, node, sg)) {
+          continue;
+        }
+        for (int i : group.patternNumbers) {
+          SemgrexMatcher matcher = matchers[i];
+          if (matcher == null) {
+            matcher = patterns.get(i).matcher(sg, node, Generics.newHashMap(), Generics.newHashMap(),
+                                              new VariableStrings(), ignoreCase);
+            matcher.setNodeAttrCache(nodeAttrCache);
+            matchers[i] = matcher;
+          }
+          if (matcher.matchesAt(node)) {
+            List<Match> patternMatches = matches.get(i);
+            do {
+              patternMatches.add(new Match(matcher));
+            } while (matcher.matches());
+          }
+        }
+      }
+    }
+    return matches;
+  }
+
+  private static class RootGroup {
+    final NodePattern root;
+    final List<Integer> patternNumbers = new ArrayList<>();
+
+    RootGroup(NodePattern root) {
+      this.root = root;
+    }
+  }
+
+
+  /**
+   * A match of a pattern: the node matching the root of the pattern, and
+   * the nodes and relations given names in the pattern.
+   */
+  public static class Match {
+    private final IndexedWord match;
+    private final Map<String, IndexedWord> namesToNodes;
+    private final Map<String, String> namesToRelations;
+
+    Match(SemgrexMatcher matcher) {
+      match = matcher.getMatch();
+      namesToNodes = matcher.namesToNodes.isEmpty() ? Collections.emptyMap() : Generics.newHashMap(matcher.namesToNodes);
+      namesToRelations = matcher.namesToRelations.isEmpty() ? Collections.emptyMap() : Generics.newHashMap(matcher.namesToRelations);
+    }
+
+    /** The node matching the root of the pattern */
+    public IndexedWord getMatch() {
+      return match;
+    }
+
+    public IndexedWord getNode(String name) {
+      return namesToNodes.get(name);
+    }
+
+    public Set<String> getNodeNames() {
+      return namesToNodes.keySet();
+    }
+
+    public String getRelnString(String name) {
+      return namesToRelations.get(name);
+    }
+
+    public Set<String> getRelationNames() {
+      return namesToRelations.keySet();
+    }
+
+    @Override
+    public String toString() {
+      return namesToNodes.isEmpty() ? String.valueOf(match) : match + " " + namesToNodes;
+    }
+  }
+
+}
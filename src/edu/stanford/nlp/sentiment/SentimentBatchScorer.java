@@ -0,0 +1,355 @@
+package edu.stanford.nlp.sentiment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ejml.simple.SimpleMatrix;
+
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.neural.SimpleTensor;
+import edu.stanford.nlp.neural.rnn.RNNCoreAnnotations;
+import edu.stanford.nlp.trees.Tree;
+
+/**
+ * Forward propagates many trees at once with a {@link SentimentModel},
+ * giving the same annotations as
+ * {@link SentimentCostAndGradient#forwardPropagateTree}.
+ * <br>
+ * The nodes of all the trees are put in levels by their height, so that
+ * the children of a node are always in a lower level.  The nodes of a
+ * level which use the same transform are then done together: the vectors
+ * of their children are gathered into one block, and the whole block is
+ * multiplied by the transform (and the tensor) in one pass.  All the
+ * vectors are kept in arrays which are reused from one call to the next,
+ * and only ever grow, so the only matrices made are the
+ * {@link RNNCoreAnnotations.NodeVector} and {@link RNNCoreAnnotations.Predictions}
+ * of each node.  The sums are done in the same order as EJML does them,
+ * so the results are exactly the same.
+ * <br>
+ * A SentimentBatchScorer keeps these arrays, so it should not be used by
+ * two threads at once.
+ */
+public class SentimentBatchScorer {
+
+  /** How many nodes the tensor is applied to at once */
+  private static final int BILINEAR_NODES = 4;
+
+  private final SentimentModel model;
+  private final int numHid;
+  private final int numClasses;
+
+  // the nodes of the trees, numbered in post order
+  private final List<Tree> nodes = new ArrayList<>();
+  private int[] leftChild = new int[0];
+  private int[] rightChild = new int[0];
+  private int[] height = new int[0];
+  private int[] group = new int[0];
+  // the node numbers, sorted by height and then by group
+  private int[] order = new int[0];
+
+  // the binary transforms used by the nodes, numbered by group
+  private final List<SimpleMatrix> groupTransforms = new ArrayList<>();
+  private final List<SimpleTensor> groupTensors = new ArrayList<>();
+  private final List<SimpleMatrix> groupClassifications = new ArrayList<>();
+  private final Map<SimpleMatrix, Integer> groupIds = new IdentityHashMap<>();
+
+  // numHid values for each node
+  private double[] vectors = new double[0];
+  // [left; right; 1] for each node of the block being computed
+  private double[] block = new double[0];
+  // the transform and tensor sums for each node of the block
+  private double[] sums = new double[0];
+  // one row of a bilinear product for each of BILINEAR_NODES nodes
+  private final double[] bilinear;
+  private final double[] scores;
+
+  public SentimentBatchScorer(SentimentModel model) {
+    this.model = model;
+    this.numHid = model.numHid;
+    this.numClasses = model.numClasses;
+    this.bilinear = new double[numHid * 2 * BILINEAR_NODES];
+    this.scores = new double[numClasses];
+  }
+
+  /**
+   * Sets the {@link RNNCoreAnnotations.NodeVector}, {@link RNNCoreAnnotations.Predictions}
+   * and {@link RNNCoreAnnotations.PredictedClass} of every node of the trees.
+   * The trees must be binarized, with their unary nodes collapsed and
+   * CoreLabels as labels, as for {@link SentimentCostAndGradient#forwardPropagateTree}.
+   */
+  public void forwardPropagateTrees(List<Tree> trees) {
+    nodes.clear();
+    groupTransforms.clear();
+    groupTensors.clear();
+    groupClassifications.clear();
+    groupIds.clear();
+    int maxHeight = 0;
+    for (Tree tree : trees) {
+      int root = addNodes(tree);
+      maxHeight = Math.max(maxHeight, height[root]);
+    }
+    int numNodes = nodes.size();
+    if (vectors.length < numNodes * numHid) {
+      vectors = new double[Math.max(numNodes * numHid, vectors.length * 2)];
+    }
+    sortNodes(numNodes, maxHeight);
+
+    int start = 0;
+    while (start < numNodes) {
+      int end = start + 1;
+      while (end < numNodes && height[order[end]] == height[order[start]] && group[order[end]] == group[order[start]]) {
+        end++;
+      }
+      if (height[order[start]] == 0) {
+        for (int i = start; i < end; i++) {
+          wordVector(order[i]);
+        }
+      } else {
+        transformBlock(start, end, group[order[start]]);
+      }
+      start = end;
+    }
+
+    for (int node = 0; node < numNodes; node++) {
+      classify(node);
+    }
+    nodes.clear();
+  }
+
+  /** Numbers the nodes of the tree in post order, and returns the number of its root */
+  private int addNodes(Tree tree) {
+    if (tree.isLeaf()) {
+      throw new AssertionError("We should not have reached leaves in forwardPropagate");
+    }
+    if ( ! (tree.label() instanceof CoreLabel)) {
+      throw new AssertionError("Expected CoreLabels in the nodes");
+    }
+    int left = -1;
+    int right = -1;
+    int nodeHeight = 0;
+    int nodeGroup = -1;
+    if (tree.isPreTerminal()) {
+      // nothing to do here
+    } else if (tree.children().length == 1) {
+      throw new AssertionError("Non-preterminal nodes of size 1 should have already been collapsed");
+    } else if (tree.children().length == 2) {
+      left = addNodes(tree.children()[0]);
+      right = addNodes(tree.children()[1]);
+      nodeHeight = Math.max(height[left], height[right]) + 1;
+      nodeGroup = groupId(tree.children()[0].label().value(), tree.children()[1].label().value());
+    } else {
+      throw new AssertionError("Tree not correctly binarized");
+    }
+
+    int node = nodes.size();
+    nodes.add(tree);
+    if (node == height.length) {
+      int size = Math.max(16, node * 2);
+      leftChild = Arrays.copyOf(leftChild, size);
+      rightChild = Arrays.copyOf(rightChild, size);
+      height = Arrays.copyOf(height, size);
+      group = Arrays.copyOf(group, size);
+      order = new int[size];
+    }
+    leftChild[node] = left;
+    rightChild[node] = right;
+    height[node] = nodeHeight;
+    group[node] = nodeGroup;
+    return node;
+  }
+
+  /** Numbers the binary transforms, so that the nodes using the same one can be done together */
+  private int groupId(String leftCategory, String rightCategory) {
+    SimpleMatrix transform = model.getBinaryTransform(leftCategory, rightCategory);
+    Integer id = groupIds.get(transform);
+    if (id == null) {
+      id = groupTransforms.size();
+      groupIds.put(transform, id);
+      groupTransforms.add(transform);
+      groupTensors.add(model.op.useTensors ? model.getBinaryTensor(leftCategory, rightCategory) : null);
+      groupClassifications.add(model.getBinaryClassification(leftCategory, rightCategory));
+    }
+    return id;
+  }
+
+  /** Counting sort of the nodes by height, and by group within each height */
+  private void sortNodes(int numNodes, int maxHeight) {
+    int numGroups = groupTransforms.size() + 1;
+    int[] counts = new int[(maxHeight + 1) * numGroups + 1];
+    for (int node = 0; node < numNodes; node++) {
+      counts[height[node] * numGroups + group[node] + 2]++;
+    }
+    for (int i = 1; i < counts.length; i++) {
+      counts[i] += counts[i - 1];
+    }
+    for (int node = 0; node < numNodes; node++) {
+      order[counts[height[node] * numGroups + group[node] + 1]++] = node;
+    }
+  }
+
+  private void wordVector(int node) {
+    String word = nodes.get(node).children()[0].label().value();
+    double[] wordVector = model.getWordVector(word).getMatrix().data;
+    int offset = node * numHid;
+    for (int i = 0; i < numHid; i++) {
+      vectors[offset + i] = Math.tanh(wordVector[i]);
+    }
+  }
+
+  /**
+   * Computes the vectors of the nodes order[start] to order[end - 1],
+   * which all use the transforms of the given group.
+   */
+  private void transformBlock(int start, int end, int groupId) {
+    int inSize = numHid * 2 + 1;
+    int blockNodes = end - start;
+    if (block.length < blockNodes * inSize) {
+      block = new double[Math.max(blockNodes * inSize, block.length * 2)];
+    }
+    if (sums.length < blockNodes) {
+      sums = new double[Math.max(blockNodes, sums.length * 2)];
+    }
+    for (int i = start; i < end; i++) {
+      int node = order[i];
+      int offset = (i - start) * inSize;
+      System.arraycopy(vectors, leftChild[node] * numHid, block, offset, numHid);
+      System.arraycopy(vectors, rightChild[node] * numHid, block, offset + numHid, numHid);
+      block[offset + numHid * 2] = 1.0;
+    }
+
+    // each row of the transform and slice of the tensor is used for the
+    // whole block before going on to the next one
+    double[] transform = groupTransforms.get(groupId).getMatrix().data;
+    SimpleTensor tensor = groupTensors.get(groupId);
+    for (int row = 0; row < numHid; row++) {
+      int w = row * inSize;
+      for (int b = 0; b < blockNodes; b++) {
+        int in = b * inSize;
+        double sum = transform[w] * block[in];
+        for (int k = 1; k < inSize; k++) {
+          sum += transform[w + k] * block[in + k];
+        }
+        sums[b] = sum;
+      }
+      if (tensor != null) {
+        double[] slice = tensor.getSlice(row).getMatrix().data;
+        int b = 0;
+        for (; b + BILINEAR_NODES <= blockNodes; b += BILINEAR_NODES) {
+          bilinearProducts(slice, b, BILINEAR_NODES);
+        }
+        if (b < blockNodes) {
+          bilinearProducts(slice, b, blockNodes - b);
+        }
+      }
+      for (int b = 0; b < blockNodes; b++) {
+        vectors[order[start + b] * numHid + row] = Math.tanh(sums[b]);
+      }
+    }
+  }
+
+  /**
+   * Adds in<sup>T</sup> slice in to the sums of up to {@link #BILINEAR_NODES}
+   * nodes of the block, starting at node b, where in is the left and right
+   * vectors of the node.  Each element of the slice is used for all the
+   * nodes at once, but the sums for each node are done in the same order
+   * as {@link SimpleTensor#bilinearProducts} does them.
+   */
+  private void bilinearProducts(double[] slice, int b, int numNodes) {
+    int inSize = numHid * 2 + 1;
+    int size = numHid * 2;
+    for (int n = 0; n < numNodes; n++) {
+      int in = (b + n) * inSize;
+      int r = n * size;
+      double x = block[in];
+      for (int j = 0; j < size; j++) {
+        bilinear[r + j] = x * slice[j];
+      }
+    }
+    if (numNodes == BILINEAR_NODES) {
+      int in0 = b * inSize;
+      int in1 = in0 + inSize;
+      int in2 = in1 + inSize;
+      int in3 = in2 + inSize;
+      for (int k = 1; k < size; k++) {
+        double x0 = block[in0 + k];
+        double x1 = block[in1 + k];
+        double x2 = block[in2 + k];
+        double x3 = block[in3 + k];
+        int s = k * size;
+        for (int j = 0; j < size; j++) {
+          double y = slice[s + j];
+          bilinear[j] += x0 * y;
+          bilinear[size + j] += x1 * y;
+          bilinear[2 * size + j] += x2 * y;
+          bilinear[3 * size + j] += x3 * y;
+        }
+      }
+    } else {
+      for (int n = 0; n < numNodes; n++) {
+        int in = (b + n) * inSize;
+        int r = n * size;
+        for (int k = 1; k < size; k++) {
+          double x = block[in + k];
+          int s = k * size;
+          for (int j = 0; j < size; j++) {
+            bilinear[r + j] += x * slice[s + j];
+          }
+        }
+      }
+    }
+    for (int n = 0; n < numNodes; n++) {
+      int in = (b + n) * inSize;
+      int r = n * size;
+      double product = 0.0;
+      for (int j = 0; j < size; j++) {
+        product += bilinear[r + j] * block[in + j];
+      }
+      sums[b + n] += product;
+    }
+  }
+
+  private void classify(int node) {
+    Tree tree = nodes.get(node);
+    double[] classification;
+    if (group[node] < 0) {
+      classification = model.getUnaryClassification(tree.label().value()).getMatrix().data;
+    } else {
+      classification = groupClassifications.get(group[node]).getMatrix().data;
+    }
+    int offset = node * numHid;
+    int inSize = numHid + 1;
+    double sum = 0.0;
+    for (int c = 0; c < numClasses; c++) {
+      int w = c * inSize;
+      double score = 0.0;
+      for (int k = 0; k < numHid; k++) {
+        score += classification[w + k] * vectors[offset + k];
+      }
+      score += classification[w + numHid];
+      scores[c] = Math.exp(score);
+      sum += scores[c];
+    }
+
+    SimpleMatrix predictions = new SimpleMatrix(numClasses, 1);
+    double[] predictionData = predictions.getMatrix().data;
+    double scale = 1.0 / sum;
+    int predictedClass = 0;
+    for (int c = 0; c < numClasses; c++) {
+      predictionData[c] = scores[c] * scale;
+      if (predictionData[c] > predictionData[predictedClass]) {
+        predictedClass = c;
+      }
+    }
+    SimpleMatrix nodeVector = new SimpleMatrix(numHid, 1);
+    System.arraycopy(vectors, offset, nodeVector.getMatrix().data, 0, numHid);
+
+    CoreLabel label = (CoreLabel) tree.label();
+    label.set(RNNCoreAnnotations.Predictions.class, predictions);
+    label.set(RNNCoreAnnotations.PredictedClass.class, predictedClass);
+    label.set(RNNCoreAnnotations.NodeVector.class, nodeVector);
+  }
+
+}
@@ -8,6 +8,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 
@@ -92,6 +93,29 @@ public abstract class FeatureFactory<IN> implements Serializable {
      */
     public abstract Collection<String> getCliqueFeatures(PaddedList<IN> info, int position, Clique clique);
 
+    /**
+     * Passes the features for the word at the specified position in info
+     * for the specified {@link Clique} to a consumer, rather than collecting
+     * them.  Each feature is passed as a base name and a suffix, and the
+     * actual feature is {@code base + '|' + suffix}, or just {@code base}
+     * when the suffix is null.  This lets a classifier which only wants to
+     * look features up find them without building the suffixed Strings.
+     * A feature may be passed more than once.
+     * <br>
+     * The default implementation passes the features returned by
+     * {@link #getCliqueFeatures(PaddedList, int, Clique)} with a null suffix.
+     *
+     * @param info     A PaddedList of the feature-value pairs
+     * @param position The current position to extract features at
+     * @param clique   The particular clique for which to extract features
+     * @param features Receives (base, suffix) for each feature
+     */
+    public void getCliqueFeatures(PaddedList<IN> info, int position, Clique clique, BiConsumer<String, String> features) {
+        for (String feature : getCliqueFeatures(info, position, clique)) {
+            features.accept(feature, null);
+        }
+    }
+
 
     /**
      * Makes more complete feature names out of partial feature names, by
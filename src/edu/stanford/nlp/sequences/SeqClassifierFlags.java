@@ -432,6 +432,16 @@ public class SeqClassifierFlags implements Serializable {
   public transient String loadAuxClassifier = null;
   public transient String serializeTo = null;
   public transient String serializeToText = null;
+  /** Write the classifier in a memory-mappable format to this file (CRFClassifier only) */
+  public transient String serializeToMapped = null;
+  /** Store weights as floats rather than doubles in a memory-mapped classifier */
+  public transient boolean mappedFloatWeights = false;
+  /**
+   * At test time, look features up in the feature index as the feature factory
+   * produces them, rather than building each clique-suffixed feature String
+   * (CRFClassifier with feature factories which support it, such as NERFeatureFactory)
+   */
+  public transient boolean featureIdInference = false;
   public transient int interimOutputFreq = 0;
   public transient String initialWeights = null;
   public transient List<String> gazettes = new ArrayList<>();
@@ -1542,6 +1552,12 @@ public class SeqClassifierFlags implements Serializable {
         serializeTo = val;
       } else if (key.equalsIgnoreCase("serializeToText")) {
         serializeToText = val;
+      } else if (key.equalsIgnoreCase("serializeToMapped")) {
+        serializeToMapped = val;
+      } else if (key.equalsIgnoreCase("mappedFloatWeights")) {
+        mappedFloatWeights = Boolean.parseBoolean(val);
+      } else if (key.equalsIgnoreCase("featureIdInference")) {
+        featureIdInference = Boolean.parseBoolean(val);
       } else if (key.equalsIgnoreCase("serializeDatasetsDir")) {
         serializeDatasetsDir = val;
       } else if (key.equalsIgnoreCase("loadDatasetsDir")) {
@@ -0,0 +1,138 @@
+package edu.stanford.nlp.tagger.maxent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the scores of the local features of words (the
+ * features which only look at the current word), shared by all the
+ * sentences a {@link MaxentTagger} tags, in any number of threads.
+ * Frequent words such as "the" or "of" then only have their local scores
+ * computed once per model rather than once per sentence.
+ * <br>
+ * The cache is split into segments by the hash of the word, each one
+ * locked on its own and evicting its least recently used words once it
+ * is full, so that threads tagging at the same time rarely wait on each
+ * other.  The score arrays are stored as they are given and must not be
+ * changed afterwards by the caller or anyone it hands them to.
+ *
+ * @see TaggerConfig#getLocalScoreCacheSize()
+ */
+class LocalScoreCache {
+
+  private static final int MAX_SEGMENTS = 16;
+
+  private final Segment[] segments;
+  private final int mask;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Makes a cache which holds the scores of up to about {@code maxSize}
+   * words.
+   */
+  LocalScoreCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+    }
+    int numSegments = 1;
+    while (numSegments < MAX_SEGMENTS && numSegments * 2 * 64 <= maxSize) {
+      numSegments *= 2;
+    }
+    segments = new Segment[numSegments];
+    int segmentSize = (maxSize + numSegments - 1) / numSegments;
+    for (int i = 0; i < numSegments; i++) {
+      segments[i] = new Segment(segmentSize);
+    }
+    mask = numSegments - 1;
+  }
+
+  private Segment segmentFor(String word) {
+    int h = word.hashCode();
+    return segments[(h ^ (h >>> 16)) & mask];
+  }
+
+  /** Returns the scores of the word, or null if they are not cached */
+  double[] get(String word) {
+    Segment segment = segmentFor(word);
+    double[] scores;
+    synchronized (segment) {
+      scores = segment.get(word);
+    }
+    if (scores == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return scores;
+  }
+
+  void put(String word, double[] scores) {
+    Segment segment = segmentFor(word);
+    synchronized (segment) {
+      segment.put(word, scores);
+    }
+  }
+
+  /** The number of words whose scores are cached */
+  int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  void clear() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+    hits.reset();
+    misses.reset();
+  }
+
+  long hits() {
+    return hits.sum();
+  }
+
+  long misses() {
+    return misses.sum();
+  }
+
+  /** The fraction of lookups which found the word, or 0 before any lookup */
+  double hitRate() {
+    long h = hits.sum();
+    long total = h + misses.sum();
+    return (total == 0) ? 0.0 : ((double) h) / total;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("LocalScoreCache[%d words, %d hits, %d misses, hit rate %.3f]",
+                         size(), hits(), misses(), hitRate());
+  }
+
+
+  private static class Segment extends LinkedHashMap<String, double[]> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maxSize;
+
+    Segment(int maxSize) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, double[]> eldest) {
+      return size() > maxSize;
+    }
+  }
+
+}
@@ -402,6 +402,14 @@ public class MaxentTagger extends Tagger implements ListProcessor<List<? extends
   boolean occurringTagsOnly = OCCURRING_TAGS_ONLY;
   boolean possibleTagsOnly = POSSIBLE_TAGS_ONLY;
 
+  /**
+   * The scores of the local features of words, shared by all the
+   * sentences this tagger tags.  This is only made once a model has been
+   * read, as the scores would go stale while training; it is null if
+   * there is no model yet or the cache is turned off.
+   */
+  LocalScoreCache localScoreCache;
+
   private boolean initted = false;
 
   boolean VERBOSE = false;
@@ -537,6 +545,16 @@ public class MaxentTagger extends Tagger implements ListProcessor<List<? extends
     return defaultScore > 0.0;
   }
 
+  /**
+   * The fraction of words tagged so far whose local feature scores were
+   * found in the cache shared between sentences, or 0 if nothing has been
+   * looked up or the cache is turned off.
+   */
+  public double getLocalScoreCacheHitRate() {
+    LocalScoreCache cache = localScoreCache;
+    return (cache == null) ? 0.0 : cache.hitRate();
+  }
+
   /**
    * Figures out what tokenizer factory might be described by the
    * config.  If it's described by name in the config, uses reflection
@@ -864,6 +882,8 @@ public class MaxentTagger extends Tagger implements ListProcessor<List<? extends
       if (VERBOSE) {
         System.err.println(" prob read ");
       }
+      int cacheSize = taggerConfig.getLocalScoreCacheSize();
+      localScoreCache = (cacheSize > 0) ? new LocalScoreCache(cacheSize) : null;
       if (printLoading) t.done();
     } catch (IOException | ClassNotFoundException e) {
       throw new RuntimeIOException("Unrecoverable error while loading a tagger model", e);
@@ -63,7 +63,8 @@ public class TaggerConfig extends Properties /* Inherits implementation of Seria
   OUTPUT_FILE = "",
   OUTPUT_FORMAT = "slashTags",
   OUTPUT_FORMAT_OPTIONS = "",
-  NTHREADS = "1";
+  NTHREADS = "1",
+  LOCAL_SCORE_CACHE_SIZE = "10000";
 
   public static final String ENCODING_PROPERTY = "encoding",
   TAG_SEPARATOR_PROPERTY = "tagSeparator";
@@ -105,6 +106,7 @@ public class TaggerConfig extends Properties /* Inherits implementation of Seria
     defaultValues.put("outputFormat", OUTPUT_FORMAT);
     defaultValues.put("outputFormatOptions", OUTPUT_FORMAT_OPTIONS);
     defaultValues.put("nthreads", NTHREADS);
+    defaultValues.put("localScoreCacheSize", LOCAL_SCORE_CACHE_SIZE);
   }
 
   /**
@@ -256,6 +258,7 @@ public class TaggerConfig extends Properties /* Inherits implementation of Seria
     this.setProperty("outputFormat", props.getProperty("outputFormat", this.getProperty("outputFormat")).trim()); //this isn't something we save from time to time
     this.setProperty("outputFormatOptions", props.getProperty("outputFormatOptions", this.getProperty("outputFormatOptions")).trim()); //this isn't something we save from time to time
     this.setProperty("nthreads", props.getProperty("nthreads", this.getProperty("nthreads", NTHREADS)).trim());
+    this.setProperty("localScoreCacheSize", props.getProperty("localScoreCacheSize", this.getProperty("localScoreCacheSize", LOCAL_SCORE_CACHE_SIZE)).trim()); //this isn't something we save from time to time
     String sentenceDelimiter = props.getProperty("sentenceDelimiter", this.getProperty("sentenceDelimiter"));
     if (sentenceDelimiter != null) {
       // this isn't something we save from time to time.
@@ -373,6 +376,12 @@ public class TaggerConfig extends Properties /* Inherits implementation of Seria
 
   public int getNThreads() { return Integer.parseInt(getProperty("nthreads")); }
 
+  /** The number of words whose local feature scores are shared between
+   *  sentences; 0 turns the cache off. */
+  public int getLocalScoreCacheSize() {
+    return Integer.parseInt(getProperty("localScoreCacheSize", LOCAL_SCORE_CACHE_SIZE));
+  }
+
 
   /** Return a regex of XML elements to tag inside of.  This may return an
    *  empty String, but never null.
@@ -471,6 +480,7 @@ public class TaggerConfig extends Properties /* Inherits implementation of Seria
     pw.println("            outputFormat = " + getProperty("outputFormat"));
     pw.println("     outputFormatOptions = " + getProperty("outputFormatOptions"));
     pw.println("                nthreads = " + getProperty("nthreads"));
+    pw.println("     localScoreCacheSize = " + getProperty("localScoreCacheSize"));
     pw.flush();
   }
 
@@ -714,6 +724,11 @@ public class TaggerConfig extends Properties /* Inherits implementation of Seria
 
     out.println("# testFile and textFile can use multiple threads to process text.");
     out.println("# nthreads = " + NTHREADS);
+    out.println();
+
+    out.println("# number of words whose local feature scores are kept between sentences");
+    out.println("# when tagging. 0 turns this off.");
+    out.println("# localScoreCacheSize = " + LOCAL_SCORE_CACHE_SIZE);
   }
 
   public Mode getMode() {
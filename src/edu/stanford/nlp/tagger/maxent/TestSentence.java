@@ -410,23 +410,29 @@ public class TestSentence implements SequenceModel {
     }
 
     // This precomputes scores of local features (localScores).
+    // Local features only look at the current word, so their scores are
+    // shared with other sentences through the tagger's cache, unless the
+    // word was given a forced tag: the scores then only cover that tag
+    // (when scoring approximately), so they are neither cached nor taken
+    // from the cache.
     protected double[] getHistories(String[] tags, History h) {
         boolean rare = maxentTagger.isRare(ExtractorFrames.cWord.extract(h));
         Extractors ex = maxentTagger.extractors, exR = maxentTagger.extractorsRare;
         String w = pairs.getWord(h.current);
         double[] lS, lcS;
-        lS = localScores.get(w);
-        if (lS == null) {
+        LocalScoreCache cache = maxentTagger.localScoreCache;
+        if (originalTags != null && originalTags.get(h.current - h.start) != null) {
             lS = getHistories(tags, h, ex.local, rare ? exR.local : null);
-            localScores.put(w, lS);
-        } else if (lS.length != tags.length) {
-            // This case can occur when a word was given a specific forced
-            // tag, and then later it shows up without the forced tag.
-            // TODO: if a word is given a forced tag, we should always get
-            // its features rather than use the cache, just in case the tag
-            // given is not the same tag as before
-            lS = getHistories(tags, h, ex.local, rare ? exR.local : null);
-            if (tags.length > 1) {
+        } else if (cache != null) {
+            lS = cache.get(w);
+            if (lS == null) {
+                lS = getHistories(tags, h, ex.local, rare ? exR.local : null);
+                cache.put(w, lS);
+            }
+        } else {
+            lS = localScores.get(w);
+            if (lS == null) {
+                lS = getHistories(tags, h, ex.local, rare ? exR.local : null);
                 localScores.put(w, lS);
             }
         }
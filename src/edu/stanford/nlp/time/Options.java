@@ -1,8 +1,13 @@
 package edu.stanford.nlp.time;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 
 import edu.stanford.nlp.ling.tokensregex.Env;
+import edu.stanford.nlp.util.CacheMap;
 import edu.stanford.nlp.util.PropertiesUtils;
 
 /**
@@ -34,6 +39,19 @@ public class Options {
   // would want a per document default as well
   String grammarFilename = null;
   Env.Binder[] binders = null;
+  // describes the binders, which are the same if their descriptions are
+  List<String> binderKeys = new ArrayList<>();
+
+  /** How many initialized binders are kept */
+  static final int MAX_INITIALIZED_BINDERS = 16;
+
+  /**
+   * Binders which have been initialized, by their class and properties.
+   * Initializing a binder such as JollyDayHolidays reads its data files,
+   * so each time SUTime is loaded with the same binder it gets the same one.
+   * Only the binders used most recently are kept.
+   */
+  private static final Map<String, Env.Binder> initializedBinders = new CacheMap<>(MAX_INITIALIZED_BINDERS, 0.75f, true);
 
   static final String DEFAULT_GRAMMAR_FILES = "edu/stanford/nlp/models/sutime/defs.sutime.txt,edu/stanford/nlp/models/sutime/english.sutime.txt,edu/stanford/nlp/models/sutime/english.holidays.sutime.txt";
   static final String[] DEFAULT_BINDERS = { "edu.stanford.nlp.time.JollyDayHolidays" };
@@ -83,15 +101,45 @@ public class Options {
       for (int i = 0; i < nBinders; i++) {
         int bi = i+1;
         String binderPrefix = name + ".binder." + bi;
-        try {
-          Class binderClass = Class.forName(binderClasses[i]);
-          binderPrefix = binderPrefix + '.';
-          binders[i] = (Env.Binder) binderClass.newInstance();
-          binders[i].init(binderPrefix, props);
-        } catch (Exception ex) {
-          throw new RuntimeException("Error initializing binder " + bi, ex);
+        binderPrefix = binderPrefix + '.';
+        String binderKey = binderKey(binderClasses[i], binderPrefix, props);
+        binderKeys.add(binderKey);
+        synchronized (initializedBinders) {
+          binders[i] = initializedBinders.get(binderKey);
+          if (binders[i] == null) {
+            try {
+              Class binderClass = Class.forName(binderClasses[i]);
+              binders[i] = (Env.Binder) binderClass.newInstance();
+              binders[i].init(binderPrefix, props);
+            } catch (Exception ex) {
+              throw new RuntimeException("Error initializing binder " + bi, ex);
+            }
+            initializedBinders.put(binderKey, binders[i]);
+          }
         }
       }
     }
   }
+
+  /** The binder class and the properties it is initialized with, less their prefix */
+  private static String binderKey(String binderClass, String binderPrefix, Properties props) {
+    Map<String, String> binderProps = new TreeMap<>();
+    for (String key : props.stringPropertyNames()) {
+      if (key.startsWith(binderPrefix)) {
+        binderProps.put(key.substring(binderPrefix.length()), props.getProperty(key));
+      }
+    }
+    return binderClass + binderProps;
+  }
+
+  /**
+   * A description of all the options which the rules can see, which is the
+   * same for two Options exactly when the same rules behave the same with them.
+   */
+  String rulesKey() {
+    return "markTimeRanges=" + markTimeRanges + ",restrictToTimex3=" + restrictToTimex3 +
+        ",teRelHeurLevel=" + teRelHeurLevel + ",includeNested=" + includeNested +
+        ",includeRange=" + includeRange + ",searchForDocDate=" + searchForDocDate +
+        ",verbose=" + verbose + ",binders=" + ((binders == null) ? "none" : binderKeys.toString());
+  }
 }
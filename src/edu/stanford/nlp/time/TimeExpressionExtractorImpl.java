@@ -1,12 +1,21 @@
 package edu.stanford.nlp.time;
 
 import edu.stanford.nlp.ie.NumberNormalizer;
+import edu.stanford.nlp.io.IOUtils;
+import edu.stanford.nlp.io.RuntimeIOException;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.tokensregex.*;
 import edu.stanford.nlp.pipeline.Annotation;
 import edu.stanford.nlp.pipeline.ChunkAnnotationUtils;
+import edu.stanford.nlp.util.CacheMap;
 import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.StringUtils;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.logging.Level;
@@ -25,11 +34,41 @@ public class TimeExpressionExtractorImpl implements TimeExpressionExtractor {
   // Patterns for extracting time expressions
   TimeExpressionPatterns timexPatterns;
 
-  CoreMapExpressionExtractor expressionExtractor;
+  CoreMapExpressionExtractor<?> expressionExtractor;
 
   // Options
   Options options;
 
+  /** How many sets of compiled rules are kept */
+  static final int MAX_COMPILED_RULES = 8;
+
+  /**
+   * The compiled rules, shared by all the extractors with the same rules and
+   * options.  Compiling the rules takes a good part of the time to start SUTime,
+   * and a pipeline often loads it more than once (for the ner and sutime annotators).
+   * The key is a digest of the text of the rule files along with the options, so
+   * that rule files which have changed are compiled again.  Only the rule sets
+   * used most recently are kept.
+   * <br>
+   * This cache only lasts as long as the JVM: there is deliberately no snapshot
+   * of the compiled rules on disk for new processes to load, as the Env binds
+   * ValueFunctions and holiday managers which aren't Serializable, so a cold
+   * start still compiles the rules once.
+   */
+  private static final Map<String, CompiledRules> compiledRules = new CacheMap<>(MAX_COMPILED_RULES, 0.75f, true);
+
+  private static class CompiledRules {
+    final TimeExpressionPatterns timexPatterns;
+    final CoreMapExpressionExtractor<?> expressionExtractor;
+
+    CompiledRules(TimeExpressionPatterns timexPatterns) {
+      this.timexPatterns = timexPatterns;
+      this.expressionExtractor = timexPatterns.createExtractor();
+      // every extractor logs to the same class logger, so it is set once here
+      this.expressionExtractor.setLogger(logger);
+    }
+  }
+
   public TimeExpressionExtractorImpl()
   {
     init(new Options());
@@ -61,9 +100,38 @@ public class TimeExpressionExtractorImpl implements TimeExpressionExtractor {
       options.grammarFilename = Options.DEFAULT_GRAMMAR_FILES;
       logger.warning("Time rules file is not specified: using default rules at " + options.grammarFilename);
     }
-    timexPatterns = new GenericTimeExpressionPatterns(options);
-    this.expressionExtractor = timexPatterns.createExtractor();
-    this.expressionExtractor.setLogger(logger);
+    CompiledRules rules = getCompiledRules(options);
+    timexPatterns = rules.timexPatterns;
+    this.expressionExtractor = rules.expressionExtractor;
+  }
+
+  private static CompiledRules getCompiledRules(Options options) {
+    StringBuilder key = new StringBuilder(options.rulesKey());
+    for (String filename : StringUtils.split(options.grammarFilename, "\\s*[,;]\\s*")) {
+      try (BufferedReader br = IOUtils.getBufferedReaderFromClasspathOrFileSystem(filename)) {
+        key.append('\n').append(filename).append('\n').append(IOUtils.slurpReader(br));
+      } catch (IOException e) {
+        throw new RuntimeIOException("Error reading file: " + filename, e);
+      }
+    }
+    String digest = digest(key.toString());
+    synchronized (compiledRules) {
+      return compiledRules.computeIfAbsent(digest, k -> new CompiledRules(new GenericTimeExpressionPatterns(options)));
+    }
+  }
+
+  /** A SHA-256 digest of the text, so that the cache doesn't keep the text of the rules */
+  private static String digest(String text) {
+    try {
+      byte[] bytes = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+      StringBuilder sb = new StringBuilder(bytes.length * 2);
+      for (byte b : bytes) {
+        sb.append(String.format("%02x", b & 0xff));
+      }
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
   }
 
 
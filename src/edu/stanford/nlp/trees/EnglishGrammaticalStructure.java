@@ -261,8 +261,6 @@ public class EnglishGrammaticalStructure extends GrammaticalStructure {
   /* Used by correctWHAttachment */
   private static SemgrexPattern XCOMP_PATTERN = SemgrexPattern.compile("{}=root >xcomp {}=embedded >/^(dep|dobj)$/ {}=wh ?>/([di]obj)/ {}=obj");
 
-  private static Morphology morphology = new Morphology();
-
   /**
    * Tries to correct complicated cases of WH-movement in
    * sentences such as "What does Mary seem to have?" in
@@ -293,7 +291,7 @@ public class EnglishGrammaticalStructure extends GrammaticalStructure {
           reattach = true;
         } else {
           /* If the control verb can't have an object, we also have to reattach. */
-          String lemma = morphology.lemma(root.value(), root.tag());
+          String lemma = Morphology.lemmaStatic(root.value(), root.tag(), true);
           if (lemma.matches(EnglishPatterns.NP_V_S_INF_VERBS_REGEX)) {
             reattach = true;
           }
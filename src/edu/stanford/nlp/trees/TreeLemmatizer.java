@@ -10,8 +10,6 @@ import edu.stanford.nlp.process.Morphology;
 
 public class TreeLemmatizer implements TreeTransformer {
   public Tree transformTree(Tree t) {
-    Morphology morphology = new Morphology();
-
     List<TaggedWord> tagged = null;
     int index = 0;
 
@@ -34,7 +32,7 @@ public class TreeLemmatizer implements TreeTransformer {
       if (!(label instanceof HasLemma)) {
         throw new IllegalArgumentException("Got a tree with labels which do not support lemma");
       }
-      ((HasLemma) label).setLemma(morphology.lemma(label.value(), tag, true));
+      ((HasLemma) label).setLemma(Morphology.lemmaStatic(label.value(), tag, true));
       ++index;
     }
     return t;
@@ -269,6 +269,48 @@ class DescriptionPattern extends TregexPattern {
     child = n;
   }
 
+  Relation getRelation() {
+    return rel;
+  }
+
+  /**
+   * Whether this only matches nodes with a label for which
+   * {@link #labelMatches(String)} is true.  Backreferences, links,
+   * negated descriptions and {@code __} do not constrain the label.
+   */
+  boolean constrainsLabel() {
+    return descriptionMode != null && descriptionMode != DescriptionMode.ANYTHING && ! negDesc;
+  }
+
+  /**
+   * The one label this matches, if it only matches one, or else null.
+   */
+  String getExactLabel() {
+    return (descriptionMode == DescriptionMode.EXACT && basicCatFunction == null && ! negDesc) ? exactMatch : null;
+  }
+
+  /**
+   * Whether a node with this (non-null) label matches the description,
+   * leaving aside negation and variable groups.
+   */
+  boolean labelMatches(String value) {
+    if (basicCatFunction != null) {
+      value = basicCatFunction.apply(value);
+    }
+    switch (descriptionMode) {
+    case EXACT:
+      return value.equals(exactMatch);
+    case PATTERN:
+      return descPattern.matcher(value).find();
+    case ANYTHING:
+      return true;
+    case STRINGS:
+      return stringFilter.test(value);
+    default:
+      throw new IllegalArgumentException("Unexpected match mode");
+    }
+  }
+
   @Override
   public List<TregexPattern> getChildren() {
     if (child == null) {
@@ -0,0 +1,473 @@
+package edu.stanford.nlp.trees.tregex;
+
+import edu.stanford.nlp.io.IOUtils;
+import edu.stanford.nlp.trees.HeadFinder;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.util.ArrayMap;
+import edu.stanford.nlp.util.Generics;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * An index of the node labels of a treebank, used to find the trees a
+ * {@link TregexPattern} might match without running the pattern on every
+ * tree.  For each label it keeps the trees and the nodes of those trees
+ * with that label, and for each pair of labels the trees where a node with
+ * the first label is the parent of a node with the second.  It also keeps
+ * the size of each tree, to check that a tree is the one indexed.
+ * <br>
+ * A {@link Query} works out from a pattern which labels (and parent/child
+ * labels) a tree must have for the pattern to match, and which nodes of a
+ * tree can be the root of a match.  Its matchers only try the pattern at
+ * those nodes, and on the trees which can't match at all, at no node.
+ * The patterns only ever match where they would without the index: the
+ * index just leaves out trees and nodes which certainly do not match.
+ * <br>
+ * Trees are numbered from 0 in the order they are added, which should be
+ * the order of the treebank they come from, and nodes by their order in
+ * {@link Tree#iterator()}.  An index can be saved and loaded again, so
+ * that a large treebank is indexed just once for many searches.
+ * An index is not synchronized while trees are added, but its queries
+ * can be used from several threads.
+ *
+ * @see TregexPattern#main(String[])
+ */
+public class TreebankIndex implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final List<String> labels = new ArrayList<>();
+  private final Map<String, Integer> labelIds = Generics.newHashMap();
+  /** The nodes with each label, by label id */
+  private final List<Postings> nodePostings = new ArrayList<>();
+  /** For each parent label id, the trees with a child of each label */
+  private final List<Map<Integer, Postings>> childPostings = new ArrayList<>();
+
+  private int[] treeSizes = new int[16];
+  private int numTrees;
+  private long numNodes;
+
+  public TreebankIndex() {
+  }
+
+  /** Makes an index of the trees, numbered in the order they are iterated */
+  public TreebankIndex(Iterable<Tree> trees) {
+    for (Tree tree : trees) {
+      add(tree);
+    }
+  }
+
+  /**
+   * Adds a tree to the index.
+   *
+   * @return The number of the tree in the index
+   */
+  public int add(Tree tree) {
+    int treeId = numTrees;
+    if (treeId == treeSizes.length) {
+      treeSizes = Arrays.copyOf(treeSizes, Math.max(16, treeId * 2));
+    }
+    int size = addNodes(tree, treeId, 0);
+    treeSizes[treeId] = size;
+    numTrees++;
+    numNodes += size;
+    return treeId;
+  }
+
+  /** Adds a node and its descendants, and returns the number of them */
+  private int addNodes(Tree node, int treeId, int nodeId) {
+    int labelId = labelId(node.value());
+    if (labelId >= 0) {
+      nodePostings.get(labelId).add(treeId, nodeId);
+    }
+    int size = 1;
+    for (Tree child : node.children()) {
+      int childLabelId = labelId(child.value());
+      if (labelId >= 0 && childLabelId >= 0) {
+        Map<Integer, Postings> children = childPostings.get(labelId);
+        Postings postings = children.get(childLabelId);
+        if (postings == null) {
+          postings = new Postings(false);
+          children.put(childLabelId, postings);
+        }
+        postings.add(treeId, -1);
+      }
+      size += addNodes(child, treeId, nodeId + size);
+    }
+    return size;
+  }
+
+  /** The id of the label, adding it if it is new, or -1 for a null label, which no pattern matches */
+  private int labelId(String label) {
+    if (label == null) {
+      return -1;
+    }
+    Integer id = labelIds.get(label);
+    if (id == null) {
+      id = labels.size();
+      labels.add(label);
+      labelIds.put(label, id);
+      nodePostings.add(new Postings(true));
+      childPostings.add(Generics.newHashMap());
+    }
+    return id;
+  }
+
+  /** The number of trees indexed */
+  public int size() {
+    return numTrees;
+  }
+
+  /** The number of nodes in all the trees indexed */
+  public long numNodes() {
+    return numNodes;
+  }
+
+  /** The number of distinct node labels */
+  public int numLabels() {
+    return labels.size();
+  }
+
+  /** The number of nodes in the tree with this number */
+  public int treeSize(int treeId) {
+    if (treeId < 0 || treeId >= numTrees) {
+      throw new IndexOutOfBoundsException("Tree " + treeId + " of " + numTrees);
+    }
+    return treeSizes[treeId];
+  }
+
+  /**
+   * Saves the index to the file, gzipped if the filename ends with ".gz".
+   */
+  public void save(String filename) throws IOException {
+    trimToSize();
+    IOUtils.writeObjectToFile(this, filename);
+  }
+
+  public static TreebankIndex load(String filename) throws IOException, ClassNotFoundException {
+    return IOUtils.readObjectFromFile(filename);
+  }
+
+  private void trimToSize() {
+    treeSizes = Arrays.copyOf(treeSizes, Math.max(numTrees, 1));
+    for (Postings postings : nodePostings) {
+      postings.trimToSize();
+    }
+    for (Map<Integer, Postings> children : childPostings) {
+      for (Postings postings : children.values()) {
+        postings.trimToSize();
+      }
+    }
+  }
+
+  /** Works out from the pattern which trees and nodes it might match */
+  public Query query(TregexPattern pattern) {
+    return new Query(pattern);
+  }
+
+  @Override
+  public String toString() {
+    return "TreebankIndex[" + numTrees + " trees, " + numNodes + " nodes, " + labels.size() + " labels]";
+  }
+
+
+  /**
+   * The trees and nodes of the index where a pattern might match.
+   */
+  public class Query {
+
+    private final TregexPattern pattern;
+    /** The labels which each description of the pattern matches, as a BitSet over label ids */
+    private final Map<DescriptionPattern, BitSet> matchingLabels = new IdentityHashMap<>();
+    private final BitSet candidateTrees;
+    /** The labels of the nodes where a match may be rooted, or null if any node */
+    private final BitSet rootLabels;
+
+    private Query(TregexPattern pattern) {
+      this.pattern = pattern;
+      BitSet trees = requiredTrees(pattern, null);
+      if (trees == null) {
+        trees = new BitSet(numTrees);
+        trees.set(0, numTrees);
+      }
+      candidateTrees = trees;
+      rootLabels = rootLabels(pattern);
+    }
+
+    public TregexPattern getPattern() {
+      return pattern;
+    }
+
+    /** Whether the pattern might match the tree with this number */
+    public boolean isCandidate(int treeId) {
+      return candidateTrees.get(treeId);
+    }
+
+    /** The numbers of the trees the pattern might match, in order */
+    public int[] getCandidateTrees() {
+      return candidateTrees.stream().toArray();
+    }
+
+    public int numCandidateTrees() {
+      return candidateTrees.cardinality();
+    }
+
+    /**
+     * The nodes of the tree (which has this number in the index) where a
+     * match of the pattern might be rooted, in the order of
+     * {@link Tree#iterator()}.
+     *
+     * @throws IllegalArgumentException If the tree is not the same size as the one indexed
+     */
+    public List<Tree> candidateRoots(int treeId, Tree tree) {
+      int size = treeSize(treeId);
+      if ( ! candidateTrees.get(treeId)) {
+        return Collections.emptyList();
+      }
+      List<Tree> nodes = tree.preOrderNodeList();
+      if (nodes.size() != size) {
+        throw new IllegalArgumentException("Tree " + treeId + " has " + nodes.size() +
+                                           " nodes, but the indexed tree had " + size);
+      }
+      if (rootLabels == null) {
+        return nodes;
+      }
+      BitSet roots = new BitSet(size);
+      for (int labelId = rootLabels.nextSetBit(0); labelId >= 0; labelId = rootLabels.nextSetBit(labelId + 1)) {
+        nodePostings.get(labelId).addNodes(treeId, roots);
+      }
+      List<Tree> candidates = new ArrayList<>(roots.cardinality());
+      for (int nodeId = roots.nextSetBit(0); nodeId >= 0; nodeId = roots.nextSetBit(nodeId + 1)) {
+        candidates.add(nodes.get(nodeId));
+      }
+      return candidates;
+    }
+
+    /**
+     * A matcher for the pattern on the tree (which has this number in the
+     * index), which only tries the pattern at the nodes where it might
+     * match.  Its matches are the same as those of
+     * {@code getPattern().matcher(tree)}.
+     */
+    public TregexMatcher matcher(int treeId, Tree tree) {
+      return matcher(treeId, tree, null);
+    }
+
+    public TregexMatcher matcher(int treeId, Tree tree, HeadFinder headFinder) {
+      TregexMatcher matcher = pattern.matcher(tree, tree, null, ArrayMap.<String, Tree>newArrayMap(), new VariableStrings(), headFinder);
+      matcher.findCandidates = candidateRoots(treeId, tree);
+      return matcher;
+    }
+
+    /**
+     * The trees which have what the pattern requires, or null if it
+     * might match any tree.
+     *
+     * @param enclosing The description whose node the relation of the pattern starts from
+     */
+    private BitSet requiredTrees(TregexPattern p, DescriptionPattern enclosing) {
+      if (p.isNegated() || p.isOptional()) {
+        return null;
+      }
+      if (p instanceof CoordinationPattern) {
+        boolean conj = ((CoordinationPattern) p).isConjunction();
+        BitSet result = null;
+        for (TregexPattern child : p.getChildren()) {
+          BitSet trees = requiredTrees(child, enclosing);
+          if (conj) {
+            result = and(result, trees);
+          } else if (trees == null) {
+            return null;
+          } else if (result == null) {
+            result = trees;
+          } else {
+            result.or(trees);
+          }
+        }
+        return result;
+      }
+      DescriptionPattern description = (DescriptionPattern) p;
+      BitSet result = null;
+      if (description.constrainsLabel()) {
+        BitSet labelIds = matchingLabels(description);
+        String relation = description.getRelation().toString();
+        if (enclosing != null && enclosing.constrainsLabel() && (relation.equals("<") || relation.equals("<:"))) {
+          result = childTrees(matchingLabels(enclosing), labelIds);
+        } else if (enclosing != null && enclosing.constrainsLabel() && (relation.equals(">") || relation.equals(">:"))) {
+          result = childTrees(labelIds, matchingLabels(enclosing));
+        } else {
+          result = new BitSet(numTrees);
+          for (int labelId = labelIds.nextSetBit(0); labelId >= 0; labelId = labelIds.nextSetBit(labelId + 1)) {
+            nodePostings.get(labelId).addTrees(result);
+          }
+        }
+      }
+      for (TregexPattern child : description.getChildren()) {
+        if (result != null && result.isEmpty()) {
+          break;
+        }
+        result = and(result, requiredTrees(child, description));
+      }
+      return result;
+    }
+
+    /** The trees with a node of one of the parent labels over a node of one of the child labels */
+    private BitSet childTrees(BitSet parentLabels, BitSet childLabels) {
+      BitSet result = new BitSet(numTrees);
+      for (int parent = parentLabels.nextSetBit(0); parent >= 0; parent = parentLabels.nextSetBit(parent + 1)) {
+        Map<Integer, Postings> children = childPostings.get(parent);
+        if (children.size() <= childLabels.cardinality()) {
+          for (Map.Entry<Integer, Postings> entry : children.entrySet()) {
+            if (childLabels.get(entry.getKey())) {
+              entry.getValue().addTrees(result);
+            }
+          }
+        } else {
+          for (int child = childLabels.nextSetBit(0); child >= 0; child = childLabels.nextSetBit(child + 1)) {
+            Postings postings = children.get(child);
+            if (postings != null) {
+              postings.addTrees(result);
+            }
+          }
+        }
+      }
+      return result;
+    }
+
+    /** The labels of the nodes where a match of the pattern may be rooted, or null for any node */
+    private BitSet rootLabels(TregexPattern p) {
+      if (p.isNegated() || p.isOptional()) {
+        return null;
+      }
+      if (p instanceof DescriptionPattern) {
+        DescriptionPattern description = (DescriptionPattern) p;
+        return description.constrainsLabel() ? matchingLabels(description) : null;
+      }
+      if (((CoordinationPattern) p).isConjunction()) {
+        return null;
+      }
+      BitSet result = new BitSet();
+      for (TregexPattern child : p.getChildren()) {
+        BitSet labelIds = rootLabels(child);
+        if (labelIds == null) {
+          return null;
+        }
+        result.or(labelIds);
+      }
+      return result;
+    }
+
+    private BitSet matchingLabels(DescriptionPattern description) {
+      BitSet result = matchingLabels.get(description);
+      if (result == null) {
+        result = new BitSet();
+        String exactLabel = description.getExactLabel();
+        if (exactLabel != null) {
+          Integer labelId = labelIds.get(exactLabel);
+          if (labelId != null) {
+            result.set(labelId);
+          }
+        } else {
+          for (int labelId = 0, n = labels.size(); labelId < n; labelId++) {
+            if (description.labelMatches(labels.get(labelId))) {
+              result.set(labelId);
+            }
+          }
+        }
+        matchingLabels.put(description, result);
+      }
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return "TreebankIndex.Query[" + pattern + ": " + numCandidateTrees() + " of " + numTrees + " trees]";
+    }
+
+  } // end class Query
+
+
+  /** Returns the intersection, where null is every tree */
+  private static BitSet and(BitSet a, BitSet b) {
+    if (a == null) {
+      return b;
+    }
+    if (b != null) {
+      a.and(b);
+    }
+    return a;
+  }
+
+
+  /**
+   * The trees, and maybe the nodes, with some label or pair of labels.
+   * Trees are added in order, so the postings are sorted.
+   */
+  private static class Postings implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int[] trees;
+    /** The node of each tree entry, if nodes are kept; otherwise each tree is kept once */
+    private int[] nodes;
+    private int size;
+
+    Postings(boolean withNodes) {
+      trees = new int[2];
+      nodes = withNodes ? new int[2] : null;
+    }
+
+    void add(int tree, int node) {
+      if (nodes == null && size > 0 && trees[size - 1] == tree) {
+        return;
+      }
+      if (size == trees.length) {
+        int capacity = Math.max(2, size * 2);
+        trees = Arrays.copyOf(trees, capacity);
+        if (nodes != null) {
+          nodes = Arrays.copyOf(nodes, capacity);
+        }
+      }
+      trees[size] = tree;
+      if (nodes != null) {
+        nodes[size] = node;
+      }
+      size++;
+    }
+
+    void addTrees(BitSet result) {
+      for (int i = 0; i < size; i++) {
+        result.set(trees[i]);
+      }
+    }
+
+    /** Adds the nodes of the tree to the result */
+    void addNodes(int tree, BitSet result) {
+      // find the first entry for the tree
+      int lo = 0;
+      int hi = size;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (trees[mid] < tree) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      for (int i = lo; i < size && trees[i] == tree; i++) {
+        result.set(nodes[i]);
+      }
+    }
+
+    void trimToSize() {
+      trees = Arrays.copyOf(trees, size);
+      if (nodes != null) {
+        nodes = Arrays.copyOf(nodes, size);
+      }
+    }
+
+  } // end class Postings
+
+}
@@ -0,0 +1,292 @@
+package edu.stanford.nlp.trees.tregex;
+
+import edu.stanford.nlp.trees.HeadFinder;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.util.ArrayMap;
+import edu.stanford.nlp.util.concurrent.MulticoreWrapper;
+import edu.stanford.nlp.util.concurrent.ThreadsafeProcessor;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Runs a set of {@link TregexPattern}s over all the trees of a treebank,
+ * splitting the trees among several threads.  Each tree's matches are
+ * handed back in the order of the trees, from the calling thread, so
+ * the results are the same whatever the number of threads.
+ * <br>
+ * The patterns are shared by the threads; all the state of matching a
+ * tree is in the {@link TregexMatcher}s each thread makes for its trees.
+ * The HeadFinder, if any, must be threadsafe, as the usual ones are.
+ * <br>
+ * {@link #processInOrder} does the same for any other work on each tree,
+ * such as {@link edu.stanford.nlp.trees.tregex.tsurgeon.Tsurgeon} surgery.
+ *
+ * @see TreebankIndex
+ */
+public class TregexBatch {
+
+  /** How many trees each thread takes at a time, so that threads don't contend for every tree */
+  private static final int TREES_PER_JOB = 32;
+
+  private final List<TregexPattern> patterns;
+  private final HeadFinder headFinder;
+  private final int numThreads;
+
+  /**
+   * @param numThreads How many threads to match with.  If 0 or less, one per processor.
+   */
+  public TregexBatch(List<TregexPattern> patterns, int numThreads) {
+    this(patterns, null, numThreads);
+  }
+
+  public TregexBatch(List<TregexPattern> patterns, HeadFinder headFinder, int numThreads) {
+    this.patterns = Collections.unmodifiableList(new ArrayList<>(patterns));
+    this.headFinder = headFinder;
+    this.numThreads = (numThreads <= 0) ? Runtime.getRuntime().availableProcessors() : numThreads;
+  }
+
+  public List<TregexPattern> getPatterns() {
+    return patterns;
+  }
+
+  /**
+   * Finds the matches of all the patterns on each tree, and gives them to
+   * the consumer in the order of the trees.
+   */
+  public void run(Iterable<Tree> trees, Consumer<TreeMatches> consumer) {
+    processInOrder(trees, numThreads, this::matches, consumer);
+  }
+
+  /**
+   * Counts the matches of each pattern on the trees.
+   *
+   * @return The number of matches of each pattern, in the order of the patterns
+   */
+  public int[] countMatches(Iterable<Tree> trees) {
+    int[] counts = new int[patterns.size()];
+    run(trees, matches -> {
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] += matches.numMatches(i);
+      }
+    });
+    return counts;
+  }
+
+  /**
+   * Finds the matches of all the patterns on the tree.
+   *
+   * @param treeNumber The number of the tree in its treebank, counting from 0
+   */
+  public TreeMatches matches(Tree tree, int treeNumber) {
+    List<List<Match>> matches = new ArrayList<>(patterns.size());
+    for (TregexPattern pattern : patterns) {
+      TregexMatcher matcher = pattern.matcher(tree, headFinder);
+      List<Match> patternMatches = null;
+      while (matcher.find()) {
+        if (patternMatches == null) {
+          patternMatches = new ArrayList<>();
+        }
+        patternMatches.add(new Match(matcher));
+      }
+      matches.add((patternMatches == null) ? Collections.emptyList() : patternMatches);
+    }
+    return new TreeMatches(tree, treeNumber, matches);
+  }
+
+  /**
+   * Processes each tree on one of {@code numThreads} threads, and gives
+   * the results to the consumer on this thread, in the order of the trees.
+   * With one thread, the trees are processed on this thread.  If the
+   * processing of a tree throws an exception, it is thrown from here.
+   *
+   * @param trees The trees, which are read from this thread
+   * @param numThreads How many threads to process with.  If 0 or less, one per processor.
+   * @param process Processes a tree, given the tree and its number (counting from 0).
+   *                It is called from several threads at once.
+   * @param consumer Takes the result of each tree in turn
+   */
+  public static <R> void processInOrder(Iterable<Tree> trees, int numThreads,
+                                        BiFunction<Tree, Integer, R> process,
+                                        Consumer<? super R> consumer) {
+    if (numThreads == 1) {
+      int treeNumber = 0;
+      for (Tree tree : trees) {
+        consumer.accept(process.apply(tree, treeNumber++));
+      }
+      return;
+    }
+    MulticoreWrapper<Job, List<Object>> wrapper = new MulticoreWrapper<>(numThreads, new JobProcessor<>(process));
+    try {
+      List<Tree> jobTrees = new ArrayList<>(TREES_PER_JOB);
+      int treeNumber = 0;
+      for (Tree tree : trees) {
+        jobTrees.add(tree);
+        if (jobTrees.size() == TREES_PER_JOB) {
+          wrapper.put(new Job(treeNumber - jobTrees.size() + 1, jobTrees));
+          jobTrees = new ArrayList<>(TREES_PER_JOB);
+          giveResults(wrapper, consumer);
+        }
+        treeNumber++;
+      }
+      if ( ! jobTrees.isEmpty()) {
+        wrapper.put(new Job(treeNumber - jobTrees.size(), jobTrees));
+      }
+      wrapper.join();
+      giveResults(wrapper, consumer);
+    } finally {
+      // only does something if there was an exception
+      wrapper.join();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <R> void giveResults(MulticoreWrapper<Job, List<Object>> wrapper, Consumer<? super R> consumer) {
+    while (wrapper.peek()) {
+      for (Object result : wrapper.poll()) {
+        if (result instanceof Failure) {
+          Throwable cause = ((Failure) result).cause;
+          if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw (RuntimeException) cause;
+        }
+        consumer.accept((R) result);
+      }
+    }
+  }
+
+  /** Some consecutive trees and the number of the first */
+  private static class Job {
+    final int firstTreeNumber;
+    final List<Tree> trees;
+
+    Job(int firstTreeNumber, List<Tree> trees) {
+      this.firstTreeNumber = firstTreeNumber;
+      this.trees = trees;
+    }
+  }
+
+  /** Stands in for the results of a job which threw an exception */
+  private static class Failure {
+    final Throwable cause;
+
+    Failure(Throwable cause) {
+      this.cause = cause;
+    }
+  }
+
+  private static class JobProcessor<R> implements ThreadsafeProcessor<Job, List<Object>> {
+    private final BiFunction<Tree, Integer, R> process;
+
+    JobProcessor(BiFunction<Tree, Integer, R> process) {
+      this.process = process;
+    }
+
+    @Override
+    public List<Object> process(Job job) {
+      List<Object> results = new ArrayList<>(job.trees.size());
+      try {
+        for (int i = 0; i < job.trees.size(); i++) {
+          results.add(process.apply(job.trees.get(i), job.firstTreeNumber + i));
+        }
+      } catch (RuntimeException | Error e) {
+        results.add(new Failure(e));
+      }
+      return results;
+    }
+
+    @Override
+    public ThreadsafeProcessor<Job, List<Object>> newInstance() {
+      // the state of processing a tree is all local to process()
+      return this;
+    }
+  }
+
+
+  /**
+   * The matches of the patterns on one tree.
+   */
+  public static class TreeMatches {
+    private final Tree tree;
+    private final int treeNumber;
+    private final List<List<Match>> matches;
+
+    TreeMatches(Tree tree, int treeNumber, List<List<Match>> matches) {
+      this.tree = tree;
+      this.treeNumber = treeNumber;
+      this.matches = matches;
+    }
+
+    public Tree getTree() {
+      return tree;
+    }
+
+    /** The number of the tree in its treebank, counting from 0 */
+    public int getTreeNumber() {
+      return treeNumber;
+    }
+
+    /** The matches of the pattern with this number, in the order TregexMatcher.find() gives them */
+    public List<Match> getMatches(int pattern) {
+      return matches.get(pattern);
+    }
+
+    public int numMatches(int pattern) {
+      return matches.get(pattern).size();
+    }
+
+    /** Whether any pattern matches the tree */
+    public boolean hasMatches() {
+      for (List<Match> patternMatches : matches) {
+        if ( ! patternMatches.isEmpty()) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+
+  /**
+   * A match of a pattern: the node matching the root of the pattern, and
+   * the nodes given names in the pattern.
+   */
+  public static class Match {
+    private final Tree match;
+    private final Map<String, Tree> namesToNodes;
+
+    Match(TregexMatcher matcher) {
+      match = matcher.getMatch();
+      Set<String> names = matcher.getNodeNames();
+      if (names.isEmpty()) {
+        namesToNodes = Collections.emptyMap();
+      } else {
+        namesToNodes = ArrayMap.newArrayMap(names.size());
+        for (String name : names) {
+          namesToNodes.put(name, matcher.getNode(name));
+        }
+      }
+    }
+
+    /** The node matching the root of the pattern */
+    public Tree getMatch() {
+      return match;
+    }
+
+    public Tree getNode(String name) {
+      return namesToNodes.get(name);
+    }
+
+    public Set<String> getNodeNames() {
+      return namesToNodes.keySet();
+    }
+
+    @Override
+    public String toString() {
+      return namesToNodes.isEmpty() ? match.toString() : match + " " + namesToNodes;
+    }
+  }
+
+}
@@ -51,6 +51,8 @@ public abstract class TregexMatcher {
   // these things are used by "find"
   Iterator<Tree> findIterator;
   Tree findCurrent;
+  /** The only nodes find() tries as the root of a match, or null to try every node */
+  Iterable<Tree> findCandidates;
 
   final HeadFinder headFinder;
 
@@ -128,7 +130,7 @@ public abstract class TregexMatcher {
    */
   public boolean find() {
     if (findIterator == null) {
-      findIterator = root.iterator();
+      findIterator = (findCandidates == null) ? root.iterator() : findCandidates.iterator();
     }
     if (findCurrent != null && matches()) {
       return true;
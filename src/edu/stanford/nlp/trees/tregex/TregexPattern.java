@@ -565,6 +565,8 @@ public abstract class TregexPattern implements Serializable {
    * <li> <code>-filter</code> causes this to act as a filter, reading tree input from stdin
    * <li> <code>-T</code> causes all trees to be printed as processed (for debugging purposes).  Otherwise only matching nodes are printed.
    * <li> <code>-macros &lt;filename&gt;</code> filename with macro substitutions to use.  file with tab separated lines original-tab-replacement
+   * <li> <code>-index &lt;filename&gt;</code> use the {@link TreebankIndex} in the file to only try the pattern on the trees and nodes where it might match.
+   * If the file doesn't exist, the trees are indexed and the index is saved there for the next search of the same trees.
    *
    * </ul>
    */
@@ -600,6 +602,7 @@ public abstract class TregexPattern implements Serializable {
     String reportTreeNumbers = "-n";
     String rootLabelOnly = "-u";
     String oneLine = "-s";
+    String indexOption = "-index";
     Map<String,Integer> flagMap = Generics.newHashMap();
     flagMap.put(extractSubtreesOption,2);
     flagMap.put(extractSubtreesFileOption,2);
@@ -623,6 +626,7 @@ public abstract class TregexPattern implements Serializable {
     flagMap.put(reportTreeNumbers, 0);
     flagMap.put(rootLabelOnly, 0);
     flagMap.put(oneLine, 0);
+    flagMap.put(indexOption, 1);
     Map<String, String[]> argsMap = StringUtils.argsToMap(args, flagMap);
     args = argsMap.get(null);
 
@@ -751,7 +755,22 @@ public abstract class TregexPattern implements Serializable {
         treebank = new DiskTreebank(trf, encoding);
         treebank.loadPath(args[last], extension, true);
       }
-      TRegexTreeVisitor vis = new TRegexTreeVisitor(p, handles, encoding);
+      TreebankIndex.Query query = null;
+      if (argsMap.containsKey(indexOption)) {
+        String indexFilename = argsMap.get(indexOption)[0];
+        TreebankIndex index;
+        if (new File(indexFilename).exists()) {
+          index = TreebankIndex.load(indexFilename);
+          errPW.println("Loaded " + index + " from " + indexFilename);
+        } else {
+          index = new TreebankIndex(treebank);
+          index.save(indexFilename);
+          errPW.println("Saved " + index + " to " + indexFilename);
+        }
+        query = index.query(p);
+        errPW.println("The pattern might match " + query.numCandidateTrees() + " of the trees");
+      }
+      TRegexTreeVisitor vis = new TRegexTreeVisitor(p, query, handles, encoding);
 
       treebank.apply(vis);
       Timing.endTime();
@@ -763,6 +782,8 @@ public abstract class TregexPattern implements Serializable {
       }
     } catch (IOException e) {
       e.printStackTrace();
+    } catch (ClassNotFoundException e) {
+      errPW.println("Error loading index: " + e);
     } catch (TregexParseException e) {
       errPW.println("Error parsing expression: " + args[0]);
       errPW.println("Parse exception: " + e.toString());
@@ -802,11 +823,14 @@ public abstract class TregexPattern implements Serializable {
     int treeNumber = 0;
 
     private final TregexPattern p;
+    /** If not null, the trees and nodes of the treebank where p might match */
+    private final TreebankIndex.Query query;
     String[] handles;
     int numMatches;
 
-    TRegexTreeVisitor(TregexPattern p, String[] handles, String encoding) {
+    TRegexTreeVisitor(TregexPattern p, TreebankIndex.Query query, String[] handles, String encoding) {
       this.p = p;
+      this.query = query;
       this.handles = handles;
       try {
         pw = new PrintWriter(new OutputStreamWriter(System.out, encoding),true);
@@ -825,7 +849,7 @@ public abstract class TregexPattern implements Serializable {
         pw.println("Next tree read:");
         tp.printTree(t,pw);
       }
-      TregexMatcher match = p.matcher(t);
+      TregexMatcher match = (query == null) ? p.matcher(t) : query.matcher(treeNumber - 1, t);
       if(printNonMatchingTrees) {
         if(match.find())
           numMatches++;
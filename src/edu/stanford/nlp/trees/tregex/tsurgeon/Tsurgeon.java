@@ -31,6 +31,7 @@ package edu.stanford.nlp.trees.tregex.tsurgeon;
 import edu.stanford.nlp.io.IOUtils;
 import edu.stanford.nlp.trees.*;
 import edu.stanford.nlp.trees.tregex.Macros;
+import edu.stanford.nlp.trees.tregex.TregexBatch;
 import edu.stanford.nlp.trees.tregex.TregexPattern;
 import edu.stanford.nlp.trees.tregex.TregexPatternCompiler;
 import edu.stanford.nlp.trees.tregex.TregexMatcher;
@@ -43,6 +44,7 @@ import java.util.*;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 import java.io.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /** Tsurgeon provides a way of editing trees based on a set of operations that
@@ -162,6 +164,7 @@ public class Tsurgeon {
    *   <li><code>-hf &lt;headfinder-class-name&gt;</code> use the specified {@link HeadFinder} class to determine headship relations.
    *   <li><code>-hfArg &lt;string&gt;</code> pass a string argument in to the {@link HeadFinder} class's constructor.  <code>-hfArg</code> can be used multiple times to pass in multiple arguments.
    *   <li> <code>-trf &lt;TreeReaderFactory-class-name&gt;</code> use the specified {@link TreeReaderFactory} class to read trees from files.
+   *   <li><code>-threads N</code> Operate on N trees at a time, each on its own thread (0 means one per processor).  The trees are printed in the same order as with one thread.
    * </ul>
    *
    * <h4>Legal operation syntax:</h4>
@@ -326,6 +329,8 @@ public class Tsurgeon {
     String trfOption = "-trf";
     String macroOption = "-macros";
     String macroFilename = "";
+    String threadsOption = "-threads";
+    int numThreads = 1;
     Map<String,Integer> flagMap = Generics.newHashMap();
     flagMap.put(patternOperationOption,2);
     flagMap.put(treeFileOption,1);
@@ -334,6 +339,7 @@ public class Tsurgeon {
     flagMap.put(encodingOption,1);
     flagMap.put(headFinderOption,1);
     flagMap.put(macroOption, 1);
+    flagMap.put(threadsOption, 1);
     Map<String,String[]> argsMap = StringUtils.argsToMap(args,flagMap);
     args = argsMap.get(null);
 
@@ -343,6 +349,7 @@ public class Tsurgeon {
     if(argsMap.containsKey(singleLineOption))   treePrintFormats = "oneline,";   else treePrintFormats = "penn,";
     if(argsMap.containsKey(encodingOption)) encoding = argsMap.get(encodingOption)[0];
     if(argsMap.containsKey(macroOption)) macroFilename = argsMap.get(macroOption)[0];
+    if(argsMap.containsKey(threadsOption)) numThreads = Integer.parseInt(argsMap.get(threadsOption)[0]);
 
     TreePrint tp = new TreePrint(treePrintFormats, new PennTreebankLanguagePack());
     PrintWriter pwOut = new PrintWriter(new OutputStreamWriter(System.out, encoding), true);
@@ -394,16 +401,19 @@ public class Tsurgeon {
       }
     }
 
-    for (Tree t : trees ) {
-      Tree original = t.deepCopy();
-      Tree result = processPatternsOnTree(ops, t);
-      if (argsMap.containsKey(matchedOption) && matchedOnTree) {
+    boolean printMatched = argsMap.containsKey(matchedOption);
+    TregexBatch.processInOrder(trees, numThreads, (t, treeNumber) -> {
+      Tree original = printMatched ? t.deepCopy() : null;
+      return new Pair<>(original, applyOperations(ops, t));
+    }, result -> {
+      Pair<Tree, Boolean> surgery = result.second();
+      if (printMatched && surgery.second()) {
         pwOut.println("Operated on: ");
-        displayTree(original,tp,pwOut);
+        displayTree(result.first(),tp,pwOut);
         pwOut.println("Result: ");
       }
-      displayTree(result,tp,pwOut);
-    }
+      displayTree(surgery.first(),tp,pwOut);
+    });
   }
 
   private static void displayTree(Tree t, TreePrint tp, PrintWriter pw) {
@@ -588,7 +598,43 @@ public class Tsurgeon {
   private static boolean matchedOnTree; // hack-in field for seeing whether there was a match.
 
   public static Tree processPatternsOnTree(List<Pair<TregexPattern, TsurgeonPattern>> ops, Tree t) {
-    matchedOnTree = false;
+    Pair<Tree, Boolean> result = applyOperations(ops, t);
+    matchedOnTree = result.second();
+    return result.first();
+  }
+
+  /**
+   * Applies {@link #processPatternsOnTree} to each of the trees, operating
+   * on {@code numThreads} trees at a time.  The patterns are shared by the
+   * threads, each of which makes its own matchers.
+   *
+   * @param ops The patterns and the operations to apply where they match
+   * @param trees The trees to operate on, which are modified
+   * @param numThreads How many threads to use.  If 0 or less, one per processor.
+   * @param consumer Takes the result of each tree in turn, in the order of the trees,
+   *                 on the calling thread
+   */
+  public static void processPatternsOnTrees(List<Pair<TregexPattern, TsurgeonPattern>> ops, Iterable<Tree> trees,
+                                            int numThreads, Consumer<Tree> consumer) {
+    TregexBatch.processInOrder(trees, numThreads, (t, treeNumber) -> applyOperations(ops, t).first(), consumer);
+  }
+
+  /**
+   * Applies {@link #processPatternsOnTree} to each of the trees, operating
+   * on {@code numThreads} trees at a time.
+   *
+   * @return A List of the transformed trees, in the order of the trees
+   */
+  public static List<Tree> processPatternsOnTrees(List<Pair<TregexPattern, TsurgeonPattern>> ops, Iterable<Tree> trees,
+                                                  int numThreads) {
+    List<Tree> result = new ArrayList<>();
+    processPatternsOnTrees(ops, trees, numThreads, result::add);
+    return result;
+  }
+
+  /** Returns the result of the operations on the tree, and whether any of the patterns matched */
+  private static Pair<Tree, Boolean> applyOperations(List<Pair<TregexPattern, TsurgeonPattern>> ops, Tree t) {
+    boolean matched = false;
     for (Pair<TregexPattern,TsurgeonPattern> op : ops) {
       try {
         if (DEBUG) {
@@ -597,10 +643,10 @@ public class Tsurgeon {
         TregexMatcher m = op.first().matcher(t);
         TsurgeonMatcher tsm = op.second().matcher();
         while (m.find()) {
-          matchedOnTree = true;
+          matched = true;
           t = tsm.evaluate(t,m);
           if (t == null) {
-            return null;
+            return new Pair<>(null, true);
           }
           m = op.first().matcher(t);
         }
@@ -608,7 +654,7 @@ public class Tsurgeon {
         throw new RuntimeException("Tsurgeon.processPatternsOnTree failed to match label for pattern: " + op.first() + ", " + op.second(), npe);
       }
     }
-    return t;
+    return new Pair<>(t, matched);
   }
 
 
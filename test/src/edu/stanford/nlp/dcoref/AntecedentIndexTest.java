@@ -0,0 +1,85 @@
+package edu.stanford.nlp.dcoref;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import edu.stanford.nlp.dcoref.Dictionaries.Animacy;
+import edu.stanford.nlp.dcoref.Dictionaries.Gender;
+import edu.stanford.nlp.dcoref.Dictionaries.MentionType;
+import edu.stanford.nlp.dcoref.Dictionaries.Number;
+import edu.stanford.nlp.ling.Sentence;
+import edu.stanford.nlp.util.Generics;
+
+public class AntecedentIndexTest extends TestCase {
+
+  private Map<Integer, CorefCluster> clusters;
+
+  private void addCluster(int id, int sentNum, MentionType type, String head, Number number, Gender gender,
+                          String ner, String ... words) {
+    Mention m = new Mention(id, 0, words.length, null, Sentence.toCoreLabelList(words));
+    m.spanToString();
+    m.corefClusterID = id;
+    m.sentNum = sentNum;
+    m.mentionType = type;
+    m.headString = head;
+    m.number = number;
+    m.gender = gender;
+    m.animacy = Animacy.ANIMATE;
+    m.nerString = ner;
+    clusters.put(id, new CorefCluster(id, Collections.singleton(m)));
+  }
+
+  private static Set<Integer> ids(Integer ... ids) {
+    return Generics.newHashSet(Arrays.asList(ids));
+  }
+
+  @Override
+  public void setUp() {
+    clusters = Generics.newHashMap();
+    addCluster(0, 0, MentionType.PROPER, "smith", Number.SINGULAR, Gender.MALE, "PERSON", "John", "Smith");
+    addCluster(1, 0, MentionType.NOMINAL, "company", Number.SINGULAR, Gender.NEUTRAL, "O", "the", "company");
+    addCluster(2, 1, MentionType.PRONOMINAL, "he", Number.SINGULAR, Gender.MALE, "O", "he");
+    addCluster(3, 1, MentionType.PROPER, "smith", Number.SINGULAR, Gender.MALE, "PERSON", "John", "Smith", "'s");
+    addCluster(4, 2, MentionType.NOMINAL, "company", Number.SINGULAR, Gender.NEUTRAL, "O", "a", "big", "company");
+  }
+
+  public void testCandidates() {
+    AntecedentIndex index = new AntecedentIndex(clusters);
+
+    assertEquals(ids(0, 3), index.candidateClusters(AntecedentIndex.Key.SPAN, clusters.get(3)));
+    assertEquals(ids(1), index.candidateClusters(AntecedentIndex.Key.SPAN, clusters.get(1)));
+    assertTrue(index.candidateClusters(AntecedentIndex.Key.SPAN, clusters.get(2)).isEmpty());
+
+    assertEquals(ids(1, 4), index.candidateClusters(AntecedentIndex.Key.HEAD, clusters.get(4)));
+    assertTrue(index.candidateClusters(AntecedentIndex.Key.HEAD, clusters.get(2)).isEmpty());
+
+    Set<Integer> agreeing = index.candidateClusters(AntecedentIndex.Key.ATTRIBUTES, clusters.get(2));
+    assertTrue(agreeing.contains(0));
+    assertTrue(agreeing.contains(3));
+    assertFalse(agreeing.contains(1));
+    assertFalse(agreeing.contains(4));
+
+    assertNull(index.candidateClusters(AntecedentIndex.Key.NONE, clusters.get(2)));
+  }
+
+  public void testMerged() {
+    AntecedentIndex index = new AntecedentIndex(clusters);
+    CorefCluster to = clusters.get(0);
+    CorefCluster from = clusters.get(2);
+    CorefCluster.mergeClusters(to, from);
+    index.merged(to, from);
+    clusters.remove(2);
+
+    // the merged cluster is only found under its new ID
+    assertEquals(ids(0, 3), index.candidateClusters(AntecedentIndex.Key.HEAD, clusters.get(3)));
+    Set<Integer> agreeing = index.candidateClusters(AntecedentIndex.Key.ATTRIBUTES, to);
+    assertTrue(agreeing.contains(0));
+    assertFalse(agreeing.contains(2));
+    assertEquals(ids(0, 3), index.candidateClusters(AntecedentIndex.Key.SPAN, clusters.get(3)));
+  }
+
+}
@@ -0,0 +1,88 @@
+package edu.stanford.nlp.hcoref.rf;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import edu.stanford.nlp.stats.Counter;
+import edu.stanford.nlp.stats.DefaultCounter;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+
+public class CompiledRandomForestTest extends TestCase {
+
+  private static final int NUM_FEATURES = 10;
+
+  private final Random random = new Random(42);
+
+  private DecisionTreeNode randomNode(int depth) {
+    if (depth == 0 || random.nextInt(4) == 0) {
+      return new DecisionTreeNode(random.nextInt(2), random.nextFloat());
+    }
+    // only split on the first half of the features
+    return new DecisionTreeNode(random.nextInt(NUM_FEATURES / 2), random.nextFloat(),
+        new DecisionTreeNode[] { randomNode(depth - 1), randomNode(depth - 1) });
+  }
+
+  private static Index<String> featureIndex(int first) {
+    Index<String> featureIndex = new HashIndex<>();
+    for (int i = first; i < first + NUM_FEATURES; i++) {
+      featureIndex.add("F" + (i % NUM_FEATURES));
+    }
+    return featureIndex;
+  }
+
+  public void testProbabilityOfTrue() {
+    Index<String> featureIndex = featureIndex(0);
+    RandomForest rf = new RandomForest(featureIndex, 20);
+    for (int i = 0; i < rf.trees.length; i++) {
+      rf.trees[i] = new DecisionTree(featureIndex);
+      rf.trees[i].root = randomNode(6);
+    }
+    CompiledRandomForest compiled = new CompiledRandomForest(rf);
+    assertTrue(compiled.numFeatures() <= NUM_FEATURES / 2);
+    assertEquals(-1, compiled.featureId("F" + (NUM_FEATURES - 1)));
+    checkProbabilityOfTrue(rf, compiled);
+  }
+
+  /** The trees' own feature indices number the features differently from the forest's */
+  public void testTreeFeatureIndices() {
+    RandomForest rf = new RandomForest(featureIndex(0), 20);
+    for (int i = 0; i < rf.trees.length; i++) {
+      rf.trees[i] = new DecisionTree(featureIndex(i % 3));
+      rf.trees[i].root = randomNode(6);
+    }
+    checkProbabilityOfTrue(rf, new CompiledRandomForest(rf));
+  }
+
+  private void checkProbabilityOfTrue(RandomForest rf, CompiledRandomForest compiled) {
+    List<Counter<String>> counters = new ArrayList<>();
+    List<double[]> vectors = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Counter<String> counter = new DefaultCounter<>();
+      double[] vector = new double[compiled.numFeatures()];
+      for (int f = 0; f < NUM_FEATURES; f++) {
+        if (random.nextBoolean()) {
+          double value = random.nextDouble();
+          counter.setCount("F" + f, value);
+          int id = compiled.featureId("F" + f);
+          if (id >= 0) {
+            vector[id] = value;
+          }
+        }
+      }
+      counters.add(counter);
+      vectors.add(vector);
+    }
+
+    double[] batch = compiled.probabilitiesOfTrue(vectors);
+    for (int i = 0; i < counters.size(); i++) {
+      double expected = rf.probabilityOfTrue(counters.get(i));
+      assertEquals(expected, compiled.probabilityOfTrue(vectors.get(i)), 0.0);
+      assertEquals(expected, batch[i], 0.0);
+    }
+  }
+
+}
@@ -0,0 +1,139 @@
+package edu.stanford.nlp.ie.crf;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.sequences.SeqClassifierFlags;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that looking features up by id as the feature factory produces them
+ * gives the same data as building the feature Strings, for both a regular
+ * and a memory-mapped feature index.
+ */
+public class CRFFeatureIdInferenceTest extends TestCase {
+
+  private static final String[][] TRAIN = {
+      { "John/PERS", "lives/O", "in/O", "Paris/LOC", "./O" },
+      { "Mary/PERS", "visited/O", "London/LOC", "./O" },
+      { "Paris/LOC", "is/O", "big/O", "./O" },
+      { "Zoë/PERS", "likes/O", "Köln/LOC", "./O" },
+  };
+
+  private static final String[][] TEST = {
+      { "John", "visited", "Köln", "." },
+      { "Someone", "unknown", "is", "in", "Paris", "." },
+  };
+
+  private static List<CoreLabel> makeDocument(String[] tokens, String domain) {
+    List<CoreLabel> document = new ArrayList<>();
+    for (String token : tokens) {
+      String[] parts = token.split("/");
+      CoreLabel label = new CoreLabel();
+      label.setWord(parts[0]);
+      label.set(CoreAnnotations.AnswerAnnotation.class, parts.length > 1 ? parts[1] : "O");
+      if (domain != null) {
+        label.set(CoreAnnotations.DomainAnnotation.class, domain);
+      }
+      document.add(label);
+    }
+    return document;
+  }
+
+  private static CRFClassifier<CoreLabel> train() {
+    return train(new Properties());
+  }
+
+  private static CRFClassifier<CoreLabel> train(Properties props) {
+    props.setProperty("useWord", "true");
+    props.setProperty("usePrev", "true");
+    props.setProperty("useNext", "true");
+    props.setProperty("useClassFeature", "true");
+    props.setProperty("useSequences", "true");
+    props.setProperty("usePrevSequences", "true");
+    props.setProperty("maxLeft", "1");
+    props.setProperty("maxIterations", "20");
+    CRFClassifier<CoreLabel> crf = new CRFClassifier<>(new SeqClassifierFlags(props));
+    List<List<CoreLabel>> train = new ArrayList<>();
+    for (String[] sentence : TRAIN) {
+      train.add(makeDocument(sentence, null));
+      train.add(makeDocument(sentence, "news"));
+    }
+    crf.train(train);
+    return crf;
+  }
+
+  private static void assertSameData(CRFClassifier<CoreLabel> crf, List<CoreLabel> document) {
+    crf.flags.featureIdInference = false;
+    int[][][] expected = crf.documentToDataAndLabels(document).first();
+    crf.flags.featureIdInference = true;
+    int[][][] actual = crf.documentToDataAndLabels(document).first();
+    assertEquals(expected.length, actual.length);
+    for (int j = 0; j < expected.length; j++) {
+      for (int k = 0; k < expected[j].length; k++) {
+        int[] sorted = expected[j][k].clone();
+        Arrays.sort(sorted);
+        int[] actualSorted = actual[j][k].clone();
+        Arrays.sort(actualSorted);
+        assertTrue(Arrays.equals(sorted, actualSorted));
+      }
+    }
+  }
+
+  public void testSameFeatures() throws Exception {
+    CRFClassifier<CoreLabel> crf = train();
+    File file = File.createTempFile("crf", ".mapped");
+    file.deleteOnExit();
+    crf.serializeMappedClassifier(file.getPath(), false);
+    CRFClassifier<CoreLabel> mapped = CRFClassifier.getClassifier(file.getPath());
+
+    for (CRFClassifier<CoreLabel> classifier : Arrays.asList(crf, mapped)) {
+      for (String[] sentence : TRAIN) {
+        assertSameData(classifier, makeDocument(sentence, null));
+        assertSameData(classifier, makeDocument(sentence, "news"));
+      }
+      for (String[] sentence : TEST) {
+        assertSameData(classifier, makeDocument(sentence, null));
+        assertSameData(classifier, makeDocument(sentence, "blogs"));
+      }
+    }
+  }
+
+  /** Each feature factory's features are kept, even when they are the same */
+  public void testSameFeaturesTwoFactories() {
+    Properties props = new Properties();
+    props.setProperty("featureFactory", "edu.stanford.nlp.ie.NERFeatureFactory, edu.stanford.nlp.ie.NERFeatureFactory");
+    CRFClassifier<CoreLabel> crf = train(props);
+    List<CoreLabel> document = makeDocument(TEST[0], null);
+    crf.flags.featureIdInference = false;
+    int[][][] data = crf.documentToDataAndLabels(document).first();
+    assertEquals(0, data[0][0].length % 2);
+    for (String[] sentence : TRAIN) {
+      assertSameData(crf, makeDocument(sentence, null));
+    }
+    for (String[] sentence : TEST) {
+      assertSameData(crf, makeDocument(sentence, "blogs"));
+    }
+  }
+
+  public void testSameAnswers() {
+    CRFClassifier<CoreLabel> crf = train();
+    for (String[] sentence : TEST) {
+      crf.flags.featureIdInference = false;
+      List<CoreLabel> expected = crf.classify(makeDocument(sentence, null));
+      crf.flags.featureIdInference = true;
+      List<CoreLabel> actual = crf.classify(makeDocument(sentence, null));
+      for (int i = 0; i < expected.size(); ++i) {
+        assertEquals(expected.get(i).get(CoreAnnotations.AnswerAnnotation.class),
+                     actual.get(i).get(CoreAnnotations.AnswerAnnotation.class));
+      }
+    }
+  }
+
+}
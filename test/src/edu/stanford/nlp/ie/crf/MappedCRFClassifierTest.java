@@ -0,0 +1,159 @@
+package edu.stanford.nlp.ie.crf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.sequences.SeqClassifierFlags;
+
+import junit.framework.TestCase;
+
+/**
+ * Trains a tiny CRF, writes it out in the memory-mappable format, and checks
+ * that the mapped classifier finds the same features and gives the same answers.
+ */
+public class MappedCRFClassifierTest extends TestCase {
+
+  private static final String[][] TRAIN = {
+      { "John/PERS", "lives/O", "in/O", "Paris/LOC", "./O" },
+      { "Mary/PERS", "visited/O", "London/LOC", "./O" },
+      { "Paris/LOC", "is/O", "big/O", "./O" },
+      { "Zoë/PERS", "likes/O", "Köln/LOC", "./O" },
+  };
+
+  private static List<CoreLabel> makeDocument(String[] tokens, boolean withAnswers) {
+    List<CoreLabel> document = new ArrayList<>();
+    for (String token : tokens) {
+      String[] parts = token.split("/");
+      CoreLabel label = new CoreLabel();
+      label.setWord(parts[0]);
+      if (withAnswers) {
+        label.set(CoreAnnotations.AnswerAnnotation.class, parts[1]);
+      }
+      document.add(label);
+    }
+    return document;
+  }
+
+  private static CRFClassifier<CoreLabel> train() {
+    Properties props = new Properties();
+    props.setProperty("useWord", "true");
+    props.setProperty("usePrev", "true");
+    props.setProperty("useNext", "true");
+    props.setProperty("useClassFeature", "true");
+    props.setProperty("useSequences", "true");
+    props.setProperty("usePrevSequences", "true");
+    props.setProperty("maxLeft", "1");
+    props.setProperty("maxIterations", "30");
+    CRFClassifier<CoreLabel> crf = new CRFClassifier<>(new SeqClassifierFlags(props));
+    List<List<CoreLabel>> train = new ArrayList<>();
+    for (String[] sentence : TRAIN) {
+      train.add(makeDocument(sentence, true));
+    }
+    crf.train(train);
+    return crf;
+  }
+
+  public void testMappedClassifier() throws Exception {
+    CRFClassifier<CoreLabel> crf = train();
+
+    File doubles = File.createTempFile("crf", ".mapped");
+    doubles.deleteOnExit();
+    File floats = File.createTempFile("crf", ".mapped");
+    floats.deleteOnExit();
+    crf.serializeMappedClassifier(doubles.getPath(), false);
+    crf.serializeMappedClassifier(floats.getPath(), true);
+    assertTrue(CRFClassifier.isMappedClassifier(doubles));
+
+    for (File file : new File[] { doubles, floats }) {
+      CRFClassifier<CoreLabel> mapped = CRFClassifier.getClassifier(file.getPath());
+      assertTrue(mapped.featureIndex instanceof MappedFeatureIndex);
+      assertEquals(crf.featureIndex.size(), mapped.featureIndex.size());
+      for (String feature : crf.featureIndex) {
+        int index = mapped.featureIndex.indexOf(feature);
+        assertTrue(feature, index >= 0);
+        assertEquals(feature, mapped.featureIndex.get(index));
+      }
+      assertEquals(-1, mapped.featureIndex.indexOf("no such feature"));
+
+      for (String[] sentence : TRAIN) {
+        List<CoreLabel> expected = crf.classify(makeDocument(sentence, false));
+        List<CoreLabel> actual = mapped.classify(makeDocument(sentence, false));
+        for (int i = 0; i < expected.size(); ++i) {
+          assertEquals(expected.get(i).get(CoreAnnotations.AnswerAnnotation.class),
+                       actual.get(i).get(CoreAnnotations.AnswerAnnotation.class));
+        }
+      }
+    }
+  }
+
+  public void testTooLarge() throws Exception {
+    CRFClassifier<CoreLabel> crf = train();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    crf.writeMappedClassifier(new CRFClassifier.MappedOutputStream(bytes, 0), false);
+    int size = bytes.size();
+
+    // just fits
+    crf.writeMappedClassifier(new CRFClassifier.MappedOutputStream(new ByteArrayOutputStream(), Integer.MAX_VALUE - size - 64), false);
+    // pretend that the file is already close to 2GB, so that this one goes over
+    try {
+      crf.writeMappedClassifier(new CRFClassifier.MappedOutputStream(new ByteArrayOutputStream(), Integer.MAX_VALUE - size / 2), false);
+      fail("Expected the 2GB limit to be enforced");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  /** Features with 1, 2, 3 and 4 byte characters, and an unpaired surrogate, which is written as '?' */
+  public void testUtf8Lookup() {
+    String[] features = { "a", "b|C", "ë", "Köln|C", "€", "x€y", "\ud83d\ude00", "a\ud83d\ude00b", "z\ud800" };
+    byte[][] bytes = new byte[features.length][];
+    for (int i = 0; i < features.length; i++) {
+      bytes[i] = features[i].getBytes(StandardCharsets.UTF_8);
+    }
+    Arrays.sort(bytes, MappedFeatureIndex::compareBytes);
+    ByteBuffer strings = ByteBuffer.allocate(Arrays.stream(bytes).mapToInt(b -> b.length).sum());
+    IntBuffer offsets = IntBuffer.allocate(bytes.length + 1);
+    for (byte[] b : bytes) {
+      offsets.put(strings.position());
+      strings.put(b);
+    }
+    offsets.put(strings.position());
+    offsets.flip();
+    MappedFeatureIndex index = new MappedFeatureIndex(strings, offsets);
+
+    for (String feature : features) {
+      int i = index.indexOf(feature);
+      assertTrue(feature, i >= 0);
+      assertTrue(feature, Arrays.equals(feature.getBytes(StandardCharsets.UTF_8), bytes[i]));
+    }
+    assertEquals(index.indexOf("z\ud800"), index.indexOf("z?"));
+    for (String absent : new String[] { "", "Koln|C", "Köln", "€€", "\ud83d\ude01", "ë|C" }) {
+      assertEquals(absent, -1, index.indexOf(absent));
+    }
+    assertTrue(index.matches(index.indexOf("Köln|C"), "Köln", '|', "C"));
+    assertFalse(index.matches(index.indexOf("Köln|C"), "Koln", '|', "C"));
+  }
+
+  public void testNonlinearNotMapped() throws Exception {
+    CRFClassifier<CoreLabel> crf = new CRFClassifierNonlinear<>(new Properties());
+    File file = File.createTempFile("crf", ".mapped");
+    file.deleteOnExit();
+    try {
+      crf.serializeMappedClassifier(file.getPath(), false);
+      fail("Only plain linear weights can be written in the mapped format");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+  }
+
+}
@@ -163,6 +163,43 @@ public class RegexNERSequenceClassifierTest extends TestCase {
     }
   }
 
+  private static List<CoreLabel> makeSentence(String words) {
+    List<CoreLabel> sentence = new ArrayList<CoreLabel>();
+    for (String word : words.split(" ")) {
+      CoreLabel token = new CoreLabel();
+      token.setWord(word);
+      token.setNER("O");
+      sentence.add(token);
+    }
+    return sentence;
+  }
+
+  /**
+   * Plain word entries, entries whose first regex starts with plain
+   * characters and other regex entries are found in different ways, but
+   * are still applied by priority and then length.
+   */
+  public void testMixedEntries() {
+    String patterns =
+      "New York\tSTATE\n" +
+      "New York City\tCITY\n" +
+      "Ne[a-z]+ Airport\tAIRPORT\tLOCATION\t1\n" +
+      "[a-z]+\tLOWER\tLOCATION\t-1\n" +
+      "\u00e9mile\tPERSON\n";
+    RegexNERSequenceClassifier cased =
+      new RegexNERSequenceClassifier(new BufferedReader(new StringReader(patterns)), false, false, null);
+    List<CoreLabel> sentence = makeSentence("I love New York City and Newark Airport . new york");
+    cased.classify(sentence);
+    compareAnswers("- LOWER CITY CITY CITY LOWER AIRPORT AIRPORT - LOWER LOWER".split(" "), sentence);
+
+    RegexNERSequenceClassifier uncased =
+      new RegexNERSequenceClassifier(new BufferedReader(new StringReader(patterns)), true, false, null);
+    sentence = makeSentence("new YORK city , NEW york \u00c9mile \u00e9mile");
+    uncased.classify(sentence);
+    // like the regexes, only ASCII letters are matched regardless of case
+    compareAnswers("CITY CITY CITY - STATE STATE - PERSON".split(" "), sentence);
+  }
+
   public void testUncased() {
     String tempFilename = tempFile.getPath();
     RegexNERSequenceClassifier uncased =
@@ -0,0 +1,204 @@
+package edu.stanford.nlp.ling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.gs.collections.impl.map.mutable.UnifiedMap;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.util.CoreMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that a CoreLabel behaves like one map, although the common
+ * token annotations are kept in fields and the others in the map.
+ */
+public class CoreLabelTest extends TestCase {
+
+  private static CoreLabel makeLabel() {
+    CoreLabel label = new CoreLabel();
+    label.setWord("dogs");
+    label.setValue("dogs");
+    label.setTag("NNS");
+    label.setLemma("dog");
+    label.setBeginPosition(4);
+    label.setEndPosition(8);
+    label.setIndex(2);
+    label.set(CoreAnnotations.ShapeAnnotation.class, "xxxx");
+    label.set(CoreAnnotations.CharacterOffsetBeginAnnotation.class, 4);
+    return label;
+  }
+
+  private static Map<Class<?>, Object> plainCopy(CoreLabel label) {
+    Map<Class<?>, Object> map = new UnifiedMap<>();
+    for (Map.Entry<Class<?>, Object> entry : label.entrySet()) {
+      map.put(entry.getKey(), entry.getValue());
+    }
+    return map;
+  }
+
+  public void testGetAndSet() {
+    CoreLabel label = makeLabel();
+    assertEquals(8, label.size());
+    assertEquals("dogs", label.word());
+    assertEquals("dogs", label.get(CoreAnnotations.TextAnnotation.class));
+    assertEquals("NNS", label.get(CoreAnnotations.PartOfSpeechAnnotation.class));
+    assertEquals(Integer.valueOf(4), label.get(CoreAnnotations.CharacterOffsetBeginAnnotation.class));
+    assertEquals(8, label.endPosition());
+    assertEquals("xxxx", label.get(CoreAnnotations.ShapeAnnotation.class));
+    assertNull(label.ner());
+    assertEquals(-1, label.sentIndex());
+    assertEquals("", label.after());
+    assertFalse(label.containsKey(CoreAnnotations.NamedEntityTagAnnotation.class));
+    assertTrue(label.containsKey(CoreAnnotations.IndexAnnotation.class));
+    assertTrue(label.containsValue(2));
+    assertTrue(label.containsValue("xxxx"));
+
+    // Changing the word removes the lemma
+    label.setWord("cats");
+    assertNull(label.lemma());
+    assertEquals(7, label.size());
+
+    assertEquals(Integer.valueOf(2), label.remove(CoreAnnotations.IndexAnnotation.class));
+    assertEquals(-1, label.index());
+    label.set(CoreAnnotations.PartOfSpeechAnnotation.class, null);
+    assertNull(label.tag());
+    assertEquals(5, label.size());
+
+    label.clear();
+    assertTrue(label.isEmpty());
+    assertEquals(-1, label.beginPosition());
+  }
+
+  public void testRawValueOfOtherType() {
+    CoreLabel label = makeLabel();
+    @SuppressWarnings("unchecked")
+    Map<Class<?>, Object> raw = label;
+    raw.put(CoreAnnotations.IndexAnnotation.class, "two");
+    assertEquals("two", label.get((Object) CoreAnnotations.IndexAnnotation.class));
+    assertEquals(-1, label.index());
+    assertEquals(8, label.size());
+    label.setIndex(3);
+    assertEquals(Integer.valueOf(3), label.get(CoreAnnotations.IndexAnnotation.class));
+    assertEquals(8, label.size());
+  }
+
+  public void testViews() {
+    CoreLabel label = makeLabel();
+    assertEquals(label.size(), label.keySet().size());
+    assertEquals(label.size(), label.values().size());
+    int count = 0;
+    for (Class<?> key : label.keySet()) {
+      assertTrue(label.containsKey(key));
+      count++;
+    }
+    assertEquals(label.size(), count);
+
+    Iterator<Map.Entry<Class<?>, Object>> it = label.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<Class<?>, Object> entry = it.next();
+      if (entry.getKey() == CoreAnnotations.PartOfSpeechAnnotation.class ||
+          entry.getKey() == CoreAnnotations.ShapeAnnotation.class) {
+        it.remove();
+      } else if (entry.getKey() == CoreAnnotations.LemmaAnnotation.class) {
+        entry.setValue("doggy");
+      }
+    }
+    assertNull(label.tag());
+    assertNull(label.get(CoreAnnotations.ShapeAnnotation.class));
+    assertEquals("doggy", label.lemma());
+    assertEquals(6, label.size());
+
+    label.keySet().remove(CoreAnnotations.TextAnnotation.class);
+    assertNull(label.word());
+    assertEquals(5, label.size());
+  }
+
+  public void testEqualsAndHashCode() {
+    CoreLabel label = makeLabel();
+    Map<Class<?>, Object> map = plainCopy(label);
+    assertEquals(map, label);
+    assertEquals(label, map);
+    assertEquals(map.hashCode(), label.hashCode());
+
+    CoreLabel copy = new CoreLabel(label);
+    assertEquals(label, copy);
+    assertEquals(label.hashCode(), copy.hashCode());
+    assertEquals(label, label.clone());
+    assertEquals(label, new CoreLabel(new Annotation((CoreMap) label)));
+
+    copy.setNER("O");
+    assertFalse(label.equals(copy));
+  }
+
+  public void testCopyIntoOtherCoreMaps() {
+    CoreLabel label = makeLabel();
+    Annotation annotation = label.copy();
+    assertEquals(label.size(), annotation.size());
+    assertEquals("dogs", annotation.get(CoreAnnotations.TextAnnotation.class));
+    assertEquals(Integer.valueOf(2), annotation.get(CoreAnnotations.IndexAnnotation.class));
+    assertEquals("xxxx", annotation.get(CoreAnnotations.ShapeAnnotation.class));
+
+    CoreLabel fromAnnotation = new CoreLabel();
+    fromAnnotation.putAll(annotation);
+    assertEquals(label, fromAnnotation);
+  }
+
+  public void testSerialization() throws Exception {
+    CoreLabel label = makeLabel();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(label);
+    }
+    CoreLabel read;
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      read = (CoreLabel) in.readObject();
+    }
+    assertEquals(label, read);
+    assertEquals(4, read.beginPosition());
+    assertEquals("NNS", read.tag());
+  }
+
+  /**
+   * The label from {@link #makeLabel()}, serialized when CoreLabel was a
+   * DefaultCoreMap with every annotation in its hash table.
+   */
+  private static final String OLD_SERIALIZED_LABEL =
+      "rO0ABXNyAB9lZHUuc3RhbmZvcmQubmxwLmxpbmcuQ29yZUxhYmVsAAAAAAAAAAIMAAB4cgAkZWR1" +
+      "LnN0YW5mb3JkLm5scC51dGlsLkRlZmF1bHRDb3JlTWFwW5B1lVs5TQcMAAB4cgAuY29tLmdzLmNv" +
+      "bGxlY3Rpb25zLmltcGwubWFwLm11dGFibGUuVW5pZmllZE1hcAAAAAAAAAABDAAAeHB3CAAAAAg/" +
+      "QAAAdnIANWVkdS5zdGFuZm9yZC5ubHAubGluZy5Db3JlQW5ub3RhdGlvbnMkVmFsdWVBbm5vdGF0" +
+      "aW9uAAAAAAAAAAAAAAB4cHQABGRvZ3N2cgBCZWR1LnN0YW5mb3JkLm5scC5saW5nLkNvcmVBbm5v" +
+      "dGF0aW9ucyRDaGFyYWN0ZXJPZmZzZXRFbmRBbm5vdGF0aW9uAAAAAAAAAAAAAAB4cHNyABFqYXZh" +
+      "LmxhbmcuSW50ZWdlchLioKT3gYc4AgABSQAFdmFsdWV4cgAQamF2YS5sYW5nLk51bWJlcoaslR0L" +
+      "lOCLAgAAeHAAAAAIdnIANGVkdS5zdGFuZm9yZC5ubHAubGluZy5Db3JlQW5ub3RhdGlvbnMkVGV4" +
+      "dEFubm90YXRpb24AAAAAAAAAAAAAAHhwcQB+AAZ2cgA8ZWR1LnN0YW5mb3JkLm5scC5saW5nLkNv" +
+      "cmVBbm5vdGF0aW9ucyRQYXJ0T2ZTcGVlY2hBbm5vdGF0aW9uAAAAAAAAAAAAAAB4cHQAA05OU3Zy" +
+      "ADVlZHUuc3RhbmZvcmQubmxwLmxpbmcuQ29yZUFubm90YXRpb25zJFNoYXBlQW5ub3RhdGlvbgAA" +
+      "AAAAAAAAAAAAeHB0AAR4eHh4dnIANWVkdS5zdGFuZm9yZC5ubHAubGluZy5Db3JlQW5ub3RhdGlv" +
+      "bnMkTGVtbWFBbm5vdGF0aW9uAAAAAAAAAAAAAAB4cHQAA2RvZ3ZyAERlZHUuc3RhbmZvcmQubmxw" +
+      "LmxpbmcuQ29yZUFubm90YXRpb25zJENoYXJhY3Rlck9mZnNldEJlZ2luQW5ub3RhdGlvbgAAAAAA" +
+      "AAAAAAAAeHBzcQB+AAkAAAAEdnIANWVkdS5zdGFuZm9yZC5ubHAubGluZy5Db3JlQW5ub3RhdGlv" +
+      "bnMkSW5kZXhBbm5vdGF0aW9uAAAAAAAAAAAAAAB4cHNxAH4ACQAAAAJ4";
+
+  public void testReadOldSerializedForm() throws Exception {
+    byte[] bytes = Base64.getDecoder().decode(OLD_SERIALIZED_LABEL);
+    CoreLabel read;
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      read = (CoreLabel) in.readObject();
+    }
+    assertEquals(makeLabel(), read);
+    assertEquals(8, read.size());
+    assertEquals(8, read.endPosition());
+    assertEquals(2, read.index());
+    assertEquals("dog", read.lemma());
+    assertEquals("xxxx", read.get(CoreAnnotations.ShapeAnnotation.class));
+  }
+
+}
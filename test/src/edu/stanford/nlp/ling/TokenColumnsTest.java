@@ -0,0 +1,262 @@
+package edu.stanford.nlp.ling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.stanford.nlp.ie.NERClassifierCombiner;
+import edu.stanford.nlp.ie.crf.CRFClassifier;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.CoNLLOutputter;
+import edu.stanford.nlp.pipeline.MorphaAnnotator;
+import edu.stanford.nlp.pipeline.NERCombinerAnnotator;
+import edu.stanford.nlp.pipeline.POSTaggerAnnotator;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import edu.stanford.nlp.pipeline.TokenizerAnnotator;
+import edu.stanford.nlp.process.PTBTokenizer;
+import edu.stanford.nlp.process.TokenSpans;
+import edu.stanford.nlp.sequences.SeqClassifierFlags;
+import edu.stanford.nlp.tagger.maxent.MaxentTagger;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.Generics;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that {@link TokenColumns} give the same tokens as the CoreLabels
+ * they stand for, and that annotating a document with columnar tokens
+ * gives the same output without making a CoreLabel per token.
+ */
+public class TokenColumnsTest extends TestCase {
+
+  private static List<CoreLabel> makeTokens() {
+    List<CoreLabel> tokens = new ArrayList<>();
+    String[] words = { "Dogs", "bark", "." };
+    int offset = 0;
+    for (int i = 0; i < words.length; i++) {
+      CoreLabel token = new CoreLabel();
+      token.setWord(words[i]);
+      token.setValue(words[i]);
+      token.setBeginPosition(offset);
+      token.setEndPosition(offset + words[i].length());
+      token.setAfter(" ");
+      offset += words[i].length() + 1;
+      tokens.add(token);
+    }
+    tokens.get(0).set(CoreAnnotations.ShapeAnnotation.class, "Xxxx");
+    return tokens;
+  }
+
+  public void testFromOffsets() {
+    String text = " (Dogs) bark loudly.\n";
+    TokenSpans spans = new PTBTokenizer.SpanTokenizer().tokenize(text);
+    TokenColumns columns = spans.toColumns();
+    assertEquals(spans.size(), columns.size());
+    for (int i = 0; i < spans.size(); i++) {
+      assertEquals(spans.coreLabel(i), columns.copyLabel(i));
+      assertEquals(spans.word(i), columns.row(i).word());
+      assertEquals(spans.before(i), columns.row(i).get(CoreAnnotations.BeforeAnnotation.class));
+      assertEquals(spans.coreLabel(i).keySet(), columns.row(i).keySet());
+      assertFalse(columns.hasLabel(i));
+    }
+    assertEquals("-LRB-", columns.word(0));
+    assertEquals("(", columns.originalText(0));
+    assertEquals(" ", columns.row(0).get(CoreAnnotations.BeforeAnnotation.class));
+    assertEquals("\n", columns.row(spans.size() - 1).get(CoreAnnotations.AfterAnnotation.class));
+
+    // the columns don't change when the spans are reused
+    spans = new PTBTokenizer.SpanTokenizer().tokenize("Cats.");
+    assertEquals("Dogs", columns.word(1));
+  }
+
+  public void testLabels() {
+    List<CoreLabel> tokens = makeTokens();
+    TokenColumns columns = new TokenColumns(tokens);
+    // before the label of a row is made, the columns hold its annotations
+    TokenColumns.Row row = columns.row(2);
+    row.setTag(".");
+    columns.setIndex(2, 3);
+    assertEquals(".", row.get(CoreAnnotations.PartOfSpeechAnnotation.class));
+    assertEquals(Integer.valueOf(3), row.get(CoreAnnotations.IndexAnnotation.class));
+    assertFalse(columns.hasLabel(2));
+    tokens.get(2).setTag(".");
+    tokens.get(2).setIndex(3);
+
+    List<CoreLabel> view = columns.tokens();
+    assertEquals(tokens, view);
+    // a token with annotations that have no column is kept as it is
+    assertSame(tokens.get(0), view.get(0));
+    assertNotSame(tokens.get(1), view.get(1));
+    assertSame(view.get(1), columns.label(1));
+    assertEquals(5, columns.beginPosition(1));
+    assertEquals(-1, columns.index(1));
+    assertEquals("", view.get(1).before());
+
+    CoreLabel label = columns.label(2);
+    assertEquals(".", label.tag());
+    assertEquals(3, label.index());
+
+    // and afterwards, the label does
+    columns.setLemma(2, "dot");
+    assertEquals("dot", label.lemma());
+    label.setNER("O");
+    assertEquals("O", columns.ner(2));
+    assertEquals("O", row.get(CoreAnnotations.NamedEntityTagAnnotation.class));
+
+    // setting an annotation with no column makes the label
+    columns.row(1).set(CoreAnnotations.ShapeAnnotation.class, "xxxx");
+    assertEquals("xxxx", view.get(1).get(CoreAnnotations.ShapeAnnotation.class));
+
+    columns.setDocID("doc");
+    assertEquals("doc", view.get(0).docID());
+    assertEquals("doc", columns.row(2).get(CoreAnnotations.DocIDAnnotation.class));
+
+    List<CoreLabel> sentence = columns.tokens().subList(1, 3);
+    assertTrue(sentence instanceof TokenColumns.Tokens);
+    assertEquals(1, ((TokenColumns.Tokens) sentence).begin());
+    assertSame(label, sentence.get(1));
+  }
+
+  public void testConcurrentLabels() throws Exception {
+    TokenColumns columns = new PTBTokenizer.SpanTokenizer().tokenize("One two three four five six seven.").toColumns();
+    ExecutorService threads = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<List<CoreLabel>>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(threads.submit(() -> new ArrayList<>(columns.tokens())));
+      }
+      List<CoreLabel> first = results.get(0).get();
+      for (Future<List<CoreLabel>> result : results) {
+        List<CoreLabel> labels = result.get();
+        for (int i = 0; i < labels.size(); i++) {
+          assertSame(first.get(i), labels.get(i));
+        }
+      }
+    } finally {
+      threads.shutdown();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testSerialization() throws Exception {
+    TokenColumns columns = new TokenColumns(makeTokens());
+    List<CoreLabel> tokens = columns.tokens();
+    List<CoreLabel> sentence = tokens.subList(0, 2);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(tokens);
+      out.writeObject(sentence);
+    }
+    List<CoreLabel> readTokens;
+    List<CoreLabel> readSentence;
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      readTokens = (List<CoreLabel>) in.readObject();
+      readSentence = (List<CoreLabel>) in.readObject();
+    }
+    assertEquals(tokens, readTokens);
+    assertEquals(CoreLabel.class, readTokens.get(0).getClass());
+    assertSame(readTokens.get(1), readSentence.get(1));
+  }
+
+  private static final String[] TRAIN = {
+      "The_DT dogs_NNS were_VBD barking_VBG ._.",
+      "Cats_NNS sleep_VBP all_DT day_NN ._.",
+      "John_NNP saw_VBD the_DT cats_NNS in_IN Paris_NNP ._.",
+      "The_DT cat_NN was_VBD sleeping_VBG ._.",
+      "Dogs_NNS bark_VBP all_DT night_NN ._.",
+      "Mary_NNP lives_VBZ in_IN London_NNP ._.",
+  };
+
+  /** A tagger which gives each word its tag in the training sentences */
+  private static MaxentTagger dictionaryTagger() {
+    Map<String, String> tags = Generics.newHashMap();
+    for (String sentence : TRAIN) {
+      for (String token : sentence.split(" ")) {
+        int split = token.lastIndexOf('_');
+        tags.put(token.substring(0, split), token.substring(split + 1));
+      }
+    }
+    return new MaxentTagger() {
+      @Override
+      public List<TaggedWord> tagSentence(List<? extends HasWord> sentence, boolean reuseTags) {
+        List<TaggedWord> tagged = new ArrayList<>();
+        for (HasWord word : sentence) {
+          tagged.add(new TaggedWord(word.word(), tags.getOrDefault(word.word(), "NN")));
+        }
+        return tagged;
+      }
+    };
+  }
+
+  private static NERClassifierCombiner trainNER() throws Exception {
+    Properties props = new Properties();
+    props.setProperty("useWord", "true");
+    props.setProperty("usePrev", "true");
+    props.setProperty("useNext", "true");
+    props.setProperty("useClassFeature", "true");
+    props.setProperty("maxIterations", "30");
+    CRFClassifier<CoreLabel> crf = new CRFClassifier<>(new SeqClassifierFlags(props));
+    List<List<CoreLabel>> train = new ArrayList<>();
+    for (String sentence : TRAIN) {
+      List<CoreLabel> tokens = new ArrayList<>();
+      for (String token : sentence.split(" ")) {
+        CoreLabel label = new CoreLabel();
+        label.setWord(token.substring(0, token.lastIndexOf('_')));
+        label.set(CoreAnnotations.AnswerAnnotation.class, token.endsWith("_NNP") ? "ENTITY" : "O");
+        tokens.add(label);
+      }
+      train.add(tokens);
+    }
+    crf.train(train);
+    return new NERClassifierCombiner(false, false, crf);
+  }
+
+  private static String annotate(boolean columnar, MaxentTagger tagger, NERClassifierCombiner ner) throws Exception {
+    Properties props = new Properties();
+    props.setProperty("annotators", "tokenize, ssplit");
+    props.setProperty(TokenizerAnnotator.COLUMNAR_PROPERTY, Boolean.toString(columnar));
+    StanfordCoreNLP pipeline = new StanfordCoreNLP(props);
+    Annotation document = new Annotation("The dogs were barking. John saw cats in Paris all day.");
+    document.set(CoreAnnotations.DocIDAnnotation.class, "doc");
+    pipeline.annotate(document);
+    new POSTaggerAnnotator(tagger).annotate(document);
+    new MorphaAnnotator(false).annotate(document);
+    new NERCombinerAnnotator(ner, false).annotate(document);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    new CoNLLOutputter().print(document, bytes);
+
+    List<CoreLabel> tokens = document.get(CoreAnnotations.TokensAnnotation.class);
+    assertEquals(columnar, tokens instanceof TokenColumns.Tokens);
+    if (columnar) {
+      TokenColumns columns = ((TokenColumns.Tokens) tokens).columns();
+      for (int i = 0; i < columns.size(); i++) {
+        assertFalse("row " + i + " made a CoreLabel", columns.hasLabel(i));
+      }
+      for (CoreMap sentence : document.get(CoreAnnotations.SentencesAnnotation.class)) {
+        assertTrue(sentence.get(CoreAnnotations.TokensAnnotation.class) instanceof TokenColumns.Tokens);
+      }
+      assertEquals("doc", columns.row(3).get(CoreAnnotations.DocIDAnnotation.class));
+      assertEquals(tokens, ((TokenColumns.Tokens) tokens).copyLabels());
+    }
+    return bytes.toString("utf-8");
+  }
+
+  public void testSameAnnotations() throws Exception {
+    MaxentTagger tagger = dictionaryTagger();
+    NERClassifierCombiner ner = trainNER();
+    String expected = annotate(false, tagger, ner);
+    assertTrue(expected, expected.contains("dogs\tdog\tNNS"));
+    assertTrue(expected, expected.contains("John\tJohn\tNNP\tENTITY"));
+    assertEquals(expected, annotate(true, tagger, ner));
+  }
+
+}
@@ -0,0 +1,159 @@
+package edu.stanford.nlp.ling.tokensregex;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.util.CoreMap;
+import junit.framework.TestCase;
+
+import java.util.*;
+
+/**
+ * Checks that a {@link CoreMapRuleIndex} only leaves out patterns which
+ * can't match, and that it does leave out the ones it should.
+ */
+public class CoreMapRuleIndexTest extends TestCase {
+
+  private static final String[] PATTERNS = {
+      "/the/ /cat/",
+      "/dogs?/",
+      "[{tag:NN}] /barked/?",
+      "/cat/ | /dog/",
+      "/cat/ | /dog/*",
+      "[{lemma:run}] /fast/",
+      "[{word:/Mouse/}]",
+      "[ {word:mouse} | {tag:VBD} ]",
+      "[ {word:mouse} & {tag:NN} ]",
+      "([{word:/the|a/}] []+ /sat/){1,2}",
+      "[!{word:cat}]",
+      "/cat/*",
+  };
+
+  private static List<CoreLabel> sentence(String... wordTagLemmas) {
+    List<CoreLabel> tokens = new ArrayList<>();
+    int offset = 0;
+    for (String s : wordTagLemmas) {
+      String[] fields = s.split("/");
+      CoreLabel token = new CoreLabel();
+      token.setWord(fields[0]);
+      token.setValue(fields[0]);
+      token.setTag(fields[1]);
+      token.setLemma(fields[2]);
+      token.setBeginPosition(offset);
+      token.setEndPosition(offset + fields[0].length());
+      offset += fields[0].length() + 1;
+      tokens.add(token);
+    }
+    return tokens;
+  }
+
+  private static List<List<CoreLabel>> sentences() {
+    return Arrays.asList(
+        sentence("the/DT/the", "cat/NN/cat", "sat/VBD/sit"),
+        sentence("A/DT/a", "MOUSE/NN/mouse", "ran/VBD/run", "fast/RB/fast"),
+        sentence("dogs/NNS/dog", "bark/VBP/bark"),
+        sentence("Nothing/NN/nothing", "here/RB/here"),
+        sentence(),
+        sentence("mouse/NNS/mouse"));
+  }
+
+  private static List<TokenSequencePattern> compile(boolean ignoreCase) {
+    Env env = TokenSequencePattern.getNewEnv();
+    if (ignoreCase) {
+      env.setDefaultStringPatternFlags(java.util.regex.Pattern.CASE_INSENSITIVE);
+      env.setDefaultStringMatchFlags(NodePattern.CASE_INSENSITIVE);
+    }
+    List<TokenSequencePattern> patterns = new ArrayList<>();
+    for (String p : PATTERNS) {
+      patterns.add(TokenSequencePattern.compile(env, p));
+    }
+    return patterns;
+  }
+
+  private static void checkTriggersAllMatches(boolean ignoreCase) {
+    List<TokenSequencePattern> patterns = compile(ignoreCase);
+    CoreMapRuleIndex<TokenSequencePattern> index = new CoreMapRuleIndex<>(patterns, p -> p);
+    for (List<CoreLabel> tokens : sentences()) {
+      List<TokenSequencePattern> triggered = index.getTriggered(tokens);
+      List<TokenSequencePattern> sorted = new ArrayList<>(triggered);
+      sorted.sort(Comparator.comparingInt(patterns::indexOf));
+      assertEquals("Patterns out of order", sorted, triggered);
+      for (TokenSequencePattern pattern : patterns) {
+        if (pattern.getMatcher(tokens).find()) {
+          assertTrue(pattern + " matches " + tokens + " but was left out", triggered.contains(pattern));
+        }
+      }
+    }
+    assertEquals(sentences().size(), index.getNumSequences());
+    assertEquals(sentences().size() * patterns.size(), index.getNumRulesTried() + index.getNumRulesPruned());
+  }
+
+  public void testTriggersAllMatches() {
+    checkTriggersAllMatches(false);
+  }
+
+  public void testTriggersAllMatchesIgnoringCase() {
+    checkTriggersAllMatches(true);
+  }
+
+  public void testPrunes() {
+    List<TokenSequencePattern> patterns = compile(false);
+    CoreMapRuleIndex<TokenSequencePattern> index = new CoreMapRuleIndex<>(patterns, p -> p);
+    // no anchors for regular expressions, negated or zero-or-more nodes, or an alternative without one
+    assertEquals(4, index.getNumAlwaysTried());
+
+    List<TokenSequencePattern> triggered = index.getTriggered(sentences().get(3));
+    // [{tag:NN}] plus the four which are always tried
+    assertEquals(Arrays.asList(patterns.get(1), patterns.get(2), patterns.get(4), patterns.get(10), patterns.get(11)),
+                 triggered);
+    assertEquals(patterns.size() - 5, index.getNumRulesPruned());
+    assertEquals(5, index.getNumRulesTried());
+
+    // the case sensitive "Mouse" regex is left out, but the mouse / VBD disjunction isn't,
+    // nor the conjunction, which is indexed by the word rather than the tag
+    triggered = index.getTriggered(sentences().get(5));
+    assertFalse(triggered.contains(patterns.get(6)));
+    assertTrue(triggered.contains(patterns.get(7)));
+    assertTrue(triggered.contains(patterns.get(8)));
+
+    assertEquals(patterns, index.getTriggered(null));
+  }
+
+  public void testMultiPatternMatcher() {
+    List<TokenSequencePattern> patterns = compile(true);
+    MultiPatternMatcher<CoreMap> indexed = TokenSequencePattern.getMultiPatternMatcher(patterns);
+    MultiPatternMatcher<CoreMap> unindexed = new MultiPatternMatcher<>(new ArrayList<>(patterns));
+    for (List<CoreLabel> tokens : sentences()) {
+      assertEquals(toString(unindexed.findNonOverlapping(tokens)), toString(indexed.findNonOverlapping(tokens)));
+      assertEquals(toString(unindexed.find(tokens, SequenceMatcher.FindType.FIND_ALL)),
+                   toString(indexed.find(tokens, SequenceMatcher.FindType.FIND_ALL)));
+    }
+  }
+
+  private static List<String> toString(List<SequenceMatchResult<CoreMap>> matches) {
+    List<String> result = new ArrayList<>();
+    for (SequenceMatchResult<CoreMap> m : matches) {
+      result.add(m.pattern() + "@" + m.start() + "-" + m.end());
+    }
+    return result;
+  }
+
+  public void testExtractor() throws Exception {
+    Env env = TokenSequencePattern.getNewEnv();
+    String rules =
+        "{ ruleType: \"tokens\", pattern: ( /cat/ ), result: \"CAT\" }\n" +
+        "{ ruleType: \"tokens\", pattern: ( /the/ /cat/ ), result: \"THE_CAT\" }\n" +
+        "{ ruleType: \"tokens\", pattern: ( [{tag:VBD}] ), result: \"PAST\" }\n" +
+        "{ ruleType: \"tokens\", pattern: ( /mouse/ ), result: \"MOUSE\" }\n";
+    CoreMapExpressionExtractor<?> extractor = CoreMapExpressionExtractor.createExtractorFromString(env, rules);
+    CoreMap sentence = new Annotation("the cat sat");
+    sentence.set(CoreAnnotations.CharacterOffsetBeginAnnotation.class, 0);
+    sentence.set(CoreAnnotations.TokensAnnotation.class, sentences().get(0));
+    List<String> results = new ArrayList<>();
+    for (MatchedExpression expression : extractor.extractExpressions(sentence)) {
+      results.add(expression.getText() + "=" + expression.getValue().get());
+    }
+    assertEquals(Arrays.asList("the cat=THE_CAT", "sat=PAST"), results);
+  }
+
+}
@@ -0,0 +1,89 @@
+package edu.stanford.nlp.parser.lexparser;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+
+import edu.stanford.nlp.trees.PennTreebankLanguagePack;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+
+public class CoarseToFinePrunerTest extends TestCase {
+
+  private Index<String> stateIndex;
+  private BinaryGrammar bg;
+  private UnaryGrammar ug;
+
+  @Override
+  public void setUp() {
+    stateIndex = new HashIndex<>();
+    for (String state : new String[] { "ROOT", "S", ".$$.", "NP^S", "NP^VP", "VP^S", "DT", "NN", "VBD" }) {
+      stateIndex.addToIndex(state);
+    }
+    bg = new BinaryGrammar(stateIndex);
+    bg.addRule(rule("ROOT", "S", ".$$.", 0.0));
+    bg.addRule(rule("S", "NP^S", "VP^S", 0.0));
+    bg.addRule(rule("NP^S", "DT", "NN", -1.0));
+    bg.addRule(rule("NP^VP", "DT", "NN", -2.0));
+    bg.addRule(rule("VP^S", "VBD", "NP^VP", 0.0));
+    bg.splitRules();
+    ug = new UnaryGrammar(stateIndex);
+    ug.addRule(new UnaryRule(stateIndex.indexOf("NP^VP"), stateIndex.indexOf("NP^S"), -3.0));
+    ug.purgeRules();
+  }
+
+  private BinaryRule rule(String parent, String left, String right, double score) {
+    return new BinaryRule(stateIndex.indexOf(parent), stateIndex.indexOf(left), stateIndex.indexOf(right), score);
+  }
+
+  public void testProjection() {
+    BasicCategoryGrammarProjection projection = new BasicCategoryGrammarProjection(bg, ug, stateIndex, new PennTreebankLanguagePack());
+    Index<String> coarse = projection.targetIndex();
+    assertEquals(8, coarse.size());
+    assertEquals(projection.project(stateIndex.indexOf("NP^S")), projection.project(stateIndex.indexOf("NP^VP")));
+    assertEquals("NP", coarse.get(projection.project(stateIndex.indexOf("NP^S"))));
+
+    // the two NP rules become one, with the better score
+    assertEquals(4, projection.targetBG().numRules());
+    BinaryRule np = new BinaryRule(coarse.indexOf("NP"), coarse.indexOf("DT"), coarse.indexOf("NN"));
+    assertEquals(-1.0, projection.targetBG().scoreRule(np), 1e-6);
+    // NP -> NP is left out
+    assertEquals(0, projection.targetUG().numRules());
+  }
+
+  public void testPrune() {
+    BasicCategoryGrammarProjection projection = new BasicCategoryGrammarProjection(bg, ug, stateIndex, new PennTreebankLanguagePack());
+    Index<String> coarse = projection.targetIndex();
+    CoarseToFinePruner pruner = new CoarseToFinePruner(projection, stateIndex.size(), coarse.size());
+
+    // "the dog saw the cat", where "dog" could also be a verb
+    int length = 6;
+    float[][][] iScore = new float[length][length + 1][];
+    for (int start = 0; start < length; start++) {
+      iScore[start][start + 1] = new float[stateIndex.size()];
+      Arrays.fill(iScore[start][start + 1], Float.NEGATIVE_INFINITY);
+    }
+    String[] tags = { "DT", "NN", "VBD", "DT", "NN", ".$$." };
+    for (int start = 0; start < length; start++) {
+      iScore[start][start + 1][stateIndex.indexOf(tags[start])] = -1.0f;
+    }
+    iScore[1][2][stateIndex.indexOf("VBD")] = -5.0f;
+
+    boolean[][][] kept = pruner.prune(iScore, length, stateIndex.indexOf("ROOT"), 0.5);
+    assertNotNull(kept);
+    assertTrue(kept[0][2][coarse.indexOf("NP")]);
+    assertTrue(kept[3][5][coarse.indexOf("NP")]);
+    assertTrue(kept[2][5][coarse.indexOf("VP")]);
+    assertTrue(kept[0][5][coarse.indexOf("S")]);
+    assertTrue(kept[0][6][coarse.indexOf("ROOT")]);
+    assertFalse(kept[0][2][coarse.indexOf("VP")]);
+    // "dog saw" is not a constituent, and "saw the" can't be used in a parse
+    assertNull(kept[1][3]);
+    assertNull(kept[2][4]);
+
+    // without an NN for "cat", there is no parse
+    iScore[4][5][stateIndex.indexOf("NN")] = Float.NEGATIVE_INFINITY;
+    assertNull(pruner.prune(iScore, length, stateIndex.indexOf("ROOT"), 0.5));
+  }
+
+}
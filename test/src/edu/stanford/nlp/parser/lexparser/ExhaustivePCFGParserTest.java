@@ -0,0 +1,268 @@
+package edu.stanford.nlp.parser.lexparser;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import edu.stanford.nlp.ling.HasWord;
+import edu.stanford.nlp.ling.TaggedWord;
+import edu.stanford.nlp.trees.MemoryTreebank;
+import edu.stanford.nlp.trees.Tree;
+
+/**
+ * Parses sentences of a small made up language with a parser trained on
+ * them, checking that the ways of filling in the chart give the same
+ * parses as exhaustive parsing in one thread.  Pruning with a coarse
+ * parse first should also give the same parses.
+ */
+public class ExhaustivePCFGParserTest extends TestCase {
+
+  private static final String[][] NP = { { "DT", "NN" }, { "DT", "JJ", "NN" }, { "NP", "PP" }, { "PRP" }, { "NNP" }, { "NP", "CC", "NP" } };
+  private static final String[][] VP = { { "VBD", "NP" }, { "VBD", "NP", "PP" }, { "VBZ", "ADJP" }, { "VBD", "SBAR" } };
+  private static final String[][] WORDS = {
+      { "DT", "the", "a", "every", "this" },
+      { "NN", "dog", "cat", "man", "park", "telescope", "idea", "house" },
+      { "JJ", "big", "old", "red", "happy", "small" },
+      { "PRP", "he", "she", "they", "it" },
+      { "NNP", "John", "Mary", "London", "Paris" },
+      { "VBD", "saw", "liked", "found", "took", "said", "knew" },
+      { "VBZ", "is", "seems" },
+      { "IN", "in", "with", "near", "on" },
+      { "CC", "and", "or" },
+      { "RB", "very", "quite" },
+  };
+
+  private static String word(Random random, String tag) {
+    for (String[] words : WORDS) {
+      if (words[0].equals(tag)) {
+        return "(" + tag + ' ' + words[1 + random.nextInt(words.length - 1)] + ')';
+      }
+    }
+    throw new IllegalArgumentException(tag);
+  }
+
+  private static String phrase(Random random, String category, int depth) {
+    String[] children;
+    switch (category) {
+      case "S":
+        children = new String[] { "NP", "VP" };
+        break;
+      case "NP":
+        children = NP[(depth > 4) ? random.nextInt(2) : random.nextInt(NP.length)];
+        break;
+      case "VP":
+        children = VP[(depth > 4) ? 0 : random.nextInt(VP.length)];
+        break;
+      case "PP":
+        children = new String[] { "IN", "NP" };
+        break;
+      case "SBAR":
+        return "(SBAR (IN that) " + phrase(random, "S", depth + 1) + ')';
+      case "ADJP":
+        children = random.nextBoolean() ? new String[] { "JJ" } : new String[] { "RB", "JJ" };
+        break;
+      default:
+        return word(random, category);
+    }
+    StringBuilder sb = new StringBuilder("(").append(category);
+    for (String child : children) {
+      sb.append(' ').append(phrase(random, child, depth + 1));
+    }
+    return sb.append(')').toString();
+  }
+
+  static List<Tree> trees(int n, long seed) {
+    Random random = new Random(seed);
+    List<Tree> trees = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      String s = phrase(random, "S", 0);
+      trees.add(Tree.valueOf("(ROOT " + s.substring(0, s.length() - 1) + " (. .)))"));
+    }
+    return trees;
+  }
+
+  static LexicalizedParser train(boolean doDep) {
+    MemoryTreebank treebank = new MemoryTreebank();
+    treebank.addAll(trees(400, 1));
+    Options op = new Options();
+    op.doDep = doDep;
+    return LexicalizedParser.trainFromTreebank(treebank, op);
+  }
+
+  static List<List<HasWord>> sentences() {
+    List<List<HasWord>> sentences = new ArrayList<>();
+    for (Tree tree : trees(20, 2)) {
+      sentences.add(tree.yieldHasWord());
+    }
+    return sentences;
+  }
+
+  /** The scores of each span, after parsing a sentence */
+  private static class Chart {
+    final String parse;
+    final float[][][] iScore;
+    final float[][][] oScore;
+
+    Chart(LexicalizedParser lp, List<HasWord> sentence, boolean outside) {
+      LexicalizedParserQuery query = lp.lexicalizedParserQuery();
+      assertTrue(query.parse(sentence));
+      parse = query.getBestParse().toString();
+      ExhaustivePCFGParser pparser = (ExhaustivePCFGParser) query.getPCFGParser();
+      iScore = copy(pparser.iScore, pparser.length);
+      oScore = outside ? copy(pparser.oScore, pparser.length) : null;
+      query.release();
+    }
+
+    private static float[][][] copy(float[][][] scores, int length) {
+      float[][][] copy = new float[length][length + 1][];
+      for (int start = 0; start < length; start++) {
+        for (int end = start + 1; end <= length; end++) {
+          copy[start][end] = scores[start][end].clone();
+        }
+      }
+      return copy;
+    }
+
+    /** How many chart items have a score */
+    int items() {
+      int items = 0;
+      for (float[][] row : iScore) {
+        for (float[] cell : row) {
+          if (cell != null) {
+            for (float score : cell) {
+              if (score > Float.NEGATIVE_INFINITY) {
+                items++;
+              }
+            }
+          }
+        }
+      }
+      return items;
+    }
+
+    void assertSame(Chart other) {
+      assertEquals(parse, other.parse);
+      assertTrue(parse, Arrays.deepEquals(iScore, other.iScore));
+      assertTrue(parse, Arrays.deepEquals(oScore, other.oScore));
+    }
+  }
+
+  private static void checkThreads(boolean doDep) {
+    LexicalizedParser lp = train(doDep);
+    List<List<HasWord>> sentences = sentences();
+    List<Chart> serial = new ArrayList<>();
+    for (List<HasWord> sentence : sentences) {
+      serial.add(new Chart(lp, sentence, doDep));
+    }
+    lp.setOptionFlags("-pcfgThreads", "4", "-pcfgThreadsMinLength", "0");
+    for (int i = 0; i < sentences.size(); i++) {
+      serial.get(i).assertSame(new Chart(lp, sentences.get(i), doDep));
+    }
+  }
+
+  private static void checkCoarseToFine(boolean doDep) {
+    LexicalizedParser lp = train(doDep);
+    List<List<HasWord>> sentences = sentences();
+    List<Chart> exhaustive = new ArrayList<>();
+    for (List<HasWord> sentence : sentences) {
+      exhaustive.add(new Chart(lp, sentence, false));
+    }
+
+    lp.setOptionFlags("-coarseToFineThreshold", "0.0001");
+    int exhaustiveItems = 0;
+    int prunedItems = 0;
+    for (int i = 0; i < sentences.size(); i++) {
+      Chart pruned = new Chart(lp, sentences.get(i), false);
+      assertEquals(exhaustive.get(i).parse, pruned.parse);
+      exhaustiveItems += exhaustive.get(i).items();
+      prunedItems += pruned.items();
+    }
+    assertTrue(prunedItems + " of " + exhaustiveItems, prunedItems < exhaustiveItems);
+
+    // nothing scores a million times better than the best coarse parse,
+    // so everything is pruned, and each sentence is parsed again without pruning
+    lp.setOptionFlags("-coarseToFineThreshold", "1000000");
+    for (int i = 0; i < sentences.size(); i++) {
+      exhaustive.get(i).assertSame(new Chart(lp, sentences.get(i), false));
+    }
+  }
+
+  public void testCoarseToFinePCFG() {
+    checkCoarseToFine(false);
+  }
+
+  public void testCoarseToFineFactored() {
+    checkCoarseToFine(true);
+  }
+
+  /** A pool which runs out of memory when asked to */
+  private static class FailingPool extends PCFGChartPool {
+    boolean fail;
+
+    FailingPool() {
+      super(Long.MAX_VALUE);
+    }
+
+    @Override
+    Chart acquire(int length, int numStates, int numTags, boolean outside, boolean lengthNormalization) {
+      if (fail) {
+        throw new OutOfMemoryError("Test");
+      }
+      return super.acquire(length, numStates, numTags, outside, lengthNormalization);
+    }
+  }
+
+  /** The sentences, shortest first, with the boundary the query would add */
+  private static List<List<HasWord>> boundedSentences() {
+    List<List<HasWord>> sentences = new ArrayList<>();
+    for (List<HasWord> sentence : sentences()) {
+      List<HasWord> bounded = new ArrayList<>(sentence);
+      bounded.add(new TaggedWord(Lexicon.BOUNDARY, Lexicon.BOUNDARY_TAG));
+      sentences.add(bounded);
+    }
+    sentences.sort((a, b) -> a.size() - b.size());
+    return sentences;
+  }
+
+  /** After failing to get a bigger chart, a shorter sentence still gets one */
+  public void testOutOfMemoryWithBudget() {
+    LexicalizedParser lp = train(false);
+    lp.setOptionFlags("-maxChartMegabytes", "100");
+    List<List<HasWord>> sentences = boundedSentences();
+    List<HasWord> shortest = sentences.get(0);
+    List<HasWord> middle = sentences.get(sentences.size() / 2);
+    List<HasWord> longest = sentences.get(sentences.size() - 1);
+    assertTrue(shortest.size() < middle.size() && middle.size() < longest.size());
+    ExhaustivePCFGParser reference = (ExhaustivePCFGParser) lp.lexicalizedParserQuery().getPCFGParser();
+    assertTrue(reference.parse(shortest));
+    String expected = reference.getBestParse().toString();
+
+    ExhaustivePCFGParser pparser = (ExhaustivePCFGParser) lp.lexicalizedParserQuery().getPCFGParser();
+    FailingPool pool = new FailingPool();
+    pparser.setChartPool(pool);
+    assertTrue(pparser.parse(middle));
+    pool.fail = true;
+    try {
+      pparser.parse(longest);
+      fail("Expected the chart to run out of memory");
+    } catch (OutOfMemoryError e) {
+      // expected
+    }
+    pool.fail = false;
+    assertTrue(pparser.parse(shortest));
+    assertEquals(expected, pparser.getBestParse().toString());
+  }
+
+  public void testThreadsPCFG() {
+    checkThreads(false);
+  }
+
+  /** The factored parser also needs the outside scores, which are done in two passes */
+  public void testThreadsFactored() {
+    checkThreads(true);
+  }
+
+}
@@ -0,0 +1,66 @@
+package edu.stanford.nlp.parser.lexparser;
+
+import junit.framework.TestCase;
+
+public class PCFGChartPoolTest extends TestCase {
+
+  public void testReuse() {
+    PCFGChartPool pool = new PCFGChartPool(Long.MAX_VALUE);
+    PCFGChartPool.Chart chart = pool.acquire(10, 20, 5, true, false);
+    assertEquals(10, chart.length);
+    assertEquals(10, chart.iScore.length);
+    assertEquals(20, chart.iScore[0][10].length);
+    assertNull(chart.iScore[5][5]);
+    assertNotNull(chart.oScore);
+    assertNull(chart.wordsInSpan);
+    assertEquals(0, pool.size());
+
+    pool.release(chart);
+    assertEquals(1, pool.size());
+    assertEquals(chart.bytes, pool.pooledBytes());
+    // a shorter sentence can use a bigger chart
+    assertSame(chart, pool.acquire(6, 20, 5, true, false));
+    assertEquals(0, pool.size());
+    assertEquals(0, pool.pooledBytes());
+  }
+
+  public void testSmallestFits() {
+    PCFGChartPool pool = new PCFGChartPool(Long.MAX_VALUE);
+    PCFGChartPool.Chart small = pool.acquire(5, 20, 5, false, false);
+    PCFGChartPool.Chart large = pool.acquire(30, 20, 5, false, false);
+    PCFGChartPool.Chart medium = pool.acquire(12, 20, 5, false, false);
+    pool.release(large);
+    pool.release(small);
+    pool.release(medium);
+    assertSame(medium, pool.acquire(8, 20, 5, false, false));
+    assertSame(small, pool.acquire(5, 20, 5, false, false));
+    // a chart without the outside scores can't be used by a parser which needs them
+    assertNotSame(large, pool.acquire(20, 20, 5, true, false));
+    assertSame(large, pool.acquire(20, 20, 5, false, false));
+  }
+
+  public void testMaxPooledBytes() {
+    long bytes = PCFGChartPool.chartBytes(10, 20, 5, false, false);
+    PCFGChartPool pool = new PCFGChartPool(bytes * 2);
+    PCFGChartPool.Chart first = pool.acquire(10, 20, 5, false, false);
+    PCFGChartPool.Chart second = pool.acquire(10, 20, 5, false, false);
+    PCFGChartPool.Chart third = pool.acquire(10, 20, 5, false, false);
+    assertEquals(bytes, first.bytes);
+    pool.release(first);
+    pool.release(second);
+    pool.release(third);
+    assertEquals(2, pool.size());
+    assertEquals(bytes * 2, pool.pooledBytes());
+    pool.clear();
+    assertEquals(0, pool.size());
+    assertEquals(0, pool.pooledBytes());
+  }
+
+  public void testChartBytes() {
+    // 3 * 4 / 2 spans of 100 states, and the extents
+    assertEquals(6 * 100 * 4 + 14 * 100 * 4 + 3 * 10, PCFGChartPool.chartBytes(3, 100, 10, false, false));
+    // the outside scores, and where each state is possible
+    assertEquals(6 * 100 * 4 + 14 * 100, PCFGChartPool.chartBytes(3, 100, 10, true, false) - PCFGChartPool.chartBytes(3, 100, 10, false, false));
+  }
+
+}
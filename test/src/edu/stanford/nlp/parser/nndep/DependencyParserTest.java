@@ -0,0 +1,206 @@
+package edu.stanford.nlp.parser.nndep;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import com.gs.collections.impl.list.mutable.primitive.IntArrayList;
+
+import edu.stanford.nlp.io.IOUtils;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.trees.GrammaticalStructure;
+import edu.stanford.nlp.util.CoreMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that batched prediction, and prediction with float or int8
+ * weights, agree with the one sentence at a time, double precision path.
+ */
+public class DependencyParserTest extends TestCase {
+
+  private static double[][] randomMatrix(Random random, int rows, int cols) {
+    double[][] matrix = new double[rows][cols];
+    for (double[] row : matrix) {
+      for (int j = 0; j < cols; j++) {
+        row[j] = random.nextDouble() * 2 - 1;
+      }
+    }
+    return matrix;
+  }
+
+  private static final int VOCABULARY = 30;
+  private static final int NUM_LABELS = 9;
+
+  /** A classifier with random weights, pre-computing about half of the (token, position) inputs. */
+  private static Classifier randomClassifier(Config config) {
+    Random random = new Random(17);
+    double[][] E = randomMatrix(random, VOCABULARY, config.embeddingSize);
+    double[][] W1 = randomMatrix(random, config.hiddenSize, config.embeddingSize * Config.numTokens);
+    double[] b1 = randomMatrix(random, 1, config.hiddenSize)[0];
+    double[][] W2 = randomMatrix(random, NUM_LABELS, config.hiddenSize);
+    IntArrayList preComputed = new IntArrayList();
+    for (int i = 0; i < VOCABULARY * Config.numTokens; i += 2) {
+      preComputed.add(i);
+    }
+    Classifier classifier = new Classifier(config, E, W1, b1, W2, preComputed);
+    classifier.preCompute();
+    return classifier;
+  }
+
+  private static int[][] randomFeatures(int batchSize) {
+    Random random = new Random(3);
+    int[][] features = new int[batchSize][Config.numTokens];
+    for (int[] feature : features) {
+      for (int j = 0; j < feature.length; j++) {
+        feature[j] = random.nextInt(VOCABULARY);
+      }
+    }
+    return features;
+  }
+
+  private static Config smallConfig() {
+    Properties props = new Properties();
+    props.setProperty("hiddenSize", "70");
+    props.setProperty("embeddingSize", "5");
+    return new Config(props);
+  }
+
+  /**
+   * Checks the batched scores against the double ones, allowing an error
+   * of {@code tolerance} times the largest score of each feature vector.
+   */
+  private static void assertSameScores(Classifier expected, Classifier actual, double tolerance) {
+    int batchSize = 13;
+    int[][] features = randomFeatures(batchSize);
+    float[][] batchScores = new float[batchSize][NUM_LABELS];
+    // the hidden layer buffer holds whatever the last batch left in it
+    float[] hiddenBuffer = new float[batchSize * expected.getb1().length];
+    Arrays.fill(hiddenBuffer, 1.0f);
+    actual.computeScores(features, batchSize, batchScores, hiddenBuffer);
+
+    double[] scores = new double[NUM_LABELS];
+    double[] hidden = new double[expected.getb1().length];
+    for (int b = 0; b < batchSize; b++) {
+      expected.computeScores(features[b], scores, hidden);
+      double max = 0.0;
+      for (double score : scores) {
+        max = Math.max(max, Math.abs(score));
+      }
+      for (int label = 0; label < NUM_LABELS; label++) {
+        assertEquals(scores[label], batchScores[b][label], max * tolerance + 1e-3);
+      }
+    }
+  }
+
+  public void testBatchedScores() {
+    Classifier classifier = randomClassifier(smallConfig());
+    assertSameScores(classifier, classifier, 1e-5);
+  }
+
+  public void testCompactScores() {
+    Config config = smallConfig();
+    Classifier reference = randomClassifier(config);
+
+    Classifier floats = randomClassifier(config);
+    long floatBytes = floats.compact(Config.WeightPrecision.FLOAT);
+    assertTrue(floats.isCompact());
+    assertNull(floats.getW1());
+    assertSameScores(reference, floats, 1e-5);
+
+    Classifier int8 = randomClassifier(config);
+    long int8Bytes = int8.compact(Config.WeightPrecision.INT8);
+    assertTrue(int8Bytes < floatBytes / 3);
+    assertSameScores(reference, int8, 0.05);
+
+    // the single configuration path still works once compacted
+    double[] scores = new double[NUM_LABELS];
+    floats.computeScores(randomFeatures(1)[0], scores, new double[config.hiddenSize]);
+    float[][] batchScores = new float[1][NUM_LABELS];
+    floats.computeScores(randomFeatures(1), 1, batchScores, new float[config.hiddenSize]);
+    assertEquals(batchScores[0][0], scores[0], 1e-6);
+  }
+
+  private static final String[] TRAIN = {
+      "1\tJohn\t_\tNNP\tNNP\t_\t2\tnsubj\t_\t_",
+      "2\tsaw\t_\tVBD\tVBD\t_\t0\troot\t_\t_",
+      "3\tMary\t_\tNNP\tNNP\t_\t2\tdobj\t_\t_",
+      "4\t.\t_\t.\t.\t_\t2\tpunct\t_\t_",
+      "",
+      "1\tThe\t_\tDT\tDT\t_\t2\tdet\t_\t_",
+      "2\tdog\t_\tNN\tNN\t_\t3\tnsubj\t_\t_",
+      "3\tbarked\t_\tVBD\tVBD\t_\t0\troot\t_\t_",
+      "4\tloudly\t_\tRB\tRB\t_\t3\tadvmod\t_\t_",
+      "5\t.\t_\t.\t.\t_\t3\tpunct\t_\t_",
+      "",
+      "1\tMary\t_\tNNP\tNNP\t_\t2\tnsubj\t_\t_",
+      "2\tfed\t_\tVBD\tVBD\t_\t0\troot\t_\t_",
+      "3\tthe\t_\tDT\tDT\t_\t4\tdet\t_\t_",
+      "4\tdog\t_\tNN\tNN\t_\t2\tdobj\t_\t_",
+      "5\t.\t_\t.\t.\t_\t2\tpunct\t_\t_",
+      "",
+  };
+
+  public void testPredictAll() throws Exception {
+    File trainFile = File.createTempFile("nndep", ".conll");
+    trainFile.deleteOnExit();
+    File modelFile = File.createTempFile("nndep", ".txt.gz");
+    modelFile.deleteOnExit();
+    File embedFile = File.createTempFile("nndep", ".embed");
+    embedFile.deleteOnExit();
+    try (PrintWriter out = IOUtils.getPrintWriter(trainFile.getPath())) {
+      for (String line : TRAIN) {
+        out.println(line);
+      }
+    }
+    Random random = new Random(5);
+    try (PrintWriter out = IOUtils.getPrintWriter(embedFile.getPath())) {
+      for (String word : new String[] { "john", "mary", "dog", "the" }) {
+        out.print(word);
+        for (int i = 0; i < 10; i++) {
+          out.print(" " + random.nextGaussian());
+        }
+        out.println();
+      }
+    }
+
+    Properties props = new Properties();
+    props.setProperty("maxIter", "20");
+    props.setProperty("hiddenSize", "20");
+    props.setProperty("embeddingSize", "10");
+    props.setProperty("batchSize", "20");
+    new DependencyParser(props).train(trainFile.getPath(), null, modelFile.getPath(), embedFile.getPath());
+    DependencyParser parser = DependencyParser.loadFromModelFile(modelFile.getPath(), props);
+
+    List<CoreMap> sentences = new ArrayList<>();
+    Util.loadConllFile(trainFile.getPath(), sentences, new ArrayList<>());
+    for (CoreMap sentence : sentences) {
+      List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+      for (int i = 0; i < tokens.size(); i++) {
+        tokens.get(i).setIndex(i + 1);
+      }
+    }
+    List<GrammaticalStructure> batched = parser.predictAll(sentences);
+    assertEquals(sentences.size(), batched.size());
+    props.setProperty("weightPrecision", "float");
+    DependencyParser floatParser = DependencyParser.loadFromModelFile(modelFile.getPath(), props);
+    for (int i = 0; i < sentences.size(); i++) {
+      GrammaticalStructure single = parser.predict(sentences.get(i));
+      assertEquals(single.typedDependencies().toString(), batched.get(i).typedDependencies().toString());
+      assertEquals(single.typedDependencies().toString(), floatParser.predict(sentences.get(i)).typedDependencies().toString());
+    }
+
+    try {
+      floatParser.writeModelFile(modelFile.getPath());
+      fail("A compacted model can't be written out");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+}
@@ -0,0 +1,119 @@
+package edu.stanford.nlp.parser.shiftreduce;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import edu.stanford.nlp.parser.lexparser.BinaryHeadFinder;
+import edu.stanford.nlp.trees.HeadFinder;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.Trees;
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+import edu.stanford.nlp.util.ScoredObject;
+
+/**
+ * Checks that scoring states by feature hashes gives the same scores as
+ * building the feature Strings and looking them up.
+ */
+public class HashedFeatureWeightsTest extends TestCase {
+  String[] treeStrings = {
+    "(ROOT (S (INTJ (RB No)) (@S (, ,) (@S (NP (PRP it)) (@S (VP (@VP (VBD was) (RB n't)) (NP (NNP Black) (NNP Monday))) (. .))))) (.$$. .$.))",
+    "(ROOT (S (NP (NP (DT Some) (@NP (`` ``) (@NP (NN circuit) (@NP (NNS breakers) ('' ''))))) (VP (VBN installed) (PP (IN after) (NP (DT the) (@NP (NNP October) (@NP (CD 1987) (NN crash))))))) (@S (VP (@VP (@VP (VBD failed) (NP (PRP$ their) (@NP (JJ first) (NN test)))) (PRN (, ,) (@PRN (S (NP (NNS traders)) (VP (VBP say))) (, ,)))) (S (ADJP (JJ unable) (S (VP (TO to) (VP (VB cool) (NP (NP (DT the) (@NP (NN selling) (NN panic))) (PP (IN in) (NP (DT both) (@NP (@NP (NNS stocks) (CC and)) (NNS futures))))))))))) (. .))) (.$$. .$.))",
+    "(ROOT (FRAG (NP (DT A) (@NP (ADJP (JJ short) (@ADJP (, ,) (JJ simple))) (NN test)))))",
+  };
+
+  private static Tree convertTree(ShiftReduceOptions op, String treeText) {
+    HeadFinder binaryHeadFinder = new BinaryHeadFinder(op.tlpParams.headFinder());
+    Tree tree = Tree.valueOf(treeText);
+    Trees.convertToCoreLabels(tree);
+    tree.percolateHeadAnnotations(binaryHeadFinder);
+    return tree;
+  }
+
+  public void testSameScores() {
+    ShiftReduceOptions op = new ShiftReduceOptions();
+    Index<Transition> transitionIndex = new HashIndex<>();
+    List<State> states = new ArrayList<>();
+    for (String treeText : treeStrings) {
+      Tree tree = convertTree(op, treeText);
+      List<Transition> transitions = CreateTransitionSequence.createTransitionSequence(tree, true, Collections.singleton("ROOT"), Collections.singleton("ROOT"));
+      transitionIndex.addAll(transitions);
+      State state = ShiftReduceParser.initialStateFromGoldTagTree(tree);
+      for (Transition transition : transitions) {
+        states.add(state);
+        state = transition.apply(state);
+      }
+    }
+
+    // Give every feature seen in every other state some random weights
+    PerceptronModel model = new PerceptronModel(op, transitionIndex, Generics.newHashSet(), Generics.newHashSet(), Generics.newHashSet());
+    Random random = new Random(11);
+    for (int i = 0; i < states.size(); i += 2) {
+      for (String feature : model.featureFactory.featurize(states.get(i))) {
+        Weight weight = new Weight();
+        for (int j = 0; j < 3; ++j) {
+          weight.updateWeight(random.nextInt(transitionIndex.size()), random.nextFloat());
+        }
+        model.featureWeights.put(feature, weight);
+      }
+    }
+
+    int numTransitions = transitionIndex.size();
+    for (State state : states) {
+      op.testOptions().hashedFeatures = false;
+      List<ScoredObject<Integer>> expected = sorted(model.findHighestScoringTransitions(state, false, numTransitions, null));
+      op.testOptions().hashedFeatures = true;
+      List<ScoredObject<Integer>> actual = sorted(model.findHighestScoringTransitions(state, false, numTransitions, null));
+      assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); ++i) {
+        assertEquals(expected.get(i).object(), actual.get(i).object());
+        assertEquals(expected.get(i).score(), actual.get(i).score(), 0.0);
+      }
+    }
+  }
+
+  private static List<ScoredObject<Integer>> sorted(Collection<ScoredObject<Integer>> transitions) {
+    List<ScoredObject<Integer>> list = new ArrayList<>(transitions);
+    list.sort((a, b) -> a.object().compareTo(b.object()));
+    return list;
+  }
+
+  public void testScoreParts() {
+    Weight first = new Weight();
+    first.updateWeight(0, 1.0f);
+    Weight second = new Weight();
+    second.updateWeight(1, 2.0f);
+    second.updateWeight(2, 3.0f);
+    HashedFeatureWeights weights = new HashedFeatureWeights(Generics.newHashMap());
+    assertTrue(weights.isExact());
+    Map<String, Weight> featureWeights = Generics.newHashMap();
+    featureWeights.put("SepbS0-12-trueLEFT", first);
+    featureWeights.put("neg-305", second);
+    weights = new HashedFeatureWeights(featureWeights);
+
+    float[] scores = new float[3];
+    FeatureSink scorer = weights.scorer(scores);
+    scorer.start("Sepb").append("S0").append('-').append(12).append('-').append(true).append(State.HeadPosition.LEFT).end();
+    scorer.start("neg").append(-305).end();
+    scorer.start("neg").append(305).end();
+    scorer.add("neg-305");
+    assertEquals(1.0f, scores[0], 0.0f);
+    assertEquals(4.0f, scores[1], 0.0f);
+    assertEquals(6.0f, scores[2], 0.0f);
+
+    List<String> strings = new ArrayList<>();
+    FeatureSink builder = FeatureSink.of(strings);
+    builder.start("Sepb").append("S0").append('-').append(12).append('-').append(true).append(State.HeadPosition.LEFT).end();
+    builder.start("neg").append(-305).end();
+    assertEquals(featureWeights.size(), strings.size());
+    assertTrue(featureWeights.keySet().containsAll(strings));
+  }
+
+}
@@ -0,0 +1,109 @@
+package edu.stanford.nlp.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that annotateStream returns every document, respects the
+ * order flag, and never reads more than maxInFlight documents ahead.
+ */
+public class AnnotationPipelineTest extends TestCase {
+
+  private static class SleepyAnnotator implements Annotator {
+    private final Random random = new Random(1);
+
+    @Override
+    public void annotate(Annotation annotation) {
+      int delay;
+      synchronized (random) {
+        delay = random.nextInt(5);
+      }
+      try {
+        Thread.sleep(delay);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    public Set<Requirement> requirementsSatisfied() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public Set<Requirement> requires() {
+      return Collections.emptySet();
+    }
+  }
+
+  /** Counts how many documents have been read but not yet returned. */
+  private static class CountingIterator implements Iterator<Annotation> {
+    private final int size;
+    private int next = 0;
+    final AtomicInteger outstanding = new AtomicInteger();
+    int maxOutstanding = 0;
+
+    CountingIterator(int size) {
+      this.size = size;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < size;
+    }
+
+    @Override
+    public Annotation next() {
+      maxOutstanding = Math.max(maxOutstanding, outstanding.incrementAndGet());
+      return new Annotation(Integer.toString(next++));
+    }
+  }
+
+  private static List<String> run(CountingIterator input, int numThreads, int maxInFlight, boolean ordered) {
+    AnnotationPipeline pipeline = new AnnotationPipeline();
+    pipeline.addAnnotator(new SleepyAnnotator());
+    List<String> output = new ArrayList<>();
+    pipeline.annotateStream(input, numThreads, maxInFlight, ordered, ann -> {
+      input.outstanding.decrementAndGet();
+      output.add(ann.toString());
+    });
+    return output;
+  }
+
+  public void testOrderedStream() {
+    CountingIterator input = new CountingIterator(200);
+    List<String> output = run(input, 4, 8, true);
+    assertEquals(200, output.size());
+    for (int i = 0; i < output.size(); i++) {
+      assertEquals(Integer.toString(i), output.get(i));
+    }
+    assertTrue(input.maxOutstanding <= 8);
+  }
+
+  public void testUnorderedStream() {
+    CountingIterator input = new CountingIterator(200);
+    List<String> output = run(input, 4, 6, false);
+    assertEquals(200, output.size());
+    List<String> sorted = new ArrayList<>(output);
+    sorted.sort((x, y) -> Integer.parseInt(x) - Integer.parseInt(y));
+    for (int i = 0; i < sorted.size(); i++) {
+      assertEquals(Integer.toString(i), sorted.get(i));
+    }
+    assertTrue(input.maxOutstanding <= 6);
+  }
+
+  public void testSingleThread() {
+    CountingIterator input = new CountingIterator(20);
+    List<String> output = run(input, 1, 1, true);
+    assertEquals(20, output.size());
+    assertEquals(1, input.maxOutstanding);
+  }
+
+}
@@ -1,8 +1,14 @@
 package edu.stanford.nlp.pipeline;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import junit.framework.TestCase;
 import junit.framework.Assert;
 
@@ -12,11 +18,13 @@ import junit.framework.Assert;
 public class AnnotatorPoolTest extends TestCase {
   static class SampleAnnotatorFactory extends AnnotatorFactory {
     private static final long serialVersionUID = 1L;
+    final AtomicInteger created = new AtomicInteger();
     public SampleAnnotatorFactory(Properties props) {
       super(props, new AnnotatorImplementations());
     }
     @Override
     public Annotator create() {
+      created.incrementAndGet();
       return new Annotator() {
         @Override
         public void annotate(Annotation annotation) {
@@ -68,4 +76,84 @@ public class AnnotatorPoolTest extends TestCase {
     System.out.println("Third annotator: " + a3);
     Assert.assertTrue(a1 != a3);
   }
+
+  public void testOldSignatureStillShared() throws Exception {
+    Properties props = new Properties();
+    props.setProperty("sample.prop", "v1");
+    AnnotatorPool pool = new AnnotatorPool();
+    pool.register("sample", new SampleAnnotatorFactory(props));
+    Annotator a1 = pool.get("sample");
+
+    // a pipeline with other properties, then one with the first ones again
+    Properties props2 = new Properties();
+    props2.setProperty("sample.prop", "v2");
+    assertTrue(pool.register("sample", new SampleAnnotatorFactory(props2)));
+    Annotator a2 = pool.get("sample");
+    assertNotSame(a1, a2);
+    assertFalse(pool.register("sample", new SampleAnnotatorFactory(props)));
+    assertSame(a1, pool.get("sample"));
+  }
+
+  /** A factory which waits until all of the factories are creating their annotators */
+  static class SlowAnnotatorFactory extends SampleAnnotatorFactory {
+    private static final long serialVersionUID = 1L;
+    private final CountDownLatch latch;
+    volatile boolean sawOthers;
+    public SlowAnnotatorFactory(Properties props, CountDownLatch latch) {
+      super(props);
+      this.latch = latch;
+    }
+    @Override
+    public Annotator create() {
+      latch.countDown();
+      try {
+        sawOthers = latch.await(60, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      return super.create();
+    }
+  }
+
+  public void testParallelLoading() throws Exception {
+    Properties props = new Properties();
+    List<String> names = Arrays.asList("a", "b", "c");
+    CountDownLatch latch = new CountDownLatch(names.size());
+    AnnotatorPool pool = new AnnotatorPool();
+    List<SlowAnnotatorFactory> factories = new ArrayList<>();
+    for (String name : names) {
+      SlowAnnotatorFactory factory = new SlowAnnotatorFactory(props, latch);
+      factories.add(factory);
+      pool.register(name, factory);
+    }
+    pool.preload(names, names.size());
+    for (int i = 0; i < names.size(); i++) {
+      Annotator annotator = pool.get(names.get(i));
+      assertSame(annotator, pool.get(names.get(i)));
+      assertEquals(1, factories.get(i).created.get());
+      // each one was being created while the others were
+      assertTrue(factories.get(i).sawOthers);
+    }
+  }
+
+  public void testCreatedOnce() throws Exception {
+    Properties props = new Properties();
+    AnnotatorPool pool = new AnnotatorPool();
+    SampleAnnotatorFactory factory = new SampleAnnotatorFactory(props);
+    pool.register("sample", factory);
+    List<Thread> threads = new ArrayList<>();
+    Annotator[] annotators = new Annotator[8];
+    for (int i = 0; i < annotators.length; i++) {
+      final int index = i;
+      threads.add(new Thread(() -> annotators[index] = pool.get("sample")));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(1, factory.created.get());
+    for (Annotator annotator : annotators) {
+      assertSame(annotators[0], annotator);
+    }
+  }
 }
@@ -0,0 +1,155 @@
+package edu.stanford.nlp.pipeline;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.*;
+
+import edu.stanford.nlp.dcoref.CorefChain;
+import edu.stanford.nlp.dcoref.CorefCoreAnnotations;
+import edu.stanford.nlp.dcoref.Dictionaries;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.semgraph.SemanticGraph;
+import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.TreeCoreAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.IntPair;
+import edu.stanford.nlp.util.IntTuple;
+import edu.stanford.nlp.util.Pair;
+import edu.stanford.nlp.util.TypesafeMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Round-trips annotated documents through {@link BinaryAnnotationSerializer}.
+ */
+public class BinaryAnnotationSerializerTest extends TestCase {
+
+  private static StanfordCoreNLP pipeline;
+
+  @Override
+  public void setUp() {
+    synchronized (BinaryAnnotationSerializerTest.class) {
+      if (pipeline == null) {
+        Properties props = new Properties();
+        props.setProperty("annotators", "tokenize,ssplit");
+        pipeline = new StanfordCoreNLP(props);
+      }
+    }
+  }
+
+  private static Annotation annotate(String text) {
+    Annotation doc = new Annotation(text);
+    pipeline.annotate(doc);
+    return doc;
+  }
+
+  private static Annotation roundTrip(AnnotationSerializer serializer, Annotation doc) throws IOException, ClassNotFoundException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    serializer.write(doc, bytes).close();
+    Pair<Annotation, InputStream> read = serializer.read(new ByteArrayInputStream(bytes.toByteArray()));
+    read.second.close();
+    return read.first;
+  }
+
+  private static void assertSameMap(CoreMap expected, CoreMap actual) {
+    assertEquals(expected.keySet(), actual.keySet());
+    for (Class<?> keyClass : expected.keySet()) {
+      // keySet() doesn't carry the value types, so compare them as Objects
+      @SuppressWarnings("unchecked")
+      Class<? extends TypesafeMap.Key<Object>> key = (Class<? extends TypesafeMap.Key<Object>>) keyClass;
+      Object value = expected.get(key);
+      if (value instanceof CoreMap || value instanceof List) {
+        continue;  // checked separately
+      }
+      assertEquals(key.getSimpleName(), value, actual.get(key));
+    }
+  }
+
+  public void testTokensAndSentences() throws Exception {
+    Annotation doc = annotate("The quick brown fox jumped over the lazy dog. It then ran away!");
+    Annotation copy = roundTrip(new BinaryAnnotationSerializer(), doc);
+
+    assertSameMap(doc, copy);
+    List<CoreLabel> tokens = doc.get(CoreAnnotations.TokensAnnotation.class);
+    List<CoreLabel> copyTokens = copy.get(CoreAnnotations.TokensAnnotation.class);
+    assertEquals(tokens.size(), copyTokens.size());
+    for (int i = 0; i < tokens.size(); ++i) {
+      assertSameMap(tokens.get(i), copyTokens.get(i));
+    }
+
+    List<CoreMap> sentences = doc.get(CoreAnnotations.SentencesAnnotation.class);
+    List<CoreMap> copySentences = copy.get(CoreAnnotations.SentencesAnnotation.class);
+    assertEquals(2, copySentences.size());
+    for (int i = 0; i < sentences.size(); ++i) {
+      assertSameMap(sentences.get(i), copySentences.get(i));
+      // sentence tokens are the very same objects as the document tokens
+      int begin = copySentences.get(i).get(CoreAnnotations.TokenBeginAnnotation.class);
+      List<CoreLabel> sentenceTokens = copySentences.get(i).get(CoreAnnotations.TokensAnnotation.class);
+      for (int j = 0; j < sentenceTokens.size(); ++j) {
+        assertSame(copyTokens.get(begin + j), sentenceTokens.get(j));
+      }
+    }
+  }
+
+  public void testTreeGraphAndCoref() throws Exception {
+    Annotation doc = annotate("Bill ate blueberry muffins");
+    CoreMap sentence = doc.get(CoreAnnotations.SentencesAnnotation.class).get(0);
+    Tree tree = Tree.valueOf("(ROOT (S (NP (NNP Bill)) (VP (VBD ate) (NP (NN blueberry) (NNS muffins)))))");
+    sentence.set(TreeCoreAnnotations.TreeAnnotation.class, tree);
+    SemanticGraph graph = SemanticGraph.valueOf("[ate nsubj>Bill dobj>[muffins nn>blueberry]]");
+    sentence.set(SemanticGraphCoreAnnotations.BasicDependenciesAnnotation.class, graph);
+
+    Map<IntPair, Set<CorefChain.CorefMention>> mentionMap = new HashMap<>();
+    CorefChain.CorefMention mention = new CorefChain.CorefMention(Dictionaries.MentionType.PROPER,
+        Dictionaries.Number.SINGULAR, Dictionaries.Gender.MALE, Dictionaries.Animacy.ANIMATE,
+        1, 2, 1, 7, 3, 1, new IntTuple(new int[] {1, 1}), "Bill");
+    mentionMap.put(new IntPair(1, 1), Collections.singleton(mention));
+    Map<Integer, CorefChain> chains = new HashMap<>();
+    chains.put(7, new CorefChain(7, mentionMap, mention));
+    doc.set(CorefCoreAnnotations.CorefChainAnnotation.class, chains);
+
+    Annotation copy = roundTrip(new BinaryAnnotationSerializer(true, true), doc);
+    CoreMap copySentence = copy.get(CoreAnnotations.SentencesAnnotation.class).get(0);
+    assertEquals(tree, copySentence.get(TreeCoreAnnotations.TreeAnnotation.class));
+    SemanticGraph copyGraph = copySentence.get(SemanticGraphCoreAnnotations.BasicDependenciesAnnotation.class);
+    assertEquals(graph.toCompactString(), copyGraph.toCompactString());
+    assertEquals(graph.getFirstRoot().word(), copyGraph.getFirstRoot().word());
+    assertEquals(chains, copy.get(CorefCoreAnnotations.CorefChainAnnotation.class));
+    assertEquals(mention, copy.get(CorefCoreAnnotations.CorefChainAnnotation.class).get(7).getRepresentativeMention());
+  }
+
+  public void testMultipleDocuments() throws Exception {
+    BinaryAnnotationSerializer serializer = new BinaryAnnotationSerializer();
+    String[] texts = { "One document.", "Another document, with more words.", "" };
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    OutputStream os = bytes;
+    for (String text : texts) {
+      os = serializer.write(annotate(text), os);
+    }
+    os.close();
+
+    InputStream is = new ByteArrayInputStream(bytes.toByteArray());
+    for (String text : texts) {
+      Pair<Annotation, InputStream> read = serializer.read(is);
+      assertEquals(text, read.first.get(CoreAnnotations.TextAnnotation.class));
+      is = read.second;
+    }
+    assertNull(serializer.read(is));
+  }
+
+  public void testSmallerThanJavaSerialization() throws Exception {
+    Annotation doc = annotate("It was the best of times, it was the worst of times, it was the age of wisdom, " +
+        "it was the age of foolishness, it was the epoch of belief, it was the epoch of incredulity.");
+    ByteArrayOutputStream binary = new ByteArrayOutputStream();
+    new BinaryAnnotationSerializer().write(doc, binary).close();
+    ByteArrayOutputStream java = new ByteArrayOutputStream();
+    new GenericAnnotationSerializer().write(doc, java).close();
+    assertTrue(binary.size() < java.size());
+  }
+
+}
@@ -1,5 +1,11 @@
 package edu.stanford.nlp.process;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import junit.framework.TestCase;
 
 import edu.stanford.nlp.ling.*;
@@ -79,4 +85,62 @@ public class MorphologyTest extends TestCase {
     Morphology morpha = new Morphology();
     morpha.stem("b-");
   }
+
+  public void testLemmaCache() {
+    LemmaCache cache = getLemmaCache();
+    assertNotNull(cache);
+    cache.clear();
+    assertEquals("run", lemmaStatic("running", "VBG", true));
+    assertEquals("run", lemmaStatic("running", "VBG", true));
+    assertEquals("Dogs", lemmaStatic("Dogs", "NNPS", false));
+    assertEquals("Dogs", lemmaStatic("Dogs", "NNPS", true));
+    assertEquals("dog", lemmaStatic("Dogs", "NNS", true));
+    assertEquals(1, cache.hits());
+    assertEquals(4, cache.misses());
+    assertEquals(4, cache.size());
+    // words which have to be quoted for the lexer
+    Morphology morpha = new Morphology();
+    assertEquals(morpha.lemma("took_off", "VBD"), lemmaStatic("took_off", "VBD", true));
+    assertEquals(morpha.lemma("New York", "NNP"), lemmaStatic("New York", "NNP", true));
+  }
+
+  public void testLemmaCacheSize() {
+    try {
+      setLemmaCacheSize(0);
+      assertNull(getLemmaCache());
+      assertEquals("buy", lemmaStatic("bought", "VBD", true));
+      setLemmaCacheSize(100);
+      for (int i = 0; i < 1000; i++) {
+        lemmaStatic("word" + i, "NN", true);
+      }
+      assertTrue(getLemmaCache().size() <= 100);
+    } finally {
+      setLemmaCacheSize(DEFAULT_LEMMA_CACHE_SIZE);
+    }
+  }
+
+  public void testConcurrentLemmas() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        results.add(executor.submit(() -> {
+          for (int rep = 0; rep < 200; rep++) {
+            for (int i = 0; i < exWords.length; i++) {
+              if ( ! exAnswers[i].equals(lemmaStatic(exWords[i], exTags[i], true))) {
+                return false;
+              }
+            }
+          }
+          return true;
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
 }
@@ -2,7 +2,11 @@ package edu.stanford.nlp.process;
 
 import java.io.StringReader;
 import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
 
 import static org.junit.Assert.*;
 import org.junit.Test;
@@ -350,4 +354,103 @@ public class PTBTokenizerTest {
     }
   }
 
+  private static void checkSpansMatchInvertible(String options, String... texts) {
+    PTBTokenizer.SpanTokenizer spanTokenizer = new PTBTokenizer.SpanTokenizer(options);
+    for (String text : texts) {
+      List<CoreLabel> gold = new PTBTokenizer<>(new StringReader(text), new CoreLabelTokenFactory(),
+          options.isEmpty() ? "invertible" : options + ",invertible").tokenize();
+      // the same SpanTokenizer and TokenSpans are reused for every text
+      TokenSpans spans = spanTokenizer.tokenize(text);
+      assertEquals("Number of tokens in " + text, gold.size(), spans.size());
+      for (int i = 0; i < gold.size(); i++) {
+        CoreLabel expected = gold.get(i);
+        CoreLabel token = spans.coreLabel(i);
+        String where = "Token " + i + " of " + text;
+        assertEquals(where, expected.word(), token.word());
+        assertEquals(where, expected.value(), token.value());
+        assertEquals(where, expected.originalText(), token.originalText());
+        assertEquals(where, expected.beginPosition(), token.beginPosition());
+        assertEquals(where, expected.endPosition(), token.endPosition());
+        assertEquals(where, expected.before(), token.before());
+        assertEquals(where, expected.after(), token.after());
+        assertEquals(where, ! expected.word().equals(expected.originalText()), spans.isNormalized(i));
+      }
+    }
+  }
+
+  @Test
+  public void testSpanTokenizer() {
+    for (String options : new String[] { "", "strictTreebank3", "tokenizeNLs", "ptb3Escaping=false", "americanize" }) {
+      checkSpansMatchInvertible(options, ptbInputs);
+      checkSpansMatchInvertible(options, corpInputs);
+      checkSpansMatchInvertible(options, sgmlInputs);
+      checkSpansMatchInvertible(options, mtInputs);
+      checkSpansMatchInvertible(options, "  This     is     a      colourful sentence.    ", "", "   ",
+          "Bad \u0001 char \u0002 twice\r\n and a\u00A0nbsp");
+    }
+  }
+
+  @Test
+  public void testTokenSpans() {
+    String text = "  He said (loudly) \"hi\".\n";
+    TokenSpans spans = new PTBTokenizer.SpanTokenizer().tokenize(text);
+    assertEquals(Arrays.asList("He", "said", "-LRB-", "loudly", "-RRB-", "``", "hi", "''", "."), spans.words());
+    assertEquals("He said -LRB- loudly -RRB- `` hi '' .", spans.toString());
+    assertFalse(spans.isNormalized(1));
+    assertTrue(spans.isNormalized(2));
+    assertEquals(10, spans.begin(2));
+    assertEquals(11, spans.end(2));
+    assertEquals("(", spans.originalText(2));
+    assertEquals("  ", spans.before(0));
+    assertEquals("\n", spans.after(8));
+    assertSame(text, spans.text());
+
+    StringBuilder result = new StringBuilder(spans.before(0));
+    for (CoreLabel token : spans.toCoreLabels()) {
+      result.append(token.originalText()).append(token.after());
+    }
+    assertEquals(text, result.toString());
+
+    spans.reset("x");
+    assertEquals(0, spans.size());
+    try {
+      spans.word(0);
+      fail("Expected IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testSpanTokenizerWarnsForEachText() {
+    List<String> warnings = new ArrayList<>();
+    Handler handler = new Handler() {
+      @Override
+      public void publish(LogRecord record) {
+        warnings.add(record.getMessage());
+      }
+
+      @Override
+      public void flush() { }
+
+      @Override
+      public void close() { }
+    };
+    Logger logger = Logger.getLogger(PTBLexer.class.getName());
+    boolean useParentHandlers = logger.getUseParentHandlers();
+    logger.addHandler(handler);
+    logger.setUseParentHandlers(false);
+    try {
+      PTBTokenizer.SpanTokenizer spanTokenizer = new PTBTokenizer.SpanTokenizer("untokenizable=firstDelete");
+      spanTokenizer.tokenize("Bad \u0001 char \u0002 twice");
+      assertEquals(1, warnings.size());
+      // a reused tokenizer reports the first untokenizable character of the next text too
+      spanTokenizer.tokenize("Bad \u0003 again");
+      assertEquals(2, warnings.size());
+    } finally {
+      logger.removeHandler(handler);
+      logger.setUseParentHandlers(useParentHandlers);
+    }
+  }
+
 }
@@ -0,0 +1,125 @@
+package edu.stanford.nlp.semgraph.semgrex;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.stanford.nlp.semgraph.SemanticGraph;
+
+public class SemgrexPatternSetTest extends TestCase {
+
+  private static final String[] PATTERNS = {
+    "{word:Bill}",
+    "{word:/[Bb]ill/}",
+    "!{word:ate}",
+    "{idx:2}",
+    "{$}",
+    "{} >> {}",
+    "{} << {word:A}",
+    "{} 1,2<< {word:A}",
+    "{}=a >> {}=b",
+    "{word:ate}=a >subj {}=b : {}=b !> {}",
+    "{word:ate} >/subj|dobj/=r {}=x",
+    "{} [> {word:Bill} | > {word:muffins}]",
+    "{} ?>det {}=d",
+    "{} >dobj ({} >compound {})",
+    "[{word:Bill} | {word:ate}]",
+    "!{word:ate} >> {word:Bill}",
+    "{}=a >> {}=a",
+    "{word:E} < {}=gov",
+  };
+
+  private static List<SemanticGraph> graphs() {
+    List<SemanticGraph> graphs = new ArrayList<>();
+    graphs.add(SemgrexTest.makeComplicatedGraph());
+    graphs.add(SemanticGraph.valueOf("[ate subj>Bill dobj>[muffins compound>blueberry]]"));
+    graphs.add(SemanticGraph.valueOf("[ate subj>Bill dobj>[bill det>the]]"));
+    graphs.add(new SemanticGraph());
+    return graphs;
+  }
+
+  /** The matches a SemgrexMatcher finds, in the same form as {@link #setMatch} */
+  private static List<String> findAll(SemgrexPattern pattern, SemanticGraph graph) {
+    List<String> matches = new ArrayList<>();
+    if (graph.isEmpty()) {
+      return matches;
+    }
+    SemgrexMatcher matcher = pattern.matcher(graph);
+    while (matcher.find()) {
+      StringBuilder match = new StringBuilder();
+      match.append(matcher.getMatch());
+      for (String name : matcher.getNodeNames()) {
+        match.append(' ').append(name).append('=').append(matcher.getNode(name));
+      }
+      for (String name : matcher.getRelationNames()) {
+        match.append(' ').append(name).append('=').append(matcher.getRelnString(name));
+      }
+      matches.add(match.toString());
+    }
+    return matches;
+  }
+
+  private static String setMatch(SemgrexPatternSet.Match match) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(match.getMatch());
+    for (String name : match.getNodeNames()) {
+      sb.append(' ').append(name).append('=').append(match.getNode(name));
+    }
+    for (String name : match.getRelationNames()) {
+      sb.append(' ').append(name).append('=').append(match.getRelnString(name));
+    }
+    return sb.toString();
+  }
+
+  public void testSameMatches() {
+    List<SemgrexPattern> patterns = new ArrayList<>();
+    for (String p : PATTERNS) {
+      patterns.add(SemgrexPattern.compile(p));
+    }
+    SemgrexPatternSet set = new SemgrexPatternSet(patterns);
+    assertEquals(PATTERNS.length, set.size());
+    for (SemanticGraph graph : graphs()) {
+      List<List<SemgrexPatternSet.Match>> matches = set.matches(graph);
+      assertEquals(PATTERNS.length, matches.size());
+      for (int i = 0; i < PATTERNS.length; i++) {
+        List<String> setMatches = new ArrayList<>();
+        for (SemgrexPatternSet.Match match : matches.get(i)) {
+          setMatches.add(setMatch(match));
+        }
+        assertEquals(PATTERNS[i] + " on " + graph, findAll(patterns.get(i), graph), setMatches);
+      }
+    }
+  }
+
+  public void testSharedNodeAttrs() {
+    // {word:Bill} is the same whether written as a word or a regex
+    // without special characters, and {} is shared by all the patterns
+    List<SemgrexPattern> patterns = new ArrayList<>();
+    patterns.add(SemgrexPattern.compile("{word:Bill} > {}"));
+    patterns.add(SemgrexPattern.compile("{} > {word:/Bill/}"));
+    patterns.add(SemgrexPattern.compile("{word:/B.*/;tag:NNP}"));
+    patterns.add(SemgrexPattern.compile("{tag:NNP;word:/B.*/} < {}"));
+    patterns.add(SemgrexPattern.compile("!{word:Bill}"));
+    SemgrexPatternSet set = new SemgrexPatternSet(patterns);
+    assertEquals(4, set.numNodeAttrs());
+  }
+
+  public void testBatchParser() throws Exception {
+    String batch = "# patterns\n" +
+                   "macro NOUN = muffins|Bill\n" +
+                   "{word:ate} > {word:/${NOUN}/}=n\n" +
+                   "{word:/${NOUN}/}=n > {}=m\n";
+    List<SemgrexPattern> patterns = new SemgrexBatchParser().compileStream(new ByteArrayInputStream(batch.getBytes(StandardCharsets.UTF_8)));
+    SemgrexPatternSet set = new SemgrexPatternSet(patterns);
+    List<List<SemgrexPatternSet.Match>> matches = set.matches(SemanticGraph.valueOf("[ate subj>Bill dobj>[muffins compound>blueberry]]"));
+    assertEquals(2, matches.get(0).size());
+    assertEquals("Bill", matches.get(0).get(0).getNode("n").word());
+    assertEquals("muffins", matches.get(0).get(1).getNode("n").word());
+    assertEquals(1, matches.get(1).size());
+    assertEquals("blueberry", matches.get(1).get(0).getNode("m").word());
+  }
+
+}
@@ -0,0 +1,105 @@
+package edu.stanford.nlp.sentiment;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ejml.simple.SimpleMatrix;
+
+import edu.stanford.nlp.neural.rnn.RNNCoreAnnotations;
+import edu.stanford.nlp.trees.Tree;
+
+public class SentimentBatchScorerTest extends TestCase {
+
+  private static final String[] TREES = {
+    "(3 (2 Yet) (3 (2 (2 the) (2 movie)) (3 (3 (2 is) (3 (3 very) (3 good))) (2 .))))",
+    "(1 (2 (2 The) (2 plot)) (1 (1 (2 was) (1 (1 awful) (2 (2 and) (1 dull)))) (2 .)))",
+    "(2 (2 Movie) (2 night))",
+    "(2 (2 It) (2 (2 was) (2 (2 (2 a) (2 (2 zebra) (2 film))) (2 .))))",
+    "(3 good)",
+  };
+
+  private static List<Tree> trees() {
+    List<Tree> trees = new ArrayList<>();
+    for (String tree : TREES) {
+      trees.add(Tree.valueOf(tree));
+    }
+    return trees;
+  }
+
+  private static SentimentModel model(boolean useTensors) {
+    RNNOptions op = new RNNOptions();
+    op.randomSeed = 1234;
+    op.numHid = 10;
+    op.useTensors = useTensors;
+    // "zebra" is left out, so it is scored as an unknown word
+    List<Tree> trainingTrees = trees();
+    trainingTrees.remove(3);
+    return new SentimentModel(op, trainingTrees);
+  }
+
+  private static void assertSameAnnotations(Tree expected, Tree tree) {
+    assertEquals(RNNCoreAnnotations.getPredictedClass(expected), RNNCoreAnnotations.getPredictedClass(tree));
+    SimpleMatrix expectedVector = RNNCoreAnnotations.getNodeVector(expected);
+    SimpleMatrix vector = RNNCoreAnnotations.getNodeVector(tree);
+    SimpleMatrix expectedPredictions = RNNCoreAnnotations.getPredictions(expected);
+    SimpleMatrix predictions = RNNCoreAnnotations.getPredictions(tree);
+    assertEquals(expectedVector.numRows(), vector.numRows());
+    assertEquals(expectedPredictions.numRows(), predictions.numRows());
+    for (int i = 0; i < expectedVector.getNumElements(); i++) {
+      assertEquals(expectedVector.get(i), vector.get(i), 0.0);
+    }
+    for (int i = 0; i < expectedPredictions.getNumElements(); i++) {
+      assertEquals(expectedPredictions.get(i), predictions.get(i), 0.0);
+    }
+    for (int i = 0; i < expected.children().length && ! expected.isPreTerminal(); i++) {
+      assertSameAnnotations(expected.children()[i], tree.children()[i]);
+    }
+  }
+
+  private static void checkModel(SentimentModel model) {
+    SentimentCostAndGradient costAndGradient = new SentimentCostAndGradient(model, null);
+    List<Tree> expected = trees();
+    for (Tree tree : expected) {
+      costAndGradient.forwardPropagateTree(tree);
+    }
+
+    SentimentBatchScorer scorer = new SentimentBatchScorer(model);
+    // the scorer can be used again, with more or fewer trees than before
+    for (int batch = 0; batch < 3; batch++) {
+      List<Tree> trees = trees();
+      if (batch == 1) {
+        trees.addAll(trees());
+      } else if (batch == 2) {
+        trees = trees.subList(0, 1);
+      }
+      scorer.forwardPropagateTrees(trees);
+      for (int i = 0; i < trees.size(); i++) {
+        assertSameAnnotations(expected.get(i % expected.size()), trees.get(i));
+      }
+    }
+  }
+
+  public void testSameAsForwardPropagate() {
+    checkModel(model(true));
+  }
+
+  public void testSameAsForwardPropagateWithoutTensors() {
+    checkModel(model(false));
+  }
+
+  public void testUnbinarizedTree() {
+    SentimentBatchScorer scorer = new SentimentBatchScorer(model(true));
+    List<Tree> trees = new ArrayList<>();
+    trees.add(Tree.valueOf("(2 (2 a) (2 b) (2 c))"));
+    String message = null;
+    try {
+      scorer.forwardPropagateTrees(trees);
+    } catch (AssertionError e) {
+      message = e.getMessage();
+    }
+    assertEquals("Tree not correctly binarized", message);
+  }
+
+}
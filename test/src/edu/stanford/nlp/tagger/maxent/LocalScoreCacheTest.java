@@ -0,0 +1,88 @@
+package edu.stanford.nlp.tagger.maxent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+public class LocalScoreCacheTest extends TestCase {
+
+  public void testGetAndPut() {
+    LocalScoreCache cache = new LocalScoreCache(100);
+    assertNull(cache.get("the"));
+    double[] scores = { 1.0, 2.0 };
+    cache.put("the", scores);
+    assertSame(scores, cache.get("the"));
+    assertSame(scores, cache.get("the"));
+    assertEquals(1, cache.size());
+    assertEquals(2, cache.hits());
+    assertEquals(1, cache.misses());
+    assertEquals(2.0 / 3.0, cache.hitRate(), 1e-9);
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertEquals(0.0, cache.hitRate());
+    assertNull(cache.get("the"));
+  }
+
+  public void testEvictsLeastRecentlyUsed() {
+    // small enough to be a single segment
+    LocalScoreCache cache = new LocalScoreCache(3);
+    cache.put("a", new double[1]);
+    cache.put("b", new double[1]);
+    cache.put("c", new double[1]);
+    assertNotNull(cache.get("a"));
+    cache.put("d", new double[1]);
+    assertEquals(3, cache.size());
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("a"));
+    assertNotNull(cache.get("c"));
+    assertNotNull(cache.get("d"));
+  }
+
+  public void testBounded() {
+    LocalScoreCache cache = new LocalScoreCache(1000);
+    for (int i = 0; i < 10000; i++) {
+      cache.put("w" + i, new double[] { i });
+    }
+    assertTrue(cache.size() <= 1000);
+    assertTrue(cache.size() > 500);
+  }
+
+  public void testConcurrentUse() throws Exception {
+    final LocalScoreCache cache = new LocalScoreCache(500);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        results.add(executor.submit(new Callable<Boolean>() {
+          @Override
+          public Boolean call() {
+            for (int i = 0; i < 20000; i++) {
+              String word = "w" + (i % 700);
+              double[] scores = cache.get(word);
+              if (scores == null) {
+                cache.put(word, new double[] { i % 700 });
+              } else if (scores[0] != i % 700) {
+                return false;
+              }
+            }
+            return true;
+          }
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(80000, cache.hits() + cache.misses());
+    assertTrue(cache.size() <= 500);
+  }
+
+}
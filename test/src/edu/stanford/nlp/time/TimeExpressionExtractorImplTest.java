@@ -0,0 +1,86 @@
+package edu.stanford.nlp.time;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Properties;
+
+import edu.stanford.nlp.io.IOUtils;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.process.CoreLabelTokenFactory;
+import edu.stanford.nlp.process.PTBTokenizer;
+import edu.stanford.nlp.util.CoreMap;
+
+public class TimeExpressionExtractorImplTest extends TestCase {
+
+  private static final String RULES =
+      "IsoDate = { type: \"CLASS\", value: \"edu.stanford.nlp.time.SUTime$IsoDate\" }\n" +
+      "ENV.defaults[\"stage\"] = 1\n" +
+      "ENV.defaults[\"ruleType\"] = \"tokens\"\n" +
+      "{ (/halloween/ ) => IsoDate(NIL, 10, 31) }\n" +
+      "{ (/x-?mas|christmas/ /day/? ) => IsoDate(NIL, 12, 25) }\n";
+
+  private static Properties props(File rules) {
+    Properties props = new Properties();
+    props.setProperty("sutime.rules", rules.getPath());
+    props.setProperty("sutime.binders", "0");
+    return props;
+  }
+
+  private static File writeRules(String rules) throws Exception {
+    File file = File.createTempFile("sutime", ".rules.txt");
+    file.deleteOnExit();
+    IOUtils.writeStringToFile(rules, file.getPath(), "utf-8");
+    return file;
+  }
+
+  public void testSharedRules() throws Exception {
+    File rules = writeRules(RULES);
+    TimeExpressionExtractorImpl extractor = new TimeExpressionExtractorImpl("sutime", props(rules));
+    TimeExpressionExtractorImpl same = new TimeExpressionExtractorImpl("sutime", props(rules));
+    assertSame(extractor.expressionExtractor, same.expressionExtractor);
+
+    // the rules can see the options, so different options need other rules
+    Properties markTimeRanges = props(rules);
+    markTimeRanges.setProperty("sutime.markTimeRanges", "true");
+    TimeExpressionExtractorImpl other = new TimeExpressionExtractorImpl("sutime", markTimeRanges);
+    assertNotSame(extractor.expressionExtractor, other.expressionExtractor);
+
+    // rules which have changed are read again
+    IOUtils.writeStringToFile(RULES + "{ (/groundhog/ /day/ ) => IsoDate(NIL, 2, 2) }\n", rules.getPath(), "utf-8");
+    TimeExpressionExtractorImpl changed = new TimeExpressionExtractorImpl("sutime", props(rules));
+    assertNotSame(extractor.expressionExtractor, changed.expressionExtractor);
+  }
+
+  public void testCompiledRulesBounded() throws Exception {
+    File rules = writeRules(RULES);
+    TimeExpressionExtractorImpl extractor = new TimeExpressionExtractorImpl("sutime", props(rules));
+    // only the rule sets used most recently are kept
+    for (int i = 0; i < TimeExpressionExtractorImpl.MAX_COMPILED_RULES; i++) {
+      new TimeExpressionExtractorImpl("sutime", props(writeRules(RULES + "# rule set " + i + '\n')));
+    }
+    TimeExpressionExtractorImpl again = new TimeExpressionExtractorImpl("sutime", props(rules));
+    assertNotSame(extractor.expressionExtractor, again.expressionExtractor);
+    assertSame(again.expressionExtractor, new TimeExpressionExtractorImpl("sutime", props(rules)).expressionExtractor);
+  }
+
+  public void testSharedRulesExtract() throws Exception {
+    File rules = writeRules(RULES);
+    TimeExpressionExtractorImpl first = new TimeExpressionExtractorImpl("sutime", props(rules));
+    TimeExpressionExtractorImpl second = new TimeExpressionExtractorImpl("sutime", props(rules));
+    for (TimeExpressionExtractorImpl extractor : new TimeExpressionExtractorImpl[] { first, second }) {
+      String text = "We met on Christmas day.";
+      Annotation annotation = new Annotation(text);
+      annotation.set(CoreAnnotations.TokensAnnotation.class,
+          PTBTokenizer.factory(new CoreLabelTokenFactory(), "").getTokenizer(new StringReader(text)).tokenize());
+      List<CoreMap> timexes = extractor.extractTimeExpressionCoreMaps(annotation, "2016-12-01");
+      assertEquals(1, timexes.size());
+      assertEquals("Christmas day", timexes.get(0).get(CoreAnnotations.TextAnnotation.class));
+      assertEquals("2016-12-25", timexes.get(0).get(TimeAnnotations.TimexAnnotation.class).value());
+    }
+  }
+
+}
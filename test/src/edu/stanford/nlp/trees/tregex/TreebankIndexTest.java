@@ -0,0 +1,132 @@
+package edu.stanford.nlp.trees.tregex;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import edu.stanford.nlp.trees.Tree;
+
+public class TreebankIndexTest extends TestCase {
+
+  private static final String[] TREES = {
+    "(ROOT (S (NP (DT The) (NN cat)) (VP (VBD sat) (PP (IN on) (NP (DT the) (NN mat))))))",
+    "(ROOT (S (NP (NNS Dogs)) (VP (VBP bark))))",
+    "(ROOT (NP (NP (DT a) (NN dog)) (PP (IN with) (NP (NNS fleas)))))",
+    "(ROOT (S (NP (PRP It)) (VP (VBZ is) (ADJP (JJ red)))))",
+    "(ROOT (FRAG (NN cat)))",
+  };
+
+  private static List<Tree> trees() {
+    List<Tree> trees = new ArrayList<>();
+    for (String s : TREES) {
+      trees.add(TregexTest.treeFromString(s));
+    }
+    return trees;
+  }
+
+  private static final String[] PATTERNS = {
+    "NP < NN",
+    "NN > NP",
+    "NP <<, DT",
+    "NP=np < (PP < (NP < NNS=n))",
+    "/^NN/",
+    "@NP",
+    "VP !< PP",
+    "VP ?< PP=pp",
+    "S < NP | FRAG < NN",
+    "VP < VBD|VBZ",
+    "VP < VBD | < VBZ",
+    "__ < cat",
+    "NP < (NN < /^c/)",
+    "/^(?:NP|PP)$/ < NP",
+    "NP < NN=a : NP < NN=b",
+    "NP < (DT=d $++ ~d)",
+  };
+
+  /** The matches of the pattern, as tree number, node number and named nodes */
+  private static List<String> matches(TregexPattern pattern, List<Tree> trees, TreebankIndex.Query query) {
+    List<String> matches = new ArrayList<>();
+    for (int i = 0; i < trees.size(); i++) {
+      Tree tree = trees.get(i);
+      TregexMatcher matcher = (query == null) ? pattern.matcher(tree) : query.matcher(i, tree);
+      while (matcher.find()) {
+        StringBuilder match = new StringBuilder();
+        match.append(i).append(':').append(matcher.getMatch().nodeNumber(tree));
+        for (String name : matcher.getNodeNames()) {
+          match.append(' ').append(name).append('=').append(matcher.getNode(name).nodeNumber(tree));
+        }
+        matches.add(match.toString());
+      }
+    }
+    return matches;
+  }
+
+  public void testSameMatches() {
+    List<Tree> trees = trees();
+    TreebankIndex index = new TreebankIndex(trees);
+    assertEquals(trees.size(), index.size());
+    for (String p : PATTERNS) {
+      TregexPattern pattern = TregexPattern.compile(p);
+      assertEquals(p, matches(pattern, trees, null), matches(pattern, trees, index.query(pattern)));
+    }
+  }
+
+  public void testCandidateTrees() {
+    TreebankIndex index = new TreebankIndex(trees());
+    // the NP and the NN of the last tree aren't a parent and child
+    assertTrue(Arrays.equals(new int[] { 0, 2 }, index.query(TregexPattern.compile("NP < NN")).getCandidateTrees()));
+    assertTrue(Arrays.equals(new int[] { 1, 2 }, index.query(TregexPattern.compile("NNS")).getCandidateTrees()));
+    assertTrue(Arrays.equals(new int[] { 0, 1, 3 }, index.query(TregexPattern.compile("S < NP")).getCandidateTrees()));
+    assertTrue(Arrays.equals(new int[] { 0, 3 }, index.query(TregexPattern.compile("VP < VBD | < VBZ")).getCandidateTrees()));
+    assertEquals(0, index.query(TregexPattern.compile("NP < XYZ")).numCandidateTrees());
+    // nothing is required of a negated or optional child
+    assertEquals(3, index.query(TregexPattern.compile("VP !< PP")).numCandidateTrees());
+    assertEquals(3, index.query(TregexPattern.compile("VP ?< PP")).numCandidateTrees());
+    assertEquals(5, index.query(TregexPattern.compile("!NP")).numCandidateTrees());
+  }
+
+  public void testCandidateRoots() {
+    List<Tree> trees = trees();
+    TreebankIndex index = new TreebankIndex(trees);
+    Tree tree = trees.get(2);
+    List<Tree> roots = index.query(TregexPattern.compile("NP < DT")).candidateRoots(2, tree);
+    assertEquals(3, roots.size());
+    for (Tree root : roots) {
+      assertEquals("NP", root.value());
+    }
+    assertEquals(Arrays.asList(tree.getChild(0), tree.getChild(0).getChild(0), tree.getChild(0).getChild(1).getChild(1)), roots);
+    assertEquals(tree.size(), index.query(TregexPattern.compile("__ < DT")).candidateRoots(2, tree).size());
+    assertTrue(index.query(TregexPattern.compile("VP")).candidateRoots(2, tree).isEmpty());
+
+    try {
+      index.query(TregexPattern.compile("NP")).candidateRoots(2, trees.get(0));
+      fail("Expected IllegalArgumentException for a tree which isn't the one indexed");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  public void testSaveAndLoad() throws Exception {
+    List<Tree> trees = trees();
+    TreebankIndex index = new TreebankIndex(trees);
+    File file = File.createTempFile("treebankIndex", ".ser.gz");
+    file.deleteOnExit();
+    index.save(file.getPath());
+    TreebankIndex loaded = TreebankIndex.load(file.getPath());
+    assertEquals(index.toString(), loaded.toString());
+    for (int i = 0; i < trees.size(); i++) {
+      assertEquals(trees.get(i).size(), loaded.treeSize(i));
+    }
+    for (String p : PATTERNS) {
+      TregexPattern pattern = TregexPattern.compile(p);
+      assertTrue(p, Arrays.equals(index.query(pattern).getCandidateTrees(), loaded.query(pattern).getCandidateTrees()));
+    }
+    // an index can still be added to after saving it
+    assertEquals(trees.size(), loaded.add(TregexTest.treeFromString("(ROOT (NP (NN cat)))")));
+    assertTrue(loaded.query(TregexPattern.compile("NP < NN")).isCandidate(trees.size()));
+  }
+
+}
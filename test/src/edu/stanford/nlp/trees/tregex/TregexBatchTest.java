@@ -0,0 +1,123 @@
+package edu.stanford.nlp.trees.tregex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import edu.stanford.nlp.trees.Tree;
+
+public class TregexBatchTest extends TestCase {
+
+  private static final String[] TREES = {
+    "(ROOT (S (NP (DT The) (NN cat)) (VP (VBD sat) (PP (IN on) (NP (DT the) (NN mat))))))",
+    "(ROOT (S (NP (NNS Dogs)) (VP (VBP bark))))",
+    "(ROOT (NP (NP (DT a) (NN dog)) (PP (IN with) (NP (NNS fleas)))))",
+    "(ROOT (FRAG (NN cat)))",
+  };
+
+  private static final String[] PATTERNS = {
+    "NP < NN=n",
+    "/^NN/",
+    "VP !< PP",
+    "NP=a < (PP < NP=b)",
+  };
+
+  private static List<Tree> trees(int n) {
+    List<Tree> trees = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      trees.add(TregexTest.treeFromString(TREES[i % TREES.length]));
+    }
+    return trees;
+  }
+
+  private static List<TregexPattern> patterns() {
+    List<TregexPattern> patterns = new ArrayList<>();
+    for (String p : PATTERNS) {
+      patterns.add(TregexPattern.compile(p));
+    }
+    return patterns;
+  }
+
+  /** The matches one at a time, as tree number, node number and named nodes */
+  private static List<String> serialMatches(List<TregexPattern> patterns, List<Tree> trees) {
+    List<String> matches = new ArrayList<>();
+    for (int i = 0; i < trees.size(); i++) {
+      Tree tree = trees.get(i);
+      for (int p = 0; p < patterns.size(); p++) {
+        TregexMatcher matcher = patterns.get(p).matcher(tree);
+        while (matcher.find()) {
+          StringBuilder match = new StringBuilder();
+          match.append(i).append(' ').append(p).append(':').append(matcher.getMatch().nodeNumber(tree));
+          for (String name : matcher.getNodeNames()) {
+            match.append(' ').append(name).append('=').append(matcher.getNode(name).nodeNumber(tree));
+          }
+          matches.add(match.toString());
+        }
+      }
+    }
+    return matches;
+  }
+
+  public void testSameMatches() {
+    List<TregexPattern> patterns = patterns();
+    List<Tree> trees = trees(1000);
+    List<String> expected = serialMatches(patterns, trees);
+    for (int numThreads : new int[] { 1, 4 }) {
+      List<String> matches = new ArrayList<>();
+      new TregexBatch(patterns, numThreads).run(trees, treeMatches -> {
+        int i = treeMatches.getTreeNumber();
+        Tree tree = treeMatches.getTree();
+        assertSame(trees.get(i), tree);
+        for (int p = 0; p < patterns.size(); p++) {
+          for (TregexBatch.Match match : treeMatches.getMatches(p)) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(i).append(' ').append(p).append(':').append(match.getMatch().nodeNumber(tree));
+            for (String name : match.getNodeNames()) {
+              sb.append(' ').append(name).append('=').append(match.getNode(name).nodeNumber(tree));
+            }
+            matches.add(sb.toString());
+          }
+        }
+      });
+      assertEquals(expected, matches);
+    }
+  }
+
+  public void testCountMatches() {
+    List<Tree> trees = trees(101);
+    int[] counts = new TregexBatch(patterns(), 3).countMatches(trees);
+    // each run of four trees has 3 NP < NN, 6 /^NN/, 1 VP !< PP and 1 NP < (PP < NP);
+    // the last tree is another copy of the first
+    assertTrue(Arrays.toString(counts), Arrays.equals(new int[] { 25 * 3 + 2, 25 * 6 + 2, 25, 25 }, counts));
+  }
+
+  public void testProcessInOrder() {
+    List<Tree> trees = trees(300);
+    List<Integer> numbers = new ArrayList<>();
+    TregexBatch.processInOrder(trees, 4, (tree, treeNumber) -> treeNumber, numbers::add);
+    assertEquals(300, numbers.size());
+    for (int i = 0; i < numbers.size(); i++) {
+      assertEquals(i, (int) numbers.get(i));
+    }
+  }
+
+  public void testProcessInOrderThrows() {
+    List<Integer> numbers = new ArrayList<>();
+    try {
+      TregexBatch.processInOrder(trees(300), 4, (tree, treeNumber) -> {
+        if (treeNumber == 100) {
+          throw new IllegalStateException("tree " + treeNumber);
+        }
+        return treeNumber;
+      }, numbers::add);
+      fail("Expected the exception processing tree 100");
+    } catch (IllegalStateException e) {
+      assertEquals("tree 100", e.getMessage());
+    }
+    // the trees before the one which failed are all given to the consumer
+    assertEquals(100, numbers.size());
+  }
+
+}
@@ -580,6 +580,34 @@ public class TsurgeonTest extends TestCase {
     runTest(tregex, tsurgeon, "(A (B bar) (C foo))", null);
   }
 
+  public void testProcessPatternsOnTreesInParallel() {
+    List<Pair<TregexPattern, TsurgeonPattern>> ops = new ArrayList<>();
+    ops.add(new Pair<>(TregexPattern.compile("A=foo < B=bar < C=baz"), Tsurgeon.parseOperation("[relabel baz BAZ] [move baz >-1 bar]")));
+    ops.add(new Pair<>(TregexPattern.compile("D=d"), Tsurgeon.parseOperation("prune d")));
+    ops.add(new Pair<>(TregexPattern.compile("NP=n < NN"), Tsurgeon.parseOperation("relabel n NX")));
+    String[] inputs = {
+      "(A (B foo) (C foo) (C bar))",
+      "(D (E x))",
+      "(S (NP (DT the) (NN cat)) (VP (V sat)))",
+      "(A (B foo) (D bar))",
+    };
+    List<String> expected = new ArrayList<>();
+    List<Tree> trees = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      String input = inputs[i % inputs.length].replace("foo", "foo" + i);
+      Tree result = Tsurgeon.processPatternsOnTree(ops, treeFromString(input));
+      expected.add(String.valueOf(result));
+      trees.add(treeFromString(input));
+    }
+    List<Tree> results = Tsurgeon.processPatternsOnTrees(ops, trees, 4);
+    List<String> resultStrings = new ArrayList<>();
+    for (Tree result : results) {
+      resultStrings.add(String.valueOf(result));
+    }
+    assertEquals(expected, resultStrings);
+    assertEquals("null", resultStrings.get(1));
+  }
+
   public static void runTest(TregexPattern tregex, TsurgeonPattern tsurgeon,
                       String input, String expected) {
     Tree result = Tsurgeon.processPattern(tregex, tsurgeon,